@@ -0,0 +1,127 @@
+package com.example.mcp.sqlite;
+
+import com.example.mcp.sqlite.config.CipherProfile;
+import com.example.mcp.sqlite.config.DatabaseConfig;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Generates encrypted fixture databases for the benchmarks.
+ *
+ * The fixture table {@code items} has an integer primary key {@code id} followed by
+ * {@code width - 1} columns cycling through TEXT, INTEGER and REAL. Values are derived from the
+ * row id, so every run sees the same data.
+ */
+final class BenchmarkFixtures {
+    static final String PASSPHRASE = "benchmark-passphrase";
+    static final String TABLE = "items";
+
+    private BenchmarkFixtures() {}
+
+    /**
+     * Cipher profiles by benchmark parameter name.
+     */
+    static CipherProfile profile(String name) {
+        CipherProfile defaults = CipherProfile.sqlCipher4Defaults();
+        return switch (name) {
+            case "sqlcipher4" -> defaults;
+            case "sha256-64k" -> defaults.toBuilder()
+                    .name("HMAC_SHA256, 64k iterations")
+                    .kdfIterations(64_000)
+                    .hmacAlgorithm("HMAC_SHA256")
+                    .kdfAlgorithm("PBKDF2_HMAC_SHA256")
+                    .build();
+            case "fast" -> defaults.toBuilder()
+                    .name("Benchmark fixtures")
+                    .kdfIterations(4_000)
+                    .build();
+            default -> throw new IllegalArgumentException("Unknown profile: " + name);
+        };
+    }
+
+    /**
+     * Creates a database with {@code rows} rows of the given width in a new temporary directory.
+     */
+    static DatabaseConfig createDatabase(EncryptedSqliteClient client, CipherProfile profile, int rows, int width)
+            throws SQLException {
+        Path file;
+        try {
+            file = Files.createTempDirectory("mcp-sqlite-bench-").resolve("fixture.sqlite");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        DatabaseConfig config = new DatabaseConfig(file, PASSPHRASE, profile);
+        client.withWriteConnection(config, conn -> {
+            try (Statement statement = conn.createStatement()) {
+                statement.execute(createTableSql(width));
+            }
+            return client.insertOrUpdate(conn, TABLE, List.of("id"), rows(0, rows, width), 500);
+        });
+        return config;
+    }
+
+    static String createTableSql(int width) {
+        StringBuilder sql = new StringBuilder("CREATE TABLE ").append(TABLE).append(" (id INTEGER PRIMARY KEY");
+        List<String> columns = columns(width);
+        for (int i = 1; i < columns.size(); i++) {
+            sql.append(", ").append(columns.get(i)).append(' ').append(switch (i % 3) {
+                case 1 -> "TEXT";
+                case 2 -> "INTEGER";
+                default -> "REAL";
+            });
+        }
+        return sql.append(')').toString();
+    }
+
+    static List<String> columns(int width) {
+        List<String> columns = new ArrayList<>(width);
+        columns.add("id");
+        for (int i = 1; i < width; i++) {
+            columns.add("c" + i);
+        }
+        return columns;
+    }
+
+    static List<Map<String, Object>> rows(int firstId, int count, int width) {
+        List<String> columns = columns(width);
+        List<Map<String, Object>> rows = new ArrayList<>(count);
+        for (int id = firstId; id < firstId + count; id++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", id);
+            for (int i = 1; i < width; i++) {
+                row.put(columns.get(i), switch (i % 3) {
+                    case 1 -> "value " + id + "/" + i;
+                    case 2 -> (long) id * i;
+                    default -> id / (double) i;
+                });
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * Deletes the temporary directory of a fixture database.
+     */
+    static void delete(DatabaseConfig config) {
+        Path directory = config.databasePath().getParent();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.mcp.sqlite;
+
+import com.example.mcp.sqlite.config.DatabaseConfig;
+import com.example.mcp.sqlite.pool.DerivedKeyCache;
+import com.example.mcp.sqlite.pool.PoolSettings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of opening an encrypted connection, with and without the derived key cache. Without
+ * the cache every open runs the full PBKDF2 key stretching of the cipher profile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ConnectionOpenBenchmark {
+    @Param({"sqlcipher4", "sha256-64k"})
+    public String profile;
+
+    @Param({"true", "false"})
+    public boolean keyCache;
+
+    @Param({"false", "true"})
+    public boolean writer;
+
+    private EncryptedSqliteClient client;
+    private DatabaseConfig config;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        DerivedKeyCache cache = new DerivedKeyCache(keyCache ? Duration.ofHours(1) : Duration.ZERO, 16);
+        client = new EncryptedSqliteClient(PoolSettings.defaults(), cache);
+        config = BenchmarkFixtures.createDatabase(client, BenchmarkFixtures.profile(profile), 100, 4);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+        BenchmarkFixtures.delete(config);
+    }
+
+    @Benchmark
+    public boolean open() throws SQLException {
+        try (Connection connection = client.openUnpooled(config, writer)) {
+            return connection.getAutoCommit();
+        }
+    }
+}
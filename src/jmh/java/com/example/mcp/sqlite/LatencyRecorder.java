@@ -0,0 +1,47 @@
+package com.example.mcp.sqlite;
+
+import java.util.Arrays;
+
+/**
+ * Latencies and error count of one tool. Samples are kept in full, so percentiles are exact.
+ */
+final class LatencyRecorder {
+    private long[] micros = new long[1024];
+    private int count;
+    private int errors;
+
+    synchronized void record(long latencyMicros, boolean error) {
+        if (count == micros.length) {
+            micros = Arrays.copyOf(micros, count * 2);
+        }
+        micros[count++] = latencyMicros;
+        if (error) {
+            errors++;
+        }
+    }
+
+    synchronized Summary summarize(double seconds) {
+        long[] sorted = Arrays.copyOf(micros, count);
+        Arrays.sort(sorted);
+        return new Summary(count, errors, seconds > 0 ? count / seconds : 0,
+                percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                percentile(sorted, 0.999), count == 0 ? 0 : sorted[count - 1]);
+    }
+
+    /**
+     * Nearest-rank percentile of sorted samples.
+     */
+    static long percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(fraction * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    /**
+     * Latencies in microseconds, throughput in responses per second.
+     */
+    record Summary(int count, int errors, double throughput,
+                   long p50, long p90, long p99, long p999, long max) {}
+}
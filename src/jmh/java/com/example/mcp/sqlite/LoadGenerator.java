@@ -0,0 +1,344 @@
+package com.example.mcp.sqlite;
+
+import com.example.mcp.sqlite.config.DatabaseConfig;
+import com.example.mcp.sqlite.pool.DerivedKeyCache;
+import com.example.mcp.sqlite.pool.PoolSettings;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.Pipe;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop JSON-RPC load test against an in-process {@link McpServer}.
+ *
+ * The server runs its regular {@code run()} loop behind pipes, against a generated encrypted
+ * database. Requests are sent at a fixed rate, either evenly spaced or with exponentially
+ * distributed gaps (Poisson arrivals), independent of how fast responses come back. Latency
+ * is measured from the time a request was scheduled, not when it could actually be written,
+ * so a stalled server shows up in the percentiles instead of lowering the offered load.
+ *
+ * Options (all {@code --name=value}):
+ * <ul>
+ *     <li>{@code rate}: requests per second (default 200)</li>
+ *     <li>{@code duration}, {@code warmup}: measured and unmeasured seconds (default 30, 5)</li>
+ *     <li>{@code arrival}: {@code poisson} or {@code constant} (default poisson)</li>
+ *     <li>{@code mix}: weighted tools, e.g. {@code get_table_data:60,insert_or_update:20}</li>
+ *     <li>{@code rows}, {@code width}: size of the fixture table (default 10000, 8)</li>
+ *     <li>{@code profile}: cipher profile of the fixture, see {@link BenchmarkFixtures#profile}</li>
+ *     <li>{@code seed}: random seed for arrivals, tool choice and arguments</li>
+ *     <li>{@code output}: JSON report file (default: none)</li>
+ * </ul>
+ */
+public final class LoadGenerator {
+    private static final String DEFAULT_MIX =
+            "get_table_data:50,execute_sql:15,list_tables:10,get_table_schema:5,insert_or_update:15,delete_rows:5";
+    private static final List<String> TOOLS = List.of("get_table_data", "execute_sql", "list_tables",
+            "get_table_schema", "describe_database", "insert_or_update", "delete_rows");
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(60);
+
+    private final Options options;
+    private final Random random;
+    private final Map<String, LatencyRecorder> recorders = new LinkedHashMap<>();
+    private final Map<String, Sent> outstanding = new ConcurrentHashMap<>();
+    private final Gson gson = new Gson();
+
+    record Options(double rate, Duration duration, Duration warmup, boolean poisson, Map<String, Integer> mix,
+                   int rows, int width, String profile, long seed, Path output) {
+
+        static Options parse(String[] args) {
+            Map<String, String> values = new LinkedHashMap<>();
+            for (String arg : args) {
+                int separator = arg.indexOf('=');
+                if (!arg.startsWith("--") || separator < 0) {
+                    throw new IllegalArgumentException("Expected --name=value, but got: " + arg);
+                }
+                values.put(arg.substring(2, separator), arg.substring(separator + 1));
+            }
+            Options options = new Options(
+                    Double.parseDouble(values.getOrDefault("rate", "200")),
+                    Duration.ofSeconds(Long.parseLong(values.getOrDefault("duration", "30"))),
+                    Duration.ofSeconds(Long.parseLong(values.getOrDefault("warmup", "5"))),
+                    switch (values.getOrDefault("arrival", "poisson")) {
+                        case "poisson" -> true;
+                        case "constant" -> false;
+                        default -> throw new IllegalArgumentException("arrival must be poisson or constant");
+                    },
+                    parseMix(values.getOrDefault("mix", DEFAULT_MIX)),
+                    Integer.parseInt(values.getOrDefault("rows", "10000")),
+                    Integer.parseInt(values.getOrDefault("width", "8")),
+                    values.getOrDefault("profile", "sqlcipher4"),
+                    Long.parseLong(values.getOrDefault("seed", "42")),
+                    values.containsKey("output") ? Path.of(values.get("output")) : null);
+            if (options.rate <= 0) {
+                throw new IllegalArgumentException("rate must be positive");
+            }
+            if (options.rows < 1 || options.width < 2) {
+                throw new IllegalArgumentException("rows must be at least 1 and width at least 2");
+            }
+            return options;
+        }
+
+        private static Map<String, Integer> parseMix(String text) {
+            Map<String, Integer> mix = new LinkedHashMap<>();
+            for (String entry : text.split(",")) {
+                String[] parts = entry.trim().split(":");
+                if (!TOOLS.contains(parts[0])) {
+                    throw new IllegalArgumentException("Unsupported tool in mix: " + parts[0] + ", expected one of " + TOOLS);
+                }
+                int weight = parts.length > 1 ? Integer.parseInt(parts[1]) : 1;
+                if (weight < 1) {
+                    throw new IllegalArgumentException("Weight of " + parts[0] + " must be at least 1");
+                }
+                mix.put(parts[0], weight);
+            }
+            return mix;
+        }
+    }
+
+    private record Sent(String tool, long scheduledNanos, boolean measured) {}
+
+    LoadGenerator(Options options) {
+        this.options = options;
+        this.random = new Random(options.seed());
+        for (String tool : options.mix().keySet()) {
+            recorders.put(tool, new LatencyRecorder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new LoadGenerator(Options.parse(args)).run();
+    }
+
+    void run() throws Exception {
+        EncryptedSqliteClient fixtureClient =
+                new EncryptedSqliteClient(PoolSettings.defaults(), new DerivedKeyCache(Duration.ofHours(1), 16));
+        DatabaseConfig config;
+        try {
+            config = BenchmarkFixtures.createDatabase(fixtureClient, BenchmarkFixtures.profile(options.profile()),
+                    options.rows(), options.width());
+        } finally {
+            fixtureClient.close();
+        }
+        try {
+            Pipe requests = Pipe.open();
+            Pipe responses = Pipe.open();
+            McpServer server = new McpServer(config, false, Channels.newInputStream(requests.source()),
+                    new PrintStream(Channels.newOutputStream(responses.sink()), false, StandardCharsets.UTF_8));
+            Thread serverThread = Thread.ofPlatform().name("load-server").start(() -> {
+                try {
+                    server.run();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    try {
+                        responses.sink().close();
+                    } catch (IOException ignored) {
+                        // Reader sees end of stream either way
+                    }
+                }
+            });
+            Thread readerThread = Thread.ofPlatform().name("load-reader")
+                    .start(() -> readResponses(responses));
+
+            try (OutputStream out = Channels.newOutputStream(requests.sink())) {
+                send(out);
+                awaitResponses();
+            }
+            serverThread.join();
+            readerThread.join();
+            report();
+        } finally {
+            BenchmarkFixtures.delete(config);
+        }
+    }
+
+    /**
+     * Sends requests on schedule until warmup plus duration have elapsed.
+     */
+    private void send(OutputStream out) throws IOException {
+        List<String> tools = List.copyOf(options.mix().keySet());
+        int totalWeight = options.mix().values().stream().mapToInt(Integer::intValue).sum();
+        double meanGapNanos = TimeUnit.SECONDS.toNanos(1) / options.rate();
+        long start = System.nanoTime();
+        long measureFrom = start + options.warmup().toNanos();
+        long end = measureFrom + options.duration().toNanos();
+        double offset = 0;
+        long id = 0;
+        while (true) {
+            long scheduled = start + (long) offset;
+            if (scheduled >= end) {
+                return;
+            }
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            String tool = pick(tools, totalWeight);
+            String requestId = Long.toString(++id);
+            outstanding.put(requestId, new Sent(tool, scheduled, scheduled >= measureFrom));
+            out.write(request(requestId, tool).getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            offset += options.poisson() ? -Math.log(1 - random.nextDouble()) * meanGapNanos : meanGapNanos;
+        }
+    }
+
+    private String pick(List<String> tools, int totalWeight) {
+        int ticket = random.nextInt(totalWeight);
+        for (String tool : tools) {
+            ticket -= options.mix().get(tool);
+            if (ticket < 0) {
+                return tool;
+            }
+        }
+        throw new IllegalStateException("Weights do not add up");
+    }
+
+    /**
+     * Builds one {@code tools/call} line. Reads hit random ids of the fixture; writes go to
+     * ids above it, so the fixture rows stay intact.
+     */
+    private String request(String id, String tool) {
+        String table = BenchmarkFixtures.TABLE;
+        int rows = options.rows();
+        JsonObject arguments = new JsonObject();
+        switch (tool) {
+            case "get_table_data" -> {
+                arguments.addProperty("table", table);
+                arguments.addProperty("limit", 50);
+                arguments.addProperty("offset", random.nextInt(rows));
+            }
+            case "execute_sql" -> arguments.addProperty("sql",
+                    "SELECT * FROM " + table + " WHERE id = " + random.nextInt(rows));
+            case "get_table_schema" -> arguments.addProperty("table", table);
+            case "insert_or_update" -> {
+                arguments.addProperty("table", table);
+                arguments.add("primary_keys", gson.toJsonTree(List.of("id")));
+                arguments.add("rows", gson.toJsonTree(
+                        BenchmarkFixtures.rows(rows + random.nextInt(rows), 1, options.width())));
+            }
+            case "delete_rows" -> {
+                arguments.addProperty("table", table);
+                JsonObject filters = new JsonObject();
+                filters.addProperty("id", rows + random.nextInt(rows));
+                arguments.add("filters", filters);
+            }
+            default -> {
+                // list_tables, describe_database: no arguments
+            }
+        }
+        JsonObject params = new JsonObject();
+        params.addProperty("name", tool);
+        params.add("arguments", arguments);
+        JsonObject request = new JsonObject();
+        request.addProperty("jsonrpc", "2.0");
+        request.addProperty("id", id);
+        request.addProperty("method", "tools/call");
+        request.add("params", params);
+        return gson.toJson(request) + "\n";
+    }
+
+    private void readResponses(Pipe responses) {
+        try (BufferedReader in = new BufferedReader(
+                new InputStreamReader(Channels.newInputStream(responses.source()), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                long received = System.nanoTime();
+                if (line.isBlank()) {
+                    continue;
+                }
+                JsonObject response = JsonParser.parseString(line).getAsJsonObject();
+                JsonElement id = response.get("id");
+                Sent sent = id == null || id.isJsonNull() ? null : outstanding.remove(id.getAsString());
+                if (sent != null && sent.measured()) {
+                    recorders.get(sent.tool()).record(
+                            TimeUnit.NANOSECONDS.toMicros(received - sent.scheduledNanos()), response.has("error"));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void awaitResponses() throws InterruptedException {
+        long deadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+        while (!outstanding.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        if (!outstanding.isEmpty()) {
+            System.err.println("WARNING: " + outstanding.size() + " requests unanswered after " + DRAIN_TIMEOUT.toSeconds() + " s");
+        }
+    }
+
+    private void report() throws IOException {
+        double seconds = options.duration().toNanos() / 1e9;
+        Map<String, LatencyRecorder.Summary> summaries = new LinkedHashMap<>();
+        recorders.forEach((tool, recorder) -> summaries.put(tool, recorder.summarize(seconds)));
+
+        System.out.printf(Locale.ROOT, "%-18s %8s %7s %9s %10s %10s %10s %10s %10s%n",
+                "tool", "count", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<String, LatencyRecorder.Summary> entry : summaries.entrySet()) {
+            LatencyRecorder.Summary s = entry.getValue();
+            System.out.printf(Locale.ROOT, "%-18s %8d %7d %9.1f %10.2f %10.2f %10.2f %10.2f %10.2f%n",
+                    entry.getKey(), s.count(), s.errors(), s.throughput(),
+                    s.p50() / 1000.0, s.p90() / 1000.0, s.p99() / 1000.0, s.p999() / 1000.0, s.max() / 1000.0);
+        }
+
+        if (options.output() != null) {
+            JsonObject report = new JsonObject();
+            JsonObject settings = new JsonObject();
+            settings.addProperty("rate", options.rate());
+            settings.addProperty("duration_s", options.duration().toSeconds());
+            settings.addProperty("warmup_s", options.warmup().toSeconds());
+            settings.addProperty("arrival", options.poisson() ? "poisson" : "constant");
+            settings.addProperty("rows", options.rows());
+            settings.addProperty("width", options.width());
+            settings.addProperty("profile", options.profile());
+            settings.addProperty("seed", options.seed());
+            report.add("options", settings);
+            report.add("mix", gson.toJsonTree(options.mix()));
+            JsonObject tools = new JsonObject();
+            summaries.forEach((tool, s) -> {
+                JsonObject json = new JsonObject();
+                json.addProperty("count", s.count());
+                json.addProperty("errors", s.errors());
+                json.addProperty("throughput", s.throughput());
+                json.addProperty("p50_us", s.p50());
+                json.addProperty("p90_us", s.p90());
+                json.addProperty("p99_us", s.p99());
+                json.addProperty("p999_us", s.p999());
+                json.addProperty("max_us", s.max());
+                tools.add(tool, json);
+            });
+            report.add("tools", tools);
+            report.addProperty("unanswered", outstanding.size());
+            Path parent = options.output().toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Files.writeString(options.output(), new GsonBuilder().setPrettyPrinting().create().toJson(report));
+            System.out.println("Report written to " + options.output());
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.mcp.sqlite;
+
+import com.example.mcp.sqlite.config.DatabaseConfig;
+import com.example.mcp.sqlite.pool.DerivedKeyCache;
+import com.example.mcp.sqlite.pool.PoolSettings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One JSON-RPC message through {@code McpServer.processLine}: parsing, dispatch, the database
+ * work and writing the response (to a discarding stream).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ProtocolBenchmark {
+    @Param({"tools_list", "list_tables", "get_table_data", "describe_database"})
+    public String request;
+
+    private EncryptedSqliteClient fixtureClient;
+    private DatabaseConfig config;
+    private McpServer server;
+    private String line;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        fixtureClient = new EncryptedSqliteClient(PoolSettings.defaults(), new DerivedKeyCache(Duration.ofHours(1), 16));
+        config = BenchmarkFixtures.createDatabase(fixtureClient, BenchmarkFixtures.profile("fast"), 1000, 8);
+        fixtureClient.close();
+        server = new McpServer(config, false, InputStream.nullInputStream(), new PrintStream(OutputStream.nullOutputStream()));
+        line = switch (request) {
+            case "tools_list" -> "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"tools/list\"}";
+            case "list_tables" -> toolCall("list_tables", "{\"include_columns\":true}");
+            case "get_table_data" -> toolCall("get_table_data", "{\"table\":\"" + BenchmarkFixtures.TABLE + "\",\"limit\":100}");
+            case "describe_database" -> toolCall("describe_database", "{}");
+            default -> throw new IllegalArgumentException("Unknown request: " + request);
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.shutdown();
+        BenchmarkFixtures.delete(config);
+    }
+
+    @Benchmark
+    public void processLine() {
+        server.processLine(line);
+    }
+
+    private static String toolCall(String tool, String arguments) {
+        return "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"tools/call\",\"params\":{\"name\":\"" + tool
+                + "\",\"arguments\":" + arguments + "}}";
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.mcp.sqlite;
+
+import com.example.mcp.sqlite.config.DatabaseConfig;
+import com.example.mcp.sqlite.pool.DerivedKeyCache;
+import com.example.mcp.sqlite.pool.PoolSettings;
+import com.example.mcp.sqlite.util.SqliteUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading and materializing rows on a pooled reader connection, across result sizes and row
+ * widths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class QueryBenchmark {
+    @Param({"100", "10000"})
+    public int rows;
+
+    @Param({"4", "32"})
+    public int width;
+
+    private EncryptedSqliteClient client;
+    private DatabaseConfig config;
+    private String selectAll;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        client = new EncryptedSqliteClient(PoolSettings.defaults(), new DerivedKeyCache(Duration.ofHours(1), 16));
+        config = BenchmarkFixtures.createDatabase(client, BenchmarkFixtures.profile("fast"), rows, width);
+        selectAll = "SELECT * FROM " + BenchmarkFixtures.TABLE;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+        BenchmarkFixtures.delete(config);
+    }
+
+    /**
+     * {@code selectTable} as used by {@code get_table_data} without streaming.
+     */
+    @Benchmark
+    public EncryptedSqliteClient.QueryResult selectTable() throws SQLException {
+        return client.withConnection(config,
+                conn -> client.selectTable(conn, BenchmarkFixtures.TABLE, null, null, rows, 0));
+    }
+
+    /**
+     * Row materialization alone, on a statement prepared once per call.
+     */
+    @Benchmark
+    public List<Map<String, Object>> toRowList() throws SQLException {
+        return client.withConnection(config, conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(selectAll);
+                 ResultSet rs = ps.executeQuery()) {
+                return SqliteUtil.toRowList(rs);
+            }
+        });
+    }
+}
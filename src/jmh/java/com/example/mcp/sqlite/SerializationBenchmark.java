@@ -0,0 +1,116 @@
+package com.example.mcp.sqlite;
+
+import com.example.mcp.sqlite.config.DatabaseConfig;
+import com.example.mcp.sqlite.pool.DerivedKeyCache;
+import com.example.mcp.sqlite.pool.PoolSettings;
+import com.example.mcp.sqlite.util.SqliteUtil;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding a query result as JSON: Gson on a materialized {@link EncryptedSqliteClient.QueryResult}
+ * versus a {@link JsonWriter} fed from the materialized rows or straight from the ResultSet, as
+ * the server streams responses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class SerializationBenchmark {
+    @Param({"100", "10000"})
+    public int rows;
+
+    @Param({"4", "32"})
+    public int width;
+
+    private final Gson gson = new GsonBuilder().serializeNulls().create();
+    private EncryptedSqliteClient client;
+    private DatabaseConfig config;
+    private EncryptedSqliteClient.QueryResult result;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        client = new EncryptedSqliteClient(PoolSettings.defaults(), new DerivedKeyCache(Duration.ofHours(1), 16));
+        config = BenchmarkFixtures.createDatabase(client, BenchmarkFixtures.profile("fast"), rows, width);
+        result = client.withConnection(config,
+                conn -> client.selectTable(conn, BenchmarkFixtures.TABLE, null, null, rows, 0));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+        BenchmarkFixtures.delete(config);
+    }
+
+    @Benchmark
+    public void gsonQueryResult() {
+        gson.toJson(result, Writer.nullWriter());
+    }
+
+    @Benchmark
+    public void jsonWriterRows() throws IOException {
+        try (JsonWriter out = new JsonWriter(Writer.nullWriter())) {
+            out.beginObject().name("rows").beginArray();
+            for (Map<String, Object> row : result.rows()) {
+                out.beginObject();
+                for (Map.Entry<String, Object> column : row.entrySet()) {
+                    out.name(column.getKey());
+                    SqliteUtil.writeValue(out, column.getValue());
+                }
+                out.endObject();
+            }
+            out.endArray().endObject();
+        }
+    }
+
+    /**
+     * Includes reading the rows, so compare it with {@code QueryBenchmark.toRowList} plus
+     * {@link #gsonQueryResult()}.
+     */
+    @Benchmark
+    public int streamFromResultSet() throws SQLException {
+        return client.withConnection(config, conn -> {
+            try (PreparedStatement ps = conn.prepareStatement("SELECT * FROM " + BenchmarkFixtures.TABLE);
+                 ResultSet rs = ps.executeQuery();
+                 JsonWriter out = new JsonWriter(Writer.nullWriter())) {
+                SqliteUtil.ColumnLayout layout = SqliteUtil.ColumnLayout.of(rs.getMetaData());
+                int count = 0;
+                out.beginObject().name("rows").beginArray();
+                while (rs.next()) {
+                    SqliteUtil.writeRow(rs, layout, out);
+                    count++;
+                }
+                out.endArray().endObject();
+                return count;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+}
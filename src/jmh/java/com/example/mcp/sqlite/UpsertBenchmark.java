@@ -0,0 +1,67 @@
+package com.example.mcp.sqlite;
+
+import com.example.mcp.sqlite.config.DatabaseConfig;
+import com.example.mcp.sqlite.pool.DerivedKeyCache;
+import com.example.mcp.sqlite.pool.PoolSettings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One {@code insertOrUpdate} call of 1000 rows, committed on the writer connection, by batch
+ * size. Every invocation rewrites the same ids, so the table size stays constant.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class UpsertBenchmark {
+    private static final int ROWS = 1000;
+
+    @Param({"1", "64", "500"})
+    public int chunkSize;
+
+    @Param({"8"})
+    public int width;
+
+    private EncryptedSqliteClient client;
+    private DatabaseConfig config;
+    private List<Map<String, Object>> rows;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        client = new EncryptedSqliteClient(PoolSettings.defaults(), new DerivedKeyCache(Duration.ofHours(1), 16));
+        config = BenchmarkFixtures.createDatabase(client, BenchmarkFixtures.profile("fast"), ROWS, width);
+        rows = BenchmarkFixtures.rows(0, ROWS, width);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+        BenchmarkFixtures.delete(config);
+    }
+
+    @Benchmark
+    public int insertOrUpdate() throws SQLException {
+        return client.withWriteConnection(config,
+                conn -> client.insertOrUpdate(conn, BenchmarkFixtures.TABLE, List.of("id"), rows, chunkSize));
+    }
+}
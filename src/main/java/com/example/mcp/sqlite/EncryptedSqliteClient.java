@@ -1,21 +1,43 @@
 package com.example.mcp.sqlite;
 
+import com.example.mcp.sqlite.cache.QueryResultCache;
+import com.example.mcp.sqlite.cache.QueryResultCacheStats;
 import com.example.mcp.sqlite.config.CipherProfile;
 import com.example.mcp.sqlite.config.DatabaseConfig;
+import com.example.mcp.sqlite.config.TuningProfile;
+import com.example.mcp.sqlite.cursor.QueryCursor;
+import com.example.mcp.sqlite.metrics.Histogram;
+import com.example.mcp.sqlite.pool.ConnectionPool;
+import com.example.mcp.sqlite.pool.DerivedKeyCache;
+import com.example.mcp.sqlite.pool.PoolSettings;
+import com.example.mcp.sqlite.pool.PooledConnection;
+import com.example.mcp.sqlite.pool.StatementCacheStats;
+import com.example.mcp.sqlite.schema.SchemaCache;
+import com.example.mcp.sqlite.util.LruCache;
+import com.example.mcp.sqlite.util.PageToken;
 import com.example.mcp.sqlite.util.SqlIdentifierValidator;
 import com.example.mcp.sqlite.util.SqliteUtil;
+import com.example.mcp.sqlite.write.WriteQueue;
+import com.example.mcp.sqlite.write.WriteQueueSettings;
 
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.ResultSetMetaData;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Locale;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.sqlite.SQLiteConfig;
 import org.sqlite.mc.HmacAlgorithm;
@@ -23,25 +45,247 @@ import org.sqlite.mc.KdfAlgorithm;
 import org.sqlite.mc.SQLiteMCConfig;
 import org.sqlite.mc.SQLiteMCSqlCipherConfig;
 
-public class EncryptedSqliteClient {
+public class EncryptedSqliteClient implements AutoCloseable {
+    public static final int DEFAULT_UPSERT_CHUNK_SIZE = 500;
+    private static final String KEYSET_ALIAS_PREFIX = "__mcp_key_";
+    private static final int SQL_SHAPE_CACHE_SIZE = 512;
+    // Set-based schema queries; ?1 restricts them to one table, NULL selects all tables
+    private static final String SCHEMA_FILTER =
+            " AND m.name NOT LIKE 'sqlite_%' AND (?1 IS NULL OR m.name = ?1 COLLATE NOCASE)";
+    private static final String SCHEMA_OBJECTS_SQL =
+            "SELECT type, name, sql FROM sqlite_schema WHERE type IN ('table', 'view') AND name NOT LIKE 'sqlite_%' ORDER BY name";
+    private static final String COLUMNS_SQL =
+            "SELECT m.name AS table_name, p.cid, p.name, p.type, p.\"notnull\", p.dflt_value, p.pk"
+                    + " FROM sqlite_schema AS m JOIN pragma_table_info(m.name) AS p"
+                    + " WHERE m.type IN ('table', 'view')" + SCHEMA_FILTER
+                    + " ORDER BY m.name, p.cid";
+    private static final String INDEX_COLUMNS_SQL =
+            "SELECT m.name AS table_name, il.name AS index_name, il.\"unique\", il.origin, ii.name AS column_name"
+                    + " FROM sqlite_schema AS m JOIN pragma_index_list(m.name) AS il"
+                    + " LEFT JOIN pragma_index_info(il.name) AS ii"
+                    + " WHERE m.type = 'table'" + SCHEMA_FILTER
+                    + " ORDER BY m.name, il.seq, ii.seqno";
+    private static final String FOREIGN_KEYS_SQL =
+            "SELECT m.name AS table_name, fk.id, fk.seq, fk.\"table\", fk.\"from\", fk.\"to\","
+                    + " fk.on_update, fk.on_delete, fk.\"match\""
+                    + " FROM sqlite_schema AS m JOIN pragma_foreign_key_list(m.name) AS fk"
+                    + " WHERE m.type = 'table'" + SCHEMA_FILTER
+                    + " ORDER BY m.name, fk.id, fk.seq";
+    private final ConnectionPool readers;
+    private final ConnectionPool writers;
+    private final DerivedKeyCache keyCache;
+    private final ConnectionOpener connectionOpener;
+    private final WriteQueue writeQueue;
+    // Each open cursor pins a reader; at least one reader per database stays free for other reads
+    private final int maxCursorsPerDatabase;
+    private final ConcurrentHashMap<Path, Integer> openCursors = new ConcurrentHashMap<>();
+    // Generated SQL by statement shape; equal text lets the per-connection statement cache hit
+    private final LruCache<SqlShape, String> sqlByShape = new LruCache<>(SQL_SHAPE_CACHE_SIZE);
+    private final SchemaCache schemaCache = new SchemaCache();
+    private final QueryResultCache resultCache = new QueryResultCache();
+    private final Histogram readerOpens = new Histogram();
+    private final Histogram writerOpens = new Histogram();
+
     public EncryptedSqliteClient() {
+        this(PoolSettings.fromEnvironment(), DerivedKeyCache.fromEnvironment(), WriteQueueSettings.fromEnvironment());
+    }
+
+    public EncryptedSqliteClient(PoolSettings poolSettings, DerivedKeyCache keyCache) {
+        this(poolSettings, keyCache, WriteQueueSettings.defaults());
+    }
+
+    public EncryptedSqliteClient(PoolSettings poolSettings, DerivedKeyCache keyCache, WriteQueueSettings writeQueueSettings) {
+        this(poolSettings, keyCache, writeQueueSettings, null);
+    }
+
+    /**
+     * @param connectionOpener Opens keyed connections, or null for SQLCipher connections
+     */
+    EncryptedSqliteClient(PoolSettings poolSettings, DerivedKeyCache keyCache, WriteQueueSettings writeQueueSettings,
+                          ConnectionOpener connectionOpener) {
         try {
             Class.forName("org.sqlite.JDBC");
         } catch (ClassNotFoundException e) {
             throw new IllegalStateException("Unable to load org.sqlite.JDBC", e);
         }
+        this.connectionOpener = connectionOpener != null ? connectionOpener : this::createConnection;
+        this.keyCache = Objects.requireNonNull(keyCache, "keyCache");
+        this.readers = new ConnectionPool(config -> openConnection(config, false), poolSettings);
+        this.maxCursorsPerDatabase = poolSettings.maxConnectionsPerKey() - 1;
+        // One writer per database file, whatever the tuning of the call: writes queue here
+        // instead of in SQLite's busy handler
+        this.writers = new ConnectionPool(config -> openConnection(config, true), poolSettings.withMaxConnectionsPerKey(1),
+                ConnectionPool.Partitioning.DATABASE);
+        this.writeQueue = new WriteQueue(writeQueueSettings,
+                (config, batch) -> withPooledConnection(writers, config, batch::apply));
     }
 
+    /**
+     * Runs an action with a pooled read-only connection for the given database.
+     * The connection is borrowed from the pool and returned afterwards; callers must not close it.
+     *
+     * @param config Database configuration
+     * @param action Action to run with the connection
+     * @return The result of the action
+     * @throws SQLException if no connection can be obtained or the action fails
+     */
     public <T> T withConnection(DatabaseConfig config, SqlFunction<Connection, T> action) throws SQLException {
+        return withPooledConnection(readers, config, action);
+    }
+
+    /**
+     * Runs an action with the writer connection of the given database. There is one writer per
+     * database file, opened on first use with the database in WAL mode; concurrent callers wait
+     * for it. The writer keeps the pragmas of the tuning profile it was opened with, so a
+     * different tuning profile in {@code config} does not change it. Callers must not close
+     * the connection.
+     *
+     * @param config Database configuration
+     * @param action Action to run with the connection
+     * @return The result of the action
+     * @throws SQLException if the writer cannot be obtained or the action fails
+     */
+    public <T> T withWriteConnection(DatabaseConfig config, SqlFunction<Connection, T> action) throws SQLException {
+        return withPooledConnection(writers, config, action);
+    }
+
+    /**
+     * Runs a small write through the write queue of the given database, where it is committed
+     * together with other writes arriving at the same time. The action runs inside a transaction
+     * and a savepoint of its own; it must not commit, roll back or change the autocommit mode.
+     *
+     * @param config Database configuration
+     * @param action Write to run with the writer connection
+     * @return The result of the action, once its batch has committed
+     * @throws SQLException if the action or the commit of its batch fails
+     */
+    public <T> T withQueuedWrite(DatabaseConfig config, SqlFunction<Connection, T> action) throws SQLException {
+        Objects.requireNonNull(action, "action");
+        return writeQueue.submit(config, action::apply);
+    }
+
+    private static <T> T withPooledConnection(ConnectionPool pool,
+                                              DatabaseConfig config,
+                                              SqlFunction<Connection, T> action) throws SQLException {
         Objects.requireNonNull(config, "config");
         Objects.requireNonNull(action, "action");
-        try (Connection connection = openConnection(config)) {
-            return action.apply(connection);
+        PooledConnection pooled = pool.borrow(config);
+        try {
+            return action.apply(pooled.connection());
+        } finally {
+            pool.release(pooled);
         }
     }
 
-    private Connection openConnection(DatabaseConfig config) throws SQLException {
+    /**
+     * Prepared statement cache counters of the reader and writer pools.
+     */
+    public StatementCacheStats statementCacheStats() {
+        return readers.statementCacheStats().plus(writers.statementCacheStats());
+    }
+
+    /**
+     * Connection, key derivation, pool and cache statistics since the client was created.
+     */
+    public ClientMetrics metrics() {
+        return new ClientMetrics(readerOpens.snapshot(), writerOpens.snapshot(),
+                readers.waitTimes(), writers.waitTimes(),
+                keyCache.derivationTimes(), keyCache.hits(), keyCache.misses(),
+                statementCacheStats(), schemaCache.hits(), schemaCache.misses(),
+                resultCache.stats(), writeQueue.batches(), writeQueue.operations());
+    }
+
+    @Override
+    public void close() {
+        writeQueue.close();
+        writers.close();
+        readers.close();
+        keyCache.clear();
+        schemaCache.clear();
+        resultCache.clear();
+    }
+
+    /**
+     * Looks up a query result in the result cache of the database, which first drops its
+     * results if the database changed since the connection's last lookup.
+     *
+     * @param connection A reader connection of the database, as passed to
+     *        {@link #withConnection(DatabaseConfig, SqlFunction)}
+     * @param key Identifies the query and everything that affects its serialized result
+     * @return The lookup, or null if the database's tuning profile does not enable the cache
+     */
+    public QueryResultCache.Lookup lookupResult(Connection connection, DatabaseConfig config, String key)
+            throws SQLException {
+        long maxBytes = config.tuningProfile().resultCacheSize();
+        if (maxBytes == 0) {
+            return null;
+        }
+        return resultCache.lookup(connection, config.databasePath(), maxBytes, key);
+    }
+
+    /**
+     * Opens an unpooled connection the same way the pools do, for measuring open latency.
+     * The caller closes it.
+     */
+    Connection openUnpooled(DatabaseConfig config, boolean writer) throws SQLException {
+        return openConnection(config, writer);
+    }
+
+    /**
+     * Opens a new connection, keyed with the cached raw key when available so that
+     * SQLCipher skips the PBKDF2 key stretching. Falls back to the passphrase if the
+     * raw key is rejected (e.g. the database was re-keyed). Since SQLCipher only notices a
+     * wrong key when it decrypts a page, a raw-keyed connection reads the schema first.
+     */
+    private Connection openConnection(DatabaseConfig config, boolean writer) throws SQLException {
+        long started = System.nanoTime();
+        Connection connection = openKeyedConnection(config, writer);
+        (writer ? writerOpens : readerOpens).recordSince(started);
+        return connection;
+    }
+
+    private Connection openKeyedConnection(DatabaseConfig config, boolean writer) throws SQLException {
+        byte[] rawKey = keyCache.rawKey(config);
+        if (rawKey == null) {
+            return connectionOpener.open(config, null, writer);
+        }
+        try {
+            Connection connection = connectionOpener.open(config, rawKey, writer);
+            try {
+                verifyKey(connection);
+            } catch (SQLException e) {
+                connection.close();
+                throw e;
+            }
+            return connection;
+        } catch (SQLException ex) {
+            keyCache.invalidate(config);
+            return connectionOpener.open(config, null, writer);
+        } finally {
+            Arrays.fill(rawKey, (byte) 0);
+        }
+    }
+
+    /**
+     * Reads the schema, which fails with "file is not a database" if the key is wrong.
+     */
+    private static void verifyKey(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT count(*) FROM sqlite_schema")) {
+            rs.next();
+        }
+    }
+
+    /**
+     * Opens a reader or writer connection. Readers run with {@code query_only}, which rejects
+     * writes but, unlike a read-only open, still lets SQLite create the WAL index files it needs
+     * to read a WAL database. The writer applies the journal mode of the tuning profile (WAL by
+     * default, so readers are not blocked by an open write transaction), the page size and the
+     * checkpoint interval; cache, synchronous, temp store and mmap settings apply to both.
+     */
+    private Connection createConnection(DatabaseConfig config, byte[] rawKey, boolean writer) throws SQLException {
         CipherProfile profile = config.cipherProfile();
+        TuningProfile tuning = config.tuningProfile();
         SQLiteMCSqlCipherConfig builder = SQLiteMCSqlCipherConfig.getV4Defaults()
                 .setLegacy(4)
                 .setLegacyPageSize(profile.pageSize())
@@ -50,18 +294,64 @@ public class EncryptedSqliteClient {
                 .setHmacAlgorithm(mapHmacAlgorithm(profile.hmacAlgorithm()))
                 .setKdfAlgorithm(mapKdfAlgorithm(profile.kdfAlgorithm()))
                 .setPlaintextHeaderSize(0);
-        builder.withKey(config.passphrase());
+        if (rawKey != null) {
+            builder.withRawSaltedKey(rawKey);
+        } else {
+            builder.withKey(config.passphrase());
+        }
 
         SQLiteMCConfig mcConfig = builder.build();
         mcConfig.setPragma(SQLiteConfig.Pragma.FOREIGN_KEYS, "ON");
         // Set busy timeout to 30 seconds to wait for locks to be released
         mcConfig.setBusyTimeout(30000);
-        // Note: Read-only mode is set, but executeQuery can still execute writes
-        // This is intentional for the execute_sql tool, but should be documented
-        mcConfig.setReadOnly(true);
+        mcConfig.setPragma(SQLiteConfig.Pragma.CACHE_SIZE, Integer.toString(tuning.cacheSize()));
+        mcConfig.setPragma(SQLiteConfig.Pragma.SYNCHRONOUS, tuning.synchronous().name());
+        mcConfig.setPragma(SQLiteConfig.Pragma.TEMP_STORE, tuning.tempStore().name());
+        mcConfig.setPragma(SQLiteConfig.Pragma.MMAP_SIZE, Long.toString(tuning.mmapSize()));
+        if (writer) {
+            mcConfig.setJournalMode(SQLiteConfig.JournalMode.valueOf(tuning.journalMode().name()));
+            if (tuning.pageSize() != 0) {
+                mcConfig.setPragma(SQLiteConfig.Pragma.PAGE_SIZE, Integer.toString(tuning.pageSize()));
+            }
+        }
 
         String url = "jdbc:sqlite:" + config.databasePath();
-        return mcConfig.createConnection(url);
+        Connection connection = mcConfig.createConnection(url);
+        try (Statement statement = connection.createStatement()) {
+            if (writer) {
+                statement.execute("PRAGMA wal_autocheckpoint = " + tuning.walAutocheckpoint());
+            } else {
+                statement.execute("PRAGMA query_only = ON");
+            }
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+        return connection;
+    }
+
+    /**
+     * Reads back the pragmas of the tuning profile from the writer connection, which is the
+     * only connection that applies all of them. Values are what SQLite actually uses, e.g. a
+     * journal mode the database could not switch to or an mmap size capped by the build.
+     */
+    public EffectiveTuning effectiveTuning(DatabaseConfig config) throws SQLException {
+        return withWriteConnection(config, conn -> new EffectiveTuning(
+                pragmaValue(conn, "journal_mode").toUpperCase(Locale.ROOT),
+                Integer.parseInt(pragmaValue(conn, "cache_size")),
+                TuningProfile.Synchronous.values()[Integer.parseInt(pragmaValue(conn, "synchronous"))],
+                TuningProfile.TempStore.values()[Integer.parseInt(pragmaValue(conn, "temp_store"))],
+                Long.parseLong(pragmaValue(conn, "mmap_size")),
+                Integer.parseInt(pragmaValue(conn, "page_size")),
+                Integer.parseInt(pragmaValue(conn, "wal_autocheckpoint"))));
+    }
+
+    private static String pragmaValue(Connection connection, String pragma) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("PRAGMA " + pragma);
+             ResultSet rs = ps.executeQuery()) {
+            // mmap_size returns no row when memory mapping is not compiled in
+            return rs.next() ? rs.getString(1) : "0";
+        }
     }
 
     private HmacAlgorithm mapHmacAlgorithm(String value) {
@@ -101,15 +391,80 @@ public class EncryptedSqliteClient {
         return normalized.contains("unknown tokenizer") || normalized.contains("no such module");
     }
 
+    /**
+     * Lists tables with their columns. Results are cached per database until the schema changes.
+     */
+    public List<TableMetadata> listTables(DatabaseConfig config) throws SQLException {
+        return withConnection(config, conn -> schemaCache.get(conn, config.databasePath(), "tables",
+                () -> List.copyOf(listTables(conn))));
+    }
+
+    /**
+     * Columns of a table. Results are cached per database until the schema changes.
+     */
+    public List<ColumnMetadata> describeColumns(DatabaseConfig config, String tableName) throws SQLException {
+        SqlIdentifierValidator.validateIdentifier(tableName, "tableName");
+        return withConnection(config, conn -> schemaCache.get(conn, config.databasePath(), "columns:" + tableName,
+                () -> List.copyOf(describeColumns(conn, tableName))));
+    }
+
+    /**
+     * Indexes of a table. Results are cached per database until the schema changes.
+     */
+    public List<IndexMetadata> listIndexes(DatabaseConfig config, String tableName) throws SQLException {
+        SqlIdentifierValidator.validateIdentifier(tableName, "tableName");
+        return withConnection(config, conn -> schemaCache.get(conn, config.databasePath(), "indexes:" + tableName,
+                () -> List.copyOf(listIndexes(conn, tableName))));
+    }
+
+    /**
+     * Full schema of a table. Results are cached per database until the schema changes.
+     */
+    public TableSchemaMetadata getTableSchema(DatabaseConfig config, String tableName) throws SQLException {
+        SqlIdentifierValidator.validateIdentifier(tableName, "tableName");
+        return withConnection(config, conn -> schemaCache.get(conn, config.databasePath(), "schema:" + tableName,
+                () -> getTableSchema(conn, tableName)));
+    }
+
+    /**
+     * Metadata of all tables and views. Results are cached per database until the schema changes.
+     */
+    public DatabaseMetadata describeDatabase(DatabaseConfig config) throws SQLException {
+        return withConnection(config, conn -> schemaCache.get(conn, config.databasePath(), "database",
+                () -> describeDatabase(conn)));
+    }
+
+    /**
+     * Reads the metadata of all tables and views in four set-based queries: the schema objects,
+     * and {@code sqlite_schema} joined with {@code pragma_table_info}, {@code pragma_index_list}
+     * plus {@code pragma_index_info}, and {@code pragma_foreign_key_list}.
+     */
+    public DatabaseMetadata describeDatabase(Connection connection) throws SQLException {
+        Map<String, List<ColumnMetadata>> columns = loadColumns(connection, null);
+        Map<String, List<IndexMetadata>> indexes = loadIndexes(connection, null);
+        Map<String, List<ForeignKeyMetadata>> foreignKeys = loadForeignKeys(connection, null);
+        List<TableSchemaMetadata> tables = new ArrayList<>();
+        List<ViewMetadata> views = new ArrayList<>();
+        for (SchemaObject object : schemaObjects(connection)) {
+            List<ColumnMetadata> objectColumns = columns.getOrDefault(object.name(), List.of());
+            if ("view".equals(object.type())) {
+                views.add(new ViewMetadata(object.name(), objectColumns, object.sql()));
+            } else {
+                tables.add(new TableSchemaMetadata(object.name(), objectColumns,
+                        indexes.getOrDefault(object.name(), List.of()),
+                        foreignKeys.getOrDefault(object.name(), List.of()),
+                        object.sql()));
+            }
+        }
+        return new DatabaseMetadata(List.copyOf(tables), List.copyOf(views));
+    }
+
     public List<TableMetadata> listTables(Connection connection) throws SQLException {
+        Map<String, List<ColumnMetadata>> columns = loadColumns(connection, null);
         List<TableMetadata> tables = new ArrayList<>();
-        try (PreparedStatement ps = connection.prepareStatement(
-                "SELECT name FROM sqlite_schema WHERE type = 'table' AND name NOT LIKE 'sqlite_%' ORDER BY name")) {
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    String tableName = rs.getString("name");
-                    tables.add(new TableMetadata(tableName, describeColumns(connection, tableName)));
-                }
+        for (SchemaObject object : schemaObjects(connection)) {
+            if ("table".equals(object.type())) {
+                tables.add(new TableMetadata(object.name(), columns.getOrDefault(object.name(), List.of())));
             }
         }
         return tables;
@@ -118,17 +473,12 @@ public class EncryptedSqliteClient {
     public List<ColumnMetadata> describeColumns(Connection connection, String tableName) throws SQLException {
         SqlIdentifierValidator.validateIdentifier(tableName, "tableName");
         List<ColumnMetadata> columns = new ArrayList<>();
-        try (PreparedStatement ps = connection.prepareStatement("PRAGMA table_info(\"" + tableName + "\")")) {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT cid, name, type, \"notnull\", dflt_value, pk FROM pragma_table_info(?)")) {
+            ps.setString(1, tableName);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
-                    columns.add(new ColumnMetadata(
-                            rs.getInt("cid"),
-                            rs.getString("name"),
-                            rs.getString("type"),
-                            rs.getInt("notnull") == 1,
-                            rs.getString("dflt_value"),
-                            rs.getInt("pk") == 1
-                    ));
+                    columns.add(readColumn(rs));
                 }
             }
         } catch (SQLException ex) {
@@ -140,12 +490,151 @@ public class EncryptedSqliteClient {
         return columns;
     }
 
+    private static ColumnMetadata readColumn(ResultSet rs) throws SQLException {
+        return new ColumnMetadata(
+                rs.getInt("cid"),
+                rs.getString("name"),
+                rs.getString("type"),
+                rs.getInt("notnull") == 1,
+                rs.getString("dflt_value"),
+                rs.getInt("pk") == 1
+        );
+    }
+
+    private List<SchemaObject> schemaObjects(Connection connection) throws SQLException {
+        List<SchemaObject> objects = new ArrayList<>();
+        try (PreparedStatement ps = connection.prepareStatement(SCHEMA_OBJECTS_SQL);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                objects.add(new SchemaObject(rs.getString("type"), rs.getString("name"), rs.getString("sql")));
+            }
+        }
+        return objects;
+    }
+
+    private Map<String, List<ColumnMetadata>> loadColumns(Connection connection, String tableName) throws SQLException {
+        return queryByTable(connection, COLUMNS_SQL, tableName, EncryptedSqliteClient::readColumn);
+    }
+
+    private Map<String, List<IndexMetadata>> loadIndexes(Connection connection, String tableName) throws SQLException {
+        Map<String, List<IndexColumn>> rows = queryByTable(connection, INDEX_COLUMNS_SQL, tableName,
+                rs -> new IndexColumn(rs.getString("index_name"), rs.getInt("unique") == 1,
+                        rs.getString("origin"), rs.getString("column_name")));
+        Map<String, List<IndexMetadata>> indexes = new LinkedHashMap<>();
+        for (Map.Entry<String, List<IndexColumn>> table : rows.entrySet()) {
+            Map<String, IndexMetadata> byName = new LinkedHashMap<>();
+            for (IndexColumn row : table.getValue()) {
+                IndexMetadata index = byName.computeIfAbsent(row.index(),
+                        name -> new IndexMetadata(name, row.unique(), row.origin(), new ArrayList<>()));
+                // Expression columns have no name
+                if (row.column() != null) {
+                    index.columns().add(row.column());
+                }
+            }
+            indexes.put(table.getKey(), List.copyOf(byName.values()));
+        }
+        return indexes;
+    }
+
+    private Map<String, List<ForeignKeyMetadata>> loadForeignKeys(Connection connection, String tableName) throws SQLException {
+        return queryByTable(connection, FOREIGN_KEYS_SQL, tableName, rs -> new ForeignKeyMetadata(
+                rs.getInt("id"),
+                rs.getInt("seq"),
+                rs.getString("table"),
+                rs.getString("from"),
+                rs.getString("to"),
+                rs.getString("on_update"),
+                rs.getString("on_delete"),
+                rs.getString("match")
+        ));
+    }
+
+    /**
+     * Runs a schema query whose rows carry a {@code table_name} column and groups the rows by
+     * table. Parameter 1 restricts the query to one table, or is null for all tables.
+     *
+     * A virtual table whose module is not available makes the whole join fail. In that case the
+     * tables are queried one at a time and those that fail are left out.
+     */
+    private <T> Map<String, List<T>> queryByTable(Connection connection,
+                                                  String sql,
+                                                  String tableName,
+                                                  SqlFunction<ResultSet, T> reader) throws SQLException {
+        try {
+            return runByTable(connection, sql, tableName, reader);
+        } catch (SQLException ex) {
+            if (!isIgnorablePragmaError(ex)) {
+                throw ex;
+            }
+        }
+        List<String> names = new ArrayList<>();
+        if (tableName != null) {
+            names.add(tableName);
+        } else {
+            for (SchemaObject object : schemaObjects(connection)) {
+                names.add(object.name());
+            }
+        }
+        Map<String, List<T>> rows = new LinkedHashMap<>();
+        for (String name : names) {
+            try {
+                rows.putAll(runByTable(connection, sql, name, reader));
+            } catch (SQLException ex) {
+                if (!isIgnorablePragmaError(ex)) {
+                    throw ex;
+                }
+            }
+        }
+        return rows;
+    }
+
+    private <T> Map<String, List<T>> runByTable(Connection connection,
+                                                String sql,
+                                                String tableName,
+                                                SqlFunction<ResultSet, T> reader) throws SQLException {
+        Map<String, List<T>> rows = new LinkedHashMap<>();
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setString(1, tableName);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    rows.computeIfAbsent(rs.getString("table_name"), name -> new ArrayList<>()).add(reader.apply(rs));
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Rows of a single-table query; table names compare case-insensitively, so the key may
+     * differ in case from the requested name.
+     */
+    private static <T> List<T> onlyTable(Map<String, List<T>> rowsByTable) {
+        return rowsByTable.isEmpty() ? List.of() : rowsByTable.values().iterator().next();
+    }
+
     public QueryResult selectTable(Connection connection,
                                    String tableName,
                                    Map<String, Object> filters,
                                    List<String> columns,
                                    int limit,
                                    int offset) throws SQLException {
+        return selectTable(connection, tableName, filters, columns, limit, offset, QueryResult::from);
+    }
+
+    /**
+     * Reads rows from a table and passes the open ResultSet to a handler, so callers can
+     * stream rows instead of materializing them.
+     *
+     * @param resultHandler Consumes the ResultSet; it is closed when the handler returns
+     * @return The handler's result
+     */
+    public <T> T selectTable(Connection connection,
+                             String tableName,
+                             Map<String, Object> filters,
+                             List<String> columns,
+                             int limit,
+                             int offset,
+                             SqlFunction<ResultSet, T> resultHandler) throws SQLException {
         SqlIdentifierValidator.validateIdentifier(tableName, "tableName");
         SqlIdentifierValidator.validateIdentifiers(columns, "columns");
         if (filters != null) {
@@ -153,37 +642,185 @@ public class EncryptedSqliteClient {
                 SqlIdentifierValidator.validateIdentifier(column, "filter column");
             }
         }
-        
-        String resolvedColumns = (columns == null || columns.isEmpty()) ? "*" : String.join(", ", columns);
-        StringBuilder sql = new StringBuilder("SELECT ").append(resolvedColumns)
-                .append(" FROM \"").append(tableName).append("\"");
+
+        List<String> filterColumns = filters == null ? List.of() : List.copyOf(filters.keySet());
+        String sql = sqlByShape.computeIfAbsent(
+                new SqlShape("select", tableName, columns, filterColumns, List.of()),
+                shape -> {
+                    StringBuilder text = new StringBuilder("SELECT ").append(projection(shape.columns()))
+                            .append(" FROM \"").append(shape.table()).append("\"");
+                    if (!shape.filterColumns().isEmpty()) {
+                        text.append(" WHERE ").append(equalityConditions(shape.filterColumns()));
+                    }
+                    return text.append(" LIMIT ? OFFSET ?").toString();
+                });
         List<Object> parameters = new ArrayList<>();
-        if (filters != null && !filters.isEmpty()) {
-            sql.append(" WHERE ");
-            boolean first = true;
-            for (String column : filters.keySet()) {
-                if (!first) {
-                    sql.append(" AND ");
-                }
-                sql.append('\"').append(column).append('\"').append(" = ?");
-                parameters.add(filters.get(column));
-                first = false;
-            }
+        for (String column : filterColumns) {
+            parameters.add(filters.get(column));
         }
-        sql.append(" LIMIT ? OFFSET ?");
         parameters.add(limit);
         parameters.add(offset);
 
-        try (PreparedStatement ps = connection.prepareStatement(sql.toString())) {
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
             for (int i = 0; i < parameters.size(); i++) {
                 ps.setObject(i + 1, parameters.get(i));
             }
             try (ResultSet rs = ps.executeQuery()) {
-                return QueryResult.from(rs);
+                return resultHandler.apply(rs);
             }
         }
     }
 
+    /**
+     * Reads one page of a table using keyset pagination. Rows are ordered by the table's key
+     * ({@code rowid}, or the primary key of a WITHOUT ROWID table), and the page starts after
+     * the key stored in {@code after}, so SQLite seeks directly to it instead of skipping
+     * rows like {@code OFFSET} does.
+     *
+     * The query fetches {@code limit + 1} rows so the caller can tell whether another page
+     * exists; the token for the next page is the key of that extra row. Key columns are
+     * appended to the ResultSet after the requested columns; see {@link KeysetPage}.
+     *
+     * @param after Token holding the first key of the page, or null for the first page
+     * @param pageHandler Consumes the page; its ResultSet is closed when the handler returns
+     * @return The handler's result
+     */
+    public <T> T selectTablePage(Connection connection,
+                                 String tableName,
+                                 Map<String, Object> filters,
+                                 List<String> columns,
+                                 int limit,
+                                 PageToken after,
+                                 SqlFunction<KeysetPage, T> pageHandler) throws SQLException {
+        SqlIdentifierValidator.validateIdentifier(tableName, "tableName");
+        SqlIdentifierValidator.validateIdentifiers(columns, "columns");
+        if (filters != null) {
+            for (String column : filters.keySet()) {
+                SqlIdentifierValidator.validateIdentifier(column, "filter column");
+            }
+        }
+        List<String> keyColumns = resolveKeyColumns(connection, tableName);
+        String queryHash = PageToken.queryHash(columns, filters);
+        if (after != null) {
+            after.checkIssuedFor(tableName, keyColumns, queryHash);
+        }
+
+        List<String> filterColumns = filters == null ? List.of() : List.copyOf(filters.keySet());
+        String sql = sqlByShape.computeIfAbsent(
+                new SqlShape(after == null ? "keyset-first" : "keyset-next", tableName, columns, filterColumns, keyColumns),
+                shape -> keysetSql(shape, shape.kind().equals("keyset-next")));
+        List<Object> parameters = new ArrayList<>();
+        for (String column : filterColumns) {
+            parameters.add(filters.get(column));
+        }
+        if (after != null) {
+            parameters.addAll(after.values());
+        }
+        parameters.add(limit + 1);
+
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            for (int i = 0; i < parameters.size(); i++) {
+                ps.setObject(i + 1, parameters.get(i));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                return pageHandler.apply(new KeysetPage(rs, tableName, keyColumns, queryHash, limit));
+            }
+        }
+    }
+
+    private static String keysetSql(SqlShape shape, boolean seek) {
+        List<String> keyExpressions = new ArrayList<>();
+        for (String key : shape.keyColumns()) {
+            // A quoted rowid alias still names the rowid when no column shadows it
+            keyExpressions.add("\"" + key + "\"");
+        }
+        StringBuilder sql = new StringBuilder("SELECT ").append(projection(shape.columns()));
+        for (int i = 0; i < keyExpressions.size(); i++) {
+            sql.append(", ").append(keyExpressions.get(i)).append(" AS \"").append(KEYSET_ALIAS_PREFIX).append(i).append('"');
+        }
+        sql.append(" FROM \"").append(shape.table()).append("\"");
+
+        List<String> conditions = new ArrayList<>();
+        if (!shape.filterColumns().isEmpty()) {
+            conditions.add(equalityConditions(shape.filterColumns()));
+        }
+        if (seek) {
+            String placeholders = String.join(", ", Collections.nCopies(keyExpressions.size(), "?"));
+            conditions.add(keyExpressions.size() == 1
+                    ? keyExpressions.get(0) + " >= ?"
+                    : "(" + String.join(", ", keyExpressions) + ") >= (" + placeholders + ")");
+        }
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        sql.append(" ORDER BY ").append(String.join(", ", keyExpressions));
+        return sql.append(" LIMIT ?").toString();
+    }
+
+    private static String projection(List<String> columns) {
+        return (columns == null || columns.isEmpty()) ? "*" : String.join(", ", columns);
+    }
+
+    private static String equalityConditions(List<String> columns) {
+        StringBuilder conditions = new StringBuilder();
+        for (String column : columns) {
+            if (!conditions.isEmpty()) {
+                conditions.append(" AND ");
+            }
+            conditions.append('\"').append(column).append('\"').append(" = ?");
+        }
+        return conditions.toString();
+    }
+
+    /**
+     * Key columns that give a table a unique, indexed order: the primary key of a WITHOUT ROWID
+     * table, otherwise the rowid under a name not shadowed by a real column.
+     */
+    private List<String> resolveKeyColumns(Connection connection, String tableName) throws SQLException {
+        String type;
+        boolean withoutRowid;
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT type, wr FROM pragma_table_list WHERE schema = 'main' AND name = ?")) {
+            ps.setString(1, tableName);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("no such table: " + tableName);
+                }
+                type = rs.getString("type");
+                withoutRowid = rs.getInt("wr") == 1;
+            }
+        }
+        if (!"table".equals(type)) {
+            throw new IllegalArgumentException("Keyset pagination requires a table, but " + tableName + " is a " + type);
+        }
+
+        List<String> primaryKey = new ArrayList<>();
+        List<String> columnNames = new ArrayList<>();
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT name, pk FROM pragma_table_info(?) ORDER BY pk")) {
+            ps.setString(1, tableName);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    String name = rs.getString("name");
+                    columnNames.add(name.toLowerCase(Locale.ROOT));
+                    if (rs.getInt("pk") > 0) {
+                        primaryKey.add(name);
+                    }
+                }
+            }
+        }
+        if (withoutRowid) {
+            return List.copyOf(primaryKey);
+        }
+        for (String alias : List.of("rowid", "_rowid_", "oid")) {
+            if (!columnNames.contains(alias)) {
+                return List.of(alias);
+            }
+        }
+        throw new IllegalArgumentException("Keyset pagination is not possible: all rowid aliases of "
+                + tableName + " are shadowed by columns");
+    }
+
     /**
      * Executes an arbitrary SQL query. 
      * 
@@ -197,6 +834,22 @@ public class EncryptedSqliteClient {
      * @throws SQLException if a database error occurs
      */
     public QueryResult executeQuery(Connection connection, String sql) throws SQLException {
+        return executeQuery(connection, sql, QueryResult::from, QueryResult::affectedRows);
+    }
+
+    /**
+     * Executes an arbitrary SQL statement and hands either the open ResultSet or the update
+     * count to the matching handler. See {@link #executeQuery(Connection, String)} for the
+     * security considerations.
+     *
+     * @param resultHandler Consumes the ResultSet of a query; it is closed when the handler returns
+     * @param updateHandler Receives the number of affected rows for other statements
+     * @return The result of whichever handler was called
+     */
+    public <T> T executeQuery(Connection connection,
+                              String sql,
+                              SqlFunction<ResultSet, T> resultHandler,
+                              SqlFunction<Integer, T> updateHandler) throws SQLException {
         if (sql == null || sql.trim().isEmpty()) {
             throw new IllegalArgumentException("SQL statement cannot be null or empty");
         }
@@ -204,61 +857,228 @@ public class EncryptedSqliteClient {
             boolean hasResultSet = statement.execute(sql);
             if (hasResultSet) {
                 try (ResultSet rs = statement.getResultSet()) {
-                    return QueryResult.from(rs);
+                    return resultHandler.apply(rs);
                 }
             }
             int affected = statement.getUpdateCount();
-            return QueryResult.affectedRows(affected);
+            return updateHandler.apply(affected);
+        }
+    }
+
+    /**
+     * Executes an arbitrary SQL statement and keeps a query open as a {@link QueryCursor}.
+     * The connection stays borrowed from the pool until the cursor is closed, so callers
+     * must close every cursor they receive. A database has at most one cursor less than
+     * readers, so that other reads never wait for cursors to be closed.
+     *
+     * WARNING: Like {@link #executeQuery(Connection, String)}, this executes raw SQL.
+     *
+     * @param cursorHandler Receives the cursor of a query; if it throws, the cursor is closed
+     * @param updateHandler Receives the update count of a statement without result
+     * @return The result of the handler that ran
+     * @throws IllegalStateException if the database has the maximum number of open cursors
+     */
+    public <T> T openCursor(DatabaseConfig config,
+                            String sql,
+                            SqlFunction<QueryCursor, T> cursorHandler,
+                            SqlFunction<Integer, T> updateHandler) throws SQLException {
+        if (sql == null || sql.trim().isEmpty()) {
+            throw new IllegalArgumentException("SQL statement cannot be null or empty");
+        }
+        Path database = config.databasePath().toAbsolutePath().normalize();
+        reserveCursor(database);
+        PooledConnection pooled;
+        try {
+            pooled = readers.borrow(config);
+        } catch (SQLException | RuntimeException e) {
+            releaseCursor(database);
+            throw e;
+        }
+        QueryCursor cursor = null;
+        try {
+            Statement statement = pooled.connection().createStatement();
+            try {
+                if (!statement.execute(sql)) {
+                    int affected = statement.getUpdateCount();
+                    statement.close();
+                    return updateHandler.apply(affected);
+                }
+                cursor = QueryCursor.open(statement, statement.getResultSet(), () -> {
+                    readers.release(pooled);
+                    releaseCursor(database);
+                });
+            } catch (SQLException | RuntimeException e) {
+                statement.close();
+                throw e;
+            }
+        } finally {
+            if (cursor == null) {
+                readers.release(pooled);
+                releaseCursor(database);
+            }
+        }
+        try {
+            return cursorHandler.apply(cursor);
+        } catch (SQLException | RuntimeException e) {
+            cursor.close();
+            throw e;
+        }
+    }
+
+    private void reserveCursor(Path database) {
+        boolean[] reserved = {false};
+        openCursors.compute(database, (path, open) -> {
+            int count = open == null ? 0 : open;
+            if (count >= maxCursorsPerDatabase) {
+                return open;
+            }
+            reserved[0] = true;
+            return count + 1;
+        });
+        if (!reserved[0]) {
+            throw new IllegalStateException("Too many open cursors for this database (max " + maxCursorsPerDatabase
+                    + "); fetch them to the end or close them with close_cursor");
         }
     }
 
+    private void releaseCursor(Path database) {
+        openCursors.computeIfPresent(database, (path, open) -> open > 1 ? open - 1 : null);
+    }
+
     public int insertOrUpdate(Connection connection,
                               String tableName,
                               List<String> primaryKeys,
                               List<Map<String, Object>> rows) throws SQLException {
+        return insertOrUpdate(connection, tableName, primaryKeys, rows, DEFAULT_UPSERT_CHUNK_SIZE);
+    }
+
+    /**
+     * Upserts rows in a single transaction using batched prepared statements.
+     *
+     * Rows are grouped by column shape: each distinct set of columns gets one prepared
+     * statement for the whole call. Consecutive rows with the same shape are sent with
+     * {@code executeBatch} in chunks of {@code chunkSize}; a change of shape flushes the
+     * current batch first, so rows are applied in their original order.
+     *
+     * If the connection is in autocommit mode, all rows are committed together, or rolled
+     * back together if any row fails. A transaction the caller already opened is left to it.
+     *
+     * @param chunkSize Maximum number of rows per executeBatch call
+     * @return Total number of rows changed
+     */
+    public int insertOrUpdate(Connection connection,
+                              String tableName,
+                              List<String> primaryKeys,
+                              List<Map<String, Object>> rows,
+                              int chunkSize) throws SQLException {
         SqlIdentifierValidator.validateIdentifier(tableName, "tableName");
         if (primaryKeys == null || primaryKeys.isEmpty()) {
             throw new IllegalArgumentException("primaryKeys must be provided for insertOrUpdate");
         }
         SqlIdentifierValidator.validateIdentifiers(primaryKeys, "primaryKeys");
-        int affected = 0;
-        for (Map<String, Object> row : rows) {
-            affected += upsertSingleRow(connection, tableName, primaryKeys, row);
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be at least 1");
+        }
+        if (rows == null || rows.isEmpty()) {
+            return 0;
+        }
+
+        boolean ownTransaction = connection.getAutoCommit();
+        if (ownTransaction) {
+            connection.setAutoCommit(false);
+        }
+        Map<Set<String>, UpsertStatement> statements = new HashMap<>();
+        try {
+            int affected = 0;
+            UpsertStatement pending = null;
+            int pendingRows = 0;
+            for (Map<String, Object> row : rows) {
+                UpsertStatement statement = statements.get(row.keySet());
+                if (statement == null) {
+                    statement = prepareUpsert(connection, tableName, primaryKeys, new ArrayList<>(row.keySet()));
+                    statements.put(new HashSet<>(row.keySet()), statement);
+                }
+                if (pending != null && pending != statement && pendingRows > 0) {
+                    affected += executeBatch(pending.statement());
+                    pendingRows = 0;
+                }
+                int index = 1;
+                for (String column : statement.columns()) {
+                    statement.statement().setObject(index++, row.get(column));
+                }
+                statement.statement().addBatch();
+                pending = statement;
+                if (++pendingRows == chunkSize) {
+                    affected += executeBatch(pending.statement());
+                    pendingRows = 0;
+                }
+            }
+            if (pendingRows > 0) {
+                affected += executeBatch(pending.statement());
+            }
+            if (ownTransaction) {
+                connection.commit();
+            }
+            return affected;
+        } catch (SQLException | RuntimeException e) {
+            if (ownTransaction) {
+                try {
+                    connection.rollback();
+                } catch (SQLException rollbackError) {
+                    e.addSuppressed(rollbackError);
+                }
+            }
+            throw e;
+        } finally {
+            for (UpsertStatement statement : statements.values()) {
+                try {
+                    statement.statement().close();
+                } catch (SQLException ignored) {
+                    // Statement is discarded anyway
+                }
+            }
+            if (ownTransaction) {
+                connection.setAutoCommit(true);
+            }
         }
-        return affected;
     }
 
-    private int upsertSingleRow(Connection connection,
-                                String tableName,
-                                List<String> primaryKeys,
-                                Map<String, Object> row) throws SQLException {
-        List<String> columns = new ArrayList<>(row.keySet());
+    private UpsertStatement prepareUpsert(Connection connection,
+                                          String tableName,
+                                          List<String> primaryKeys,
+                                          List<String> columns) throws SQLException {
         if (columns.isEmpty()) {
             throw new IllegalArgumentException("Row data must contain at least one column");
         }
         SqlIdentifierValidator.validateIdentifiers(columns, "row columns");
-        String columnList = String.join(", ", columns.stream().map(c -> '\"' + c + '\"').toList());
-        String placeholders = String.join(", ", columns.stream().map(c -> "?").toList());
-        List<String> assignmentTokens = columns.stream()
-                .filter(col -> !primaryKeys.contains(col))
-                .map(col -> '\"' + col + '\"' + " = excluded." + '\"' + col + '\"')
-                .toList();
-        String conflictTargets = String.join(", ", primaryKeys.stream().map(c -> '\"' + c + '\"').toList());
-        String sql;
-        if (assignmentTokens.isEmpty()) {
-            sql = "INSERT INTO \"" + tableName + "\" (" + columnList + ") VALUES (" + placeholders + ") " +
-                    "ON CONFLICT(" + conflictTargets + ") DO NOTHING";
-        } else {
-            String assignments = String.join(", ", assignmentTokens);
-            sql = "INSERT INTO \"" + tableName + "\" (" + columnList + ") VALUES (" + placeholders + ") " +
-                    "ON CONFLICT(" + conflictTargets + ") DO UPDATE SET " + assignments;
-        }
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            int index = 1;
-            for (String column : columns) {
-                ps.setObject(index++, row.get(column));
+        String sql = sqlByShape.computeIfAbsent(new SqlShape("upsert", tableName, columns, List.of(), primaryKeys),
+                shape -> SqliteUtil.upsertSql(shape.table(), shape.keyColumns(), shape.columns()));
+        return new UpsertStatement(columns, connection.prepareStatement(sql));
+    }
+
+    private int executeBatch(PreparedStatement statement) throws SQLException {
+        int affected = 0;
+        for (int count : statement.executeBatch()) {
+            // SUCCESS_NO_INFO (-2) carries no row count
+            if (count > 0) {
+                affected += count;
             }
-            return ps.executeUpdate();
+        }
+        return affected;
+    }
+
+    private record UpsertStatement(List<String> columns, PreparedStatement statement) {}
+
+    /**
+     * Shape of a generated statement: everything that determines its SQL text, but none of the
+     * bound values.
+     */
+    private record SqlShape(String kind, String table, List<String> columns, List<String> filterColumns,
+                            List<String> keyColumns) {
+        SqlShape {
+            columns = columns == null ? List.of() : List.copyOf(columns);
+            filterColumns = List.copyOf(filterColumns);
+            keyColumns = List.copyOf(keyColumns);
         }
     }
 
@@ -272,20 +1092,14 @@ public class EncryptedSqliteClient {
         for (String column : filters.keySet()) {
             SqlIdentifierValidator.validateIdentifier(column, "filter column");
         }
-        StringBuilder sql = new StringBuilder("DELETE FROM \"")
-                .append(tableName)
-                .append("\" WHERE ");
-        boolean first = true;
+        List<String> filterColumns = List.copyOf(filters.keySet());
+        String sql = sqlByShape.computeIfAbsent(new SqlShape("delete", tableName, List.of(), filterColumns, List.of()),
+                shape -> "DELETE FROM \"" + shape.table() + "\" WHERE " + equalityConditions(shape.filterColumns()));
         List<Object> params = new ArrayList<>();
-        for (Map.Entry<String, Object> entry : filters.entrySet()) {
-            if (!first) {
-                sql.append(" AND ");
-            }
-            sql.append('\"').append(entry.getKey()).append('\"').append(" = ?");
-            params.add(entry.getValue());
-            first = false;
+        for (String column : filterColumns) {
+            params.add(filters.get(column));
         }
-        try (PreparedStatement ps = connection.prepareStatement(sql.toString())) {
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
             for (int i = 0; i < params.size(); i++) {
                 ps.setObject(i + 1, params.get(i));
             }
@@ -295,37 +1109,7 @@ public class EncryptedSqliteClient {
 
     public List<IndexMetadata> listIndexes(Connection connection, String tableName) throws SQLException {
         SqlIdentifierValidator.validateIdentifier(tableName, "tableName");
-        List<IndexMetadata> indexes = new ArrayList<>();
-        try (PreparedStatement ps = connection.prepareStatement("PRAGMA index_list(\"" + tableName + "\")")) {
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    String indexName = rs.getString("name");
-                    boolean unique = rs.getInt("unique") == 1;
-                    String origin = rs.getString("origin");
-                    
-                    // Hole Index-Spalten
-                    List<String> columns = new ArrayList<>();
-                    try (PreparedStatement ps2 = connection.prepareStatement("PRAGMA index_info(\"" + indexName + "\")")) {
-                        try (ResultSet rs2 = ps2.executeQuery()) {
-                            while (rs2.next()) {
-                                String colName = rs2.getString("name");
-                                if (colName != null) {
-                                    columns.add(colName);
-                                }
-                            }
-                        }
-                    }
-                    
-                    indexes.add(new IndexMetadata(indexName, unique, origin, columns));
-                }
-            }
-        } catch (SQLException ex) {
-            if (isIgnorablePragmaError(ex)) {
-                return List.of();
-            }
-            throw ex;
-        }
-        return indexes;
+        return onlyTable(loadIndexes(connection, tableName));
     }
 
     public TableSchemaMetadata getTableSchema(Connection connection, String tableName) throws SQLException {
@@ -337,27 +1121,7 @@ public class EncryptedSqliteClient {
         List<IndexMetadata> indexes = listIndexes(connection, tableName);
         
         // Foreign Keys
-        List<ForeignKeyMetadata> foreignKeys = new ArrayList<>();
-        try (PreparedStatement ps = connection.prepareStatement("PRAGMA foreign_key_list(\"" + tableName + "\")")) {
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    foreignKeys.add(new ForeignKeyMetadata(
-                        rs.getInt("id"),
-                        rs.getInt("seq"),
-                        rs.getString("table"),
-                        rs.getString("from"),
-                        rs.getString("to"),
-                        rs.getString("on_update"),
-                        rs.getString("on_delete"),
-                        rs.getString("match")
-                    ));
-                }
-            }
-        } catch (SQLException ex) {
-            if (!isIgnorablePragmaError(ex)) {
-                throw ex;
-            }
-        }
+        List<ForeignKeyMetadata> foreignKeys = onlyTable(loadForeignKeys(connection, tableName));
         
         // Table Info (SQL CREATE Statement)
         String createSql = null;
@@ -387,23 +1151,70 @@ public class EncryptedSqliteClient {
                                      List<IndexMetadata> indexes, List<ForeignKeyMetadata> foreignKeys, 
                                      String createSql) {}
 
+    public record ViewMetadata(String name, List<ColumnMetadata> columns, String createSql) {}
+
+    public record DatabaseMetadata(List<TableSchemaMetadata> tables, List<ViewMetadata> views) {}
+
+    /**
+     * Opens a connection keyed with a raw key, or with the passphrase if {@code rawKey} is null.
+     */
+    @FunctionalInterface
+    interface ConnectionOpener {
+        Connection open(DatabaseConfig config, byte[] rawKey, boolean writer) throws SQLException;
+    }
+
+    public record EffectiveTuning(String journalMode, int cacheSize, TuningProfile.Synchronous synchronous,
+                                  TuningProfile.TempStore tempStore, long mmapSize, int pageSize,
+                                  int walAutocheckpoint) {}
+
+    /**
+     * Open and pool wait times are in nanoseconds. Opens include key derivation on a key
+     * cache miss; {@code keyDerivations} times the derivations alone.
+     */
+    public record ClientMetrics(Histogram.Snapshot readerOpens, Histogram.Snapshot writerOpens,
+                                Histogram.Snapshot readerWaits, Histogram.Snapshot writerWaits,
+                                Histogram.Snapshot keyDerivations, long keyCacheHits, long keyCacheMisses,
+                                StatementCacheStats statementCache, long schemaCacheHits, long schemaCacheMisses,
+                                QueryResultCacheStats resultCache, long writeBatches, long writeOperations) {}
+
+    private record SchemaObject(String type, String name, String sql) {}
+
+    private record IndexColumn(String index, boolean unique, String origin, String column) {}
+
+    /**
+     * One page of a keyset query. The ResultSet holds the requested columns followed by the
+     * key columns, and yields at most {@code limit + 1} rows; the extra row is not part of
+     * the page but starts the next one.
+     */
+    public record KeysetPage(ResultSet resultSet, String table, List<String> keyColumns, String queryHash,
+                             int limit) {
+        /**
+         * Number of leading ResultSet columns that belong to the requested projection.
+         */
+        public int visibleColumnCount() throws SQLException {
+            return resultSet.getMetaData().getColumnCount() - keyColumns.size();
+        }
+
+        /**
+         * Token for a page starting at the current row.
+         */
+        public PageToken tokenForCurrentRow() throws SQLException {
+            int first = visibleColumnCount() + 1;
+            List<Object> values = new ArrayList<>(keyColumns.size());
+            for (int i = 0; i < keyColumns.size(); i++) {
+                values.add(resultSet.getObject(first + i));
+            }
+            return new PageToken(table, keyColumns, values, queryHash);
+        }
+    }
+
     public record QueryResult(List<String> columns, List<Map<String, Object>> rows, int affectedRows) {
         public static QueryResult from(ResultSet rs) throws SQLException {
+            List<String> columns = new ArrayList<>(SqliteUtil.ColumnLayout.of(rs.getMetaData()).labelList());
             List<Map<String, Object>> rows = SqliteUtil.toRowList(rs);
-            List<String> columns = rows.isEmpty() ? extractColumns(rs) : new ArrayList<>(rows.get(0).keySet());
             return new QueryResult(columns, rows, -1);
         }
 
-        private static List<String> extractColumns(ResultSet rs) throws SQLException {
-            ResultSetMetaData metaData = rs.getMetaData();
-            int count = metaData.getColumnCount();
-            List<String> columns = new ArrayList<>(count);
-            for (int i = 1; i <= count; i++) {
-                columns.add(metaData.getColumnLabel(i));
-            }
-            return columns;
-        }
-
         public static QueryResult affectedRows(int affected) {
             return new QueryResult(List.of(), List.of(), affected);
         }
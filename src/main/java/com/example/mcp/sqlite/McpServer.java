@@ -1,25 +1,70 @@
 package com.example.mcp.sqlite;
 
+import com.example.mcp.sqlite.cache.QueryResultCache;
+import com.example.mcp.sqlite.cache.QueryResultCacheStats;
 import com.example.mcp.sqlite.config.CipherProfile;
 import com.example.mcp.sqlite.config.DatabaseConfig;
+import com.example.mcp.sqlite.config.TuningProfile;
+import com.example.mcp.sqlite.cursor.CursorRegistry;
+import com.example.mcp.sqlite.cursor.CursorSettings;
+import com.example.mcp.sqlite.cursor.QueryCursor;
+import com.example.mcp.sqlite.log.ServerLog;
+import com.example.mcp.sqlite.metrics.Histogram;
+import com.example.mcp.sqlite.metrics.MetricsFileExporter;
+import com.example.mcp.sqlite.metrics.MetricsSettings;
+import com.example.mcp.sqlite.metrics.PrometheusText;
+import com.example.mcp.sqlite.metrics.ServerMetrics;
+import com.example.mcp.sqlite.protocol.JsonRpcRequest;
+import com.example.mcp.sqlite.protocol.MessageReader;
+import com.example.mcp.sqlite.protocol.ResponseWriter;
+import com.example.mcp.sqlite.protocol.ToolCall;
+import com.example.mcp.sqlite.tools.ToolDefinition;
+import com.example.mcp.sqlite.tools.ToolRegistry;
+import com.example.mcp.sqlite.transfer.FileImporter;
+import com.example.mcp.sqlite.transfer.QueryExporter;
+import com.example.mcp.sqlite.transfer.TransferFormat;
+import com.example.mcp.sqlite.util.DelimitedText;
+import com.example.mcp.sqlite.util.Env;
+import com.example.mcp.sqlite.util.PageToken;
+import com.example.mcp.sqlite.util.ResultFormat;
+import com.example.mcp.sqlite.util.SqlStatementClassifier;
+import com.example.mcp.sqlite.util.SqliteUtil;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
-import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.logging.Level;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 
 public class McpServer {
@@ -32,16 +77,38 @@ public class McpServer {
     // Constants for response size limits
     private static final int MAX_RESPONSE_SIZE_WARNING = 100_000; // 100KB
     private static final int MAX_PREVIEW_LENGTH = 200;
-    private static final int MAX_PREVIEW_START = 100;
     private static final int MAX_STACK_TRACE_LENGTH = 2000;
     private static final int MAX_SQL_LOG_LENGTH = 100;
+    private static final int DEFAULT_CURSOR_PAGE_SIZE = 500;
+    private static final int MAX_PAGE_SIZE = 10_000;
+    private static final int SHUTDOWN_TIMEOUT_SECONDS = 30;
+    // Returned by handlers that have already written their response (streamed results)
+    private static final JsonElement RESPONSE_ALREADY_SENT = new JsonObject();
+    // Distinct client protocol versions whose initialize result is kept serialized
+    private static final int MAX_CACHED_INITIALIZE_RESULTS = 8;
 
     private final Gson gson = new GsonBuilder().serializeNulls().create();
     private final EncryptedSqliteClient sqliteClient = new EncryptedSqliteClient();
-    private final BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
-    private final PrintStream writer = System.out;
-    private DatabaseConfig defaultConfig;
-    private final boolean debugMode;
+    private final CursorRegistry cursorRegistry = new CursorRegistry(CursorSettings.fromEnvironment());
+    private final MessageReader reader;
+    private final ResponseWriter responses;
+    private final DatabaseConfig defaultConfig;
+    private final ToolRegistry toolRegistry;
+    // tools/list and initialize results, serialized once; they only depend on defaultConfig
+    // and the client's protocol version
+    private final byte[] toolsListResult;
+    private final Map<String, byte[]> initializeResults = new ConcurrentHashMap<>();
+    private final ServerLog serverLog;
+    private final int maxInFlight = Math.max(1, Env.intValue("MCP_MAX_IN_FLIGHT", 64));
+    private final int databaseThreads = Math.max(1, Env.intValue("MCP_DB_THREADS", Math.max(2, Runtime.getRuntime().availableProcessors())));
+    private final Semaphore inFlight = new Semaphore(maxInFlight);
+    private final ExecutorService requestExecutor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("mcp-request-", 0).factory());
+    private final ExecutorService databaseExecutor = Executors.newFixedThreadPool(databaseThreads,
+            Thread.ofPlatform().name("mcp-sqlite-db-", 0).daemon(true).factory());
+    private final ServerMetrics metrics = new ServerMetrics();
+    private final MetricsSettings metricsSettings = MetricsSettings.fromEnvironment();
+    private MetricsFileExporter metricsExporter;
 
     public static void main(String[] args) throws IOException {
         // Check if debug mode is enabled via environment variable
@@ -125,9 +192,16 @@ public class McpServer {
                     if (cipherJson.has("kdfAlgorithm")) builder.kdfAlgorithm(cipherJson.get("kdfAlgorithm").getAsString());
                     profile = builder.build();
                 }
+                TuningProfile tuning = TuningProfile.defaults();
+                if (configJson.has("tuningProfile")) {
+                    if (debugMode) {
+                        System.err.println("Custom TuningProfile found");
+                    }
+                    tuning = resolveTuningProfile(configJson.getAsJsonObject("tuningProfile"), tuning);
+                }
                 
                 try {
-                    config = DatabaseConfig.withDecryptedPassphrase(dbPath, passphrase, profile);
+                    config = DatabaseConfig.withDecryptedPassphrase(dbPath, passphrase, profile, tuning);
                     if (debugMode && isEncrypted) {
                         System.err.println("Passphrase successfully decrypted");
                     }
@@ -162,124 +236,217 @@ public class McpServer {
     }
     
     public McpServer(DatabaseConfig defaultConfig, boolean debugMode) {
+        this(defaultConfig, debugMode, System.in, new FileOutputStream(FileDescriptor.out));
+    }
+
+    /**
+     * Creates a server that reads requests from {@code in} and writes responses to {@code out}
+     * instead of stdin/stdout, e.g. to run it in-process behind piped streams.
+     */
+    public McpServer(DatabaseConfig defaultConfig, boolean debugMode, InputStream in, OutputStream out) {
         this.defaultConfig = defaultConfig;
-        this.debugMode = debugMode;
+        this.serverLog = new ServerLog(LOGGER, debugMode, System.err, Math.max(1, Env.intValue("MCP_LOG_BUFFER_SIZE", 8192)));
+        this.reader = new MessageReader(in);
+        this.responses = new ResponseWriter(out, gson, metrics::addBytes);
+        this.toolRegistry = registerTools(new ToolRegistry());
+        this.toolsListResult = gson.toJson(toolRegistry.toJson(defaultConfig == null)).getBytes(StandardCharsets.UTF_8);
     }
 
     public void run() throws IOException {
         log("Server started - waiting for MCP events.");
-        log("STDIN available: " + (System.in != null));
-        log("STDOUT available: " + (System.out != null));
-        log("STDERR available: " + (System.err != null));
-        log("Default Config present: " + (defaultConfig != null));
+        log("STDIN available: {}", System.in != null);
+        log("STDOUT available: {}", System.out != null);
+        log("STDERR available: {}", System.err != null);
+        log("Default Config present: {}", defaultConfig != null);
         if (defaultConfig != null) {
-            log("Default DB Path: " + defaultConfig.databasePath());
+            log("Default DB Path: {}", defaultConfig.databasePath());
+        }
+        log("Max in-flight requests: {}, database threads: {}", maxInFlight, databaseThreads);
+        if (metricsSettings.enabled()) {
+            metricsExporter = new MetricsFileExporter(metricsSettings, this::prometheusText,
+                    e -> logError("Could not write metrics file " + metricsSettings.file(), e));
+            log("Writing metrics every {} s to {}", metricsSettings.interval().toSeconds(), metricsSettings.file());
         }
         
-        String line;
+        byte[] message;
         int requestCount = 0;
-        while ((line = reader.readLine()) != null) {
-            requestCount++;
-            if (line.isBlank()) {
-                log("Empty line received (ignored)");
-                continue;
+        try {
+            while ((message = reader.next()) != null) {
+                requestCount++;
+                
+                // Log raw input with length and first/last bytes for debugging
+                if (serverLog.isDebugEnabled()) {
+                    log("=== Request #{} ===", requestCount);
+                    log("Received JSON (length: {} bytes): {}", message.length,
+                        JsonRpcRequest.preview(message, MAX_PREVIEW_LENGTH));
+                }
+                
+                try {
+                    dispatch(message);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    logError("Interrupted while dispatching request #" + requestCount, e);
+                    break;
+                } catch (Exception e) {
+                    logError("Critical error processing request #" + requestCount, e);
+                    // Try to send an error response if possible
+                    try {
+                        sendErrorResponse(null, -32603, "Internal error: " + e.getMessage(), e);
+                    } catch (Exception sendError) {
+                        logError("Could not send error response", sendError);
+                    }
+                }
             }
-            
-            // Log raw input with length and first/last chars for debugging
-            int lineLength = line.length();
-            String preview = lineLength > MAX_PREVIEW_LENGTH 
-                ? line.substring(0, MAX_PREVIEW_START) + "..." + line.substring(lineLength - MAX_PREVIEW_START)
-                : line;
-            log("=== Request #" + requestCount + " ===");
-            log("Received JSON (length: " + lineLength + " chars): " + preview);
-            
-            try {
-                processLine(line.trim());
-            } catch (Exception e) {
-                logError("Critical error processing request #" + requestCount, e);
-                // Try to send an error response if possible
+        } finally {
+            shutdown();
+        }
+        log("STDIN closed, server terminated. Processed requests: {}", requestCount);
+    }
+
+    /**
+     * Parses a request on the reader thread and hands it to a virtual thread.
+     * Notifications are handled inline so they keep their order relative to each other and
+     * to the requests that follow them. Requests are bounded by {@code maxInFlight}; the reader
+     * blocks when the limit is reached, which applies backpressure to the client.
+     */
+    private void dispatch(byte[] message) throws InterruptedException {
+        JsonRpcRequest request = parseRequest(message);
+        if (request == null) {
+            return;
+        }
+        if (request.id() == null) {
+            log("Handling as notification (no ID)");
+            handleNotification(request);
+            return;
+        }
+        inFlight.acquire();
+        try {
+            requestExecutor.execute(() -> {
                 try {
-                    sendErrorResponse(null, -32603, "Internal error: " + e.getMessage(), e);
-                } catch (Exception sendError) {
-                    logError("Could not send error response", sendError);
+                    respond(request);
+                } finally {
+                    inFlight.release();
                 }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    void shutdown() {
+        requestExecutor.shutdown();
+        try {
+            if (!requestExecutor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log("WARNING: Requests still running after {} s, shutting down anyway", SHUTDOWN_TIMEOUT_SECONDS);
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        databaseExecutor.shutdownNow();
+        cursorRegistry.close();
+        if (metricsExporter != null) {
+            metricsExporter.close();
+        }
+        sqliteClient.close();
+        serverLog.close();
+    }
+
+    /**
+     * Processes a single JSON-RPC message synchronously on the calling thread.
+     */
+    void processLine(String json) {
+        processMessage(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Processes a single JSON-RPC message, given as UTF-8 bytes, synchronously on the calling thread.
+     */
+    void processMessage(byte[] message) {
+        JsonRpcRequest request = parseRequest(message);
+        if (request == null) {
+            return;
+        }
+        if (request.id() == null) {
+            log("Handling as notification (no ID)");
+            handleNotification(request);
+            return;
         }
-        log("STDIN closed, server terminated. Processed requests: " + requestCount);
+        respond(request);
     }
 
-    private void processLine(String json) {
-        String requestId = null;
+    /**
+     * Parses and validates a JSON-RPC message. Sends the error response itself and returns
+     * null if the message is not a valid request.
+     */
+    private JsonRpcRequest parseRequest(byte[] message) {
         try {
             // Validation: Check if JSON is valid
-            if (json == null || json.trim().isEmpty()) {
-                log("ERROR: Empty or null JSON string");
-                return;
+            if (message == null || message.length == 0) {
+                log("ERROR: Empty or null JSON message");
+                return null;
             }
             
-            // Try to parse JSON
-            RpcRequest request;
+            // Read the envelope; params stay undecoded until the handler needs them
+            JsonRpcRequest request;
             try {
-                request = gson.fromJson(json, RpcRequest.class);
+                request = JsonRpcRequest.parse(message);
             } catch (Exception parseEx) {
                 logError("JSON parsing error", parseEx);
-                log("Invalid JSON received. First 500 chars: " + 
-                    (json.length() > 500 ? json.substring(0, 500) + "..." : json));
+                log(() -> "Invalid JSON received. First 500 bytes: " + JsonRpcRequest.preview(message, 500));
                 sendErrorResponse(null, -32700, "Parse error: " + parseEx.getMessage(), parseEx);
-                return;
-            }
-            
-            if (request == null) {
-                log("ERROR: Request is null after JSON parsing");
-                sendErrorResponse(null, -32600, "Invalid Request: Request object is null", null);
-                return;
+                return null;
             }
             
             // Validation: JSON-RPC Version
-            if (request.jsonrpc != null && !request.jsonrpc.equals("2.0")) {
-                log("WARNING: Unexpected JSON-RPC version: " + request.jsonrpc + " (expected: 2.0)");
+            if (request.jsonrpc() != null && !request.jsonrpc().equals("2.0")) {
+                log("WARNING: Unexpected JSON-RPC version: {} (expected: 2.0)", request.jsonrpc());
             }
             
-            if (request.method == null) {
+            if (request.method() == null) {
                 log("ERROR: Request without 'method' field");
-                sendErrorResponse(request.id, -32600, "Invalid Request: Missing 'method' field", null);
-                return;
+                sendErrorResponse(request.id(), -32600, "Invalid Request: Missing 'method' field", null);
+                return null;
             }
             
-            requestId = request.id != null ? request.id : "<notification>";
-            log("Processing request: method='" + request.method + "', id=" + requestId);
-            
-            if (request.params != null) {
-                log("Params present: " + request.params.toString());
-            } else {
-                log("No params present");
-            }
-
-            // Handle notifications (no id)
-            if (request.id == null) {
-                log("Handling as notification (no ID)");
-                handleNotification(request);
-                return;
+            log("Processing request: method='{}', id={}, params present: {}", request.method(),
+                request.id() != null ? request.id() : "<notification>", request.hasParams());
+            return request;
+        } catch (Exception ex) {
+            logError("Critical exception while parsing request", ex);
+            try {
+                sendErrorResponse(null, -32603, "Critical error: " + ex.getMessage(), ex);
+            } catch (Exception sendEx) {
+                logError("Could not send error response after critical error", sendEx);
             }
+            return null;
+        }
+    }
 
-            // Handle requests (with id)
+    /**
+     * Handles a request (with id) and writes its response.
+     */
+    private void respond(JsonRpcRequest request) {
+        try {
             try {
                 JsonElement result = handleRequest(request);
-                sendSuccessResponse(request.id, request.method, result);
+                if (result != RESPONSE_ALREADY_SENT) {
+                    sendSuccessResponse(request.id(), request.method(), result);
+                }
             } catch (IllegalArgumentException iae) {
-                logError("Invalid parameters in method " + request.method, iae);
-                sendErrorResponse(request.id, -32602, "Invalid params: " + iae.getMessage(), iae);
+                logError("Invalid parameters in method " + request.method(), iae);
+                sendErrorResponse(request.id(), -32602, "Invalid params: " + iae.getMessage(), iae);
             } catch (SQLException sqle) {
-                logError("SQL error in method " + request.method, sqle);
-                sendErrorResponse(request.id, -32603, "Database error: " + sqle.getMessage(), sqle);
+                logError("SQL error in method " + request.method(), sqle);
+                sendErrorResponse(request.id(), -32603, "Database error: " + sqle.getMessage(), sqle);
             } catch (Exception ex) {
-                logError("Unexpected error in method " + request.method, ex);
-                sendErrorResponse(request.id, -32603, "Internal error: " + ex.getMessage(), ex);
+                logError("Unexpected error in method " + request.method(), ex);
+                sendErrorResponse(request.id(), -32603, "Internal error: " + ex.getMessage(), ex);
             }
         } catch (Exception ex) {
-            logError("Critical exception in processLine (Request-ID: " + requestId + ")", ex);
+            logError("Critical exception in respond (Request-ID: " + request.id() + ")", ex);
             try {
-                sendErrorResponse(requestId, -32603, "Critical error: " + ex.getMessage(), ex);
+                sendErrorResponse(request.id(), -32603, "Critical error: " + ex.getMessage(), ex);
             } catch (Exception sendEx) {
                 logError("Could not send error response after critical error", sendEx);
             }
@@ -293,29 +460,8 @@ public class McpServer {
             response.addProperty("id", id);
             response.add("result", result);
             
-            String jsonResponse = gson.toJson(response);
-            int responseLength = jsonResponse.length();
-            log("Method '" + method + "' successfully answered. Response size: " + responseLength + " chars");
-            
-            if (responseLength > MAX_RESPONSE_SIZE_WARNING) {
-                log("WARNING: Response is very large (" + responseLength + " chars)");
-                log("First 500 chars: " + jsonResponse.substring(0, Math.min(500, jsonResponse.length())));
-            }
-            
-            writer.println(jsonResponse);
-            boolean flushed = true;
-            try {
-                writer.flush();
-            } catch (Exception flushEx) {
-                flushed = false;
-                logError("Error flushing response", flushEx);
-            }
-            
-            if (flushed) {
-                log("Response successfully written and flushed (ID: " + id + ")");
-            } else {
-                log("WARNING: Response written, but flush failed (ID: " + id + ")");
-            }
+            long responseSize = writeMessage(response);
+            logResponseSize(method, id, responseSize);
         } catch (Exception ex) {
             logError("Error sending success response (ID: " + id + ")", ex);
             throw ex;
@@ -347,14 +493,12 @@ public class McpServer {
             
             response.add("error", error);
             
-            String jsonResponse = gson.toJson(response);
-            log("Sending error response (Code: " + code + ", ID: " + id + "): " + message);
+            log("Sending error response (Code: {}, ID: {}): {}", code, id, message);
             if (throwable != null) {
-                log("Exception type: " + throwable.getClass().getName());
+                log("Exception type: {}", throwable.getClass().getName());
             }
             
-            writer.println(jsonResponse);
-            writer.flush();
+            writeMessage(response);
             log("Error response successfully sent");
         } catch (Exception ex) {
             logError("CRITICAL: Could not send error response (ID: " + id + ")", ex);
@@ -363,6 +507,283 @@ public class McpServer {
         }
     }
     
+    // Logs the outcome of a response written with the given size, -1 if it failed
+    private void logResponseSize(String method, String id, long responseSize) {
+        if (responseSize >= 0) {
+            log("Method '{}' successfully answered. Response size: {} bytes (ID: {})", method, responseSize, id);
+            if (responseSize > MAX_RESPONSE_SIZE_WARNING) {
+                log("WARNING: Response is very large ({} bytes)", responseSize);
+            }
+        } else {
+            log("WARNING: Response could not be written (ID: {})", id);
+        }
+    }
+
+    /**
+     * Writes one JSON-RPC message. Requests complete concurrently, so all output goes through
+     * the {@link ResponseWriter}, which never interleaves messages and writes messages that
+     * complete together with a single write.
+     *
+     * @return Size of the message in bytes, or -1 if it could not be written
+     */
+    private long writeMessage(JsonObject message) {
+        long size = responses.send(message);
+        if (size < 0) {
+            logError("Error writing response", null);
+        }
+        return size;
+    }
+    
+    /**
+     * Writes a query result as the success response to a request, streaming rows from the
+     * open ResultSet directly onto stdout with a {@link JsonWriter}. No row is materialized,
+     * so memory use does not depend on the size of the result.
+     *
+     * The result shape depends on the requested {@link ResultFormat}: {@code columns} plus
+     * {@code rows} as objects or positional arrays, or {@code format} plus a CSV/TSV
+     * {@code text} whose first line is the header. Column labels are resolved once per result.
+     *
+     * The first row is fetched before any output is produced, so errors raised while starting
+     * the query still become regular error responses. An error after the first row cannot be
+     * reported as a JSON-RPC error anymore; the rows are closed and the result gets
+     * {@code "truncated": true} plus an {@code "error"} message instead.
+     *
+     * Results up to {@code ResponseWriter}'s buffered size are written like any other response;
+     * only larger ones hold up other responses while they are streamed.
+     *
+     * @param cacheLookup Result cache miss to fill with the streamed result, or null
+     * @return Number of rows written
+     */
+    private int streamResultSetResponse(String id, String method, ResultSet rs, ResultFormat format,
+                                        QueryResultCache.Lookup cacheLookup) throws SQLException {
+        SqliteUtil.ColumnLayout layout = SqliteUtil.ColumnLayout.of(rs.getMetaData());
+        return streamRows(id, method, rs, rs.next(), layout, format, Integer.MAX_VALUE, (json, hasMore) -> { },
+                cacheLookup).rowCount();
+    }
+
+    /**
+     * Sends a query result from the result cache.
+     */
+    private JsonElement sendCachedQueryResult(String id, String method, byte[] result) {
+        long responseSize = responses.sendResult(id, result);
+        if (responseSize < 0) {
+            logError("Error writing response", null);
+        } else {
+            log("Method '{}' answered from the result cache. Response size: {} bytes (ID: {})", method, responseSize, id);
+        }
+        return RESPONSE_ALREADY_SENT;
+    }
+
+    /**
+     * Streams at most {@code maxRows} rows of a ResultSet as the success response to a request.
+     * Used for whole results as well as for pages (keyset pages, cursor batches).
+     *
+     * @param hasRow Whether the ResultSet is positioned on a row that has not been sent yet
+     * @param layout Columns to write; trailing ResultSet columns outside the layout are not sent
+     * @param trailer Writes extra result fields after the rows, e.g. continuation tokens
+     * @return Rows written, and whether the ResultSet is left positioned on an unsent row
+     */
+    private StreamedRows streamRows(String id, String method, ResultSet rs, boolean hasRow,
+                                    SqliteUtil.ColumnLayout layout, ResultFormat format, int maxRows,
+                                    ResultTrailer trailer) throws SQLException {
+        return streamRows(id, method, rs, hasRow, layout, format, maxRows, trailer, null);
+    }
+
+    /**
+     * @param cacheLookup Result cache miss to fill with the streamed result, or null. The result
+     *        is cached if all rows were written and it fits the database's cache.
+     */
+    private StreamedRows streamRows(String id, String method, ResultSet rs, boolean hasRow,
+                                    SqliteUtil.ColumnLayout layout, ResultFormat format, int maxRows,
+                                    ResultTrailer trailer, QueryResultCache.Lookup cacheLookup) throws SQLException {
+        StreamedRows streamed;
+        ResultCapture capture = cacheLookup == null ? null : new ResultCapture(cacheLookup.maxResultSize());
+        try {
+            streamed = responses.<StreamedRows, SQLException>stream(target -> {
+                int rowCount = 0;
+                boolean more = hasRow;
+                Writer out = capture == null ? target : capture.writingTo(target);
+                JsonWriter json = new JsonWriter(out);
+                json.setSerializeNulls(true);
+                json.beginObject();
+                json.name("jsonrpc").value("2.0");
+                json.name("id").value(id);
+                json.name("result").beginObject();
+                if (capture != null) {
+                    // The result object starts with the brace just written
+                    capture.begin('{');
+                }
+
+                RowWriter rowWriter;
+                Writer text = null;
+                if (format.isDelimitedText()) {
+                    char delimiter = format.delimiter();
+                    json.name("format").value(format.externalName());
+                    // Open the string through the JsonWriter so it tracks the value, then stream
+                    // the escaped text into it directly.
+                    json.name("text").jsonValue("\"");
+                    Writer textOut = new DelimitedText.JsonStringContentWriter(out);
+                    String[] labels = layout.labels();
+                    for (int i = 0; i < labels.length; i++) {
+                        if (i > 0) {
+                            textOut.write(delimiter);
+                        }
+                        DelimitedText.writeField(textOut, labels[i], delimiter);
+                    }
+                    textOut.write('\n');
+                    rowWriter = () -> SqliteUtil.writeDelimitedRow(rs, layout, delimiter, textOut);
+                    text = textOut;
+                } else {
+                    json.name("columns").beginArray();
+                    for (String label : layout.labels()) {
+                        json.value(label);
+                    }
+                    json.endArray();
+                    json.name("rows").beginArray();
+                    rowWriter = format == ResultFormat.COMPACT
+                            ? () -> SqliteUtil.writeRowArray(rs, layout, json)
+                            : () -> SqliteUtil.writeRow(rs, layout, json);
+                }
+
+                String error = null;
+                try {
+                    while (more && rowCount < maxRows) {
+                        rowWriter.write();
+                        rowCount++;
+                        more = rs.next();
+                    }
+                } catch (SQLException sqle) {
+                    logError("SQL error while streaming rows for method " + method + " (ID: " + id + ")", sqle);
+                    error = "Database error: " + sqle.getMessage();
+                    more = false;
+                }
+
+                if (text != null) {
+                    out.write('"');
+                    json.name("row_count").value(rowCount);
+                } else {
+                    json.endArray();
+                }
+                trailer.write(json, more);
+                if (error != null) {
+                    json.name("truncated").value(true);
+                    json.name("error").value(error);
+                }
+                json.endObject();
+                if (capture != null) {
+                    capture.end(error == null && !more);
+                }
+                json.endObject();
+                json.flush();
+                return new StreamedRows(rowCount, more);
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error streaming response (ID: " + id + ")", e);
+        }
+        metrics.addRows(streamed.rowCount());
+        log("Method '{}' successfully answered with {} streamed rows (ID: {})", method, streamed.rowCount(), id);
+        if (capture != null && capture.result() != null && cacheLookup.store(capture.result())) {
+            log("Result cached for method '{}' (ID: {})", method, id);
+        }
+        return streamed;
+    }
+
+    private record StreamedRows(int rowCount, boolean hasMore) {}
+
+    /**
+     * Copies the result object of a streamed response while it is written, for the result
+     * cache. Copying stops once the result exceeds the size limit.
+     */
+    private static final class ResultCapture extends Writer {
+        private final long maxChars;
+        private Writer target;
+        private StringBuilder text;
+        private boolean overflow;
+        private byte[] result;
+
+        ResultCapture(long maxBytes) {
+            // A char takes at least one UTF-8 byte
+            this.maxChars = maxBytes;
+        }
+
+        Writer writingTo(Writer target) {
+            this.target = target;
+            return this;
+        }
+
+        void begin(char first) {
+            text = new StringBuilder().append(first);
+        }
+
+        void end(boolean complete) {
+            if (text != null && complete && !overflow) {
+                result = text.toString().getBytes(StandardCharsets.UTF_8);
+            }
+            text = null;
+        }
+
+        /**
+         * The captured result as UTF-8, or null if it was incomplete or too large.
+         */
+        byte[] result() {
+            return result;
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            target.write(c);
+            if (text != null && !overflow) {
+                text.append((char) c);
+                checkSize();
+            }
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) throws IOException {
+            target.write(chars, offset, length);
+            if (text != null && !overflow) {
+                text.append(chars, offset, length);
+                checkSize();
+            }
+        }
+
+        @Override
+        public void write(String string, int offset, int length) throws IOException {
+            target.write(string, offset, length);
+            if (text != null && !overflow) {
+                text.append(string, offset, offset + length);
+                checkSize();
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            target.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            target.close();
+        }
+
+        private void checkSize() {
+            if (text.length() > maxChars) {
+                overflow = true;
+                text = null;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface ResultTrailer {
+        void write(JsonWriter json, boolean hasMore) throws SQLException, IOException;
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write() throws SQLException, IOException;
+    }
+    
     private String getStackTrace(Throwable throwable) {
         java.io.StringWriter sw = new java.io.StringWriter();
         java.io.PrintWriter pw = new java.io.PrintWriter(sw);
@@ -374,37 +795,54 @@ public class McpServer {
             : stackTrace;
     }
 
-    private void handleNotification(RpcRequest request) {
-        if ("initialized".equals(request.method) || "notifications/initialized".equals(request.method)) {
+    private void handleNotification(JsonRpcRequest request) {
+        if ("initialized".equals(request.method()) || "notifications/initialized".equals(request.method())) {
             log("Notification 'initialized' received.");
         }
     }
 
-    private JsonElement handleRequest(RpcRequest request) throws SQLException {
-        String method = request.method;
-        JsonObject params = request.params == null ? new JsonObject() : request.params.getAsJsonObject();
+    private JsonElement handleRequest(JsonRpcRequest request) throws SQLException {
+        String method = request.method();
 
         return switch (method) {
-            case "initialize" -> handleInitialize(params);
-            case "tools/list" -> handleToolsList();
-            case "tools/call" -> handleToolsCall(params);
+            case "initialize" -> sendCachedResult(request, initializeResult(request.params()));
+            case "tools/list" -> {
+                log("tools/list called");
+                yield sendCachedResult(request, toolsListResult);
+            }
+            case "tools/call" -> handleToolsCall(request.id(), readToolCall(request));
             case "prompts/list" -> handlePromptsList();
             case "resources/list" -> handleResourcesList();
             default -> throw new IllegalArgumentException("Unknown method: " + method);
         };
     }
 
-    private JsonElement handleInitialize(JsonObject params) {
+    /**
+     * The serialized initialize result for the client's protocol version.
+     */
+    private byte[] initializeResult(JsonObject params) {
         log("initialize called");
         if (params != null && params.size() > 0) {
-            log("Initialize params: " + params.toString());
+            log("Initialize params: {}", params);
         }
         
-        JsonObject result = new JsonObject();
         // Use the protocol version that the client supports (Cursor sends 2025-06-18)
         String clientProtocolVersion = params.has("protocolVersion") 
             ? params.get("protocolVersion").getAsString() 
             : "2024-11-05";
+        byte[] result = initializeResults.get(clientProtocolVersion);
+        if (result == null) {
+            result = gson.toJson(createInitializeResult(clientProtocolVersion)).getBytes(StandardCharsets.UTF_8);
+            if (initializeResults.size() < MAX_CACHED_INITIALIZE_RESULTS) {
+                initializeResults.putIfAbsent(clientProtocolVersion, result);
+            }
+        }
+        log("initialize successfully completed");
+        return result;
+    }
+
+    private static JsonObject createInitializeResult(String clientProtocolVersion) {
+        JsonObject result = new JsonObject();
         result.addProperty("protocolVersion", clientProtocolVersion);
         result.addProperty("version", "0.3.1");
         result.addProperty("serverName", "encrypted-sqlite-mcp");
@@ -428,195 +866,141 @@ public class McpServer {
         rootsCap.addProperty("listChanged", false);
         capabilities.add("roots", rootsCap);
         result.add("capabilities", capabilities);
-        
-        log("initialize successfully completed");
         return result;
     }
 
-    private JsonElement handleToolsList() {
-        log("tools/list called");
-        JsonArray tools = new JsonArray();
-
-        // list_tables
-        JsonObject listTables = new JsonObject();
-        listTables.addProperty("name", "list_tables");
-        listTables.addProperty("description", "Lists all tables in the database. By default only table names, with include_columns=true also column details");
-        JsonObject listTablesInput = new JsonObject();
-        listTablesInput.addProperty("type", "object");
-        JsonObject listTablesProps = new JsonObject();
-        if (defaultConfig == null) {
-            listTablesProps.add("db_path", createSchemaProperty("string", "Path to the database file"));
-            listTablesProps.add("passphrase", createSchemaProperty("string", "Passphrase for encryption"));
-        }
-        listTablesProps.add("include_columns", createSchemaProperty("boolean", "If true, column details are also returned (default: false)"));
-        listTablesInput.add("properties", listTablesProps);
-        if (defaultConfig == null) {
-            JsonArray listTablesRequired = new JsonArray();
-            listTablesRequired.add("db_path");
-            listTablesRequired.add("passphrase");
-            listTablesInput.add("required", listTablesRequired);
-        }
-        listTables.add("inputSchema", listTablesInput);
-        tools.add(listTables);
-
-        // get_table_data
-        JsonObject getTableData = new JsonObject();
-        getTableData.addProperty("name", "get_table_data");
-        getTableData.addProperty("description", "Reads data from a table with optional filters, limit and offset");
-        JsonObject getTableDataInput = new JsonObject();
-        getTableDataInput.addProperty("type", "object");
-        JsonObject getTableDataProps = new JsonObject();
-        if (defaultConfig == null) {
-            getTableDataProps.add("db_path", createSchemaProperty("string", "Path to the database file"));
-            getTableDataProps.add("passphrase", createSchemaProperty("string", "Passphrase for encryption"));
-        }
-        getTableDataProps.add("table", createSchemaProperty("string", "Table name"));
-        getTableDataProps.add("columns", createSchemaProperty("array", "List of column names (optional)"));
-        getTableDataProps.add("filters", createSchemaProperty("object", "Filters as key-value pairs (optional)"));
-        getTableDataProps.add("limit", createSchemaProperty("number", "Maximum number of rows (default: 200)"));
-        getTableDataProps.add("offset", createSchemaProperty("number", "Offset for pagination (default: 0)"));
-        getTableDataInput.add("properties", getTableDataProps);
-        JsonArray getTableDataRequired = new JsonArray();
-        getTableDataRequired.add("table");
-        if (defaultConfig == null) {
-            getTableDataRequired.add("db_path");
-            getTableDataRequired.add("passphrase");
-        }
-        getTableDataInput.add("required", getTableDataRequired);
-        getTableData.add("inputSchema", getTableDataInput);
-        tools.add(getTableData);
-
-        // execute_sql
-        JsonObject execQuery = new JsonObject();
-        execQuery.addProperty("name", "execute_sql");
-        execQuery.addProperty("description", "Executes an arbitrary SQL statement (SELECT, INSERT, UPDATE, DELETE, DDL)");
-        JsonObject execQueryInput = new JsonObject();
-        execQueryInput.addProperty("type", "object");
-        JsonObject execQueryProps = new JsonObject();
-        if (defaultConfig == null) {
-            execQueryProps.add("db_path", createSchemaProperty("string", "Path to the database file"));
-            execQueryProps.add("passphrase", createSchemaProperty("string", "Passphrase for encryption"));
-        }
-        execQueryProps.add("sql", createSchemaProperty("string", "SQL statement"));
-        execQueryInput.add("properties", execQueryProps);
-        JsonArray execQueryRequired = new JsonArray();
-        execQueryRequired.add("sql");
-        if (defaultConfig == null) {
-            execQueryRequired.add("db_path");
-            execQueryRequired.add("passphrase");
-        }
-        execQueryInput.add("required", execQueryRequired);
-        execQuery.add("inputSchema", execQueryInput);
-        tools.add(execQuery);
-
-        // insert_or_update
-        JsonObject insertOrUpdate = new JsonObject();
-        insertOrUpdate.addProperty("name", "insert_or_update");
-        insertOrUpdate.addProperty("description", "Performs an UPSERT operation (INSERT or UPDATE on conflict)");
-        JsonObject insertOrUpdateInput = new JsonObject();
-        insertOrUpdateInput.addProperty("type", "object");
-        JsonObject insertOrUpdateProps = new JsonObject();
-        if (defaultConfig == null) {
-            insertOrUpdateProps.add("db_path", createSchemaProperty("string", "Path to the database file"));
-            insertOrUpdateProps.add("passphrase", createSchemaProperty("string", "Passphrase for encryption"));
-        }
-        insertOrUpdateProps.add("table", createSchemaProperty("string", "Table name"));
-        insertOrUpdateProps.add("primary_keys", createSchemaProperty("array", "List of primary key columns"));
-        insertOrUpdateProps.add("rows", createSchemaProperty("array", "List of rows as objects"));
-        insertOrUpdateInput.add("properties", insertOrUpdateProps);
-        JsonArray insertOrUpdateRequired = new JsonArray();
-        insertOrUpdateRequired.add("table");
-        insertOrUpdateRequired.add("primary_keys");
-        insertOrUpdateRequired.add("rows");
-        if (defaultConfig == null) {
-            insertOrUpdateRequired.add("db_path");
-            insertOrUpdateRequired.add("passphrase");
-        }
-        insertOrUpdateInput.add("required", insertOrUpdateRequired);
-        insertOrUpdate.add("inputSchema", insertOrUpdateInput);
-        tools.add(insertOrUpdate);
-
-        // delete_rows
-        JsonObject deleteRows = new JsonObject();
-        deleteRows.addProperty("name", "delete_rows");
-        deleteRows.addProperty("description", "Deletes rows from a table based on filters");
-        JsonObject deleteRowsInput = new JsonObject();
-        deleteRowsInput.addProperty("type", "object");
-        JsonObject deleteRowsProps = new JsonObject();
-        if (defaultConfig == null) {
-            deleteRowsProps.add("db_path", createSchemaProperty("string", "Path to the database file"));
-            deleteRowsProps.add("passphrase", createSchemaProperty("string", "Passphrase for encryption"));
-        }
-        deleteRowsProps.add("table", createSchemaProperty("string", "Table name"));
-        deleteRowsProps.add("filters", createSchemaProperty("object", "Filters as key-value pairs"));
-        deleteRowsInput.add("properties", deleteRowsProps);
-        JsonArray deleteRowsRequired = new JsonArray();
-        deleteRowsRequired.add("table");
-        deleteRowsRequired.add("filters");
-        if (defaultConfig == null) {
-            deleteRowsRequired.add("db_path");
-            deleteRowsRequired.add("passphrase");
-        }
-        deleteRowsInput.add("required", deleteRowsRequired);
-        deleteRows.add("inputSchema", deleteRowsInput);
-        tools.add(deleteRows);
-
-        // get_table_schema
-        JsonObject getTableSchema = new JsonObject();
-        getTableSchema.addProperty("name", "get_table_schema");
-        getTableSchema.addProperty("description", "Retrieves detailed schema information for a table (columns, indexes, foreign keys, constraints)");
-        JsonObject getTableSchemaInput = new JsonObject();
-        getTableSchemaInput.addProperty("type", "object");
-        JsonObject getTableSchemaProps = new JsonObject();
-        if (defaultConfig == null) {
-            getTableSchemaProps.add("db_path", createSchemaProperty("string", "Path to the database file"));
-            getTableSchemaProps.add("passphrase", createSchemaProperty("string", "Passphrase for encryption"));
-        }
-        getTableSchemaProps.add("table", createSchemaProperty("string", "Table name"));
-        getTableSchemaInput.add("properties", getTableSchemaProps);
-        JsonArray getTableSchemaRequired = new JsonArray();
-        getTableSchemaRequired.add("table");
-        if (defaultConfig == null) {
-            getTableSchemaRequired.add("db_path");
-            getTableSchemaRequired.add("passphrase");
-        }
-        getTableSchemaInput.add("required", getTableSchemaRequired);
-        getTableSchema.add("inputSchema", getTableSchemaInput);
-        tools.add(getTableSchema);
-
-        // list_indexes
-        JsonObject listIndexes = new JsonObject();
-        listIndexes.addProperty("name", "list_indexes");
-        listIndexes.addProperty("description", "Lists all indexes of a table");
-        JsonObject listIndexesInput = new JsonObject();
-        listIndexesInput.addProperty("type", "object");
-        JsonObject listIndexesProps = new JsonObject();
-        if (defaultConfig == null) {
-            listIndexesProps.add("db_path", createSchemaProperty("string", "Path to the database file"));
-            listIndexesProps.add("passphrase", createSchemaProperty("string", "Passphrase for encryption"));
-        }
-        listIndexesProps.add("table", createSchemaProperty("string", "Table name"));
-        listIndexesInput.add("properties", listIndexesProps);
-        JsonArray listIndexesRequired = new JsonArray();
-        listIndexesRequired.add("table");
-        if (defaultConfig == null) {
-            listIndexesRequired.add("db_path");
-            listIndexesRequired.add("passphrase");
-        }
-        listIndexesInput.add("required", listIndexesRequired);
-        listIndexes.add("inputSchema", listIndexesInput);
-        tools.add(listIndexes);
-
-        JsonObject result = new JsonObject();
-        result.add("tools", tools);
-        return result;
+    /**
+     * Writes a success response with a result serialized in advance.
+     */
+    private JsonElement sendCachedResult(JsonRpcRequest request, byte[] result) {
+        long responseSize = responses.sendResult(request.id(), result);
+        if (responseSize < 0) {
+            logError("Error writing response", null);
+        }
+        logResponseSize(request.method(), request.id(), responseSize);
+        return RESPONSE_ALREADY_SENT;
     }
 
-    private JsonObject createSchemaProperty(String type, String description) {
-        JsonObject prop = new JsonObject();
-        prop.addProperty("type", type);
-        prop.addProperty("description", description);
-        return prop;
+    /**
+     * Registers the tools in the order {@code tools/list} reports them. Tools run on a database
+     * thread unless registered with {@code onRequestThread()}.
+     */
+    private ToolRegistry registerTools(ToolRegistry registry) {
+        return registry
+            .register(ToolDefinition.builder("list_tables")
+                .description("Lists all tables in the database. By default only table names, with include_columns=true also column details")
+                .databaseArguments()
+                .parameter("include_columns", "boolean", "If true, column details are also returned (default: false)")
+                .handler((id, call) -> handleListTables(call.arguments()))
+                .build())
+            .register(ToolDefinition.builder("get_table_data")
+                .description("Reads data from a table with optional filters, limit and offset")
+                .databaseArguments()
+                .requiredParameter("table", "string", "Table name")
+                .parameter("columns", "array", "List of column names (optional)")
+                .parameter("filters", "object", "Filters as key-value pairs (optional)")
+                .parameter("limit", "number", "Maximum number of rows (default: 200)")
+                .parameter("offset", "number", "Offset for pagination (default: 0)")
+                .parameter("pagination", "string", "'offset' (default) or 'keyset'; keyset pages seek by rowid/primary key and return next_page_token")
+                .parameter("page_token", "string", "next_page_token of the previous page (implies keyset pagination)")
+                .parameter("format", "string", "Result format: 'objects' (default), 'compact' (rows as arrays), 'csv' or 'tsv'")
+                .handler((id, call) -> handleGetTableData(id, call.arguments()))
+                .build())
+            .register(ToolDefinition.builder("execute_sql")
+                .description("Executes an arbitrary SQL statement (SELECT, INSERT, UPDATE, DELETE, DDL)")
+                .databaseArguments()
+                .requiredParameter("sql", "string", "SQL statement")
+                .parameter("format", "string", "Result format for queries: 'objects' (default), 'compact' (rows as arrays), 'csv' or 'tsv'")
+                .parameter("cursor", "boolean", "If true, a query returns the first page_size rows and a cursor_id for fetch_more (default: false)")
+                .parameter("page_size", "number", "Rows per batch when cursor is true (default: 500, max: 10000)")
+                .handler((id, call) -> handleExecQuery(id, call.arguments()))
+                .build())
+            .register(ToolDefinition.builder("fetch_more")
+                .description("Returns the next batch of rows from a cursor opened by execute_sql")
+                .requiredParameter("cursor_id", "string", "cursor_id returned by execute_sql or fetch_more")
+                .parameter("page_size", "number", "Maximum number of rows (default: 500, max: 10000)")
+                .parameter("format", "string", "Result format: 'objects' (default), 'compact' (rows as arrays), 'csv' or 'tsv'")
+                .handler((id, call) -> handleFetchMore(id, call.arguments()))
+                .build())
+            .register(ToolDefinition.builder("close_cursor")
+                .description("Closes a cursor before all rows were fetched and releases its connection")
+                .requiredParameter("cursor_id", "string", "cursor_id to close")
+                .handler((id, call) -> handleCloseCursor(call.arguments()))
+                .build())
+            // Queued writes wait on the request thread while the write queue runs their
+            // batches on its own threads
+            .register(ToolDefinition.builder("insert_or_update")
+                .description("Performs an UPSERT operation (INSERT or UPDATE on conflict)")
+                .databaseArguments()
+                .requiredParameter("table", "string", "Table name")
+                .requiredParameter("primary_keys", "array", "List of primary key columns")
+                .requiredParameter("rows", "array", "List of rows as objects")
+                .parameter("chunk_size", "number", "Rows per executeBatch call (default: 500, max: 10000)")
+                .onRequestThread()
+                .handler((id, call) -> handleInsertOrUpdate(call.arguments(), call.rows()))
+                .build())
+            .register(ToolDefinition.builder("delete_rows")
+                .description("Deletes rows from a table based on filters")
+                .databaseArguments()
+                .requiredParameter("table", "string", "Table name")
+                .requiredParameter("filters", "object", "Filters as key-value pairs")
+                .onRequestThread()
+                .handler((id, call) -> handleDelete(call.arguments()))
+                .build())
+            .register(ToolDefinition.builder("import_file")
+                .description("Streams an NDJSON or CSV file from the server's file system into a table in chunked transactions")
+                .databaseArguments()
+                .requiredParameter("table", "string", "Target table name")
+                .requiredParameter("path", "string", "Path of the file to import")
+                .parameter("format", "string", "'ndjson' or 'csv' (default: from the file extension)")
+                .parameter("primary_keys", "array", "If set, rows are upserted on these columns instead of inserted")
+                .parameter("chunk_size", "number", "Rows per transaction (default: 5000)")
+                .parameter("start_offset", "number", "Byte offset to resume from, e.g. next_offset of an earlier call (default: 0)")
+                .parameter("header", "boolean", "Whether the first CSV line holds column names (default: true)")
+                .handler((id, call) -> handleImportFile(call.arguments()))
+                .build())
+            .register(ToolDefinition.builder("export_query")
+                .description("Streams a table or SELECT query into NDJSON or CSV files on the server's file system and returns a summary with row count, size and SHA-256 checksum")
+                .databaseArguments()
+                .parameter("table", "string", "Table to export (alternative to sql)")
+                .parameter("sql", "string", "SELECT query to export (alternative to table)")
+                .parameter("columns", "array", "Columns to export from the table (default: all)")
+                .parameter("filters", "object", "Equality filters for the table")
+                .requiredParameter("path", "string", "Output file")
+                .parameter("format", "string", "'ndjson' or 'csv' (default: from the file extension)")
+                .parameter("max_rows_per_file", "number", "Start a new part file after this many rows")
+                .parameter("max_bytes_per_file", "number", "Start a new part file after about this many bytes")
+                .parameter("overwrite", "boolean", "Replace existing files (default: false)")
+                .handler((id, call) -> handleExportQuery(call.arguments()))
+                .build())
+            .register(ToolDefinition.builder("get_table_schema")
+                .description("Retrieves detailed schema information for a table (columns, indexes, foreign keys, constraints)")
+                .databaseArguments()
+                .requiredParameter("table", "string", "Table name")
+                .handler((id, call) -> handleGetTableSchema(call.arguments()))
+                .build())
+            .register(ToolDefinition.builder("list_indexes")
+                .description("Lists all indexes of a table")
+                .databaseArguments()
+                .requiredParameter("table", "string", "Table name")
+                .handler((id, call) -> handleListIndexes(call.arguments()))
+                .build())
+            .register(ToolDefinition.builder("describe_database")
+                .description("Returns all tables (columns, indexes, foreign keys, CREATE statement) and views of the database in one call")
+                .databaseArguments()
+                .handler((id, call) -> handleDescribeDatabase(call.arguments()))
+                .build())
+            .register(ToolDefinition.builder("get_tuning")
+                .description("Returns the configured tuning profile and the pragmas in effect on the writer connection")
+                .databaseArguments()
+                .parameter("tuningProfile", "object", "Optional tuning overrides (cacheSize, journalMode, synchronous, tempStore, mmapSize, pageSize, walAutocheckpoint, resultCacheSize)")
+                .handler((id, call) -> handleGetTuning(call.arguments()))
+                .build())
+            .register(ToolDefinition.builder("server_stats")
+                .description("Returns server statistics: latency percentiles and errors per tool, connection open and key derivation times, pool wait times, rows and bytes returned, busy errors and cache hit rates")
+                .onRequestThread()
+                .handler((id, call) -> handleServerStats())
+                .build());
     }
 
     private JsonElement handlePromptsList() {
@@ -633,34 +1017,105 @@ public class McpServer {
         return result;
     }
 
-    private JsonElement handleToolsCall(JsonObject params) throws SQLException {
+    /**
+     * Reads tools/call params with a streaming reader, so that the rows of a large upsert are
+     * decoded straight into row maps instead of a JSON tree.
+     */
+    private ToolCall readToolCall(JsonRpcRequest request) {
+        try (JsonReader params = request.paramsReader()) {
+            if (params == null) {
+                throw new IllegalArgumentException("params must not be null");
+            }
+            return ToolCall.read(params);
+        } catch (IOException | IllegalStateException e) {
+            throw new IllegalArgumentException("Malformed params: " + e.getMessage(), e);
+        }
+    }
+
+    private JsonElement handleToolsCall(String requestId, ToolCall call) throws SQLException {
         log("handleToolsCall called");
-        if (params == null) {
-            throw new IllegalArgumentException("params must not be null");
+        if (call.name() == null) {
+            throw new IllegalArgumentException("Missing required parameter: name");
         }
         
-        String toolName = requiredString(params, "name");
-        JsonObject arguments = params.has("arguments") ? params.getAsJsonObject("arguments") : new JsonObject();
-        log("tools/call for tool: " + toolName);
-        log("Tool arguments present: " + (arguments != null && arguments.size() > 0));
-        if (arguments != null && arguments.size() > 0) {
-            log("Tool arguments: " + arguments.toString());
+        String toolName = call.name();
+        JsonObject arguments = call.arguments();
+        log("tools/call for tool: {}", toolName);
+        log("Tool arguments present: {}", arguments.size() > 0 || call.rows() != null);
+        if (arguments.size() > 0) {
+            log("Tool arguments: {}", arguments);
+        }
+        if (call.rows() != null) {
+            log("Tool rows: {}", call.rows().size());
         }
 
+        long started = System.nanoTime();
+        boolean failed = true;
         try {
-            return switch (toolName) {
-                case "list_tables" -> handleListTables(arguments);
-                case "get_table_data" -> handleGetTableData(arguments);
-                case "execute_sql" -> handleExecQuery(arguments);
-                case "insert_or_update" -> handleInsertOrUpdate(arguments);
-                case "delete_rows" -> handleDelete(arguments);
-                case "get_table_schema" -> handleGetTableSchema(arguments);
-                case "list_indexes" -> handleListIndexes(arguments);
-                default -> throw new IllegalArgumentException("Unknown tool: " + toolName);
-            };
+            JsonElement result = callTool(requestId, call);
+            failed = false;
+            return result;
         } catch (Exception ex) {
+            if (isBusy(ex)) {
+                metrics.recordBusy();
+            }
             logError("Error executing tool '" + toolName + "'", ex);
             throw ex;
+        } finally {
+            metrics.recordTool(toolName, started, failed);
+        }
+    }
+
+    private JsonElement callTool(String requestId, ToolCall call) throws SQLException {
+        ToolDefinition tool = toolRegistry.get(call.name());
+        if (tool.execution() == ToolDefinition.Execution.REQUEST_THREAD) {
+            return tool.handler().call(requestId, call);
+        }
+        return onDatabaseThread(() -> tool.handler().call(requestId, call));
+    }
+
+    /**
+     * SQLITE_BUSY (5) or SQLITE_LOCKED (6) anywhere in the cause chain, i.e. a lock that was not
+     * released within the busy timeout. Extended result codes keep the primary code in the low byte.
+     */
+    private static boolean isBusy(Throwable throwable) {
+        for (Throwable t = throwable; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sqle) {
+                int code = sqle.getErrorCode() & 0xff;
+                if (code == 5 || code == 6) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Runs a tool on a platform thread of the database executor and waits for the result.
+     * sqlite-jdbc enters native code while holding monitors, which would pin a virtual thread
+     * to its carrier; keeping JDBC work on dedicated platform threads leaves the carriers free
+     * for request parsing and response writing.
+     */
+    private JsonElement onDatabaseThread(Callable<JsonElement> tool) throws SQLException {
+        Future<JsonElement> future = databaseExecutor.submit(tool);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for database operation", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException sqle) {
+                throw sqle;
+            }
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
         }
     }
 
@@ -669,10 +1124,10 @@ public class McpServer {
         DatabaseConfig config = getDatabaseConfig(params);
         boolean includeColumns = (params.has("include_columns") && params.get("include_columns").getAsBoolean()) ||
                                  (params.has("includeColumns") && params.get("includeColumns").getAsBoolean()); // Backward compatibility
-        log("include_columns: " + includeColumns);
+        log("include_columns: {}", includeColumns);
         
-        List<EncryptedSqliteClient.TableMetadata> tables = sqliteClient.withConnection(config, sqliteClient::listTables);
-        log("Number of tables found: " + tables.size());
+        List<EncryptedSqliteClient.TableMetadata> tables = sqliteClient.listTables(config);
+        log("Number of tables found: {}", tables.size());
         
         JsonArray result = new JsonArray();
         for (EncryptedSqliteClient.TableMetadata table : tables) {
@@ -711,17 +1166,17 @@ public class McpServer {
         dataObj.add("tables", result);
         
         // Convert to JSON string for text content
-        contentItem.addProperty("text", gson.toJson(dataObj));
+        String text = gson.toJson(dataObj);
+        contentItem.addProperty("text", text);
         content.add(contentItem);
         response.add("content", content);
         
-        String responseJson = gson.toJson(response);
-        log("handleListTables: Response size: " + responseJson.length() + " chars (includeColumns=" + includeColumns + ")");
-        log("handleListTables: Response structure: {content: [{type: 'text', text: '{\"tables\": [...]}'}]} with " + result.size() + " tables");
+        log("handleListTables: Text size: {} chars (includeColumns={})", text.length(), includeColumns);
+        log("handleListTables: Response structure: {content: [{type: 'text', text: '{\"tables\": [...]}'}]} with {} tables", result.size());
         return response;
     }
 
-    private JsonElement handleGetTableData(JsonObject params) throws SQLException {
+    private JsonElement handleGetTableData(String requestId, JsonObject params) throws SQLException {
         DatabaseConfig config = getDatabaseConfig(params);
         String table = requiredString(params, "table");
         List<String> columns = params.has("columns")
@@ -745,63 +1200,302 @@ public class McpServer {
             throw new IllegalArgumentException("limit cannot exceed 10000");
         }
 
-        EncryptedSqliteClient.QueryResult result = sqliteClient.withConnection(config,
-                conn -> sqliteClient.selectTable(conn, table, filters, columns, limit, offset));
-        
-        JsonObject response = new JsonObject();
-        response.add("columns", gson.toJsonTree(result.columns()));
-        response.add("rows", gson.toJsonTree(result.rows()));
-        return response;
+        ResultFormat format = ResultFormat.parse(optionalString(params, "format"));
+
+        // Keyset pagination is selected explicitly or implied by a continuation token
+        String pageTokenValue = optionalString(params, "page_token");
+        String pagination = optionalString(params, "pagination");
+        if (pagination != null && !pagination.equals("offset") && !pagination.equals("keyset")) {
+            throw new IllegalArgumentException("pagination must be 'offset' or 'keyset', but was: " + pagination);
+        }
+        if ("keyset".equals(pagination) || pageTokenValue != null) {
+            if ("offset".equals(pagination)) {
+                throw new IllegalArgumentException("page_token requires keyset pagination");
+            }
+            if (offset != 0) {
+                throw new IllegalArgumentException("offset cannot be combined with keyset pagination");
+            }
+            if (limit == 0) {
+                throw new IllegalArgumentException("limit must be positive for keyset pagination");
+            }
+            PageToken after = pageTokenValue == null ? null : PageToken.decode(pageTokenValue);
+            Integer rowCount = sqliteClient.withConnection(config,
+                    conn -> sqliteClient.selectTablePage(conn, table, filters, columns, limit, after,
+                            page -> streamKeysetPage(requestId, page, format)));
+            log("handleGetTableData: {} rows streamed (keyset)", rowCount);
+            return RESPONSE_ALREADY_SENT;
+        }
+
+        // Arguments that shape the result, in a fixed order
+        String cacheKey = "get_table_data\0" + table + '\0' + gson.toJson(columns) + '\0'
+                + gson.toJson(filters) + '\0' + limit + '\0' + offset + '\0' + format.externalName();
+        return sqliteClient.withConnection(config, conn -> {
+            QueryResultCache.Lookup cached = sqliteClient.lookupResult(conn, config, cacheKey);
+            if (cached != null && cached.result() != null) {
+                return sendCachedQueryResult(requestId, "tools/call", cached.result());
+            }
+            int rowCount = sqliteClient.selectTable(conn, table, filters, columns, limit, offset,
+                    rs -> streamResultSetResponse(requestId, "tools/call", rs, format, cached));
+            log("handleGetTableData: {} rows streamed", rowCount);
+            return RESPONSE_ALREADY_SENT;
+        });
     }
 
-    private JsonElement handleExecQuery(JsonObject params) throws SQLException {
+    private JsonElement handleExecQuery(String requestId, JsonObject params) throws SQLException {
         log("handleExecQuery called");
         DatabaseConfig config = getDatabaseConfig(params);
         String sql = requiredString(params, "sql");
-        log("SQL query: " + sql.substring(0, Math.min(MAX_SQL_LOG_LENGTH, sql.length())));
-        EncryptedSqliteClient.QueryResult result = sqliteClient.withConnection(config,
-                conn -> sqliteClient.executeQuery(conn, sql));
-        
-        JsonObject response = new JsonObject();
-        if (result.affectedRows() >= 0) {
-            response.addProperty("affected_rows", result.affectedRows());
-            log("handleExecQuery: affected_rows: " + result.affectedRows());
-        } else {
-            response.add("columns", gson.toJsonTree(result.columns()));
-            response.add("rows", gson.toJsonTree(result.rows()));
-            log("handleExecQuery: " + result.columns().size() + " columns, " + result.rows().size() + " rows");
-            String responseJson = gson.toJson(response);
-            log("handleExecQuery: Response size: " + responseJson.length() + " chars");
+        ResultFormat format = ResultFormat.parse(optionalString(params, "format"));
+        log(() -> "SQL query: " + sql.substring(0, Math.min(MAX_SQL_LOG_LENGTH, sql.length())));
+        // Reads run on the reader pool, everything else on the database's single writer
+        boolean readOnly = SqlStatementClassifier.isReadOnly(sql);
+        if (params.has("cursor") && params.get("cursor").getAsBoolean()) {
+            if (!readOnly) {
+                throw new IllegalArgumentException("cursor requires a read-only query");
+            }
+            int pageSize = pageSize(params);
+            return sqliteClient.openCursor(config, sql,
+                    cursor -> {
+                        String cursorId = cursorRegistry.register(cursor);
+                        return streamCursorBatch(requestId, cursorId, cursorRegistry.acquire(cursorId), pageSize, format);
+                    },
+                    affected -> {
+                        JsonObject response = new JsonObject();
+                        response.addProperty("affected_rows", affected);
+                        log("handleExecQuery: affected_rows: {}", affected);
+                        return response;
+                    });
         }
+        // Only deterministic single queries are cached; they are read-only and run on a reader
+        String cacheKey = SqlStatementClassifier.isCacheable(sql)
+                ? "execute_sql\0" + format.externalName() + '\0' + SqlStatementClassifier.normalize(sql)
+                : null;
+        EncryptedSqliteClient.SqlFunction<Connection, JsonElement> execute = conn -> {
+            QueryResultCache.Lookup cached = cacheKey == null ? null : sqliteClient.lookupResult(conn, config, cacheKey);
+            if (cached != null && cached.result() != null) {
+                return sendCachedQueryResult(requestId, "tools/call", cached.result());
+            }
+            return sqliteClient.executeQuery(conn, sql,
+                rs -> {
+                    int rowCount = streamResultSetResponse(requestId, "tools/call", rs, format, cached);
+                    log("handleExecQuery: {} rows streamed", rowCount);
+                    return RESPONSE_ALREADY_SENT;
+                },
+                affected -> {
+                    JsonObject response = new JsonObject();
+                    response.addProperty("affected_rows", affected);
+                    log("handleExecQuery: affected_rows: {}", affected);
+                    return response;
+                });
+        };
+        return readOnly
+                ? sqliteClient.withConnection(config, execute)
+                : sqliteClient.withWriteConnection(config, execute);
+    }
+
+    private JsonElement handleFetchMore(String requestId, JsonObject params) throws SQLException {
+        String cursorId = requiredString(params, "cursor_id");
+        int pageSize = pageSize(params);
+        ResultFormat format = ResultFormat.parse(optionalString(params, "format"));
+        return streamCursorBatch(requestId, cursorId, cursorRegistry.acquire(cursorId), pageSize, format);
+    }
+
+    private JsonElement handleCloseCursor(JsonObject params) {
+        String cursorId = requiredString(params, "cursor_id");
+        JsonObject response = new JsonObject();
+        response.addProperty("closed", cursorRegistry.close(cursorId));
         return response;
     }
 
-    private JsonElement handleInsertOrUpdate(JsonObject params) throws SQLException {
+    /**
+     * Streams the next batch of an acquired cursor. The result carries {@code has_more}, and
+     * the {@code cursor_id} while rows remain; an exhausted cursor is closed right away.
+     */
+    private JsonElement streamCursorBatch(String requestId, String cursorId, QueryCursor cursor,
+                                          int pageSize, ResultFormat format) throws SQLException {
+        boolean hasMore = false;
+        try {
+            StreamedRows batch = streamRows(requestId, "tools/call", cursor.resultSet(), cursor.hasRow(),
+                    cursor.layout(), format, pageSize, (json, more) -> {
+                        json.name("has_more").value(more);
+                        if (more) {
+                            json.name("cursor_id").value(cursorId);
+                        }
+                    });
+            hasMore = batch.hasMore();
+            cursor.setHasRow(hasMore);
+            log("Cursor {}: {} rows streamed, has_more={}", cursorId, batch.rowCount(), hasMore);
+        } finally {
+            cursorRegistry.release(cursor);
+            if (!hasMore) {
+                cursorRegistry.close(cursorId);
+            }
+        }
+        return RESPONSE_ALREADY_SENT;
+    }
+
+    /**
+     * Streams one keyset page. The ResultSet may hold one row beyond the page; its key becomes
+     * the {@code next_page_token}.
+     */
+    private int streamKeysetPage(String requestId, EncryptedSqliteClient.KeysetPage page, ResultFormat format)
+            throws SQLException {
+        ResultSet rs = page.resultSet();
+        SqliteUtil.ColumnLayout layout = SqliteUtil.ColumnLayout.of(rs.getMetaData(), page.visibleColumnCount());
+        return streamRows(requestId, "tools/call", rs, rs.next(), layout, format, page.limit(), (json, hasMore) -> {
+            if (hasMore) {
+                json.name("next_page_token").value(page.tokenForCurrentRow().encode());
+            }
+        }).rowCount();
+    }
+
+    private int pageSize(JsonObject params) {
+        int pageSize = params.has("page_size") ? params.get("page_size").getAsInt() : DEFAULT_CURSOR_PAGE_SIZE;
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("page_size must be positive");
+        }
+        if (pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("page_size cannot exceed " + MAX_PAGE_SIZE);
+        }
+        return pageSize;
+    }
+
+    /**
+     * @param decodedRows Rows already decoded from the request, or null to read them from params
+     */
+    private JsonElement handleInsertOrUpdate(JsonObject params, List<Map<String, Object>> decodedRows)
+            throws SQLException {
         DatabaseConfig config = getDatabaseConfig(params);
         String table = requiredString(params, "table");
         // Support both snake_case and camelCase for backward compatibility
         if (!params.has("primary_keys") && !params.has("primaryKeys")) {
             throw new IllegalArgumentException("Missing required parameter: primary_keys");
         }
-        ensureParam(params, "rows");
+        if (decodedRows == null) {
+            ensureParam(params, "rows");
+        }
         JsonArray primaryKeysArray = params.has("primary_keys") 
             ? params.getAsJsonArray("primary_keys")
             : params.getAsJsonArray("primaryKeys");
         List<String> primaryKeys = gson.fromJson(primaryKeysArray, LIST_STRING_TYPE);
-        List<Map<String, Object>> rows = gson.fromJson(params.getAsJsonArray("rows"), LIST_MAP_TYPE);
-        Integer affected = sqliteClient.withConnection(config,
-                conn -> sqliteClient.insertOrUpdate(conn, table, primaryKeys, rows));
+        List<Map<String, Object>> rows = decodedRows != null
+                ? decodedRows
+                : gson.fromJson(params.getAsJsonArray("rows"), LIST_MAP_TYPE);
+        int chunkSize = params.has("chunk_size")
+                ? params.get("chunk_size").getAsInt()
+                : EncryptedSqliteClient.DEFAULT_UPSERT_CHUNK_SIZE;
+        if (chunkSize < 1 || chunkSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("chunk_size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        Integer affected = sqliteClient.withQueuedWrite(config,
+                conn -> sqliteClient.insertOrUpdate(conn, table, primaryKeys, rows, chunkSize));
         JsonObject response = new JsonObject();
         response.addProperty("affected_rows", affected);
         return response;
     }
 
+    private JsonElement handleImportFile(JsonObject params) throws SQLException {
+        DatabaseConfig config = getDatabaseConfig(params);
+        String table = requiredString(params, "table");
+        Path file = Path.of(requiredString(params, "path"));
+        TransferFormat format = TransferFormat.resolve(optionalString(params, "format"), file);
+        List<String> primaryKeys = params.has("primary_keys")
+                ? gson.fromJson(params.getAsJsonArray("primary_keys"), LIST_STRING_TYPE)
+                : List.of();
+        int chunkSize = params.has("chunk_size") ? params.get("chunk_size").getAsInt() : FileImporter.DEFAULT_CHUNK_SIZE;
+        long startOffset = params.has("start_offset") ? params.get("start_offset").getAsLong() : 0L;
+        boolean header = !params.has("header") || params.get("header").getAsBoolean();
+        FileImporter.Options options = new FileImporter.Options(file, format, table, primaryKeys, chunkSize, startOffset, header);
+
+        List<EncryptedSqliteClient.ColumnMetadata> columns = sqliteClient.describeColumns(config, table);
+        FileImporter.Result result = sqliteClient.withWriteConnection(config,
+                conn -> FileImporter.importFile(conn, columns, options));
+        log("handleImportFile: {} rows in {} ms, complete={}", result.rowsImported(), result.durationMillis(), result.complete());
+
+        JsonObject response = new JsonObject();
+        response.addProperty("rows_imported", result.rowsImported());
+        response.addProperty("start_offset", result.startOffset());
+        response.addProperty("next_offset", result.nextOffset());
+        response.addProperty("bytes_read", result.nextOffset() - result.startOffset());
+        response.addProperty("complete", result.complete());
+        response.addProperty("duration_ms", result.durationMillis());
+        response.addProperty("rows_per_second", Math.round(result.rowsPerSecond()));
+        response.add("columns", gson.toJsonTree(result.columns()));
+        if (!result.ignoredFields().isEmpty()) {
+            response.add("ignored_fields", gson.toJsonTree(result.ignoredFields()));
+        }
+        if (result.error() != null) {
+            response.addProperty("error", result.error());
+        }
+        return response;
+    }
+
+    private JsonElement handleExportQuery(JsonObject params) throws SQLException {
+        DatabaseConfig config = getDatabaseConfig(params);
+        String table = optionalString(params, "table");
+        String sql = optionalString(params, "sql");
+        if ((table == null) == (sql == null)) {
+            throw new IllegalArgumentException("Exactly one of table or sql is required");
+        }
+        Path file = Path.of(requiredString(params, "path"));
+        TransferFormat format = TransferFormat.resolve(optionalString(params, "format"), file);
+        long maxRows = params.has("max_rows_per_file") ? params.get("max_rows_per_file").getAsLong() : 0L;
+        long maxBytes = params.has("max_bytes_per_file") ? params.get("max_bytes_per_file").getAsLong() : 0L;
+        boolean overwrite = params.has("overwrite") && params.get("overwrite").getAsBoolean();
+        QueryExporter.Options options = new QueryExporter.Options(file, format, maxRows, maxBytes, overwrite);
+        QueryExporter.checkTarget(options);
+
+        QueryExporter.Result result;
+        if (table != null) {
+            Map<String, Object> filters = params.has("filters")
+                    ? gson.fromJson(params.getAsJsonObject("filters"), MAP_TYPE)
+                    : Map.of();
+            List<String> columns = params.has("columns")
+                    ? gson.fromJson(params.getAsJsonArray("columns"), LIST_STRING_TYPE)
+                    : List.of();
+            // A negative LIMIT means no limit in SQLite
+            result = sqliteClient.withConnection(config,
+                    conn -> sqliteClient.selectTable(conn, table, filters, columns, -1, 0,
+                            rs -> QueryExporter.export(rs, options)));
+        } else {
+            if (!SqlStatementClassifier.isReadOnly(sql)) {
+                throw new IllegalArgumentException("export_query only accepts read-only queries");
+            }
+            result = sqliteClient.withConnection(config,
+                    conn -> sqliteClient.executeQuery(conn, sql,
+                            rs -> QueryExporter.export(rs, options),
+                            affected -> {
+                                throw new IllegalArgumentException("export_query requires a statement that returns rows");
+                            }));
+        }
+        log(() -> "handleExportQuery: " + result.rows() + " rows, " + result.bytes() + " bytes in " + result.durationMillis() + " ms");
+
+        JsonObject response = new JsonObject();
+        response.addProperty("format", format.externalName());
+        response.addProperty("rows", result.rows());
+        response.addProperty("bytes", result.bytes());
+        response.addProperty("duration_ms", result.durationMillis());
+        response.addProperty("rows_per_second", Math.round(result.rowsPerSecond()));
+        response.addProperty("sha256", result.sha256());
+        JsonArray files = new JsonArray();
+        for (QueryExporter.Part part : result.parts()) {
+            JsonObject entry = new JsonObject();
+            entry.addProperty("path", part.path().toString());
+            entry.addProperty("rows", part.rows());
+            entry.addProperty("bytes", part.bytes());
+            entry.addProperty("sha256", part.sha256());
+            files.add(entry);
+        }
+        response.add("files", files);
+        return response;
+    }
+
     private JsonElement handleDelete(JsonObject params) throws SQLException {
         DatabaseConfig config = getDatabaseConfig(params);
         String table = requiredString(params, "table");
         ensureParam(params, "filters");
         Map<String, Object> filters = gson.fromJson(params.getAsJsonObject("filters"), MAP_TYPE);
-        Integer affected = sqliteClient.withConnection(config,
+        Integer affected = sqliteClient.withQueuedWrite(config,
                 conn -> sqliteClient.deleteRows(conn, table, filters));
         JsonObject response = new JsonObject();
         response.addProperty("affected_rows", affected);
@@ -813,29 +1507,45 @@ public class McpServer {
         DatabaseConfig config = getDatabaseConfig(params);
         String table = requiredString(params, "table");
         
-        EncryptedSqliteClient.TableSchemaMetadata schema = sqliteClient.withConnection(config,
-                conn -> sqliteClient.getTableSchema(conn, table));
+        EncryptedSqliteClient.TableSchemaMetadata schema = sqliteClient.getTableSchema(config, table);
         
-        JsonObject response = new JsonObject();
-        response.addProperty("table_name", schema.tableName());
+        JsonObject response = tableSchemaJson(schema);
         
-        // Columns
-        JsonArray columnsArray = new JsonArray();
-        for (EncryptedSqliteClient.ColumnMetadata col : schema.columns()) {
-            JsonObject colObj = new JsonObject();
-            colObj.addProperty("cid", col.cid());
-            colObj.addProperty("name", col.name());
-            colObj.addProperty("type", col.type());
-            colObj.addProperty("not_null", col.notNull());
-            colObj.addProperty("primary_key", col.primaryKey());
-            if (col.defaultValue() != null) {
-                colObj.addProperty("default_value", col.defaultValue());
+        log("handleGetTableSchema: Schema for table '{}' successfully retrieved", table);
+        return response;
+    }
+
+    private JsonElement handleDescribeDatabase(JsonObject params) throws SQLException {
+        DatabaseConfig config = getDatabaseConfig(params);
+        EncryptedSqliteClient.DatabaseMetadata metadata = sqliteClient.describeDatabase(config);
+
+        JsonArray tables = new JsonArray();
+        for (EncryptedSqliteClient.TableSchemaMetadata table : metadata.tables()) {
+            tables.add(tableSchemaJson(table));
+        }
+        JsonArray views = new JsonArray();
+        for (EncryptedSqliteClient.ViewMetadata view : metadata.views()) {
+            JsonObject viewObj = new JsonObject();
+            viewObj.addProperty("name", view.name());
+            viewObj.add("columns", columnsJson(view.columns()));
+            if (view.createSql() != null) {
+                viewObj.addProperty("create_sql", view.createSql());
             }
-            columnsArray.add(colObj);
+            views.add(viewObj);
         }
-        response.add("columns", columnsArray);
-        
-        // Indexes
+
+        JsonObject response = new JsonObject();
+        response.add("tables", tables);
+        response.add("views", views);
+        log("handleDescribeDatabase: {} tables, {} views", metadata.tables().size(), metadata.views().size());
+        return response;
+    }
+
+    private JsonObject tableSchemaJson(EncryptedSqliteClient.TableSchemaMetadata schema) {
+        JsonObject response = new JsonObject();
+        response.addProperty("table_name", schema.tableName());
+        response.add("columns", columnsJson(schema.columns()));
+
         JsonArray indexesArray = new JsonArray();
         for (EncryptedSqliteClient.IndexMetadata idx : schema.indexes()) {
             JsonObject idxObj = new JsonObject();
@@ -846,8 +1556,7 @@ public class McpServer {
             indexesArray.add(idxObj);
         }
         response.add("indexes", indexesArray);
-        
-        // Foreign keys
+
         JsonArray foreignKeysArray = new JsonArray();
         for (EncryptedSqliteClient.ForeignKeyMetadata fk : schema.foreignKeys()) {
             JsonObject fkObj = new JsonObject();
@@ -862,23 +1571,182 @@ public class McpServer {
             foreignKeysArray.add(fkObj);
         }
         response.add("foreign_keys", foreignKeysArray);
-        
-        // CREATE SQL statement
+
         if (schema.createSql() != null) {
             response.addProperty("create_sql", schema.createSql());
         }
-        
-        log("handleGetTableSchema: Schema for table '" + table + "' successfully retrieved");
         return response;
     }
 
+    private JsonArray columnsJson(List<EncryptedSqliteClient.ColumnMetadata> columns) {
+        JsonArray columnsArray = new JsonArray();
+        for (EncryptedSqliteClient.ColumnMetadata col : columns) {
+            JsonObject colObj = new JsonObject();
+            colObj.addProperty("cid", col.cid());
+            colObj.addProperty("name", col.name());
+            colObj.addProperty("type", col.type());
+            colObj.addProperty("not_null", col.notNull());
+            colObj.addProperty("primary_key", col.primaryKey());
+            if (col.defaultValue() != null) {
+                colObj.addProperty("default_value", col.defaultValue());
+            }
+            columnsArray.add(colObj);
+        }
+        return columnsArray;
+    }
+
+    private JsonElement handleGetTuning(JsonObject params) throws SQLException {
+        DatabaseConfig config = getDatabaseConfig(params);
+        TuningProfile tuning = config.tuningProfile();
+        EncryptedSqliteClient.EffectiveTuning effective = sqliteClient.effectiveTuning(config);
+
+        JsonObject profile = new JsonObject();
+        profile.addProperty("name", tuning.name());
+        profile.addProperty("cache_size", tuning.cacheSize());
+        profile.addProperty("journal_mode", tuning.journalMode().name());
+        profile.addProperty("synchronous", tuning.synchronous().name());
+        profile.addProperty("temp_store", tuning.tempStore().name());
+        profile.addProperty("mmap_size", tuning.mmapSize());
+        profile.addProperty("page_size", tuning.pageSize());
+        profile.addProperty("wal_autocheckpoint", tuning.walAutocheckpoint());
+        profile.addProperty("result_cache_size", tuning.resultCacheSize());
+
+        JsonObject pragmas = new JsonObject();
+        pragmas.addProperty("cache_size", effective.cacheSize());
+        pragmas.addProperty("journal_mode", effective.journalMode());
+        pragmas.addProperty("synchronous", effective.synchronous().name());
+        pragmas.addProperty("temp_store", effective.tempStore().name());
+        pragmas.addProperty("mmap_size", effective.mmapSize());
+        pragmas.addProperty("page_size", effective.pageSize());
+        pragmas.addProperty("wal_autocheckpoint", effective.walAutocheckpoint());
+
+        JsonObject response = new JsonObject();
+        response.add("profile", profile);
+        response.add("effective", pragmas);
+        return response;
+    }
+
+    private JsonElement handleServerStats() {
+        EncryptedSqliteClient.ClientMetrics client = sqliteClient.metrics();
+
+        JsonObject tools = new JsonObject();
+        metrics.tools().forEach((name, stats) -> {
+            JsonObject tool = latencyJson(stats.latency());
+            tool.addProperty("errors", stats.errors());
+            tools.add(name, tool);
+        });
+
+        JsonObject connections = new JsonObject();
+        connections.add("reader_opens", latencyJson(client.readerOpens()));
+        connections.add("writer_opens", latencyJson(client.writerOpens()));
+        connections.add("key_derivations", latencyJson(client.keyDerivations()));
+
+        JsonObject poolWaits = new JsonObject();
+        poolWaits.add("reader", latencyJson(client.readerWaits()));
+        poolWaits.add("writer", latencyJson(client.writerWaits()));
+
+        JsonObject caches = new JsonObject();
+        JsonObject statements = cacheJson(client.statementCache().hits(), client.statementCache().misses());
+        statements.addProperty("evictions", client.statementCache().evictions());
+        caches.add("statements", statements);
+        caches.add("schema", cacheJson(client.schemaCacheHits(), client.schemaCacheMisses()));
+        caches.add("derived_keys", cacheJson(client.keyCacheHits(), client.keyCacheMisses()));
+        QueryResultCacheStats resultCache = client.resultCache();
+        JsonObject results = cacheJson(resultCache.hits(), resultCache.misses());
+        results.addProperty("evictions", resultCache.evictions());
+        results.addProperty("invalidations", resultCache.invalidations());
+        results.addProperty("bytes", resultCache.bytes());
+        caches.add("query_results", results);
+
+        JsonObject writeQueue = new JsonObject();
+        writeQueue.addProperty("batches", client.writeBatches());
+        writeQueue.addProperty("operations", client.writeOperations());
+
+        JsonObject response = new JsonObject();
+        response.addProperty("uptime_seconds", metrics.uptime().toSeconds());
+        response.add("tools", tools);
+        response.add("connections", connections);
+        response.add("pool_waits", poolWaits);
+        response.addProperty("rows_returned", metrics.rowsReturned());
+        response.addProperty("bytes_written", metrics.bytesWritten());
+        response.addProperty("busy_errors", metrics.busyErrors());
+        response.add("caches", caches);
+        response.add("write_queue", writeQueue);
+        return response;
+    }
+
+    private static JsonObject latencyJson(Histogram.Snapshot snapshot) {
+        JsonObject json = new JsonObject();
+        json.addProperty("count", snapshot.count());
+        json.addProperty("mean_ms", Histogram.Snapshot.toMillis(Math.round(snapshot.meanNanos())));
+        json.addProperty("p50_ms", Histogram.Snapshot.toMillis(snapshot.percentile(0.50)));
+        json.addProperty("p90_ms", Histogram.Snapshot.toMillis(snapshot.percentile(0.90)));
+        json.addProperty("p99_ms", Histogram.Snapshot.toMillis(snapshot.percentile(0.99)));
+        json.addProperty("p999_ms", Histogram.Snapshot.toMillis(snapshot.percentile(0.999)));
+        json.addProperty("max_ms", Histogram.Snapshot.toMillis(snapshot.maxNanos()));
+        return json;
+    }
+
+    private static JsonObject cacheJson(long hits, long misses) {
+        JsonObject json = new JsonObject();
+        json.addProperty("hits", hits);
+        json.addProperty("misses", misses);
+        json.addProperty("hit_ratio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        return json;
+    }
+
+    /**
+     * The statistics of {@code server_stats} in the Prometheus text format, for the metrics file.
+     */
+    private String prometheusText() {
+        EncryptedSqliteClient.ClientMetrics client = sqliteClient.metrics();
+        Map<String, Histogram.Snapshot> toolLatency = new LinkedHashMap<>();
+        Map<String, Long> toolErrors = new LinkedHashMap<>();
+        metrics.tools().forEach((name, stats) -> {
+            toolLatency.put(name, stats.latency());
+            toolErrors.put(name, stats.errors());
+        });
+        Map<String, Long> cacheHits = new LinkedHashMap<>();
+        cacheHits.put("statement", client.statementCache().hits());
+        cacheHits.put("schema", client.schemaCacheHits());
+        cacheHits.put("derived_key", client.keyCacheHits());
+        cacheHits.put("query_result", client.resultCache().hits());
+        Map<String, Long> cacheMisses = new LinkedHashMap<>();
+        cacheMisses.put("statement", client.statementCache().misses());
+        cacheMisses.put("schema", client.schemaCacheMisses());
+        cacheMisses.put("derived_key", client.keyCacheMisses());
+        cacheMisses.put("query_result", client.resultCache().misses());
+
+        return new PrometheusText()
+                .gauge("mcp_sqlite_uptime_seconds", "Time since the server started.", metrics.uptime().toMillis() / 1000.0)
+                .summary("mcp_sqlite_tool_duration_seconds", "Tool call latency.", "tool", toolLatency)
+                .counter("mcp_sqlite_tool_errors_total", "Tool calls that ended with an error.", "tool", toolErrors)
+                .summary("mcp_sqlite_connection_open_seconds", "Time to open a pooled connection.", "role",
+                        Map.of("reader", client.readerOpens(), "writer", client.writerOpens()))
+                .summary("mcp_sqlite_key_derivation_seconds", "PBKDF2 key derivation time on key cache misses.",
+                        client.keyDerivations())
+                .summary("mcp_sqlite_pool_wait_seconds", "Time spent waiting for a pooled connection.", "role",
+                        Map.of("reader", client.readerWaits(), "writer", client.writerWaits()))
+                .counter("mcp_sqlite_rows_returned_total", "Rows streamed in query results.", metrics.rowsReturned())
+                .counter("mcp_sqlite_response_bytes_total", "Bytes written to stdout.", metrics.bytesWritten())
+                .counter("mcp_sqlite_busy_errors_total", "Tool calls that failed with SQLITE_BUSY or SQLITE_LOCKED.",
+                        metrics.busyErrors())
+                .counter("mcp_sqlite_cache_hits_total", "Cache hits.", "cache", cacheHits)
+                .counter("mcp_sqlite_cache_misses_total", "Cache misses.", "cache", cacheMisses)
+                .gauge("mcp_sqlite_query_result_cache_bytes", "Approximate size of cached query results.",
+                        client.resultCache().bytes())
+                .counter("mcp_sqlite_write_batches_total", "Group commit transactions.", client.writeBatches())
+                .counter("mcp_sqlite_write_operations_total", "Writes committed through the write queue.",
+                        client.writeOperations())
+                .toString();
+    }
+
     private JsonElement handleListIndexes(JsonObject params) throws SQLException {
         log("handleListIndexes called");
         DatabaseConfig config = getDatabaseConfig(params);
         String table = requiredString(params, "table");
         
-        List<EncryptedSqliteClient.IndexMetadata> indexes = sqliteClient.withConnection(config,
-                conn -> sqliteClient.listIndexes(conn, table));
+        List<EncryptedSqliteClient.IndexMetadata> indexes = sqliteClient.listIndexes(config, table);
         
         JsonArray result = new JsonArray();
         for (EncryptedSqliteClient.IndexMetadata idx : indexes) {
@@ -892,7 +1760,7 @@ public class McpServer {
         
         JsonObject response = new JsonObject();
         response.add("indexes", result);
-        log("handleListIndexes: " + indexes.size() + " indexes found for table '" + table + "'");
+        log("handleListIndexes: {} indexes found for table '{}'", indexes.size(), table);
         return response;
     }
 
@@ -915,8 +1783,8 @@ public class McpServer {
                 String passphrase = params.has("passphrase") ? params.get("passphrase").getAsString() : defaultConfig.passphrase();
                 boolean passphraseOverridden = params.has("passphrase");
                 boolean dbPathOverridden = params.has("db_path") || params.has("dbPath") || params.has("db_Path");
-                log("DB Path: " + dbPath + (dbPathOverridden ? " (override)" : " (default)"));
-                log("Passphrase present: " + (passphrase != null) + (passphraseOverridden ? " (override)" : " (default)"));
+                log("DB Path: {} ({})", dbPath, dbPathOverridden ? "override" : "default");
+                log("Passphrase present: {} ({})", passphrase != null, passphraseOverridden ? "override" : "default");
                 if (passphrase != null && passphrase.startsWith("encrypted:")) {
                     log("Encrypted passphrase detected");
                 }
@@ -926,7 +1794,12 @@ public class McpServer {
                     log("CipherProfile being overridden");
                     profile = resolveCipherProfile(params.getAsJsonObject("cipherProfile"));
                 }
-                return DatabaseConfig.withDecryptedPassphrase(dbPath, passphrase, profile);
+                TuningProfile tuning = defaultConfig.tuningProfile();
+                if (params.has("tuningProfile")) {
+                    log("TuningProfile being overridden");
+                    tuning = resolveTuningProfile(params.getAsJsonObject("tuningProfile"), tuning);
+                }
+                return DatabaseConfig.withDecryptedPassphrase(dbPath, passphrase, profile, tuning);
             } else {
                 log("No default config, using parameters");
                 // Must be provided in params
@@ -955,7 +1828,10 @@ public class McpServer {
         Path dbPath = Path.of(dbPathStr);
         String passphrase = requiredString(params, "passphrase");
         CipherProfile profile = resolveCipherProfile(params.has("cipherProfile") ? params.getAsJsonObject("cipherProfile") : null);
-        return DatabaseConfig.withDecryptedPassphrase(dbPath, passphrase, profile);
+        TuningProfile tuning = params.has("tuningProfile")
+                ? resolveTuningProfile(params.getAsJsonObject("tuningProfile"), TuningProfile.defaults())
+                : TuningProfile.defaults();
+        return DatabaseConfig.withDecryptedPassphrase(dbPath, passphrase, profile, tuning);
     }
 
     private CipherProfile resolveCipherProfile(JsonObject json) {
@@ -982,6 +1858,41 @@ public class McpServer {
         return builder.build();
     }
 
+    /**
+     * Overrides the settings present in the JSON object; missing settings keep the base value.
+     */
+    private static TuningProfile resolveTuningProfile(JsonObject json, TuningProfile base) {
+        TuningProfile.Builder builder = base.toBuilder();
+        if (json.has("name")) {
+            builder.name(json.get("name").getAsString());
+        }
+        if (json.has("cacheSize")) {
+            builder.cacheSize(json.get("cacheSize").getAsInt());
+        }
+        if (json.has("journalMode")) {
+            builder.journalMode(json.get("journalMode").getAsString());
+        }
+        if (json.has("synchronous")) {
+            builder.synchronous(json.get("synchronous").getAsString());
+        }
+        if (json.has("tempStore")) {
+            builder.tempStore(json.get("tempStore").getAsString());
+        }
+        if (json.has("mmapSize")) {
+            builder.mmapSize(json.get("mmapSize").getAsLong());
+        }
+        if (json.has("pageSize")) {
+            builder.pageSize(json.get("pageSize").getAsInt());
+        }
+        if (json.has("walAutocheckpoint")) {
+            builder.walAutocheckpoint(json.get("walAutocheckpoint").getAsInt());
+        }
+        if (json.has("resultCacheSize")) {
+            builder.resultCacheSize(json.get("resultCacheSize").getAsLong());
+        }
+        return builder.build();
+    }
+
     private String requiredString(JsonObject params, String key) {
         if (!params.has(key)) {
             throw new IllegalArgumentException("Missing required parameter: " + key);
@@ -989,37 +1900,43 @@ public class McpServer {
         return Objects.requireNonNull(params.get(key).getAsString(), key + " may not be null");
     }
 
+    private String optionalString(JsonObject params, String key) {
+        if (!params.has(key) || params.get(key).isJsonNull()) {
+            return null;
+        }
+        return params.get(key).getAsString();
+    }
+
     private void ensureParam(JsonObject params, String key) {
         if (!params.has(key)) {
             throw new IllegalArgumentException("Missing required parameter: " + key);
         }
     }
 
-    private record RpcRequest(String jsonrpc, String method, JsonObject params, String id) {}
 
+    // Debug logs go to stderr (MCP protocol requires stdout for JSON-RPC only), and only in
+    // debug mode. Placeholders are filled in on the log thread, so arguments are passed as is.
     private void log(String message) {
-        // Output debug logs to stderr (MCP protocol requires stdout for JSON-RPC only)
-        // Only log if debug mode is enabled
-        if (debugMode) {
-            String timestamp = java.time.LocalDateTime.now().toString();
-            String logMessage = "[" + timestamp + "] [DEBUG] " + message;
-            System.err.println(logMessage);
-        }
-        LOGGER.fine(message);
+        serverLog.debug(message);
+    }
+
+    private void log(String pattern, Object arg) {
+        serverLog.debug(pattern, arg);
+    }
+
+    private void log(String pattern, Object arg1, Object arg2) {
+        serverLog.debug(pattern, arg1, arg2);
+    }
+
+    private void log(String pattern, Object arg1, Object arg2, Object arg3) {
+        serverLog.debug(pattern, arg1, arg2, arg3);
+    }
+
+    private void log(Supplier<String> message) {
+        serverLog.debug(message);
     }
 
     private void logError(String message, Throwable throwable) {
-        String timestamp = java.time.LocalDateTime.now().toString();
-        String errorMessage = "[" + timestamp + "] [ERROR] " + message;
-        System.err.println(errorMessage);
-        if (throwable != null) {
-            System.err.println("Exception: " + throwable.getClass().getName() + ": " + throwable.getMessage());
-            // Print stack trace to stderr for debugging
-            java.io.StringWriter sw = new java.io.StringWriter();
-            java.io.PrintWriter pw = new java.io.PrintWriter(sw);
-            throwable.printStackTrace(pw);
-            System.err.println(sw.toString());
-        }
-        LOGGER.log(Level.SEVERE, "[MCP-ENCRYPTED-SQLITE] " + message, throwable);
+        serverLog.error(message, throwable);
     }
 }
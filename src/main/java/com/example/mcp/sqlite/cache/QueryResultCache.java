@@ -0,0 +1,204 @@
+package com.example.mcp.sqlite.cache;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Serialized query results per database file, valid while the database is unchanged.
+ *
+ * Changes are detected with {@code PRAGMA data_version}, whose value changes whenever another
+ * connection commits, and {@code PRAGMA schema_version}. Data versions are only comparable on
+ * the same connection, so the cache remembers the last value seen on each connection and drops
+ * every result of the database when a connection sees a new one, or sees its first one. The
+ * lookups must therefore use connections that never write themselves, i.e. pooled readers;
+ * every write, from this process or another, then shows up on each of them.
+ *
+ * Each database has a budget in bytes; least recently used results are evicted to stay within
+ * it, and a result larger than a quarter of the budget is not cached. A result is stored under
+ * the cache generation of its lookup and discarded if the database changed in between.
+ *
+ * Cached results are shared between callers and must be treated as read-only.
+ */
+public final class QueryResultCache {
+    // Rough per-entry overhead of the map entry, key and array headers
+    static final int ENTRY_OVERHEAD = 96;
+
+    private final Map<Path, Store> stores = new ConcurrentHashMap<>();
+    private final Map<Connection, Long> dataVersions = Collections.synchronizedMap(new WeakHashMap<>());
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * Checks whether the database changed since the connection's last lookup and returns the
+     * cached result for a key, if any.
+     *
+     * @param connection Read-only connection to the database
+     * @param database Path of the database file
+     * @param maxBytes Budget of the database in bytes
+     * @param key Identifies the query and its parameters within the database
+     */
+    public Lookup lookup(Connection connection, Path database, long maxBytes, String key) throws SQLException {
+        Objects.requireNonNull(connection, "connection");
+        Objects.requireNonNull(key, "key");
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive");
+        }
+        long dataVersion = pragma(connection, "PRAGMA data_version");
+        long schemaVersion = pragma(connection, "PRAGMA schema_version");
+        Store store = stores.computeIfAbsent(database.toAbsolutePath().normalize(), path -> new Store());
+        byte[] cached;
+        long generation;
+        synchronized (store) {
+            store.maxBytes = maxBytes;
+            Long seen = dataVersions.put(connection, dataVersion);
+            if (seen == null || seen != dataVersion || store.schemaVersion != schemaVersion) {
+                if (!store.entries.isEmpty()) {
+                    invalidations.increment();
+                }
+                store.clear();
+                store.schemaVersion = schemaVersion;
+            }
+            cached = store.entries.get(key);
+            generation = store.generation;
+        }
+        if (cached != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return new Lookup(store, key, generation, cached);
+    }
+
+    /**
+     * Forgets everything cached for a database file.
+     */
+    public void invalidate(Path database) {
+        Store store = stores.remove(database.toAbsolutePath().normalize());
+        if (store != null) {
+            synchronized (store) {
+                store.clear();
+            }
+        }
+    }
+
+    public void clear() {
+        for (Path database : stores.keySet()) {
+            invalidate(database);
+        }
+        dataVersions.clear();
+    }
+
+    public QueryResultCacheStats stats() {
+        long bytes = 0;
+        for (Store store : stores.values()) {
+            synchronized (store) {
+                bytes += store.weight;
+            }
+        }
+        return new QueryResultCacheStats(hits.sum(), misses.sum(), evictions.sum(), invalidations.sum(), bytes);
+    }
+
+    private static long pragma(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    static long weight(String key, byte[] result) {
+        return ENTRY_OVERHEAD + 2L * key.length() + result.length;
+    }
+
+    /**
+     * Result of a lookup: the cached result on a hit, otherwise a place to store the result
+     * once it has been computed.
+     */
+    public final class Lookup {
+        private final Store store;
+        private final String key;
+        private final long generation;
+        private final byte[] result;
+
+        private Lookup(Store store, String key, long generation, byte[] result) {
+            this.store = store;
+            this.key = key;
+            this.generation = generation;
+            this.result = result;
+        }
+
+        /**
+         * The cached result, or null on a miss.
+         */
+        public byte[] result() {
+            return result;
+        }
+
+        /**
+         * Largest result that {@link #store(byte[])} accepts.
+         */
+        public long maxResultSize() {
+            synchronized (store) {
+                return store.maxBytes / 4;
+            }
+        }
+
+        /**
+         * Caches a result computed after this lookup, unless the database changed meanwhile or
+         * the result is too large.
+         *
+         * @return Whether the result was cached
+         */
+        public boolean store(byte[] computed) {
+            Objects.requireNonNull(computed, "computed");
+            long weight = weight(key, computed);
+            synchronized (store) {
+                if (store.generation != generation || weight > store.maxBytes / 4) {
+                    return false;
+                }
+                byte[] previous = store.entries.put(key, computed);
+                if (previous != null) {
+                    store.weight -= weight(key, previous);
+                }
+                store.weight += weight;
+                Iterator<Map.Entry<String, byte[]>> eldest = store.entries.entrySet().iterator();
+                while (store.weight > store.maxBytes && eldest.hasNext()) {
+                    Map.Entry<String, byte[]> entry = eldest.next();
+                    store.weight -= weight(entry.getKey(), entry.getValue());
+                    eldest.remove();
+                    evictions.increment();
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Results of one database, least recently used first.
+     */
+    private static final class Store {
+        final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+        long generation;
+        long schemaVersion = -1;
+        long maxBytes;
+        long weight;
+
+        void clear() {
+            entries.clear();
+            weight = 0;
+            generation++;
+        }
+    }
+}
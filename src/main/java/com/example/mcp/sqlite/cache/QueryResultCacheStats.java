@@ -0,0 +1,17 @@
+package com.example.mcp.sqlite.cache;
+
+/**
+ * Query result cache counters, summed over all databases.
+ *
+ * @param hits Results served from the cache
+ * @param misses Cacheable queries that had to run
+ * @param evictions Results dropped to stay within a database's budget
+ * @param invalidations Times the results of a database were dropped because it changed
+ * @param bytes Approximate size of the cached results
+ */
+public record QueryResultCacheStats(long hits, long misses, long evictions, long invalidations, long bytes) {
+    public double hitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+}
@@ -47,6 +47,26 @@ public final class CipherProfile {
         return kdfAlgorithm;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CipherProfile other)) {
+            return false;
+        }
+        return pageSize == other.pageSize
+                && kdfIterations == other.kdfIterations
+                && name.equals(other.name)
+                && hmacAlgorithm.equals(other.hmacAlgorithm)
+                && kdfAlgorithm.equals(other.kdfAlgorithm);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, pageSize, kdfIterations, hmacAlgorithm, kdfAlgorithm);
+    }
+
     public static Builder builder() {
         return new Builder();
     }
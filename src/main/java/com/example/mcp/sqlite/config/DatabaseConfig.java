@@ -3,12 +3,22 @@ package com.example.mcp.sqlite.config;
 import java.nio.file.Path;
 import java.util.Objects;
 
-public record DatabaseConfig(Path databasePath, String passphrase, CipherProfile cipherProfile) {
+public record DatabaseConfig(Path databasePath, String passphrase, CipherProfile cipherProfile,
+                             TuningProfile tuningProfile) {
 
     public DatabaseConfig {
         Objects.requireNonNull(databasePath, "databasePath");
         Objects.requireNonNull(passphrase, "passphrase");
         Objects.requireNonNull(cipherProfile, "cipherProfile");
+        Objects.requireNonNull(tuningProfile, "tuningProfile");
+        if (tuningProfile.pageSize() != 0 && tuningProfile.pageSize() != cipherProfile.pageSize()) {
+            throw new IllegalArgumentException("tuningProfile pageSize " + tuningProfile.pageSize()
+                    + " does not match cipherProfile pageSize " + cipherProfile.pageSize());
+        }
+    }
+
+    public DatabaseConfig(Path databasePath, String passphrase, CipherProfile cipherProfile) {
+        this(databasePath, passphrase, cipherProfile, TuningProfile.defaults());
     }
     
     /**
@@ -20,12 +30,27 @@ public record DatabaseConfig(Path databasePath, String passphrase, CipherProfile
      * @return DatabaseConfig with decrypted passphrase
      */
     public static DatabaseConfig withDecryptedPassphrase(Path databasePath, String passphrase, CipherProfile cipherProfile) {
+        return withDecryptedPassphrase(databasePath, passphrase, cipherProfile, TuningProfile.defaults());
+    }
+
+    /**
+     * Creates a DatabaseConfig with automatic decryption of the passphrase if encrypted.
+     *
+     * @param databasePath Path to the database
+     * @param passphrase Passphrase (can be encrypted with prefix "encrypted:")
+     * @param cipherProfile Cipher profile
+     * @param tuningProfile Pragmas applied to every connection
+     * @return DatabaseConfig with decrypted passphrase
+     */
+    public static DatabaseConfig withDecryptedPassphrase(Path databasePath, String passphrase,
+                                                         CipherProfile cipherProfile, TuningProfile tuningProfile) {
         String decryptedPassphrase = decryptPassphraseIfNeeded(passphrase);
-        return new DatabaseConfig(databasePath, decryptedPassphrase, cipherProfile);
+        return new DatabaseConfig(databasePath, decryptedPassphrase, cipherProfile, tuningProfile);
     }
     
     /**
      * Decrypts a passphrase if it is encrypted.
+     * Decrypted passphrases are cached by {@link PassphraseResolver#shared()}.
      * 
      * @param passphrase The passphrase (can be encrypted)
      * @return The decrypted passphrase or the original passphrase if not encrypted
@@ -38,8 +63,7 @@ public record DatabaseConfig(Path databasePath, String passphrase, CipherProfile
         
         if (PassphraseEncryption.isEncrypted(passphrase)) {
             try {
-                PassphraseEncryption encryption = PassphraseEncryption.fromEnvironment();
-                String decrypted = encryption.decrypt(passphrase);
+                String decrypted = PassphraseResolver.shared().decrypt(passphrase);
                 // Debug: Check if decryption was successful
                 if (decrypted == null || decrypted.isEmpty()) {
                     throw new IllegalStateException("Decrypted passphrase is empty");
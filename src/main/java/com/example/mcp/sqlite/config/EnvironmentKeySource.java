@@ -0,0 +1,31 @@
+package com.example.mcp.sqlite.config;
+
+import java.util.Objects;
+
+/**
+ * Loads the encryption key from an environment variable (MCP_SQLITE_ENCRYPTION_KEY by default).
+ */
+public final class EnvironmentKeySource implements KeySource {
+    public static final String DEFAULT_VARIABLE = "MCP_SQLITE_ENCRYPTION_KEY";
+
+    private final String variable;
+
+    public EnvironmentKeySource() {
+        this(DEFAULT_VARIABLE);
+    }
+
+    public EnvironmentKeySource(String variable) {
+        this.variable = Objects.requireNonNull(variable, "variable");
+    }
+
+    @Override
+    public String name() {
+        return "Environment variable";
+    }
+
+    @Override
+    public String loadKey() {
+        String value = System.getenv(variable);
+        return value == null || value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.mcp.sqlite.config;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Loads the encryption key from a file, e.g. a Docker or Kubernetes secret mount.
+ * The path is taken from MCP_SQLITE_ENCRYPTION_KEY_FILE unless given explicitly.
+ */
+public final class FileKeySource implements KeySource {
+    public static final String PATH_VARIABLE = "MCP_SQLITE_ENCRYPTION_KEY_FILE";
+
+    private final Path path;
+
+    public FileKeySource() {
+        String configured = System.getenv(PATH_VARIABLE);
+        this.path = configured == null || configured.isBlank() ? null : Path.of(configured.trim());
+    }
+
+    public FileKeySource(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public String name() {
+        return "Key file";
+    }
+
+    @Override
+    public String loadKey() throws IOException {
+        if (path == null || !Files.exists(path)) {
+            return null;
+        }
+        String key = Files.readString(path, StandardCharsets.UTF_8).trim();
+        return key.isEmpty() ? null : key;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.mcp.sqlite.config;
+
+import java.io.IOException;
+
+/**
+ * A place the passphrase encryption key can be loaded from.
+ * Sources are combined into a {@link KeySourceChain}, which asks them in order.
+ */
+public interface KeySource {
+
+    /**
+     * @return Human-readable name of the source, used in debug output
+     */
+    String name();
+
+    /**
+     * Loads the Base64-encoded encryption key.
+     *
+     * @return The key, or null if this source does not provide one
+     * @throws IOException if the source exists but cannot be read
+     */
+    String loadKey() throws IOException;
+}
@@ -0,0 +1,117 @@
+package com.example.mcp.sqlite.config;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Ordered list of {@link KeySource}s that resolves the passphrase encryption key once and
+ * memoizes it. The first source that provides a key wins.
+ *
+ * Resolving the key can be expensive (on macOS the Keychain lookup spawns processes), so the
+ * resulting {@link PassphraseEncryption} is kept until {@link #refresh()} is called, e.g. after
+ * a key rotation.
+ */
+public final class KeySourceChain {
+    private static final KeySourceChain DEFAULT = new KeySourceChain(List.of(
+            new KeychainKeySource(),
+            new EnvironmentKeySource(),
+            new FileKeySource()));
+
+    private final List<KeySource> sources;
+    private volatile PassphraseEncryption resolved;
+    private volatile String resolvedFrom;
+
+    public KeySourceChain(List<KeySource> sources) {
+        Objects.requireNonNull(sources, "sources");
+        if (sources.isEmpty()) {
+            throw new IllegalArgumentException("At least one key source is required");
+        }
+        this.sources = List.copyOf(sources);
+    }
+
+    /**
+     * Returns the process-wide chain: macOS Keychain, then MCP_SQLITE_ENCRYPTION_KEY,
+     * then the file named by MCP_SQLITE_ENCRYPTION_KEY_FILE.
+     *
+     * @return The shared default chain
+     */
+    public static KeySourceChain defaultChain() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns the encryption instance for the first key found, resolving it on first use.
+     *
+     * @return PassphraseEncryption instance
+     * @throws IllegalStateException if no source provides a key
+     */
+    public PassphraseEncryption encryption() {
+        PassphraseEncryption result = resolved;
+        if (result != null) {
+            return result;
+        }
+        synchronized (this) {
+            if (resolved == null) {
+                resolve();
+            }
+            return resolved;
+        }
+    }
+
+    /**
+     * @return Name of the source the current key was loaded from, or null if not resolved yet
+     */
+    public String resolvedFrom() {
+        return resolvedFrom;
+    }
+
+    /**
+     * Forgets the memoized key so that the next call to {@link #encryption()} asks the sources again.
+     */
+    public synchronized void refresh() {
+        resolved = null;
+        resolvedFrom = null;
+    }
+
+    private void resolve() {
+        for (KeySource source : sources) {
+            String keyBase64;
+            try {
+                keyBase64 = source.loadKey();
+            } catch (Exception e) {
+                // Ignore errors and try the next source
+                System.err.println("Warning: Error loading key from " + source.name() + ": " + e.getMessage());
+                continue;
+            }
+            if (keyBase64 != null && !keyBase64.isEmpty()) {
+                PassphraseEncryption encryption = PassphraseEncryption.fromBase64Key(keyBase64);
+                // Debug output (only if System Property is set)
+                if (System.getProperty("mcp.sqlite.debug") != null) {
+                    System.err.println("Debug: Encryption key loaded from: " + source.name());
+                }
+                resolvedFrom = source.name();
+                resolved = encryption;
+                return;
+            }
+        }
+        throw new IllegalStateException(missingKeyMessage());
+    }
+
+    private static String missingKeyMessage() {
+        StringBuilder message = new StringBuilder("Encryption key not found. ");
+        if (KeychainKeyStore.isAvailable()) {
+            message.append(
+                "Please store a key in macOS Keychain:\n" +
+                "  java -cp <jar> com.example.mcp.sqlite.util.StoreKeyInKeychain <key>\n" +
+                "Or set the environment variable:\n" +
+                "  export MCP_SQLITE_ENCRYPTION_KEY=\"<key>\""
+            );
+        } else {
+            message.append(
+                "Please set the environment variable:\n" +
+                "  export MCP_SQLITE_ENCRYPTION_KEY=\"$(java -cp <jar> com.example.mcp.sqlite.util.GenerateKey)\""
+            );
+        }
+        return message.toString();
+    }
+}
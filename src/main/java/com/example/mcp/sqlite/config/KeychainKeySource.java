@@ -0,0 +1,23 @@
+package com.example.mcp.sqlite.config;
+
+import java.io.IOException;
+
+/**
+ * Loads the encryption key from the macOS Keychain via {@link KeychainKeyStore}.
+ * Returns null on other platforms.
+ */
+public final class KeychainKeySource implements KeySource {
+
+    @Override
+    public String name() {
+        return "Keychain";
+    }
+
+    @Override
+    public String loadKey() throws IOException {
+        if (!KeychainKeyStore.isAvailable()) {
+            return null;
+        }
+        return KeychainKeyStore.loadKey();
+    }
+}
@@ -15,12 +15,30 @@ public final class KeychainKeyStore {
     private static final String KEYCHAIN_ACCOUNT = "encryption-key";
     private static final String SECURITY_CMD = "/usr/bin/security";
     
+    // The probe spawns a process and sleeps, so its result is computed once per JVM
+    private static volatile Boolean available;
+    
     /**
      * Checks if macOS Keychain is available.
+     * The result is determined once and reused for the lifetime of the process.
      * 
      * @return true if Keychain is available
      */
     public static boolean isAvailable() {
+        Boolean result = available;
+        if (result == null) {
+            synchronized (KeychainKeyStore.class) {
+                result = available;
+                if (result == null) {
+                    result = probeAvailability();
+                    available = result;
+                }
+            }
+        }
+        return result;
+    }
+    
+    private static boolean probeAvailability() {
         String osName = System.getProperty("os.name", "").toLowerCase();
         // Check for macOS (can be "Mac OS X", "macOS", or similar)
         // Also check for "darwin" for Unix systems
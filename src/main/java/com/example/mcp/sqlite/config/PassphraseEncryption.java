@@ -28,64 +28,14 @@ public final class PassphraseEncryption {
     
     /**
      * Creates a PassphraseEncryption instance with a key.
-     * Tries macOS Keychain first, then environment variable.
+     * Tries macOS Keychain first, then the environment variable, then the key file.
+     * The key is resolved once per process via {@link KeySourceChain#defaultChain()}.
      * 
      * @return PassphraseEncryption instance
      * @throws IllegalStateException if no key is found
      */
     public static PassphraseEncryption fromEnvironment() {
-        String keyBase64 = null;
-        String keySource = null;
-        
-        // Try macOS Keychain first (if available)
-        if (KeychainKeyStore.isAvailable()) {
-            try {
-                keyBase64 = KeychainKeyStore.loadKey();
-                if (keyBase64 != null && !keyBase64.isEmpty()) {
-                    keySource = "Keychain";
-                }
-            } catch (Exception e) {
-                // Ignore errors and try environment variable
-                System.err.println("Warning: Error loading from Keychain: " + e.getMessage());
-            }
-        }
-        
-        // Fallback to environment variable
-        if (keyBase64 == null || keyBase64.isEmpty()) {
-            keyBase64 = System.getenv("MCP_SQLITE_ENCRYPTION_KEY");
-            if (keyBase64 != null && !keyBase64.isEmpty()) {
-                keySource = "Environment variable";
-            }
-        }
-        
-        if (keyBase64 == null || keyBase64.isEmpty()) {
-            StringBuilder message = new StringBuilder(
-                "Encryption key not found. "
-            );
-            
-            if (KeychainKeyStore.isAvailable()) {
-                message.append(
-                    "Please store a key in macOS Keychain:\n" +
-                    "  java -cp <jar> com.example.mcp.sqlite.util.StoreKeyInKeychain <key>\n" +
-                    "Or set the environment variable:\n" +
-                    "  export MCP_SQLITE_ENCRYPTION_KEY=\"<key>\""
-                );
-            } else {
-                message.append(
-                    "Please set the environment variable:\n" +
-                    "  export MCP_SQLITE_ENCRYPTION_KEY=\"$(java -cp <jar> com.example.mcp.sqlite.util.GenerateKey)\""
-                );
-            }
-            
-            throw new IllegalStateException(message.toString());
-        }
-        
-        // Debug output (only if System Property is set)
-        if (System.getProperty("mcp.sqlite.debug") != null) {
-            System.err.println("Debug: Encryption key loaded from: " + keySource);
-        }
-        
-        return fromBase64Key(keyBase64);
+        return KeySourceChain.defaultChain().encryption();
     }
     
     /**
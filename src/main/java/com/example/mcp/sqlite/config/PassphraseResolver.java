@@ -0,0 +1,70 @@
+package com.example.mcp.sqlite.config;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decrypts "encrypted:" passphrases and caches the plaintext keyed by ciphertext.
+ *
+ * Tool calls repeat the same encrypted passphrase (from the server configuration or the
+ * client), so after the first call a warm lookup costs one map access: no key resolution
+ * and no AES-GCM operation. If decryption fails, the key chain is refreshed once and the
+ * decryption retried, which picks up a rotated encryption key without a restart.
+ */
+public final class PassphraseResolver {
+    private static final int MAX_ENTRIES = 256;
+    private static final PassphraseResolver SHARED = new PassphraseResolver(KeySourceChain.defaultChain());
+
+    private final KeySourceChain keySources;
+    private final Map<String, String> decrypted = new ConcurrentHashMap<>();
+
+    public PassphraseResolver(KeySourceChain keySources) {
+        this.keySources = Objects.requireNonNull(keySources, "keySources");
+    }
+
+    /**
+     * @return The process-wide resolver backed by {@link KeySourceChain#defaultChain()}
+     */
+    public static PassphraseResolver shared() {
+        return SHARED;
+    }
+
+    /**
+     * Decrypts an encrypted passphrase, using the cache when possible.
+     *
+     * @param encryptedPassphrase Passphrase with prefix "encrypted:"
+     * @return The decrypted passphrase
+     * @throws IllegalStateException if no encryption key is available
+     */
+    public String decrypt(String encryptedPassphrase) {
+        Objects.requireNonNull(encryptedPassphrase, "encryptedPassphrase");
+        String cached = decrypted.get(encryptedPassphrase);
+        if (cached != null) {
+            return cached;
+        }
+        String plaintext;
+        try {
+            plaintext = keySources.encryption().decrypt(encryptedPassphrase);
+        } catch (IllegalStateException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            // The key may have been rotated since it was memoized
+            keySources.refresh();
+            plaintext = keySources.encryption().decrypt(encryptedPassphrase);
+        }
+        if (decrypted.size() >= MAX_ENTRIES) {
+            decrypted.clear();
+        }
+        decrypted.put(encryptedPassphrase, plaintext);
+        return plaintext;
+    }
+
+    /**
+     * Drops all cached passphrases and the memoized encryption key.
+     */
+    public void refresh() {
+        decrypted.clear();
+        keySources.refresh();
+    }
+}
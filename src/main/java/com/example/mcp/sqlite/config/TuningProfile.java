@@ -0,0 +1,253 @@
+package com.example.mcp.sqlite.config;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Per-database performance settings, applied as pragmas whenever a connection is opened.
+ * {@code resultCacheSize} is not a pragma: it opts the database into the server's query
+ * result cache, with that many bytes of cached results; 0 disables it.
+ *
+ * The defaults keep SQLite's own defaults except for the journal mode, which is WAL so that
+ * readers are not blocked by the writer. A {@code pageSize} of 0 keeps the page size of the
+ * database; any other value must match the page size of the cipher profile, since SQLCipher
+ * encrypts whole pages.
+ */
+public final class TuningProfile {
+    public enum JournalMode { WAL, DELETE, TRUNCATE, PERSIST, MEMORY }
+
+    public enum Synchronous { OFF, NORMAL, FULL, EXTRA }
+
+    public enum TempStore { DEFAULT, FILE, MEMORY }
+
+    private final String name;
+    private final int cacheSize;
+    private final JournalMode journalMode;
+    private final Synchronous synchronous;
+    private final TempStore tempStore;
+    private final long mmapSize;
+    private final int pageSize;
+    private final int walAutocheckpoint;
+    private final long resultCacheSize;
+
+    private TuningProfile(Builder builder) {
+        this.name = Objects.requireNonNull(builder.name, "name");
+        this.cacheSize = builder.cacheSize;
+        this.journalMode = Objects.requireNonNull(builder.journalMode, "journalMode");
+        this.synchronous = Objects.requireNonNull(builder.synchronous, "synchronous");
+        this.tempStore = Objects.requireNonNull(builder.tempStore, "tempStore");
+        this.mmapSize = builder.mmapSize;
+        this.pageSize = builder.pageSize;
+        this.walAutocheckpoint = builder.walAutocheckpoint;
+        this.resultCacheSize = builder.resultCacheSize;
+        if (mmapSize < 0) {
+            throw new IllegalArgumentException("mmapSize must not be negative: " + mmapSize);
+        }
+        if (pageSize != 0 && (pageSize < 512 || pageSize > 65536 || Integer.bitCount(pageSize) != 1)) {
+            throw new IllegalArgumentException("pageSize must be 0 or a power of two between 512 and 65536: " + pageSize);
+        }
+        if (walAutocheckpoint < 0) {
+            throw new IllegalArgumentException("walAutocheckpoint must not be negative: " + walAutocheckpoint);
+        }
+        if (resultCacheSize < 0) {
+            throw new IllegalArgumentException("resultCacheSize must not be negative: " + resultCacheSize);
+        }
+    }
+
+    /**
+     * SQLite defaults with WAL journaling: 2000 KiB page cache, FULL synchronous, no memory
+     * mapping and a checkpoint every 1000 pages. Query results are not cached.
+     */
+    public static TuningProfile defaults() {
+        return builder()
+                .name("default")
+                .cacheSize(-2000)
+                .journalMode(JournalMode.WAL)
+                .synchronous(Synchronous.FULL)
+                .tempStore(TempStore.DEFAULT)
+                .mmapSize(0)
+                .pageSize(0)
+                .walAutocheckpoint(1000)
+                .resultCacheSize(0)
+                .build();
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Page cache size in SQLite's notation: positive values are pages, negative values KiB.
+     */
+    public int cacheSize() {
+        return cacheSize;
+    }
+
+    public JournalMode journalMode() {
+        return journalMode;
+    }
+
+    public Synchronous synchronous() {
+        return synchronous;
+    }
+
+    public TempStore tempStore() {
+        return tempStore;
+    }
+
+    public long mmapSize() {
+        return mmapSize;
+    }
+
+    public int pageSize() {
+        return pageSize;
+    }
+
+    public int walAutocheckpoint() {
+        return walAutocheckpoint;
+    }
+
+    /**
+     * Bytes of query results cached for this database; 0 disables the result cache.
+     */
+    public long resultCacheSize() {
+        return resultCacheSize;
+    }
+
+    /**
+     * This profile without the settings that leave connection state alone (its name and the
+     * result cache size). Connections opened with equal connection settings are interchangeable.
+     */
+    public TuningProfile connectionSettings() {
+        if (name.isEmpty() && resultCacheSize == 0) {
+            return this;
+        }
+        return toBuilder().name("").resultCacheSize(0).build();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TuningProfile other)) {
+            return false;
+        }
+        return cacheSize == other.cacheSize
+                && mmapSize == other.mmapSize
+                && pageSize == other.pageSize
+                && walAutocheckpoint == other.walAutocheckpoint
+                && resultCacheSize == other.resultCacheSize
+                && name.equals(other.name)
+                && journalMode == other.journalMode
+                && synchronous == other.synchronous
+                && tempStore == other.tempStore;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, cacheSize, journalMode, synchronous, tempStore, mmapSize, pageSize, walAutocheckpoint,
+                resultCacheSize);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public Builder toBuilder() {
+        return new Builder()
+                .name(this.name)
+                .cacheSize(this.cacheSize)
+                .journalMode(this.journalMode)
+                .synchronous(this.synchronous)
+                .tempStore(this.tempStore)
+                .mmapSize(this.mmapSize)
+                .pageSize(this.pageSize)
+                .walAutocheckpoint(this.walAutocheckpoint)
+                .resultCacheSize(this.resultCacheSize);
+    }
+
+    public static final class Builder {
+        private String name;
+        private int cacheSize;
+        private JournalMode journalMode;
+        private Synchronous synchronous;
+        private TempStore tempStore;
+        private long mmapSize;
+        private int pageSize;
+        private int walAutocheckpoint;
+        private long resultCacheSize;
+
+        private Builder() {}
+
+        public Builder name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public Builder cacheSize(int cacheSize) {
+            this.cacheSize = cacheSize;
+            return this;
+        }
+
+        public Builder journalMode(JournalMode journalMode) {
+            this.journalMode = journalMode;
+            return this;
+        }
+
+        public Builder journalMode(String journalMode) {
+            return journalMode(parse(JournalMode.class, "journalMode", journalMode));
+        }
+
+        public Builder synchronous(Synchronous synchronous) {
+            this.synchronous = synchronous;
+            return this;
+        }
+
+        public Builder synchronous(String synchronous) {
+            return synchronous(parse(Synchronous.class, "synchronous", synchronous));
+        }
+
+        public Builder tempStore(TempStore tempStore) {
+            this.tempStore = tempStore;
+            return this;
+        }
+
+        public Builder tempStore(String tempStore) {
+            return tempStore(parse(TempStore.class, "tempStore", tempStore));
+        }
+
+        public Builder mmapSize(long mmapSize) {
+            this.mmapSize = mmapSize;
+            return this;
+        }
+
+        public Builder pageSize(int pageSize) {
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        public Builder walAutocheckpoint(int walAutocheckpoint) {
+            this.walAutocheckpoint = walAutocheckpoint;
+            return this;
+        }
+
+        public Builder resultCacheSize(long resultCacheSize) {
+            this.resultCacheSize = resultCacheSize;
+            return this;
+        }
+
+        public TuningProfile build() {
+            return new TuningProfile(this);
+        }
+
+        private static <E extends Enum<E>> E parse(Class<E> type, String field, String value) {
+            Objects.requireNonNull(value, field);
+            try {
+                return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported " + field + ": " + value, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.mcp.sqlite.cursor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Open {@link QueryCursor}s of this server process, addressed by an opaque id.
+ *
+ * At most {@link CursorSettings#maxOpenCursors()} cursors are open at a time. Each one holds a
+ * pooled connection and a read transaction, which also holds back WAL checkpoints, so a
+ * background reaper closes cursors that were not fetched from within
+ * {@link CursorSettings#idleTimeout()}. A cursor is used by one caller
+ * at a time: {@link #acquire(String)} locks it until {@link #release(QueryCursor)}.
+ */
+public final class CursorRegistry implements AutoCloseable {
+    private final CursorSettings settings;
+    private final LongSupplier clock;
+    private final Map<String, QueryCursor> cursors = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService reaper;
+    private volatile boolean closed;
+
+    public CursorRegistry(CursorSettings settings) {
+        this(settings, System::nanoTime, true);
+    }
+
+    CursorRegistry(CursorSettings settings, LongSupplier clock, boolean startReaper) {
+        this.settings = Objects.requireNonNull(settings, "settings");
+        this.clock = Objects.requireNonNull(clock, "clock");
+        if (startReaper) {
+            this.reaper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "mcp-sqlite-cursor-reaper");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long periodMillis = Math.max(1_000, Math.min(settings.idleTimeout().toMillis(), 30_000) / 2);
+            this.reaper.scheduleWithFixedDelay(this::reapIdle, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.reaper = null;
+        }
+    }
+
+    /**
+     * Registers a cursor. If the registry is full, the cursor is closed and an exception thrown.
+     *
+     * @return The id of the cursor
+     * @throws IllegalStateException if the maximum number of open cursors is reached
+     */
+    public String register(QueryCursor cursor) {
+        Objects.requireNonNull(cursor, "cursor");
+        synchronized (cursors) {
+            if (closed || cursors.size() >= settings.maxOpenCursors()) {
+                cursor.close();
+                if (closed) {
+                    throw new IllegalStateException("Cursor registry is closed");
+                }
+                throw new IllegalStateException("Too many open cursors (max " + settings.maxOpenCursors()
+                        + "); fetch them to the end or close them with close_cursor");
+            }
+            String id = UUID.randomUUID().toString();
+            cursor.lastAccessNanos = clock.getAsLong();
+            cursors.put(id, cursor);
+            return id;
+        }
+    }
+
+    /**
+     * Looks up and locks a cursor for exclusive use.
+     *
+     * @throws IllegalArgumentException if no open cursor has this id
+     */
+    public QueryCursor acquire(String id) {
+        QueryCursor cursor = id == null ? null : cursors.get(id);
+        if (cursor == null) {
+            throw new IllegalArgumentException("Unknown or expired cursor: " + id);
+        }
+        cursor.lock.lock();
+        if (cursor.isClosed()) {
+            cursor.lock.unlock();
+            throw new IllegalArgumentException("Unknown or expired cursor: " + id);
+        }
+        cursor.lastAccessNanos = clock.getAsLong();
+        return cursor;
+    }
+
+    /**
+     * Unlocks a cursor obtained from {@link #acquire(String)}.
+     */
+    public void release(QueryCursor cursor) {
+        cursor.lastAccessNanos = clock.getAsLong();
+        cursor.lock.unlock();
+    }
+
+    /**
+     * Removes and closes a cursor. Waits if the cursor is in use.
+     *
+     * @return true if an open cursor with this id existed
+     */
+    public boolean close(String id) {
+        QueryCursor cursor = id == null ? null : cursors.remove(id);
+        if (cursor == null) {
+            return false;
+        }
+        cursor.lock.lock();
+        try {
+            cursor.close();
+        } finally {
+            cursor.lock.unlock();
+        }
+        return true;
+    }
+
+    /**
+     * Closes cursors that were idle longer than the idle timeout. Cursors in use are skipped.
+     * Called periodically by the reaper thread.
+     */
+    void reapIdle() {
+        long now = clock.getAsLong();
+        long idleNanos = settings.idleTimeout().toNanos();
+        for (Map.Entry<String, QueryCursor> entry : cursors.entrySet()) {
+            QueryCursor cursor = entry.getValue();
+            if (now - cursor.lastAccessNanos < idleNanos || cursor.lock.isLocked() || !cursor.lock.tryLock()) {
+                continue;
+            }
+            try {
+                if (cursors.remove(entry.getKey(), cursor)) {
+                    cursor.close();
+                }
+            } finally {
+                cursor.lock.unlock();
+            }
+        }
+    }
+
+    public int size() {
+        return cursors.size();
+    }
+
+    @Override
+    public void close() {
+        List<String> ids;
+        synchronized (cursors) {
+            closed = true;
+            ids = new ArrayList<>(cursors.keySet());
+        }
+        if (reaper != null) {
+            reaper.shutdownNow();
+        }
+        ids.forEach(this::close);
+    }
+}
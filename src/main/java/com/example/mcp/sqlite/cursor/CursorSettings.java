@@ -0,0 +1,45 @@
+package com.example.mcp.sqlite.cursor;
+
+import com.example.mcp.sqlite.util.Env;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Limits for {@link CursorRegistry}. Per database, cursors are further limited to one less
+ * than the readers of the connection pool.
+ *
+ * @param maxOpenCursors Maximum number of cursors open at the same time in this server process
+ * @param idleTimeout Cursors not fetched from for this long are closed by the reaper. Until
+ *        then, the cursor's read transaction keeps WAL checkpoints from getting past its
+ *        snapshot, so the WAL file of a database with ongoing writes keeps growing.
+ */
+public record CursorSettings(int maxOpenCursors, Duration idleTimeout) {
+
+    public CursorSettings {
+        if (maxOpenCursors < 1) {
+            throw new IllegalArgumentException("maxOpenCursors must be at least 1");
+        }
+        Objects.requireNonNull(idleTimeout, "idleTimeout");
+        if (idleTimeout.isNegative() || idleTimeout.isZero()) {
+            throw new IllegalArgumentException("idleTimeout must be positive");
+        }
+    }
+
+    public static CursorSettings defaults() {
+        return new CursorSettings(16, Duration.ofMinutes(5));
+    }
+
+    /**
+     * Reads cursor settings from environment variables, falling back to {@link #defaults()}.
+     * Supported variables: MCP_CURSOR_MAX_OPEN and MCP_CURSOR_IDLE_TIMEOUT_SECONDS.
+     *
+     * @return CursorSettings instance
+     */
+    public static CursorSettings fromEnvironment() {
+        CursorSettings defaults = defaults();
+        return new CursorSettings(
+                Env.intValue("MCP_CURSOR_MAX_OPEN", defaults.maxOpenCursors()),
+                Duration.ofSeconds(Env.intValue("MCP_CURSOR_IDLE_TIMEOUT_SECONDS", (int) defaults.idleTimeout().toSeconds())));
+    }
+}
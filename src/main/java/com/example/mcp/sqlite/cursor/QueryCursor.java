@@ -0,0 +1,88 @@
+package com.example.mcp.sqlite.cursor;
+
+import com.example.mcp.sqlite.util.SqliteUtil;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An open query whose rows are fetched in batches across several tool calls.
+ *
+ * The cursor owns its statement and the connection it runs on; {@link #close()} closes the
+ * statement and hands the connection back through the release callback. The ResultSet is
+ * always positioned one row ahead: {@link #hasRow()} tells whether the current row has not
+ * been sent yet.
+ */
+public final class QueryCursor implements AutoCloseable {
+    private final Statement statement;
+    private final ResultSet resultSet;
+    private final SqliteUtil.ColumnLayout layout;
+    private final Runnable release;
+    final ReentrantLock lock = new ReentrantLock();
+    volatile long lastAccessNanos;
+    private boolean hasRow;
+    private boolean closed;
+
+    private QueryCursor(Statement statement, ResultSet resultSet, SqliteUtil.ColumnLayout layout,
+                        boolean hasRow, Runnable release) {
+        this.statement = statement;
+        this.resultSet = resultSet;
+        this.layout = layout;
+        this.hasRow = hasRow;
+        this.release = release;
+    }
+
+    /**
+     * Wraps the ResultSet of an executed statement and fetches its first row.
+     *
+     * @param statement Statement that produced the ResultSet
+     * @param resultSet Open ResultSet
+     * @param release Returns the connection to its pool; called once on close
+     */
+    public static QueryCursor open(Statement statement, ResultSet resultSet, Runnable release) throws SQLException {
+        Objects.requireNonNull(release, "release");
+        SqliteUtil.ColumnLayout layout = SqliteUtil.ColumnLayout.of(resultSet.getMetaData());
+        return new QueryCursor(statement, resultSet, layout, resultSet.next(), release);
+    }
+
+    public ResultSet resultSet() {
+        return resultSet;
+    }
+
+    public SqliteUtil.ColumnLayout layout() {
+        return layout;
+    }
+
+    public boolean hasRow() {
+        return hasRow;
+    }
+
+    /**
+     * Records whether rows remain after a batch was sent.
+     */
+    public void setHasRow(boolean hasRow) {
+        this.hasRow = hasRow;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+            // The connection is released regardless
+        } finally {
+            release.run();
+        }
+    }
+}
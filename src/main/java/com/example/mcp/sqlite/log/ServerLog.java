@@ -0,0 +1,258 @@
+package com.example.mcp.sqlite.log;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Asynchronous server log. Debug messages go to {@code sink} (stderr) when debug mode is on and
+ * to a {@link Logger} at FINE when that level is enabled; errors always go to both.
+ *
+ * Messages are either constant strings, patterns with up to three {@code {}} placeholders, or
+ * suppliers. When debug output is disabled a debug call returns after one check, without
+ * building a string. Otherwise the call stores the pattern and arguments in a bounded queue and
+ * returns; a background thread formats them, including the timestamp, and writes each batch
+ * with one write to the sink. Arguments and suppliers are therefore evaluated later on that
+ * thread and must not capture values that are modified after the call.
+ *
+ * The queue never blocks a caller. Debug messages that do not fit are dropped and reported as
+ * a count; errors that do not fit are written synchronously instead.
+ */
+public final class ServerLog implements AutoCloseable {
+    private static final int MAX_BATCH = 256;
+    private static final Entry STOP = new Entry(0, false, "", 0, null, null, null, null, null);
+
+    private final Logger logger;
+    private final boolean debug;
+    private final PrintStream sink;
+    private final ArrayBlockingQueue<Entry> queue;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong unreportedDrops = new AtomicLong();
+    private final Thread drainer;
+    private volatile boolean closed;
+
+    /**
+     * @param debug Whether debug messages are written to the sink
+     * @param capacity Maximum number of messages waiting to be written
+     */
+    public ServerLog(Logger logger, boolean debug, PrintStream sink, int capacity) {
+        this(logger, debug, sink, capacity, true);
+    }
+
+    ServerLog(Logger logger, boolean debug, PrintStream sink, int capacity, boolean startDrainer) {
+        this.logger = Objects.requireNonNull(logger, "logger");
+        this.debug = debug;
+        this.sink = Objects.requireNonNull(sink, "sink");
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        if (startDrainer) {
+            this.drainer = Thread.ofPlatform().name("mcp-sqlite-log").daemon(true).start(this::drainLoop);
+        } else {
+            this.drainer = null;
+        }
+    }
+
+    /**
+     * Whether debug messages are written anywhere. Call sites that need to compute something
+     * just for a message can check this first.
+     */
+    public boolean isDebugEnabled() {
+        return debug || logger.isLoggable(Level.FINE);
+    }
+
+    public void debug(String message) {
+        if (isDebugEnabled()) {
+            enqueue(new Entry(System.currentTimeMillis(), false, message, 0, null, null, null, null, null));
+        }
+    }
+
+    public void debug(String pattern, Object arg) {
+        if (isDebugEnabled()) {
+            enqueue(new Entry(System.currentTimeMillis(), false, pattern, 1, arg, null, null, null, null));
+        }
+    }
+
+    public void debug(String pattern, Object arg1, Object arg2) {
+        if (isDebugEnabled()) {
+            enqueue(new Entry(System.currentTimeMillis(), false, pattern, 2, arg1, arg2, null, null, null));
+        }
+    }
+
+    public void debug(String pattern, Object arg1, Object arg2, Object arg3) {
+        if (isDebugEnabled()) {
+            enqueue(new Entry(System.currentTimeMillis(), false, pattern, 3, arg1, arg2, arg3, null, null));
+        }
+    }
+
+    public void debug(Supplier<String> message) {
+        if (isDebugEnabled()) {
+            enqueue(new Entry(System.currentTimeMillis(), false, null, 0, null, null, null, message, null));
+        }
+    }
+
+    /**
+     * Logs an error with an optional exception, whose stack trace is written as well.
+     */
+    public void error(String message, Throwable throwable) {
+        enqueue(new Entry(System.currentTimeMillis(), true, message, 0, null, null, null, null, throwable));
+    }
+
+    /**
+     * Debug messages dropped because the queue was full.
+     */
+    public long dropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Writes all queued messages and stops the background thread. Messages logged afterwards
+     * are written synchronously.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (drainer != null) {
+            try {
+                queue.put(STOP);
+                drainer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        drain();
+    }
+
+    /**
+     * Writes the messages currently queued on the calling thread.
+     */
+    void drain() {
+        List<Entry> batch = new ArrayList<>();
+        while (queue.drainTo(batch, MAX_BATCH) > 0) {
+            batch.removeIf(entry -> entry == STOP);
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void enqueue(Entry entry) {
+        if (closed) {
+            write(List.of(entry));
+        } else if (!queue.offer(entry)) {
+            if (entry.error) {
+                write(List.of(entry));
+            } else {
+                dropped.incrementAndGet();
+                unreportedDrops.incrementAndGet();
+            }
+        }
+    }
+
+    private void drainLoop() {
+        List<Entry> batch = new ArrayList<>(MAX_BATCH);
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch, MAX_BATCH - 1);
+                boolean stop = batch.removeIf(entry -> entry == STOP);
+                write(batch);
+                batch.clear();
+                if (stop) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(List<Entry> batch) {
+        StringBuilder text = new StringBuilder();
+        for (Entry entry : batch) {
+            Level level = entry.error ? Level.SEVERE : Level.FINE;
+            boolean toSink = entry.error || debug;
+            boolean toLogger = logger.isLoggable(level);
+            if (!toSink && !toLogger) {
+                continue;
+            }
+            String message = entry.message();
+            if (toSink) {
+                appendLine(text, entry, message);
+            }
+            if (toLogger) {
+                logger.log(level, entry.error ? "[MCP-ENCRYPTED-SQLITE] " + message : message, entry.thrown);
+            }
+        }
+        long lost = unreportedDrops.getAndSet(0);
+        if (lost > 0) {
+            text.append('[').append(LocalDateTime.now()).append("] [WARN] ")
+                    .append(lost).append(" debug messages dropped, log queue full\n");
+        }
+        if (!text.isEmpty()) {
+            synchronized (sink) {
+                sink.print(text);
+                sink.flush();
+            }
+        }
+    }
+
+    private static void appendLine(StringBuilder text, Entry entry, String message) {
+        LocalDateTime timestamp = LocalDateTime.ofInstant(Instant.ofEpochMilli(entry.millis), ZoneId.systemDefault());
+        text.append('[').append(timestamp).append("] [").append(entry.error ? "ERROR" : "DEBUG").append("] ")
+                .append(message).append('\n');
+        if (entry.thrown != null) {
+            text.append("Exception: ").append(entry.thrown.getClass().getName()).append(": ")
+                    .append(entry.thrown.getMessage()).append('\n');
+            StringWriter stackTrace = new StringWriter();
+            entry.thrown.printStackTrace(new PrintWriter(stackTrace));
+            text.append(stackTrace).append('\n');
+        }
+    }
+
+    /**
+     * Replaces each {@code {}} in the pattern with the next argument.
+     */
+    static String format(String pattern, Object... args) {
+        StringBuilder out = new StringBuilder(pattern.length() + 32);
+        int from = 0;
+        for (Object arg : args) {
+            int at = pattern.indexOf("{}", from);
+            if (at < 0) {
+                break;
+            }
+            out.append(pattern, from, at).append(arg);
+            from = at + 2;
+        }
+        return out.append(pattern, from, pattern.length()).toString();
+    }
+
+    private record Entry(long millis, boolean error, String pattern, int argCount, Object arg1, Object arg2,
+                         Object arg3, Supplier<String> supplier, Throwable thrown) {
+        String message() {
+            if (supplier != null) {
+                return String.valueOf(supplier.get());
+            }
+            return switch (argCount) {
+                case 1 -> format(pattern, arg1);
+                case 2 -> format(pattern, arg1, arg2);
+                case 3 -> format(pattern, arg1, arg2, arg3);
+                default -> pattern;
+            };
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.mcp.sqlite.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Periodically writes metrics to a file in the Prometheus text format, e.g. for the
+ * node_exporter textfile collector. The server talks JSON-RPC over stdio and has no HTTP
+ * endpoint to scrape.
+ *
+ * Each write goes to a temporary file in the same directory that is then renamed over the
+ * target, so readers never see a partially written file. The file is written once more on close.
+ */
+public final class MetricsFileExporter implements AutoCloseable {
+    private final Path file;
+    private final Supplier<String> metrics;
+    private final Consumer<IOException> onError;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * @param onError Called on the exporter thread when a write fails; the next write is still attempted
+     */
+    public MetricsFileExporter(MetricsSettings settings, Supplier<String> metrics, Consumer<IOException> onError) {
+        Objects.requireNonNull(settings, "settings");
+        if (!settings.enabled()) {
+            throw new IllegalArgumentException("No metrics file configured");
+        }
+        this.file = settings.file().toAbsolutePath().normalize();
+        this.metrics = Objects.requireNonNull(metrics, "metrics");
+        this.onError = Objects.requireNonNull(onError, "onError");
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "mcp-sqlite-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long periodMillis = settings.interval().toMillis();
+        this.scheduler.scheduleWithFixedDelay(this::writeQuietly, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes the current metrics to the file.
+     */
+    public void write() throws IOException {
+        Path directory = file.getParent();
+        Path temp = Files.createTempFile(directory, "." + file.getFileName(), ".tmp");
+        try {
+            Files.writeString(temp, metrics.get(), StandardCharsets.UTF_8);
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        writeQuietly();
+    }
+
+    private void writeQuietly() {
+        try {
+            write();
+        } catch (IOException e) {
+            onError.accept(e);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.mcp.sqlite.metrics;
+
+import com.example.mcp.sqlite.util.Env;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Settings for {@link MetricsFileExporter}.
+ *
+ * @param file Prometheus text file to write, or null to disable the exporter
+ * @param interval Time between writes
+ */
+public record MetricsSettings(Path file, Duration interval) {
+
+    public MetricsSettings {
+        Objects.requireNonNull(interval, "interval");
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("interval must be positive");
+        }
+    }
+
+    public static MetricsSettings defaults() {
+        return new MetricsSettings(null, Duration.ofSeconds(15));
+    }
+
+    /**
+     * Reads metrics settings from environment variables, falling back to {@link #defaults()}.
+     * Supported variables: MCP_METRICS_FILE and MCP_METRICS_INTERVAL_SECONDS.
+     *
+     * @return MetricsSettings instance
+     */
+    public static MetricsSettings fromEnvironment() {
+        MetricsSettings defaults = defaults();
+        String file = System.getenv("MCP_METRICS_FILE");
+        return new MetricsSettings(
+                file == null || file.isBlank() ? null : Path.of(file.trim()),
+                Duration.ofSeconds(Env.intValue("MCP_METRICS_INTERVAL_SECONDS", (int) defaults.interval().toSeconds())));
+    }
+
+    public boolean enabled() {
+        return file != null;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.mcp.sqlite.metrics;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Builds a document in the Prometheus text exposition format (version 0.0.4).
+ *
+ * Histograms are written as summaries with precomputed quantiles, converted from nanoseconds
+ * to seconds. Each metric name must be added only once.
+ */
+public final class PrometheusText {
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    private final StringBuilder out = new StringBuilder(4096);
+
+    /**
+     * Adds a summary with one series per label value.
+     *
+     * @param label Label name, e.g. {@code tool}; null for a single unlabeled series
+     */
+    public PrometheusText summary(String name, String help, String label, Map<String, Histogram.Snapshot> series) {
+        header(name, help, "summary");
+        series.forEach((value, snapshot) -> {
+            for (double quantile : QUANTILES) {
+                out.append(name).append('{');
+                if (label != null) {
+                    appendLabel(label, value).append(',');
+                }
+                appendLabel("quantile", Double.toString(quantile)).append("} ");
+                appendNumber(snapshot.percentile(quantile) / NANOS_PER_SECOND).append('\n');
+            }
+            sample(name + "_sum", label, value).append(' ');
+            appendNumber(snapshot.sumNanos() / NANOS_PER_SECOND).append('\n');
+            sample(name + "_count", label, value).append(' ').append(snapshot.count()).append('\n');
+        });
+        return this;
+    }
+
+    public PrometheusText summary(String name, String help, Histogram.Snapshot snapshot) {
+        return summary(name, help, null, Map.of("", snapshot));
+    }
+
+    /**
+     * Adds a counter with one series per label value.
+     */
+    public PrometheusText counter(String name, String help, String label, Map<String, Long> series) {
+        header(name, help, "counter");
+        series.forEach((value, count) -> sample(name, label, value).append(' ').append(count).append('\n'));
+        return this;
+    }
+
+    public PrometheusText counter(String name, String help, long value) {
+        header(name, help, "counter");
+        out.append(name).append(' ').append(value).append('\n');
+        return this;
+    }
+
+    public PrometheusText gauge(String name, String help, double value) {
+        header(name, help, "gauge");
+        out.append(name).append(' ');
+        appendNumber(value).append('\n');
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+
+    private void header(String name, String help, String type) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private StringBuilder sample(String name, String label, String value) {
+        out.append(name);
+        if (label != null) {
+            out.append('{');
+            appendLabel(label, value).append('}');
+        }
+        return out;
+    }
+
+    private StringBuilder appendLabel(String label, String value) {
+        out.append(label).append("=\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> out.append("\\\\");
+                case '"' -> out.append("\\\"");
+                case '\n' -> out.append("\\n");
+                default -> out.append(c);
+            }
+        }
+        return out.append('"');
+    }
+
+    private StringBuilder appendNumber(double value) {
+        return out.append(String.format(Locale.ROOT, "%.9g", value));
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.mcp.sqlite.metrics;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Request-level counters of the MCP server: latency and errors per tool, rows and bytes sent,
+ * and SQLite busy/locked failures.
+ *
+ * Recording is lock-free and, once a tool has been seen, allocation-free. At most
+ * {@link #MAX_TOOLS} tool names get their own series; further names (e.g. unknown tools sent
+ * by a misbehaving client) are recorded as {@code "other"}.
+ */
+public final class ServerMetrics {
+    static final int MAX_TOOLS = 64;
+    static final String OTHER_TOOL = "other";
+
+    private final ConcurrentHashMap<String, ToolStats> tools = new ConcurrentHashMap<>();
+    private final LongAdder rowsReturned = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder busyErrors = new LongAdder();
+    private final long startedNanos = System.nanoTime();
+
+    /**
+     * Records one tool call.
+     *
+     * @param tool Tool name
+     * @param startNanos {@link System#nanoTime()} when the call started
+     * @param failed Whether the call ended with an error
+     */
+    public void recordTool(String tool, long startNanos, boolean failed) {
+        ToolStats stats = toolStats(tool);
+        stats.latency.recordSince(startNanos);
+        if (failed) {
+            stats.errors.increment();
+        }
+    }
+
+    public void addRows(long rows) {
+        rowsReturned.add(rows);
+    }
+
+    public void addBytes(long bytes) {
+        bytesWritten.add(bytes);
+    }
+
+    /**
+     * Counts a tool call that failed with SQLITE_BUSY or SQLITE_LOCKED after the busy timeout.
+     */
+    public void recordBusy() {
+        busyErrors.increment();
+    }
+
+    /**
+     * Latency and error count per tool, sorted by name.
+     */
+    public Map<String, ToolSnapshot> tools() {
+        Map<String, ToolSnapshot> snapshot = new TreeMap<>();
+        tools.forEach((name, stats) -> snapshot.put(name, new ToolSnapshot(stats.latency.snapshot(), stats.errors.sum())));
+        return snapshot;
+    }
+
+    public long rowsReturned() {
+        return rowsReturned.sum();
+    }
+
+    public long bytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    public long busyErrors() {
+        return busyErrors.sum();
+    }
+
+    public Duration uptime() {
+        return Duration.ofNanos(System.nanoTime() - startedNanos);
+    }
+
+    private ToolStats toolStats(String tool) {
+        ToolStats stats = tools.get(tool);
+        if (stats != null) {
+            return stats;
+        }
+        String name = tools.size() < MAX_TOOLS ? tool : OTHER_TOOL;
+        return tools.computeIfAbsent(name, ignored -> new ToolStats());
+    }
+
+    /**
+     * @param latency Call latency in nanoseconds, including time spent waiting for a database thread
+     * @param errors Calls that ended with an error
+     */
+    public record ToolSnapshot(Histogram.Snapshot latency, long errors) {}
+
+    private static final class ToolStats {
+        private final Histogram latency = new Histogram();
+        private final LongAdder errors = new LongAdder();
+    }
+}
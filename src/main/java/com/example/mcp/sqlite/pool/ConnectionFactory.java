@@ -0,0 +1,14 @@
+package com.example.mcp.sqlite.pool;
+
+import com.example.mcp.sqlite.config.DatabaseConfig;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Opens a new physical connection for a database configuration.
+ */
+@FunctionalInterface
+public interface ConnectionFactory {
+    Connection open(DatabaseConfig config) throws SQLException;
+}
@@ -0,0 +1,436 @@
+package com.example.mcp.sqlite.pool;
+
+import com.example.mcp.sqlite.config.DatabaseConfig;
+import com.example.mcp.sqlite.metrics.Histogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded pool of SQLCipher connections, partitioned by {@link PoolKey} or by database file
+ * (see {@link Partitioning}).
+ *
+ * Opening an encrypted database runs the full key derivation (256,000 PBKDF2 iterations with
+ * the SQLCipher 4 defaults), so connections are kept open and reused between tool calls.
+ * Each partition holds at most {@link PoolSettings#maxConnectionsPerKey()} connections.
+ * Connections are validated on borrow, retired after {@link PoolSettings#maxLifetime()},
+ * closed by a background evictor once idle for {@link PoolSettings#idleTimeout()}, and
+ * discarded when the database file has been replaced on disk (different file key or
+ * creation time). Each connection keeps an LRU cache of up to
+ * {@link PoolSettings#statementCacheSize()} prepared statements.
+ */
+public final class ConnectionPool implements AutoCloseable {
+    /**
+     * How borrowers are grouped into partitions.
+     */
+    public enum Partitioning {
+        /** One partition per {@link PoolKey}. */
+        POOL_KEY,
+        /**
+         * One partition per database file, so {@link PoolSettings#maxConnectionsPerKey()}
+         * bounds the connections to the file. Connections keep the tuning they were opened
+         * with; a borrower with another tuning profile gets them as they are. A borrower with
+         * another passphrase or cipher profile is rejected while the partition has connections.
+         */
+        DATABASE
+    }
+
+    private final ConnectionFactory factory;
+    private final PoolSettings settings;
+    private final Partitioning partitioning;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<Object, Partition> partitions = new ConcurrentHashMap<>();
+    private final StatementCache.Counters statementCounters = new StatementCache.Counters();
+    private final Histogram waitTimes = new Histogram();
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    public ConnectionPool(ConnectionFactory factory, PoolSettings settings) {
+        this(factory, settings, Partitioning.POOL_KEY);
+    }
+
+    public ConnectionPool(ConnectionFactory factory, PoolSettings settings, Partitioning partitioning) {
+        this(factory, settings, partitioning, System::nanoTime, true);
+    }
+
+    ConnectionPool(ConnectionFactory factory, PoolSettings settings, LongSupplier clock, boolean startEvictor) {
+        this(factory, settings, Partitioning.POOL_KEY, clock, startEvictor);
+    }
+
+    ConnectionPool(ConnectionFactory factory, PoolSettings settings, Partitioning partitioning, LongSupplier clock,
+                   boolean startEvictor) {
+        this.factory = Objects.requireNonNull(factory, "factory");
+        this.settings = Objects.requireNonNull(settings, "settings");
+        this.partitioning = Objects.requireNonNull(partitioning, "partitioning");
+        this.clock = Objects.requireNonNull(clock, "clock");
+        if (startEvictor) {
+            this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "mcp-sqlite-pool-evictor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long periodMillis = Math.max(1_000, Math.min(settings.idleTimeout().toMillis(), 30_000) / 2);
+            this.evictor.scheduleWithFixedDelay(this::evictIdle, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.evictor = null;
+        }
+    }
+
+    /**
+     * Borrows a connection for the given configuration, opening a new one if the partition
+     * has spare capacity and no idle connection passes validation.
+     *
+     * @param config Database configuration
+     * @return A leased connection; must be handed back with {@link #release(PooledConnection)}
+     * @throws SQLException if no connection can be opened, the borrow timeout expires, or the
+     *         partition is open with other credentials
+     */
+    public PooledConnection borrow(DatabaseConfig config) throws SQLException {
+        Objects.requireNonNull(config, "config");
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        PoolKey key = PoolKey.of(config);
+        Partition partition = partitions.computeIfAbsent(partitionId(key), id -> new Partition(key));
+        checkFileIdentity(partition);
+
+        long started = clock.getAsLong();
+        long deadline = started + settings.borrowTimeout().toNanos();
+        while (true) {
+            PooledConnection candidate = null;
+            long generation;
+            partition.lock.lock();
+            try {
+                while (true) {
+                    candidate = partition.idle.pollFirst();
+                    if (candidate != null || partition.total < settings.maxConnectionsPerKey()) {
+                        break;
+                    }
+                    long remaining = deadline - clock.getAsLong();
+                    if (remaining <= 0) {
+                        throw new SQLException("Timed out after " + settings.borrowTimeout().toMillis()
+                                + " ms waiting for a pooled connection to " + key.databasePath());
+                    }
+                    partition.available.awaitNanos(remaining);
+                }
+                if (!accepts(partition, key)) {
+                    if (candidate != null) {
+                        partition.idle.offerFirst(candidate);
+                        partition.available.signal();
+                    }
+                    throw new SQLException(key.databasePath()
+                            + " is already open with a different passphrase or cipher profile");
+                }
+                if (candidate == null) {
+                    partition.total++;
+                }
+                generation = partition.generation;
+                waitTimes.record(clock.getAsLong() - started);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a pooled connection", e);
+            } finally {
+                partition.lock.unlock();
+            }
+
+            if (candidate == null) {
+                return open(partition, config, generation);
+            }
+            if (isUsable(candidate)) {
+                return candidate;
+            }
+            discard(candidate);
+        }
+    }
+
+    /**
+     * Returns a borrowed connection to its partition. Any transaction left open by the caller
+     * is rolled back; connections that cannot be reset, are past their lifetime or belong to
+     * an invalidated generation are closed instead of being reused.
+     *
+     * @param pooled The leased connection
+     */
+    public void release(PooledConnection pooled) {
+        Objects.requireNonNull(pooled, "pooled");
+        Partition partition = pooled.partition();
+        long now = clock.getAsLong();
+        boolean keep = !closed && resetQuietly(pooled.connection())
+                && now - pooled.createdNanos() < settings.maxLifetime().toNanos();
+        partition.lock.lock();
+        try {
+            keep = keep && pooled.generation() == partition.generation;
+            if (keep) {
+                pooled.markReturned(now);
+                partition.idle.offerFirst(pooled);
+            } else {
+                partition.total--;
+            }
+            partition.available.signal();
+        } finally {
+            partition.lock.unlock();
+        }
+        if (!keep) {
+            closeQuietly(pooled.connection());
+        }
+    }
+
+    /**
+     * Closes a borrowed connection instead of returning it to the pool.
+     *
+     * @param pooled The leased connection
+     */
+    public void discard(PooledConnection pooled) {
+        Partition partition = pooled.partition();
+        partition.lock.lock();
+        try {
+            partition.total--;
+            partition.available.signal();
+        } finally {
+            partition.lock.unlock();
+        }
+        closeQuietly(pooled.connection());
+    }
+
+    /**
+     * Drops every pooled connection for the given database file. Connections currently in
+     * use are closed when they are released.
+     *
+     * @param databasePath Path to the database file
+     */
+    public void invalidate(Path databasePath) {
+        Path normalized = databasePath.toAbsolutePath().normalize();
+        for (Partition partition : partitions.values()) {
+            if (partition.key.databasePath().equals(normalized)) {
+                invalidate(partition);
+            }
+        }
+    }
+
+    /**
+     * Closes idle connections that exceeded the idle timeout or their maximum lifetime.
+     * Called periodically by the evictor thread.
+     */
+    void evictIdle() {
+        long now = clock.getAsLong();
+        long idleNanos = settings.idleTimeout().toNanos();
+        long lifetimeNanos = settings.maxLifetime().toNanos();
+        for (Partition partition : partitions.values()) {
+            List<PooledConnection> expired = new ArrayList<>();
+            partition.lock.lock();
+            try {
+                Iterator<PooledConnection> it = partition.idle.descendingIterator();
+                while (it.hasNext()) {
+                    PooledConnection pooled = it.next();
+                    if (now - pooled.lastReturnedNanos() >= idleNanos || now - pooled.createdNanos() >= lifetimeNanos) {
+                        it.remove();
+                        partition.total--;
+                        expired.add(pooled);
+                    }
+                }
+            } finally {
+                partition.lock.unlock();
+            }
+            expired.forEach(pooled -> closeQuietly(pooled.connection()));
+        }
+    }
+
+    /**
+     * Prepared statement cache counters over all connections this pool has opened.
+     */
+    public StatementCacheStats statementCacheStats() {
+        return statementCounters.snapshot();
+    }
+
+    /**
+     * Time borrowers waited for an idle connection or a free slot, excluding opening and
+     * validation. A borrow that retries after discarding a stale connection records each wait.
+     */
+    public Histogram.Snapshot waitTimes() {
+        return waitTimes.snapshot();
+    }
+
+    int idleCount(PoolKey key) {
+        Partition partition = partitions.get(partitionId(key));
+        if (partition == null) {
+            return 0;
+        }
+        partition.lock.lock();
+        try {
+            return partition.idle.size();
+        } finally {
+            partition.lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (evictor != null) {
+            evictor.shutdownNow();
+        }
+        for (Partition partition : partitions.values()) {
+            invalidate(partition);
+        }
+    }
+
+    private Object partitionId(PoolKey key) {
+        return partitioning == Partitioning.DATABASE ? key.databasePath() : key;
+    }
+
+    /**
+     * Called with the partition locked. An empty partition takes the credentials of the next
+     * borrower; otherwise they have to match those its connections were opened with.
+     */
+    private boolean accepts(Partition partition, PoolKey key) {
+        if (partitioning == Partitioning.POOL_KEY) {
+            return true;
+        }
+        if (partition.total == 0) {
+            partition.key = key;
+            return true;
+        }
+        return partition.key.sameCredentials(key);
+    }
+
+    private PooledConnection open(Partition partition, DatabaseConfig config, long generation) throws SQLException {
+        try {
+            Connection connection = factory.open(config);
+            if (connection == null) {
+                throw new SQLException("Connection factory returned no connection for " + partition.key.databasePath());
+            }
+            StatementCache statementCache = settings.statementCacheSize() > 0
+                    ? new StatementCache(connection, settings.statementCacheSize(), statementCounters)
+                    : null;
+            return new PooledConnection(partition, connection, statementCache, generation, clock.getAsLong());
+        } catch (SQLException | RuntimeException e) {
+            partition.lock.lock();
+            try {
+                partition.total--;
+                partition.available.signal();
+            } finally {
+                partition.lock.unlock();
+            }
+            throw e;
+        }
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+        long now = clock.getAsLong();
+        if (pooled.generation() != pooled.partition().generation
+                || now - pooled.createdNanos() >= settings.maxLifetime().toNanos()
+                || now - pooled.lastReturnedNanos() >= settings.idleTimeout().toNanos()) {
+            return false;
+        }
+        try {
+            Connection connection = pooled.connection();
+            return !connection.isClosed() && connection.isValid(settings.validationTimeoutSeconds());
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void checkFileIdentity(Partition partition) {
+        FileIdentity current = FileIdentity.of(partition.key.databasePath());
+        if (Objects.equals(current, partition.fileIdentity)) {
+            return;
+        }
+        boolean replaced;
+        partition.lock.lock();
+        try {
+            replaced = partition.fileIdentity != null && !partition.fileIdentity.equals(current);
+            partition.fileIdentity = current;
+        } finally {
+            partition.lock.unlock();
+        }
+        if (replaced) {
+            invalidate(partition);
+        }
+    }
+
+    private void invalidate(Partition partition) {
+        List<PooledConnection> idle;
+        partition.lock.lock();
+        try {
+            partition.generation++;
+            idle = new ArrayList<>(partition.idle);
+            partition.idle.clear();
+            partition.total -= idle.size();
+            partition.available.signalAll();
+        } finally {
+            partition.lock.unlock();
+        }
+        idle.forEach(pooled -> closeQuietly(pooled.connection()));
+    }
+
+    private static boolean resetQuietly(Connection connection) {
+        try {
+            if (connection.isClosed()) {
+                return false;
+            }
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // Connection is being discarded anyway
+        }
+    }
+
+    static final class Partition {
+        // Key of the connections in the partition; only changes while it is empty
+        volatile PoolKey key;
+        final ReentrantLock lock = new ReentrantLock();
+        final Condition available = lock.newCondition();
+        final ArrayDeque<PooledConnection> idle = new ArrayDeque<>();
+        int total;
+        volatile long generation;
+        volatile FileIdentity fileIdentity;
+
+        Partition(PoolKey key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * Identity of the database file on disk. A replaced file (restore from backup, atomic
+     * rename by the owning application) has a different file key or creation time even if
+     * it keeps the same path.
+     */
+    record FileIdentity(Object fileKey, FileTime creationTime) {
+        static FileIdentity of(Path path) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                return new FileIdentity(attributes.fileKey(), attributes.creationTime());
+            } catch (IOException e) {
+                // Missing or unreadable file; the next open will report the actual error
+                return null;
+            }
+        }
+    }
+}
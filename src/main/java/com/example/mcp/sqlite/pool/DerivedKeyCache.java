@@ -0,0 +1,242 @@
+package com.example.mcp.sqlite.pool;
+
+import com.example.mcp.sqlite.config.CipherProfile;
+import com.example.mcp.sqlite.config.DatabaseConfig;
+import com.example.mcp.sqlite.metrics.Histogram;
+import com.example.mcp.sqlite.util.Env;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Caches SQLCipher raw keys so that new connections skip the PBKDF2 key stretching.
+ *
+ * SQLCipher derives the page encryption key as PBKDF2(passphrase, salt, kdf_iter), where the
+ * salt is the first 16 bytes of the database file. This cache performs that derivation once per
+ * (salt, passphrase, KDF settings) and returns key and salt as a 48-byte raw key, which SQLCipher
+ * accepts without running the KDF again.
+ *
+ * Entries expire after a TTL and key material is overwritten with zeros when an entry is evicted
+ * or the cache is cleared. Callers receive copies and should zero them after use.
+ */
+public final class DerivedKeyCache {
+    static final int SALT_LENGTH = 16;
+    static final int KEY_LENGTH = 32;
+
+    private final Duration ttl;
+    private final int maxEntries;
+    private final LongSupplier clock;
+    private final LinkedHashMap<CacheKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final Histogram derivationTimes = new Histogram();
+
+    public DerivedKeyCache(Duration ttl, int maxEntries) {
+        this(ttl, maxEntries, System::nanoTime);
+    }
+
+    DerivedKeyCache(Duration ttl, int maxEntries, LongSupplier clock) {
+        this.ttl = Objects.requireNonNull(ttl, "ttl");
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be at least 1");
+        }
+        this.maxEntries = maxEntries;
+        this.clock = Objects.requireNonNull(clock, "clock");
+    }
+
+    /**
+     * Creates a cache with the TTL from MCP_KEY_CACHE_TTL_SECONDS (default: 1800 seconds).
+     * A TTL of 0 disables caching.
+     *
+     * @return DerivedKeyCache instance
+     */
+    public static DerivedKeyCache fromEnvironment() {
+        long seconds = Env.longValue("MCP_KEY_CACHE_TTL_SECONDS", 1800);
+        return new DerivedKeyCache(Duration.ofSeconds(Math.max(0, seconds)), 64);
+    }
+
+    /**
+     * Returns the raw key (derived key followed by the salt) for a database, deriving it on a miss.
+     *
+     * @param config Database configuration
+     * @return A fresh copy of the 48-byte raw key, or null if the salt cannot be read
+     *         (new or empty database file) or caching is disabled
+     */
+    public byte[] rawKey(DatabaseConfig config) {
+        if (ttl.isZero()) {
+            return null;
+        }
+        byte[] salt = readSalt(config.databasePath());
+        if (salt == null) {
+            return null;
+        }
+        CacheKey key = new CacheKey(HexFormat.of().formatHex(salt),
+                PoolKey.passphraseIdentity(config.passphrase()),
+                config.cipherProfile().kdfIterations(),
+                config.cipherProfile().kdfAlgorithm());
+        synchronized (entries) {
+            evictExpired();
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                hits.increment();
+                return entry.rawKey.clone();
+            }
+        }
+        misses.increment();
+        // Derive outside the lock; concurrent misses for the same key simply derive twice
+        long started = System.nanoTime();
+        byte[] rawKey = derive(config.passphrase(), salt, config.cipherProfile());
+        derivationTimes.recordSince(started);
+        synchronized (entries) {
+            Entry previous = entries.put(key, new Entry(rawKey.clone(), clock.getAsLong()));
+            if (previous != null) {
+                previous.zeroize();
+            }
+            while (entries.size() > maxEntries) {
+                Iterator<Entry> eldest = entries.values().iterator();
+                eldest.next().zeroize();
+                eldest.remove();
+            }
+        }
+        return rawKey;
+    }
+
+    /**
+     * Removes the cached key for a database, e.g. after the raw key was rejected.
+     *
+     * @param config Database configuration
+     */
+    public void invalidate(DatabaseConfig config) {
+        String passphraseId = PoolKey.passphraseIdentity(config.passphrase());
+        synchronized (entries) {
+            entries.entrySet().removeIf(e -> {
+                if (e.getKey().passphraseId().equals(passphraseId)) {
+                    e.getValue().zeroize();
+                    return true;
+                }
+                return false;
+            });
+        }
+    }
+
+    /**
+     * Zeroizes and removes all cached keys.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.values().forEach(Entry::zeroize);
+            entries.clear();
+        }
+    }
+
+    /**
+     * Lookups answered from the cache.
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * Lookups that ran the key derivation.
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * Duration of the PBKDF2 derivations performed on cache misses.
+     */
+    public Histogram.Snapshot derivationTimes() {
+        return derivationTimes.snapshot();
+    }
+
+    int size() {
+        synchronized (entries) {
+            evictExpired();
+            return entries.size();
+        }
+    }
+
+    private void evictExpired() {
+        long now = clock.getAsLong();
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (now - entry.createdNanos >= ttl.toNanos()) {
+                entry.zeroize();
+                it.remove();
+            }
+        }
+    }
+
+    static byte[] derive(String passphrase, byte[] salt, CipherProfile profile) {
+        char[] chars = passphrase.toCharArray();
+        PBEKeySpec spec = new PBEKeySpec(chars, salt, profile.kdfIterations(), KEY_LENGTH * 8);
+        try {
+            byte[] key = SecretKeyFactory.getInstance(jcaAlgorithm(profile.kdfAlgorithm()))
+                    .generateSecret(spec)
+                    .getEncoded();
+            byte[] rawKey = new byte[KEY_LENGTH + SALT_LENGTH];
+            System.arraycopy(key, 0, rawKey, 0, KEY_LENGTH);
+            System.arraycopy(salt, 0, rawKey, KEY_LENGTH, SALT_LENGTH);
+            Arrays.fill(key, (byte) 0);
+            return rawKey;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Key derivation failed: " + e.getMessage(), e);
+        } finally {
+            spec.clearPassword();
+            Arrays.fill(chars, '\0');
+        }
+    }
+
+    private static String jcaAlgorithm(String kdfAlgorithm) {
+        String normalized = kdfAlgorithm == null ? "" : kdfAlgorithm.toUpperCase(Locale.ROOT);
+        if (normalized.contains("256")) {
+            return "PBKDF2WithHmacSHA256";
+        }
+        if (normalized.contains("SHA1")) {
+            return "PBKDF2WithHmacSHA1";
+        }
+        return "PBKDF2WithHmacSHA512";
+    }
+
+    static byte[] readSalt(Path databasePath) {
+        try (InputStream in = Files.newInputStream(databasePath)) {
+            byte[] salt = in.readNBytes(SALT_LENGTH);
+            return salt.length == SALT_LENGTH ? salt : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private record CacheKey(String saltHex, String passphraseId, int kdfIterations, String kdfAlgorithm) {}
+
+    private static final class Entry {
+        private final byte[] rawKey;
+        private final long createdNanos;
+
+        private Entry(byte[] rawKey, long createdNanos) {
+            this.rawKey = rawKey;
+            this.createdNanos = createdNanos;
+        }
+
+        private void zeroize() {
+            Arrays.fill(rawKey, (byte) 0);
+        }
+    }
+}
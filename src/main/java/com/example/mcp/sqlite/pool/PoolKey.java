@@ -0,0 +1,73 @@
+package com.example.mcp.sqlite.pool;
+
+import com.example.mcp.sqlite.config.CipherProfile;
+import com.example.mcp.sqlite.config.DatabaseConfig;
+import com.example.mcp.sqlite.config.TuningProfile;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.Objects;
+
+/**
+ * Identifies a set of interchangeable connections: same database file, same cipher
+ * profile, same pragmas of the tuning profile and same passphrase. Tuning settings that do
+ * not change connection state, such as the result cache size, are left out.
+ *
+ * The passphrase itself is not kept in the key. Instead an HMAC over the passphrase with a
+ * random per-process secret is used, so keys can be compared and logged without exposing
+ * the passphrase, and identities cannot be correlated across processes.
+ */
+public record PoolKey(Path databasePath, CipherProfile cipherProfile, TuningProfile tuningProfile,
+                      String passphraseId) {
+    private static final byte[] PROCESS_SECRET = new byte[32];
+
+    static {
+        new SecureRandom().nextBytes(PROCESS_SECRET);
+    }
+
+    public PoolKey {
+        Objects.requireNonNull(databasePath, "databasePath");
+        Objects.requireNonNull(cipherProfile, "cipherProfile");
+        Objects.requireNonNull(tuningProfile, "tuningProfile");
+        Objects.requireNonNull(passphraseId, "passphraseId");
+    }
+
+    public static PoolKey of(DatabaseConfig config) {
+        Objects.requireNonNull(config, "config");
+        return new PoolKey(config.databasePath().toAbsolutePath().normalize(),
+                config.cipherProfile(),
+                config.tuningProfile().connectionSettings(),
+                passphraseIdentity(config.passphrase()));
+    }
+
+    /**
+     * Whether both keys open the same database file with the same passphrase and cipher
+     * profile, regardless of tuning.
+     */
+    public boolean sameCredentials(PoolKey other) {
+        return databasePath.equals(other.databasePath)
+                && cipherProfile.equals(other.cipherProfile)
+                && passphraseId.equals(other.passphraseId);
+    }
+
+    static String passphraseIdentity(String passphrase) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(PROCESS_SECRET, "HmacSHA256"));
+            return HexFormat.of().formatHex(mac.doFinal(passphrase.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        // Never print the passphrase identity
+        return "PoolKey[" + databasePath + ", " + cipherProfile.name() + "]";
+    }
+}
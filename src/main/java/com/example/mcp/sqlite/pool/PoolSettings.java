@@ -0,0 +1,76 @@
+package com.example.mcp.sqlite.pool;
+
+import com.example.mcp.sqlite.util.Env;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Tuning knobs for {@link ConnectionPool}.
+ *
+ * @param maxConnectionsPerKey Maximum number of open connections per pool key
+ * @param idleTimeout Idle connections older than this are closed by the evictor
+ * @param maxLifetime Connections are retired after this age, even when busy
+ * @param borrowTimeout Maximum time a caller waits for a free connection
+ * @param validationTimeoutSeconds Timeout passed to {@link java.sql.Connection#isValid(int)} on borrow
+ * @param statementCacheSize Prepared statements cached per connection; 0 disables the cache
+ */
+public record PoolSettings(int maxConnectionsPerKey,
+                           Duration idleTimeout,
+                           Duration maxLifetime,
+                           Duration borrowTimeout,
+                           int validationTimeoutSeconds,
+                           int statementCacheSize) {
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+
+    public PoolSettings {
+        if (maxConnectionsPerKey < 1) {
+            throw new IllegalArgumentException("maxConnectionsPerKey must be at least 1");
+        }
+        Objects.requireNonNull(idleTimeout, "idleTimeout");
+        Objects.requireNonNull(maxLifetime, "maxLifetime");
+        Objects.requireNonNull(borrowTimeout, "borrowTimeout");
+        if (validationTimeoutSeconds < 0) {
+            throw new IllegalArgumentException("validationTimeoutSeconds must be non-negative");
+        }
+        if (statementCacheSize < 0) {
+            throw new IllegalArgumentException("statementCacheSize must be non-negative");
+        }
+    }
+
+    public PoolSettings(int maxConnectionsPerKey,
+                        Duration idleTimeout,
+                        Duration maxLifetime,
+                        Duration borrowTimeout,
+                        int validationTimeoutSeconds) {
+        this(maxConnectionsPerKey, idleTimeout, maxLifetime, borrowTimeout, validationTimeoutSeconds,
+                DEFAULT_STATEMENT_CACHE_SIZE);
+    }
+
+    public PoolSettings withMaxConnectionsPerKey(int maxConnectionsPerKey) {
+        return new PoolSettings(maxConnectionsPerKey, idleTimeout, maxLifetime, borrowTimeout,
+                validationTimeoutSeconds, statementCacheSize);
+    }
+
+    public static PoolSettings defaults() {
+        return new PoolSettings(4, Duration.ofMinutes(5), Duration.ofMinutes(30), Duration.ofSeconds(30), 2);
+    }
+
+    /**
+     * Reads pool settings from environment variables, falling back to {@link #defaults()}.
+     * Supported variables: MCP_POOL_MAX_SIZE, MCP_POOL_IDLE_TIMEOUT_SECONDS,
+     * MCP_POOL_MAX_LIFETIME_SECONDS and MCP_STATEMENT_CACHE_SIZE.
+     *
+     * @return PoolSettings instance
+     */
+    public static PoolSettings fromEnvironment() {
+        PoolSettings defaults = defaults();
+        return new PoolSettings(
+                Env.intValue("MCP_POOL_MAX_SIZE", defaults.maxConnectionsPerKey()),
+                Duration.ofSeconds(Env.intValue("MCP_POOL_IDLE_TIMEOUT_SECONDS", (int) defaults.idleTimeout().toSeconds())),
+                Duration.ofSeconds(Env.intValue("MCP_POOL_MAX_LIFETIME_SECONDS", (int) defaults.maxLifetime().toSeconds())),
+                defaults.borrowTimeout(),
+                defaults.validationTimeoutSeconds(),
+                Env.intValue("MCP_STATEMENT_CACHE_SIZE", defaults.statementCacheSize()));
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.mcp.sqlite.pool;
+
+import java.sql.Connection;
+
+/**
+ * A physical connection owned by a {@link ConnectionPool}.
+ * Callers use {@link #connection()} while they hold the lease and hand it back with
+ * {@link ConnectionPool#release(PooledConnection)}; they must never close it themselves.
+ * With a statement cache, {@link #connection()} is a view that reuses prepared statements.
+ */
+public final class PooledConnection {
+    private final ConnectionPool.Partition partition;
+    private final Connection connection;
+    private final StatementCache statementCache;
+    private final long generation;
+    private final long createdNanos;
+    private volatile long lastReturnedNanos;
+
+    PooledConnection(ConnectionPool.Partition partition, Connection connection, StatementCache statementCache,
+                     long generation, long createdNanos) {
+        this.partition = partition;
+        this.statementCache = statementCache;
+        this.connection = statementCache == null ? connection : statementCache.connection();
+        this.generation = generation;
+        this.createdNanos = createdNanos;
+        this.lastReturnedNanos = createdNanos;
+    }
+
+    public Connection connection() {
+        return connection;
+    }
+
+    public PoolKey key() {
+        return partition.key;
+    }
+
+    StatementCache statementCache() {
+        return statementCache;
+    }
+
+    ConnectionPool.Partition partition() {
+        return partition;
+    }
+
+    long generation() {
+        return generation;
+    }
+
+    long createdNanos() {
+        return createdNanos;
+    }
+
+    long lastReturnedNanos() {
+        return lastReturnedNanos;
+    }
+
+    void markReturned(long nowNanos) {
+        this.lastReturnedNanos = nowNanos;
+    }
+}
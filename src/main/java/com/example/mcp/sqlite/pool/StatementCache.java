@@ -0,0 +1,217 @@
+package com.example.mcp.sqlite.pool;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LRU cache of prepared statements for one physical connection, keyed by SQL text.
+ *
+ * {@link #connection()} returns a view of the connection whose
+ * {@link Connection#prepareStatement(String)} hands out cached statements. Closing such a
+ * statement clears its parameters and returns it to the cache, so a repeated statement shape
+ * skips SQLite's parse and plan phase. Statements that are in use when the same SQL is
+ * requested again, or that fall out of the cache, are closed for real. Closing the connection
+ * view closes all cached statements.
+ *
+ * A pooled connection is used by one caller at a time; the cache is synchronized anyway so
+ * that the pool may close it from another thread.
+ */
+final class StatementCache {
+    private final Connection physical;
+    private final int capacity;
+    private final Counters counters;
+    private final LinkedHashMap<String, Entry> entries;
+    private final Connection view;
+
+    StatementCache(Connection physical, int capacity, Counters counters) {
+        this.physical = physical;
+        this.capacity = capacity;
+        this.counters = counters;
+        this.entries = new LinkedHashMap<>(Math.max(16, capacity * 2), 0.75f, true);
+        this.view = (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, new ConnectionHandler());
+    }
+
+    /**
+     * The connection view that callers use in place of the physical connection.
+     */
+    Connection connection() {
+        return view;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * The cached SQL texts, least recently used first.
+     */
+    synchronized List<String> cachedSql() {
+        return new ArrayList<>(entries.keySet());
+    }
+
+    private PreparedStatement prepare(String sql) throws SQLException {
+        synchronized (this) {
+            Entry entry = entries.get(sql);
+            if (entry != null && !entry.inUse) {
+                entry.inUse = true;
+                counters.hits.increment();
+                return entry.view;
+            }
+        }
+        counters.misses.increment();
+        PreparedStatement statement = physical.prepareStatement(sql);
+        List<Entry> evicted = new ArrayList<>();
+        Entry entry;
+        synchronized (this) {
+            if (entries.containsKey(sql)) {
+                // Same SQL is already checked out (e.g. nested use); do not cache a second copy
+                return statement;
+            }
+            entry = new Entry(sql, statement);
+            entry.inUse = true;
+            entries.put(sql, entry);
+            Iterator<Entry> it = entries.values().iterator();
+            while (entries.size() > capacity && it.hasNext()) {
+                Entry eldest = it.next();
+                if (eldest == entry) {
+                    continue;
+                }
+                it.remove();
+                eldest.evicted = true;
+                counters.evictions.increment();
+                if (!eldest.inUse) {
+                    evicted.add(eldest);
+                }
+            }
+        }
+        evicted.forEach(Entry::closeQuietly);
+        return entry.view;
+    }
+
+    private void checkIn(Entry entry) {
+        boolean close;
+        synchronized (this) {
+            if (!entry.inUse) {
+                return;
+            }
+            entry.inUse = false;
+            close = entry.evicted;
+        }
+        if (!close) {
+            try {
+                entry.statement.clearParameters();
+                entry.statement.clearBatch();
+                return;
+            } catch (SQLException e) {
+                synchronized (this) {
+                    entries.remove(entry.sql, entry);
+                }
+            }
+        }
+        entry.closeQuietly();
+    }
+
+    private void closeAll() {
+        List<Entry> all;
+        synchronized (this) {
+            all = new ArrayList<>(entries.values());
+            entries.clear();
+        }
+        all.forEach(Entry::closeQuietly);
+    }
+
+    private static Object forward(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "prepareStatement":
+                    if (args.length == 1) {
+                        return prepare((String) args[0]);
+                    }
+                    break;
+                case "close":
+                    closeAll();
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "StatementCache[" + physical + "]";
+                default:
+                    break;
+            }
+            return forward(physical, method, args);
+        }
+    }
+
+    private final class Entry implements InvocationHandler {
+        final String sql;
+        final PreparedStatement statement;
+        final PreparedStatement view;
+        boolean inUse;
+        boolean evicted;
+
+        Entry(String sql, PreparedStatement statement) {
+            this.sql = sql;
+            this.statement = statement;
+            this.view = (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(), new Class<?>[]{PreparedStatement.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            return switch (method.getName()) {
+                case "close" -> {
+                    checkIn(this);
+                    yield null;
+                }
+                case "getConnection" -> StatementCache.this.view;
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "toString" -> statement.toString();
+                default -> forward(statement, method, args);
+            };
+        }
+
+        void closeQuietly() {
+            try {
+                statement.close();
+            } catch (SQLException ignored) {
+                // Statement is being dropped anyway
+            }
+        }
+    }
+
+    /**
+     * Counters shared by the statement caches of one pool.
+     */
+    static final class Counters {
+        final LongAdder hits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+        final LongAdder evictions = new LongAdder();
+
+        StatementCacheStats snapshot() {
+            return new StatementCacheStats(hits.sum(), misses.sum(), evictions.sum());
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.mcp.sqlite.pool;
+
+/**
+ * Prepared statement cache counters of a {@link ConnectionPool}, summed over all connections.
+ *
+ * @param hits Statements served from a cache
+ * @param misses Statements that had to be parsed and planned
+ * @param evictions Statements dropped because a cache was full
+ */
+public record StatementCacheStats(long hits, long misses, long evictions) {
+    public StatementCacheStats plus(StatementCacheStats other) {
+        return new StatementCacheStats(hits + other.hits, misses + other.misses, evictions + other.evictions);
+    }
+
+    public double hitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.mcp.sqlite.protocol;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.Strictness;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * A JSON-RPC message whose envelope ({@code jsonrpc}, {@code method}, {@code id}) has been read
+ * from the raw UTF-8 bytes with a streaming {@link JsonReader}.
+ *
+ * The {@code params} value is only validated and skipped while the envelope is read. Handlers
+ * decode it later, either as a tree through {@link #params()} or token by token through
+ * {@link #paramsReader()}, which lets large arguments be read straight into their final form.
+ */
+public final class JsonRpcRequest {
+    private final byte[] message;
+    private final String jsonrpc;
+    private final String method;
+    private final String id;
+    private final boolean hasParams;
+    private JsonObject params;
+
+    private JsonRpcRequest(byte[] message, String jsonrpc, String method, String id, boolean hasParams) {
+        this.message = message;
+        this.jsonrpc = jsonrpc;
+        this.method = method;
+        this.id = id;
+        this.hasParams = hasParams;
+    }
+
+    /**
+     * Reads the envelope of a message.
+     *
+     * @throws JsonParseException if the message is not well-formed JSON, not an object, or
+     *         has an id that is neither a string nor a number
+     */
+    public static JsonRpcRequest parse(byte[] message) {
+        Objects.requireNonNull(message, "message");
+        String jsonrpc = null;
+        String method = null;
+        String id = null;
+        boolean hasParams = false;
+        try (JsonReader reader = newReader(message)) {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                throw new JsonSyntaxException("Expected a JSON object but was " + reader.peek());
+            }
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "jsonrpc" -> jsonrpc = nextStringOrNull(reader);
+                    case "method" -> method = nextStringOrNull(reader);
+                    case "id" -> id = readId(reader);
+                    case "params" -> {
+                        hasParams = reader.peek() != JsonToken.NULL;
+                        reader.skipValue();
+                    }
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+            if (reader.peek() != JsonToken.END_DOCUMENT) {
+                throw new JsonSyntaxException("Unexpected content after the JSON object");
+            }
+        } catch (IOException e) {
+            throw new JsonSyntaxException(e.getMessage(), e);
+        } catch (IllegalStateException e) {
+            // Thrown by JsonReader for a value of the wrong type
+            throw new JsonSyntaxException(e.getMessage(), e);
+        }
+        return new JsonRpcRequest(message, jsonrpc, method, id, hasParams);
+    }
+
+    public String jsonrpc() {
+        return jsonrpc;
+    }
+
+    public String method() {
+        return method;
+    }
+
+    /**
+     * Request id as a string, or null for a notification.
+     */
+    public String id() {
+        return id;
+    }
+
+    /**
+     * Size of the message in bytes.
+     */
+    public int size() {
+        return message.length;
+    }
+
+    /**
+     * Whether the message has a non-null {@code params} value.
+     */
+    public boolean hasParams() {
+        return hasParams;
+    }
+
+    /**
+     * Params as a tree, decoded on first use; an empty object if the message has none.
+     *
+     * @throws IllegalArgumentException if params is not an object
+     */
+    public synchronized JsonObject params() {
+        if (params == null) {
+            if (!hasParams) {
+                params = new JsonObject();
+            } else {
+                try (JsonReader reader = paramsReader()) {
+                    JsonElement value = JsonParser.parseReader(reader);
+                    if (!value.isJsonObject()) {
+                        throw new IllegalArgumentException("params must be an object");
+                    }
+                    params = value.getAsJsonObject();
+                } catch (IOException e) {
+                    throw new JsonSyntaxException(e.getMessage(), e);
+                }
+            }
+        }
+        return params;
+    }
+
+    /**
+     * A new reader positioned at the params value, or null if the message has none.
+     */
+    public JsonReader paramsReader() {
+        if (!hasParams) {
+            return null;
+        }
+        JsonReader reader = newReader(message);
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals("params")) {
+                    return reader;
+                }
+                reader.skipValue();
+            }
+        } catch (IOException e) {
+            // The message was read completely by parse()
+            throw new JsonSyntaxException(e.getMessage(), e);
+        }
+        throw new IllegalStateException("params not found");
+    }
+
+    /**
+     * Up to {@code max} bytes of the message for log output, with the middle elided.
+     */
+    public String preview(int max) {
+        return preview(message, max);
+    }
+
+    /**
+     * Up to {@code max} bytes of a message for log output, with the middle elided.
+     */
+    public static String preview(byte[] message, int max) {
+        if (message.length <= max) {
+            return new String(message, StandardCharsets.UTF_8);
+        }
+        int half = max / 2;
+        return new String(message, 0, half, StandardCharsets.UTF_8) + "..."
+                + new String(message, message.length - half, half, StandardCharsets.UTF_8);
+    }
+
+    private static JsonReader newReader(byte[] message) {
+        JsonReader reader = new JsonReader(
+                new InputStreamReader(new ByteArrayInputStream(message), StandardCharsets.UTF_8));
+        reader.setStrictness(Strictness.LENIENT);
+        return reader;
+    }
+
+    private static String nextStringOrNull(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+
+    private static String readId(JsonReader reader) throws IOException {
+        return switch (reader.peek()) {
+            case NULL -> {
+                reader.nextNull();
+                yield null;
+            }
+            case STRING, NUMBER -> reader.nextString();
+            default -> throw new JsonSyntaxException("id must be a string or number");
+        };
+    }
+}
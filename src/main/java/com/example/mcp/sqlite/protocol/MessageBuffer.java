@@ -0,0 +1,75 @@
+package com.example.mcp.sqlite.protocol;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer with a reusable UTF-8 writer on top, so that serializing a message
+ * neither copies the result nor creates a new encoder each time.
+ */
+final class MessageBuffer extends OutputStream {
+    private static final int INITIAL_CAPACITY = 8 * 1024;
+
+    private byte[] bytes;
+    private int size;
+    private Writer writer;
+
+    MessageBuffer() {
+        this(INITIAL_CAPACITY);
+    }
+
+    MessageBuffer(int capacity) {
+        this.bytes = new byte[capacity];
+    }
+
+    /**
+     * UTF-8 writer into this buffer. Flush it before reading {@link #bytes()}.
+     */
+    Writer writer() {
+        if (writer == null) {
+            writer = new OutputStreamWriter(this, StandardCharsets.UTF_8);
+        }
+        return writer;
+    }
+
+    @Override
+    public void write(int b) {
+        ensureCapacity(size + 1);
+        bytes[size++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] source, int offset, int length) {
+        ensureCapacity(size + length);
+        System.arraycopy(source, offset, bytes, size, length);
+        size += length;
+    }
+
+    byte[] bytes() {
+        return bytes;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return bytes.length;
+    }
+
+    void reset() {
+        size = 0;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > bytes.length) {
+            if (required < 0) {
+                throw new OutOfMemoryError("Message too large");
+            }
+            bytes = Arrays.copyOf(bytes, Math.max(required, (int) Math.min(Integer.MAX_VALUE - 8, 2L * bytes.length)));
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.mcp.sqlite.protocol;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Reads newline-delimited JSON-RPC messages as raw UTF-8 bytes.
+ *
+ * Input is read in blocks into one reusable buffer and split at {@code '\n'}, so no characters
+ * are decoded and no line strings are built. Each message is copied once, without surrounding
+ * whitespace, into an array of its exact size, because it is parsed and handled after the next
+ * one has been read. Blank lines are skipped. The buffer grows to hold the largest message and
+ * returns to its initial size after a message that needed more than {@link #MAX_RETAINED_SIZE}.
+ *
+ * Not thread-safe; the server reads from a single thread.
+ */
+public final class MessageReader {
+    static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    static final int MAX_RETAINED_SIZE = 1 << 20;
+
+    private final InputStream in;
+    private final int initialSize;
+    private byte[] buffer;
+    private int start;
+    private int limit;
+    private int scanned;
+    private boolean eof;
+
+    public MessageReader(InputStream in) {
+        this(in, DEFAULT_BUFFER_SIZE);
+    }
+
+    MessageReader(InputStream in, int bufferSize) {
+        this.in = Objects.requireNonNull(in, "in");
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("bufferSize must be at least 1");
+        }
+        this.initialSize = bufferSize;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Returns the next non-blank message without its line terminator and surrounding
+     * whitespace, or null at the end of the input.
+     */
+    public byte[] next() throws IOException {
+        while (true) {
+            int newline = indexOfNewline();
+            if (newline >= 0) {
+                byte[] message = copyTrimmed(start, newline);
+                start = newline + 1;
+                scanned = start;
+                shrinkIfOversized();
+                if (message != null) {
+                    return message;
+                }
+                continue;
+            }
+            if (eof) {
+                // Last message without a trailing newline
+                byte[] message = copyTrimmed(start, limit);
+                start = limit;
+                scanned = limit;
+                return message;
+            }
+            fill();
+        }
+    }
+
+    private int indexOfNewline() {
+        byte[] bytes = buffer;
+        for (int i = scanned; i < limit; i++) {
+            if (bytes[i] == '\n') {
+                return i;
+            }
+        }
+        scanned = limit;
+        return -1;
+    }
+
+    /**
+     * Reads more input behind the unterminated message, first moving it to the front of the
+     * buffer or growing the buffer when there is no room left.
+     */
+    private void fill() throws IOException {
+        if (start > 0) {
+            System.arraycopy(buffer, start, buffer, 0, limit - start);
+            limit -= start;
+            scanned -= start;
+            start = 0;
+        }
+        if (limit == buffer.length) {
+            if (buffer.length == Integer.MAX_VALUE - 8) {
+                throw new IOException("Message too large");
+            }
+            int grown = (int) Math.min((long) buffer.length * 2, Integer.MAX_VALUE - 8);
+            buffer = Arrays.copyOf(buffer, grown);
+        }
+        int read = in.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            eof = true;
+        } else {
+            limit += read;
+        }
+    }
+
+    private void shrinkIfOversized() {
+        if (buffer.length > MAX_RETAINED_SIZE && limit - start <= initialSize) {
+            byte[] smaller = new byte[initialSize];
+            System.arraycopy(buffer, start, smaller, 0, limit - start);
+            limit -= start;
+            scanned -= start;
+            start = 0;
+            buffer = smaller;
+        }
+    }
+
+    /**
+     * Copies {@code [from, to)} without leading and trailing whitespace (including a CR before
+     * the newline), or returns null if the range is blank.
+     */
+    private byte[] copyTrimmed(int from, int to) {
+        while (from < to && isWhitespace(buffer[from])) {
+            from++;
+        }
+        while (to > from && isWhitespace(buffer[to - 1])) {
+            to--;
+        }
+        return from == to ? null : Arrays.copyOfRange(buffer, from, to);
+    }
+
+    private static boolean isWhitespace(byte b) {
+        // Bytes of multi-byte UTF-8 sequences are negative and never whitespace
+        return b >= 0 && b <= ' ';
+    }
+}
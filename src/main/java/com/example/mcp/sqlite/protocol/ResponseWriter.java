@@ -0,0 +1,373 @@
+package com.example.mcp.sqlite.protocol;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonPrimitive;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+
+/**
+ * Writes newline-delimited JSON-RPC messages to the server's output.
+ *
+ * A message is serialized once, as UTF-8, into a pooled buffer that also gives its size. The
+ * buffer is then appended to a pending block. The first sender to find no write in progress
+ * becomes the flusher. It writes the pending block with one write (a channel write for a file
+ * descriptor such as stdout) and repeats while more messages arrived in the meantime. Other
+ * senders wait until their bytes are out. Responses that complete together therefore share
+ * one write and one flush, and messages are never interleaved.
+ *
+ * A message produced incrementally by {@link #stream(StreamedMessage)} is also collected in a
+ * pooled buffer and appended like any other, so a slow query does not hold up other responses.
+ * Only once it grows past {@link #MAX_STREAM_BUFFERED_SIZE} does it take the output
+ * exclusively and continue in blocks; messages sent meanwhile are written after it.
+ *
+ * Like {@link PrintStream}, the writer stops at the first output error: later messages are
+ * discarded and reported as not written.
+ */
+public final class ResponseWriter {
+    private static final int POOLED_BUFFERS = 16;
+    private static final int MAX_POOLED_BUFFER_SIZE = 1 << 20;
+    static final int MAX_STREAM_BUFFERED_SIZE = MAX_POOLED_BUFFER_SIZE;
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    private final OutputStream out;
+    private final FileChannel channel;
+    private final Gson gson;
+    private final LongConsumer bytesWritten;
+    private final ArrayBlockingQueue<MessageBuffer> buffers = new ArrayBlockingQueue<>(POOLED_BUFFERS);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition written = lock.newCondition();
+    private MessageBuffer pending = new MessageBuffer();
+    private MessageBuffer writing = new MessageBuffer();
+    private long appended;
+    private long flushed;
+    private boolean busy;
+    private boolean failed;
+
+    /**
+     * @param out Output; a {@link FileOutputStream} is written through its channel
+     * @param gson Serializes messages
+     * @param bytesWritten Receives the number of bytes of each write
+     */
+    public ResponseWriter(OutputStream out, Gson gson, LongConsumer bytesWritten) {
+        this.out = Objects.requireNonNull(out, "out");
+        this.channel = out instanceof FileOutputStream file ? file.getChannel() : null;
+        this.gson = Objects.requireNonNull(gson, "gson");
+        this.bytesWritten = Objects.requireNonNull(bytesWritten, "bytesWritten");
+    }
+
+    /**
+     * Serializes a message and writes it, followed by a newline.
+     *
+     * @return Size of the message in bytes including the newline, or -1 if it could not be written
+     */
+    public long send(JsonElement message) {
+        MessageBuffer buffer = borrowBuffer();
+        try {
+            Writer writer = buffer.writer();
+            gson.toJson(message, writer);
+            writer.write('\n');
+            writer.flush();
+            return append(buffer) ? buffer.size() : -1;
+        } catch (IOException e) {
+            // Writing into a MessageBuffer does not fail
+            throw new IllegalStateException(e);
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
+
+    /**
+     * Writes a JSON-RPC success response whose result was serialized in advance, e.g. a
+     * response that is the same for every request. Only the envelope is serialized.
+     *
+     * @param result UTF-8 JSON of the result
+     * @return Size of the message in bytes including the newline, or -1 if it could not be written
+     */
+    public long sendResult(String id, byte[] result) {
+        MessageBuffer buffer = borrowBuffer();
+        try {
+            Writer writer = buffer.writer();
+            writer.write("{\"jsonrpc\":\"2.0\",\"id\":");
+            gson.toJson(id == null ? JsonNull.INSTANCE : new JsonPrimitive(id), writer);
+            writer.write(",\"result\":");
+            writer.flush();
+            buffer.write(result, 0, result.length);
+            buffer.write('}');
+            buffer.write('\n');
+            return append(buffer) ? buffer.size() : -1;
+        } catch (IOException e) {
+            // Writing into a MessageBuffer does not fail
+            throw new IllegalStateException(e);
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
+
+    /**
+     * Writes a message that is produced incrementally, e.g. rows read from a ResultSet,
+     * followed by a newline. The message is buffered up to {@link #MAX_STREAM_BUFFERED_SIZE}
+     * bytes; a larger one is written with exclusive use of the output while it is produced.
+     * A buffered message is discarded if the body fails.
+     *
+     * @return The result of the message body
+     * @throws IOException if the output fails
+     */
+    public <T, E extends Exception> T stream(StreamedMessage<T, E> message) throws IOException, E {
+        MessageBuffer buffer = borrowBuffer();
+        StreamSink sink = new StreamSink(buffer);
+        Writer writer = new OutputStreamWriter(sink, StandardCharsets.UTF_8);
+        boolean done = false;
+        try {
+            T result = message.write(writer);
+            writer.write('\n');
+            writer.flush();
+            if (sink.exclusive) {
+                sink.writeBuffer();
+            } else if (!append(buffer)) {
+                throw new IOException("Error writing to output");
+            }
+            done = true;
+            return result;
+        } finally {
+            if (sink.exclusive) {
+                if (!done) {
+                    // End the partial message with a newline so that the next message, usually
+                    // the error response, starts on a line of its own
+                    try {
+                        writer.write('\n');
+                        writer.flush();
+                        sink.writeBuffer();
+                    } catch (IOException ignored) {
+                        buffer.reset();
+                    }
+                }
+                // Write whatever queued up behind the stream, then release the output
+                writePending();
+            }
+            releaseBuffer(buffer);
+        }
+    }
+
+    /**
+     * Whether an output error occurred. Messages are no longer written once this is true.
+     */
+    public boolean hasFailed() {
+        lock.lock();
+        try {
+            return failed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean append(MessageBuffer message) {
+        long ticket;
+        lock.lock();
+        try {
+            if (failed) {
+                return false;
+            }
+            pending.write(message.bytes(), 0, message.size());
+            appended += message.size();
+            ticket = appended;
+            if (busy) {
+                while (flushed < ticket && !failed) {
+                    written.awaitUninterruptibly();
+                }
+                return !failed;
+            }
+            busy = true;
+        } finally {
+            lock.unlock();
+        }
+        writePending();
+        lock.lock();
+        try {
+            return !failed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Called with {@code busy} set: writes pending blocks until none is left, then clears it.
+     */
+    private void writePending() {
+        while (true) {
+            MessageBuffer block;
+            lock.lock();
+            try {
+                if (failed || pending.size() == 0) {
+                    if (failed) {
+                        pending.reset();
+                        flushed = appended;
+                    }
+                    busy = false;
+                    written.signalAll();
+                    return;
+                }
+                block = pending;
+                pending = writing;
+                writing = block;
+            } finally {
+                lock.unlock();
+            }
+            boolean ok = writeQuietly(block.bytes(), block.size());
+            lock.lock();
+            try {
+                flushed += block.size();
+                failed |= !ok;
+                block.reset();
+                written.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private boolean writeQuietly(byte[] bytes, int length) {
+        try {
+            if (channel != null) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } else {
+                out.write(bytes, 0, length);
+                out.flush();
+                if (out instanceof PrintStream print && print.checkError()) {
+                    return false;
+                }
+            }
+            bytesWritten.accept(length);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private MessageBuffer borrowBuffer() {
+        MessageBuffer buffer = buffers.poll();
+        return buffer != null ? buffer : new MessageBuffer();
+    }
+
+    private void releaseBuffer(MessageBuffer buffer) {
+        if (buffer.capacity() <= MAX_POOLED_BUFFER_SIZE) {
+            buffer.reset();
+            buffers.offer(buffer);
+        }
+    }
+
+    /**
+     * Body of a streamed message.
+     */
+    @FunctionalInterface
+    public interface StreamedMessage<T, E extends Exception> {
+        T write(Writer out) throws IOException, E;
+    }
+
+    /**
+     * Collects the bytes of a streamed message. Past {@link #MAX_STREAM_BUFFERED_SIZE} it takes
+     * the output and from then on writes them in blocks of {@link #STREAM_BUFFER_SIZE}.
+     * Only used by the thread that runs {@link #stream(StreamedMessage)}.
+     */
+    private final class StreamSink extends OutputStream {
+        private final MessageBuffer buffer;
+        private boolean exclusive;
+
+        StreamSink(MessageBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            reserve(1);
+            buffer.write(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (!exclusive) {
+                if (buffer.size() + length <= MAX_STREAM_BUFFERED_SIZE) {
+                    buffer.write(bytes, offset, length);
+                    return;
+                }
+                takeOutput();
+            }
+            while (length > 0) {
+                reserve(1);
+                int chunk = Math.min(length, STREAM_BUFFER_SIZE - buffer.size());
+                buffer.write(bytes, offset, chunk);
+                offset += chunk;
+                length -= chunk;
+            }
+        }
+
+        /**
+         * Makes room for {@code length} more bytes, taking the output or writing a full block.
+         */
+        private void reserve(int length) throws IOException {
+            if (!exclusive) {
+                if (buffer.size() + length <= MAX_STREAM_BUFFERED_SIZE) {
+                    return;
+                }
+                takeOutput();
+            }
+            if (buffer.size() >= STREAM_BUFFER_SIZE) {
+                writeBuffer();
+            }
+        }
+
+        private void takeOutput() throws IOException {
+            lock.lock();
+            try {
+                while (busy) {
+                    written.awaitUninterruptibly();
+                }
+                busy = true;
+            } finally {
+                lock.unlock();
+            }
+            exclusive = true;
+            writeBuffer();
+        }
+
+        void writeBuffer() throws IOException {
+            if (buffer.size() == 0) {
+                return;
+            }
+            try {
+                if (hasFailed()) {
+                    throw new IOException("Output failed earlier");
+                }
+                if (!writeQuietly(buffer.bytes(), buffer.size())) {
+                    lock.lock();
+                    try {
+                        failed = true;
+                    } finally {
+                        lock.unlock();
+                    }
+                    throw new IOException("Error writing to output");
+                }
+            } finally {
+                buffer.reset();
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.mcp.sqlite.protocol;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Params of a {@code tools/call} request, read with a streaming {@link JsonReader}.
+ *
+ * A {@code rows} argument that is an array is decoded directly into row maps, which is the
+ * form the upsert code binds from, and left out of {@link #arguments()}. All other arguments
+ * are small and kept as a tree. Row values become {@code String}, {@code Boolean}, {@code null},
+ * {@code Long} for integral numbers that fit, {@code Double} for other numbers, and lists and
+ * maps for nested arrays and objects.
+ *
+ * @param name Tool name, null if missing
+ * @param arguments Tool arguments without an array-valued {@code rows}
+ * @param rows Decoded {@code rows} argument, or null if there was none or it was not an array
+ */
+public record ToolCall(String name, JsonObject arguments, List<Map<String, Object>> rows) {
+    public static final String ROWS = "rows";
+
+    /**
+     * Reads the params object the reader is positioned at.
+     *
+     * @throws IllegalArgumentException if params, arguments or a row is not an object
+     */
+    public static ToolCall read(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            throw new IllegalArgumentException("params must be an object");
+        }
+        String name = null;
+        JsonObject arguments = new JsonObject();
+        List<Map<String, Object>> rows = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "name" -> {
+                    if (reader.peek() == JsonToken.NULL) {
+                        reader.nextNull();
+                    } else if (reader.peek() == JsonToken.STRING || reader.peek() == JsonToken.NUMBER) {
+                        name = reader.nextString();
+                    } else {
+                        throw new IllegalArgumentException("name must be a string");
+                    }
+                }
+                case "arguments" -> {
+                    if (reader.peek() == JsonToken.NULL) {
+                        reader.nextNull();
+                        break;
+                    }
+                    if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                        throw new IllegalArgumentException("arguments must be an object");
+                    }
+                    arguments = new JsonObject();
+                    rows = null;
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        String key = reader.nextName();
+                        if (key.equals(ROWS) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                            rows = readRows(reader);
+                            arguments.remove(ROWS);
+                        } else {
+                            arguments.add(key, JsonParser.parseReader(reader));
+                            if (key.equals(ROWS)) {
+                                rows = null;
+                            }
+                        }
+                    }
+                    reader.endObject();
+                }
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return new ToolCall(name, arguments, rows);
+    }
+
+    private static List<Map<String, Object>> readRows(JsonReader reader) throws IOException {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                throw new IllegalArgumentException("rows must contain objects");
+            }
+            rows.add(readObject(reader));
+        }
+        reader.endArray();
+        return rows;
+    }
+
+    private static Map<String, Object> readObject(JsonReader reader) throws IOException {
+        Map<String, Object> object = new LinkedHashMap<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            object.put(reader.nextName(), readValue(reader));
+        }
+        reader.endObject();
+        return object;
+    }
+
+    private static Object readValue(JsonReader reader) throws IOException {
+        return switch (reader.peek()) {
+            case STRING -> reader.nextString();
+            case NUMBER -> toNumber(reader.nextString());
+            case BOOLEAN -> reader.nextBoolean();
+            case NULL -> {
+                reader.nextNull();
+                yield null;
+            }
+            case BEGIN_ARRAY -> {
+                List<Object> list = new ArrayList<>();
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    list.add(readValue(reader));
+                }
+                reader.endArray();
+                yield list;
+            }
+            case BEGIN_OBJECT -> readObject(reader);
+            default -> throw new IllegalStateException("Unexpected token " + reader.peek());
+        };
+    }
+
+    static Number toNumber(String text) {
+        boolean integral = true;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '.' || c == 'e' || c == 'E' || c == 'N' || c == 'I') {
+                integral = false;
+                break;
+            }
+        }
+        if (integral) {
+            try {
+                return Long.parseLong(text);
+            } catch (NumberFormatException e) {
+                // Too large for a long
+            }
+        }
+        return Double.parseDouble(text);
+    }
+}
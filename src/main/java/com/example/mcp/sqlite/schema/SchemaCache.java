@@ -0,0 +1,118 @@
+package com.example.mcp.sqlite.schema;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Schema metadata per database file, validated with {@code PRAGMA schema_version}.
+ *
+ * SQLite increments the schema version on every schema change, from any connection or
+ * process. Each lookup reads the current version (one integer from the database header) and
+ * drops everything cached for that database if it changed, so DDL is visible immediately.
+ * Values are loaded on the same connection after the version was read; a concurrent change in
+ * between only causes an extra reload on the next lookup.
+ *
+ * Cached values are shared between callers and must be treated as read-only.
+ */
+public final class SchemaCache {
+    static final int MAX_ENTRIES_PER_DATABASE = 1024;
+
+    private final Map<Path, Snapshot> snapshots = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Loads schema metadata; may be called several times for the same key when callers race.
+     */
+    @FunctionalInterface
+    public interface Loader<T> {
+        T load() throws SQLException;
+    }
+
+    /**
+     * Returns the cached value for a key, or loads it if the schema changed since it was cached.
+     *
+     * @param connection Connection to the database, used to read the schema version and to load
+     * @param database Path of the database file
+     * @param key Identifies the metadata within the database, e.g. {@code "indexes:orders"}
+     * @param loader Reads the metadata from the connection
+     */
+    public <T> T get(Connection connection, Path database, String key, Loader<T> loader) throws SQLException {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(loader, "loader");
+        int version = schemaVersion(connection);
+        Path normalized = database.toAbsolutePath().normalize();
+        Snapshot snapshot = snapshots.compute(normalized,
+                (path, current) -> current != null && current.version == version ? current : new Snapshot(version));
+        Object cached;
+        synchronized (snapshot) {
+            cached = snapshot.values.get(key);
+        }
+        if (cached != null) {
+            hits.increment();
+            @SuppressWarnings("unchecked")
+            T value = (T) cached;
+            return value;
+        }
+        misses.increment();
+        T value = loader.load();
+        if (value != null) {
+            synchronized (snapshot) {
+                snapshot.values.put(key, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Forgets everything cached for a database file.
+     */
+    public void invalidate(Path database) {
+        snapshots.remove(database.toAbsolutePath().normalize());
+    }
+
+    public void clear() {
+        snapshots.clear();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    private static int schemaVersion(Connection connection) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("PRAGMA schema_version");
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Metadata of one schema version. The number of entries is bounded, since keys include
+     * caller-supplied table names.
+     */
+    private static final class Snapshot {
+        final int version;
+        final Map<String, Object> values = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+                return size() > MAX_ENTRIES_PER_DATABASE;
+            }
+        };
+
+        Snapshot(int version) {
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.mcp.sqlite.tools;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A tool as listed by {@code tools/list}: name, description and parameters, together with the
+ * handler that executes it.
+ *
+ * Tools that take a database declare {@link Builder#databaseArguments()}. Their schema then
+ * lists {@code db_path} and {@code passphrase} as required parameters unless the server was
+ * started with a default database.
+ */
+public final class ToolDefinition {
+    /**
+     * Where a tool runs. JDBC work belongs on the database threads; tools that only wait, e.g.
+     * for the write queue, or do no database work at all run on the request thread.
+     */
+    public enum Execution {
+        DATABASE_THREAD,
+        REQUEST_THREAD
+    }
+
+    /**
+     * A parameter of the tool's input schema.
+     */
+    public record Parameter(String name, String type, String description, boolean required) {
+        public Parameter {
+            Objects.requireNonNull(name, "name");
+            Objects.requireNonNull(type, "type");
+            Objects.requireNonNull(description, "description");
+        }
+    }
+
+    private static final Parameter DB_PATH = new Parameter("db_path", "string", "Path to the database file", true);
+    private static final Parameter PASSPHRASE = new Parameter("passphrase", "string", "Passphrase for encryption", true);
+
+    private final String name;
+    private final String description;
+    private final List<Parameter> parameters;
+    private final boolean databaseArguments;
+    private final Execution execution;
+    private final ToolHandler handler;
+
+    private ToolDefinition(Builder builder) {
+        this.name = Objects.requireNonNull(builder.name, "name");
+        this.description = Objects.requireNonNull(builder.description, "description");
+        this.parameters = List.copyOf(builder.parameters);
+        this.databaseArguments = builder.databaseArguments;
+        this.execution = builder.execution;
+        this.handler = Objects.requireNonNull(builder.handler, "handler");
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public String description() {
+        return description;
+    }
+
+    public List<Parameter> parameters() {
+        return parameters;
+    }
+
+    public boolean databaseArguments() {
+        return databaseArguments;
+    }
+
+    public Execution execution() {
+        return execution;
+    }
+
+    public ToolHandler handler() {
+        return handler;
+    }
+
+    /**
+     * The tool's entry in the {@code tools/list} result.
+     *
+     * @param withDatabaseArguments Whether {@code db_path} and {@code passphrase} are listed,
+     *        i.e. the server has no default database
+     */
+    public JsonObject toJson(boolean withDatabaseArguments) {
+        List<Parameter> databaseParameters = databaseArguments && withDatabaseArguments
+                ? List.of(DB_PATH, PASSPHRASE)
+                : List.of();
+
+        JsonObject properties = new JsonObject();
+        JsonArray required = new JsonArray();
+        for (Parameter parameter : databaseParameters) {
+            properties.add(parameter.name(), property(parameter));
+        }
+        for (Parameter parameter : parameters) {
+            properties.add(parameter.name(), property(parameter));
+            if (parameter.required()) {
+                required.add(parameter.name());
+            }
+        }
+        for (Parameter parameter : databaseParameters) {
+            required.add(parameter.name());
+        }
+
+        JsonObject inputSchema = new JsonObject();
+        inputSchema.addProperty("type", "object");
+        inputSchema.add("properties", properties);
+        if (!required.isEmpty()) {
+            inputSchema.add("required", required);
+        }
+
+        JsonObject tool = new JsonObject();
+        tool.addProperty("name", name);
+        tool.addProperty("description", description);
+        tool.add("inputSchema", inputSchema);
+        return tool;
+    }
+
+    private static JsonObject property(Parameter parameter) {
+        JsonObject property = new JsonObject();
+        property.addProperty("type", parameter.type());
+        property.addProperty("description", parameter.description());
+        return property;
+    }
+
+    public static Builder builder(String name) {
+        return new Builder().name(name);
+    }
+
+    public static final class Builder {
+        private String name;
+        private String description;
+        private final List<Parameter> parameters = new ArrayList<>();
+        private boolean databaseArguments;
+        private Execution execution = Execution.DATABASE_THREAD;
+        private ToolHandler handler;
+
+        private Builder() {}
+
+        public Builder name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public Builder description(String description) {
+            this.description = description;
+            return this;
+        }
+
+        /**
+         * The tool opens a database given by {@code db_path} and {@code passphrase}.
+         */
+        public Builder databaseArguments() {
+            this.databaseArguments = true;
+            return this;
+        }
+
+        public Builder parameter(String name, String type, String description) {
+            parameters.add(new Parameter(name, type, description, false));
+            return this;
+        }
+
+        public Builder requiredParameter(String name, String type, String description) {
+            parameters.add(new Parameter(name, type, description, true));
+            return this;
+        }
+
+        /**
+         * Runs the handler on the request thread instead of a database thread.
+         */
+        public Builder onRequestThread() {
+            this.execution = Execution.REQUEST_THREAD;
+            return this;
+        }
+
+        public Builder handler(ToolHandler handler) {
+            this.handler = handler;
+            return this;
+        }
+
+        public ToolDefinition build() {
+            return new ToolDefinition(this);
+        }
+    }
+}
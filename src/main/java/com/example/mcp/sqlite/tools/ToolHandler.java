@@ -0,0 +1,15 @@
+package com.example.mcp.sqlite.tools;
+
+import com.example.mcp.sqlite.protocol.ToolCall;
+import com.google.gson.JsonElement;
+
+import java.sql.SQLException;
+
+/**
+ * Executes a tool call and returns its result, or a marker value if the handler wrote the
+ * response itself.
+ */
+@FunctionalInterface
+public interface ToolHandler {
+    JsonElement call(String requestId, ToolCall call) throws SQLException;
+}
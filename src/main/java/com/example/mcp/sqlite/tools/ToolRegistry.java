@@ -0,0 +1,60 @@
+package com.example.mcp.sqlite.tools;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The server's tools, in the order {@code tools/list} reports them. Tools are registered while
+ * the server is constructed and only looked up afterwards.
+ */
+public final class ToolRegistry {
+    private final Map<String, ToolDefinition> tools = new LinkedHashMap<>();
+
+    /**
+     * @throws IllegalStateException if a tool with the same name is already registered
+     */
+    public ToolRegistry register(ToolDefinition tool) {
+        Objects.requireNonNull(tool, "tool");
+        if (tools.putIfAbsent(tool.name(), tool) != null) {
+            throw new IllegalStateException("Tool already registered: " + tool.name());
+        }
+        return this;
+    }
+
+    /**
+     * @throws IllegalArgumentException if no tool has this name
+     */
+    public ToolDefinition get(String name) {
+        ToolDefinition tool = tools.get(name);
+        if (tool == null) {
+            throw new IllegalArgumentException("Unknown tool: " + name);
+        }
+        return tool;
+    }
+
+    public Collection<ToolDefinition> tools() {
+        return Collections.unmodifiableCollection(tools.values());
+    }
+
+    /**
+     * The {@code tools/list} result.
+     *
+     * @param withDatabaseArguments Whether tools list {@code db_path} and {@code passphrase},
+     *        i.e. the server has no default database
+     */
+    public JsonObject toJson(boolean withDatabaseArguments) {
+        JsonArray list = new JsonArray();
+        for (ToolDefinition tool : tools.values()) {
+            list.add(tool.toJson(withDatabaseArguments));
+        }
+        JsonObject result = new JsonObject();
+        result.add("tools", list);
+        return result;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.mcp.sqlite.transfer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.security.MessageDigest;
+
+/**
+ * OutputStream that collects bytes in a fixed-size direct buffer and writes them to a channel
+ * in large blocks, updating checksums on the way.
+ */
+final class ChannelOutputStream extends OutputStream {
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final MessageDigest[] digests;
+    private long bytesWritten;
+
+    ChannelOutputStream(WritableByteChannel channel, int bufferSize, MessageDigest... digests) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.digests = digests;
+    }
+
+    /**
+     * Number of bytes accepted so far, including bytes still in the buffer.
+     */
+    long bytesWritten() {
+        return bytesWritten;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            drain();
+        }
+        buffer.put((byte) b);
+        for (MessageDigest digest : digests) {
+            digest.update((byte) b);
+        }
+        bytesWritten++;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        for (MessageDigest digest : digests) {
+            digest.update(bytes, offset, length);
+        }
+        bytesWritten += length;
+        while (length > 0) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            int chunk = Math.min(length, buffer.remaining());
+            buffer.put(bytes, offset, chunk);
+            offset += chunk;
+            length -= chunk;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            drain();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
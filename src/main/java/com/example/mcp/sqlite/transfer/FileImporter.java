@@ -0,0 +1,521 @@
+package com.example.mcp.sqlite.transfer;
+
+import com.example.mcp.sqlite.EncryptedSqliteClient.ColumnMetadata;
+import com.example.mcp.sqlite.util.ByteLineReader;
+import com.example.mcp.sqlite.util.CsvParser;
+import com.example.mcp.sqlite.util.SqlIdentifierValidator;
+import com.example.mcp.sqlite.util.SqliteUtil;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Streams NDJSON or CSV files from disk into a table.
+ *
+ * The file is read through a fixed-size buffer one record at a time, so memory use does not
+ * depend on the file size. Fields are mapped to table columns by name (case-insensitive);
+ * unknown fields are ignored and reported. Rows are inserted with batched prepared
+ * statements and committed every {@link Options#chunkSize()} rows.
+ *
+ * Every commit advances the resume offset: the byte position after the last committed
+ * record. If the import fails, the committed chunks stay in the table and the result carries
+ * the error plus {@code nextOffset}; passing it back as {@link Options#startOffset()} continues
+ * with the first uncommitted record.
+ *
+ * On a connection that already has a transaction open (autocommit off), the importer never
+ * commits it. Each chunk runs in a savepoint instead, which is released on success and rolled
+ * back on failure; whether the imported rows persist is up to the caller's transaction.
+ */
+public final class FileImporter {
+    public static final int DEFAULT_CHUNK_SIZE = 5_000;
+    private static final int MAX_RECORD_BYTES = 16 * 1024 * 1024;
+    private static final int MAX_REPORTED_IGNORED_FIELDS = 100;
+
+    /**
+     * @param file File to import
+     * @param format File format
+     * @param table Target table
+     * @param primaryKeys If not empty, rows are upserted on these columns instead of inserted
+     * @param chunkSize Rows per transaction
+     * @param startOffset Byte offset of the first record to import; 0 for the start of the file
+     * @param csvHeader Whether the first line of a CSV file names the columns; without a header,
+     *                  fields map to the table columns in declaration order
+     */
+    public record Options(Path file,
+                          TransferFormat format,
+                          String table,
+                          List<String> primaryKeys,
+                          int chunkSize,
+                          long startOffset,
+                          boolean csvHeader) {
+        public Options {
+            Objects.requireNonNull(file, "file");
+            Objects.requireNonNull(format, "format");
+            SqlIdentifierValidator.validateIdentifier(table, "table");
+            primaryKeys = primaryKeys == null ? List.of() : List.copyOf(primaryKeys);
+            SqlIdentifierValidator.validateIdentifiers(primaryKeys, "primaryKeys");
+            if (chunkSize < 1) {
+                throw new IllegalArgumentException("chunkSize must be at least 1");
+            }
+            if (startOffset < 0) {
+                throw new IllegalArgumentException("startOffset must be non-negative");
+            }
+        }
+    }
+
+    /**
+     * @param rowsImported Rows committed by this call
+     * @param startOffset Byte offset the import started at
+     * @param nextOffset Byte offset after the last committed record
+     * @param complete True if the end of the file was reached and everything was committed
+     * @param durationMillis Wall-clock duration of the import
+     * @param columns Table columns that received values
+     * @param ignoredFields File fields without a matching table column
+     * @param error Reason the import stopped early, or null
+     */
+    public record Result(long rowsImported,
+                         long startOffset,
+                         long nextOffset,
+                         boolean complete,
+                         long durationMillis,
+                         List<String> columns,
+                         List<String> ignoredFields,
+                         String error) {
+        public double rowsPerSecond() {
+            return durationMillis == 0 ? rowsImported * 1000.0 : rowsImported * 1000.0 / durationMillis;
+        }
+    }
+
+    private final Connection connection;
+    private final Options options;
+    private final Map<String, ColumnMetadata> columnsByName = new HashMap<>();
+    private final List<ColumnMetadata> declaredColumns;
+    private final Set<String> usedColumns = new LinkedHashSet<>();
+    private final Set<String> ignoredFields = new LinkedHashSet<>();
+    private final Map<List<String>, PreparedStatement> statements = new HashMap<>();
+    private boolean ownTransaction;
+    private Savepoint savepoint;
+
+    private FileImporter(Connection connection, List<ColumnMetadata> tableColumns, Options options) {
+        this.connection = connection;
+        this.options = options;
+        this.declaredColumns = tableColumns;
+        for (ColumnMetadata column : tableColumns) {
+            columnsByName.put(column.name().toLowerCase(Locale.ROOT), column);
+        }
+    }
+
+    /**
+     * Imports a file into a table.
+     *
+     * @param connection Writable connection; it is left in its original autocommit mode, and
+     *                   a transaction the caller has open is neither committed nor rolled back
+     * @param tableColumns Columns of the target table, e.g. from {@code describeColumns}
+     * @param options Import options
+     * @return Import statistics, including the offset to resume from
+     * @throws IllegalArgumentException if the file cannot be read or its columns do not match
+     *         the table; nothing has been imported in that case
+     */
+    public static Result importFile(Connection connection, List<ColumnMetadata> tableColumns, Options options)
+            throws SQLException {
+        if (tableColumns.isEmpty()) {
+            throw new IllegalArgumentException("Table not found or has no columns: " + options.table());
+        }
+        if (!Files.isRegularFile(options.file()) || !Files.isReadable(options.file())) {
+            throw new IllegalArgumentException("File not found or not readable: " + options.file());
+        }
+        // Use the declared spelling of key columns, since the SQL compares them with mapped column names
+        List<String> primaryKeys = new ArrayList<>();
+        for (String key : options.primaryKeys()) {
+            ColumnMetadata column = tableColumns.stream()
+                    .filter(c -> c.name().equalsIgnoreCase(key))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown primary key column: " + key));
+            primaryKeys.add(column.name());
+        }
+        Options resolved = new Options(options.file(), options.format(), options.table(), primaryKeys,
+                options.chunkSize(), options.startOffset(), options.csvHeader());
+        return new FileImporter(connection, tableColumns, resolved).run();
+    }
+
+    private Result run() throws SQLException {
+        long started = System.nanoTime();
+        long rows = 0;
+        long committedOffset = options.startOffset();
+        boolean complete = false;
+        String error = null;
+
+        ownTransaction = connection.getAutoCommit();
+        try (FileChannel channel = FileChannel.open(options.file(), StandardOpenOption.READ)) {
+            if (options.startOffset() > channel.size()) {
+                throw new IllegalArgumentException("startOffset " + options.startOffset()
+                        + " is beyond the end of the file (" + channel.size() + " bytes)");
+            }
+            RecordSource source = options.format() == TransferFormat.CSV
+                    ? openCsv(channel)
+                    : new NdjsonSource(new ByteLineReader(channel.position(options.startOffset()),
+                            options.startOffset(), MAX_RECORD_BYTES));
+            if (source.position() > committedOffset) {
+                committedOffset = source.position();
+            }
+            if (ownTransaction) {
+                connection.setAutoCommit(false);
+            }
+            List<String> pendingShape = null;
+            int pendingRows = 0;
+            int chunkRows = 0;
+            try {
+                beginChunk();
+                Record record;
+                while ((record = source.next()) != null) {
+                    if (record.columns().isEmpty()) {
+                        continue;
+                    }
+                    if (pendingShape != null && !pendingShape.equals(record.columns()) && pendingRows > 0) {
+                        statements.get(pendingShape).executeBatch();
+                        pendingRows = 0;
+                    }
+                    PreparedStatement statement = statement(record.columns());
+                    Object[] values = record.values();
+                    for (int i = 0; i < values.length; i++) {
+                        statement.setObject(i + 1, values[i]);
+                    }
+                    statement.addBatch();
+                    pendingShape = record.columns();
+                    pendingRows++;
+                    if (++chunkRows == options.chunkSize()) {
+                        statement.executeBatch();
+                        pendingRows = 0;
+                        commitChunk();
+                        beginChunk();
+                        rows += chunkRows;
+                        chunkRows = 0;
+                        committedOffset = source.position();
+                    }
+                }
+                if (pendingRows > 0) {
+                    statements.get(pendingShape).executeBatch();
+                }
+                commitChunk();
+                rows += chunkRows;
+                committedOffset = source.position();
+                complete = true;
+            } catch (SQLException | IOException | IllegalArgumentException e) {
+                rollbackQuietly();
+                error = (e instanceof SQLException ? "Database error: " : "") + e.getMessage()
+                        + " (in the chunk ending before byte offset " + source.position() + ")";
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Unable to read " + options.file() + ": " + e.getMessage(), e);
+        } finally {
+            for (PreparedStatement statement : statements.values()) {
+                try {
+                    statement.close();
+                } catch (SQLException ignored) {
+                    // Statement is discarded anyway
+                }
+            }
+            if (ownTransaction) {
+                connection.setAutoCommit(true);
+            }
+        }
+        long durationMillis = (System.nanoTime() - started) / 1_000_000;
+        return new Result(rows, options.startOffset(), committedOffset, complete, durationMillis,
+                List.copyOf(usedColumns), List.copyOf(ignoredFields), error);
+    }
+
+    private PreparedStatement statement(List<String> columns) throws SQLException {
+        PreparedStatement statement = statements.get(columns);
+        if (statement == null) {
+            String sql = options.primaryKeys().isEmpty()
+                    ? SqliteUtil.insertSql(options.table(), columns)
+                    : SqliteUtil.upsertSql(options.table(), options.primaryKeys(), columns);
+            statement = connection.prepareStatement(sql);
+            statements.put(columns, statement);
+            usedColumns.addAll(columns);
+        }
+        return statement;
+    }
+
+    private void beginChunk() throws SQLException {
+        if (!ownTransaction) {
+            savepoint = connection.setSavepoint();
+        }
+    }
+
+    private void commitChunk() throws SQLException {
+        if (ownTransaction) {
+            connection.commit();
+        } else {
+            connection.releaseSavepoint(savepoint);
+            savepoint = null;
+        }
+    }
+
+    private void rollbackQuietly() {
+        try {
+            if (ownTransaction) {
+                connection.rollback();
+            } else if (savepoint != null) {
+                connection.rollback(savepoint);
+                connection.releaseSavepoint(savepoint);
+                savepoint = null;
+            }
+        } catch (SQLException ignored) {
+            // The connection is reset when it goes back to the pool
+        }
+    }
+
+    private void ignore(String field) {
+        if (ignoredFields.size() < MAX_REPORTED_IGNORED_FIELDS) {
+            ignoredFields.add(field);
+        }
+    }
+
+    private RecordSource openCsv(FileChannel channel) throws IOException {
+        List<ColumnMetadata> mapping = new ArrayList<>();
+        if (options.csvHeader()) {
+            ByteLineReader headerReader = new ByteLineReader(channel.position(0), 0, MAX_RECORD_BYTES);
+            String header = readCsvRecord(headerReader);
+            if (header == null) {
+                throw new IllegalArgumentException("CSV file is empty: " + options.file());
+            }
+            for (String field : CsvParser.parseRecord(header, ',')) {
+                ColumnMetadata column = field == null ? null : columnsByName.get(field.trim().toLowerCase(Locale.ROOT));
+                if (column == null) {
+                    ignore(String.valueOf(field));
+                }
+                mapping.add(column);
+            }
+            if (mapping.stream().allMatch(Objects::isNull)) {
+                throw new IllegalArgumentException("No CSV header field matches a column of " + options.table());
+            }
+            long dataStart = Math.max(options.startOffset(), headerReader.position());
+            return new CsvSource(new ByteLineReader(channel.position(dataStart), dataStart, MAX_RECORD_BYTES), mapping);
+        }
+        mapping.addAll(declaredColumns);
+        return new CsvSource(new ByteLineReader(channel.position(options.startOffset()), options.startOffset(),
+                MAX_RECORD_BYTES), mapping);
+    }
+
+    /**
+     * Reads one CSV record, joining physical lines while a quoted field is open.
+     */
+    private static String readCsvRecord(ByteLineReader reader) throws IOException {
+        String line = reader.readLine();
+        if (line == null || CsvParser.isCompleteRecord(line)) {
+            return line;
+        }
+        StringBuilder record = new StringBuilder(line);
+        while (!CsvParser.isCompleteRecord(record)) {
+            String next = reader.readLine();
+            if (next == null) {
+                throw new IOException("Unterminated quoted field at end of file");
+            }
+            if (record.length() + next.length() > MAX_RECORD_BYTES) {
+                throw new IOException("CSV record exceeds " + MAX_RECORD_BYTES + " bytes");
+            }
+            record.append('\n').append(next);
+        }
+        return record.toString();
+    }
+
+    private static boolean isBlobColumn(ColumnMetadata column) {
+        return column.type() != null && column.type().toUpperCase(Locale.ROOT).contains("BLOB");
+    }
+
+    private record Record(List<String> columns, Object[] values) {}
+
+    private interface RecordSource {
+        /** Next record, or null at end of file. Records without mapped fields have no columns. */
+        Record next() throws IOException;
+
+        /** Byte offset after the last record returned. */
+        long position();
+    }
+
+    private final class CsvSource implements RecordSource {
+        private final ByteLineReader reader;
+        private final List<ColumnMetadata> mapping;
+        private final List<String> columns = new ArrayList<>();
+        private final int[] fieldIndexes;
+
+        CsvSource(ByteLineReader reader, List<ColumnMetadata> mapping) {
+            this.reader = reader;
+            this.mapping = mapping;
+            List<Integer> indexes = new ArrayList<>();
+            for (int i = 0; i < mapping.size(); i++) {
+                if (mapping.get(i) != null) {
+                    columns.add(mapping.get(i).name());
+                    indexes.add(i);
+                }
+            }
+            this.fieldIndexes = indexes.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        @Override
+        public Record next() throws IOException {
+            String text;
+            do {
+                text = readCsvRecord(reader);
+                if (text == null) {
+                    return null;
+                }
+            } while (text.isEmpty());
+            List<String> fields = CsvParser.parseRecord(text, ',');
+            if (fields.size() > mapping.size()) {
+                throw new IllegalArgumentException("CSV record has " + fields.size() + " fields, expected "
+                        + mapping.size());
+            }
+            Object[] values = new Object[fieldIndexes.length];
+            for (int i = 0; i < fieldIndexes.length; i++) {
+                int index = fieldIndexes[i];
+                String field = index < fields.size() ? fields.get(index) : null;
+                values[i] = field != null && isBlobColumn(mapping.get(index)) ? decodeBase64(field) : field;
+            }
+            return new Record(columns, values);
+        }
+
+        @Override
+        public long position() {
+            return reader.position();
+        }
+
+        private byte[] decodeBase64(String field) {
+            try {
+                return Base64.getDecoder().decode(field);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("BLOB field is not valid Base64");
+            }
+        }
+    }
+
+    private final class NdjsonSource implements RecordSource {
+        private final ByteLineReader reader;
+        private final Map<Set<String>, List<String>> shapes = new HashMap<>();
+
+        NdjsonSource(ByteLineReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public Record next() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+            } while (line.isBlank());
+            JsonObject object;
+            try {
+                object = JsonParser.parseString(line).getAsJsonObject();
+            } catch (JsonParseException | IllegalStateException e) {
+                throw new IllegalArgumentException("Line is not a JSON object");
+            }
+            List<String> names = new ArrayList<>(object.size());
+            List<Object> values = new ArrayList<>(object.size());
+            for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
+                ColumnMetadata column = columnsByName.get(entry.getKey().toLowerCase(Locale.ROOT));
+                if (column == null) {
+                    ignore(entry.getKey());
+                    continue;
+                }
+                names.add(column.name());
+                values.add(toJdbcValue(entry.getValue()));
+            }
+            // Reuse one list instance per shape so that rows with the same fields share a statement
+            List<String> columns = shapes.computeIfAbsent(Set.copyOf(names), k -> List.copyOf(names));
+            Object[] ordered = new Object[columns.size()];
+            for (int i = 0; i < names.size(); i++) {
+                ordered[columns.indexOf(names.get(i))] = values.get(i);
+            }
+            return new Record(columns, ordered);
+        }
+
+        @Override
+        public long position() {
+            return reader.position();
+        }
+    }
+
+    /**
+     * Converts a JSON value the way the streaming row writer produces it: numbers, strings and
+     * booleans as primitives, BLOBs as arrays of byte values. Other structures are stored as JSON text.
+     */
+    static Object toJdbcValue(JsonElement value) {
+        if (value == null || value.isJsonNull()) {
+            return null;
+        }
+        if (value.isJsonPrimitive()) {
+            JsonPrimitive primitive = value.getAsJsonPrimitive();
+            if (primitive.isBoolean()) {
+                return primitive.getAsBoolean() ? 1L : 0L;
+            }
+            if (primitive.isNumber()) {
+                BigDecimal number = primitive.getAsBigDecimal();
+                try {
+                    return number.longValueExact();
+                } catch (ArithmeticException e) {
+                    return number.doubleValue();
+                }
+            }
+            return primitive.getAsString();
+        }
+        if (value.isJsonArray()) {
+            byte[] bytes = toBytes(value.getAsJsonArray());
+            if (bytes != null) {
+                return bytes;
+            }
+        }
+        return value.toString();
+    }
+
+    private static byte[] toBytes(JsonArray array) {
+        if (array.isEmpty()) {
+            return null;
+        }
+        byte[] bytes = new byte[array.size()];
+        for (int i = 0; i < bytes.length; i++) {
+            JsonElement element = array.get(i);
+            if (!element.isJsonPrimitive() || !element.getAsJsonPrimitive().isNumber()) {
+                return null;
+            }
+            BigDecimal number = element.getAsBigDecimal();
+            int value;
+            try {
+                value = number.intValueExact();
+            } catch (ArithmeticException e) {
+                return null;
+            }
+            if (value < Byte.MIN_VALUE || value > 255) {
+                return null;
+            }
+            bytes[i] = (byte) value;
+        }
+        return bytes;
+    }
+}
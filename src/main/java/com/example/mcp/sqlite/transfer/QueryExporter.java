@@ -0,0 +1,243 @@
+package com.example.mcp.sqlite.transfer;
+
+import com.example.mcp.sqlite.util.DelimitedText;
+import com.example.mcp.sqlite.util.SqliteUtil;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Streams a ResultSet to NDJSON or CSV files.
+ *
+ * Rows are encoded straight from the ResultSet into a direct buffer that is written to a
+ * {@link FileChannel} in large blocks, so heap use does not depend on the export size. A
+ * SHA-256 checksum is computed while writing. Output optionally rotates into numbered part
+ * files ({@code name.part-00001.csv}, ...) after a number of rows or bytes.
+ *
+ * Each file is written under a {@code .partial} name and renamed when complete. If the export
+ * fails, all files written by it are removed.
+ */
+public final class QueryExporter {
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final String PARTIAL_SUFFIX = ".partial";
+
+    /**
+     * @param path Output file; with rotation, the base name of the part files
+     * @param format File format
+     * @param maxRowsPerFile Rows after which a new part starts; 0 for no limit
+     * @param maxBytesPerFile Approximate size after which a new part starts; 0 for no limit
+     * @param overwrite Whether existing files may be replaced
+     */
+    public record Options(Path path, TransferFormat format, long maxRowsPerFile, long maxBytesPerFile, boolean overwrite) {
+        public Options {
+            Objects.requireNonNull(path, "path");
+            Objects.requireNonNull(format, "format");
+            if (maxRowsPerFile < 0 || maxBytesPerFile < 0) {
+                throw new IllegalArgumentException("Part limits must be non-negative");
+            }
+        }
+
+        public boolean rotating() {
+            return maxRowsPerFile > 0 || maxBytesPerFile > 0;
+        }
+
+        /**
+         * Path of the n-th part (1-based), or the output path itself without rotation.
+         */
+        public Path partPath(int part) {
+            if (!rotating()) {
+                return path;
+            }
+            String fileName = path.getFileName().toString();
+            int dot = fileName.lastIndexOf('.');
+            String base = dot > 0 ? fileName.substring(0, dot) : fileName;
+            String extension = dot > 0 ? fileName.substring(dot) : "";
+            return path.resolveSibling(String.format("%s.part-%05d%s", base, part, extension));
+        }
+    }
+
+    public record Part(Path path, long rows, long bytes, String sha256) {}
+
+    /**
+     * @param sha256 Checksum over all bytes written, across parts in order
+     */
+    public record Result(long rows, long bytes, long durationMillis, String sha256, List<Part> parts) {
+        public double rowsPerSecond() {
+            return durationMillis == 0 ? rows * 1000.0 : rows * 1000.0 / durationMillis;
+        }
+    }
+
+    private QueryExporter() {}
+
+    /**
+     * Checks that the output can be written, before any query runs.
+     *
+     * @throws IllegalArgumentException if the directory is missing or a file would be overwritten
+     */
+    public static void checkTarget(Options options) {
+        Path first = options.partPath(1).toAbsolutePath();
+        Path directory = first.getParent();
+        if (directory == null || !Files.isDirectory(directory)) {
+            throw new IllegalArgumentException("Output directory does not exist: " + directory);
+        }
+        if (!options.overwrite() && Files.exists(first)) {
+            throw new IllegalArgumentException("File already exists (set overwrite to replace it): " + first);
+        }
+    }
+
+    /**
+     * Writes all remaining rows of a ResultSet. An empty result still produces one file
+     * (with only the header line for CSV).
+     */
+    public static Result export(ResultSet rs, Options options) throws SQLException {
+        checkTarget(options);
+        long started = System.nanoTime();
+        MessageDigest total = sha256();
+        SqliteUtil.ColumnLayout layout = SqliteUtil.ColumnLayout.of(rs.getMetaData());
+        List<Part> parts = new ArrayList<>();
+        PartWriter current = null;
+        long rows = 0;
+        try {
+            while (rs.next()) {
+                if (current == null) {
+                    current = new PartWriter(options, parts.size() + 1, layout, total);
+                }
+                current.writeRow(rs);
+                rows++;
+                if (current.isFull()) {
+                    parts.add(current.finish());
+                    current = null;
+                }
+            }
+            if (current == null && parts.isEmpty()) {
+                current = new PartWriter(options, 1, layout, total);
+            }
+            if (current != null) {
+                parts.add(current.finish());
+                current = null;
+            }
+        } catch (IOException e) {
+            cleanUp(current, parts);
+            throw new UncheckedIOException("Export to " + options.path() + " failed: " + e.getMessage(), e);
+        } catch (SQLException | RuntimeException e) {
+            cleanUp(current, parts);
+            throw e;
+        }
+        long bytes = parts.stream().mapToLong(Part::bytes).sum();
+        long durationMillis = (System.nanoTime() - started) / 1_000_000;
+        return new Result(rows, bytes, durationMillis, HexFormat.of().formatHex(total.digest()), List.copyOf(parts));
+    }
+
+    private static void cleanUp(PartWriter current, List<Part> parts) {
+        if (current != null) {
+            current.abort();
+        }
+        for (Part part : parts) {
+            try {
+                Files.deleteIfExists(part.path());
+            } catch (IOException ignored) {
+                // Best effort
+            }
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static final class PartWriter {
+        private final Options options;
+        private final SqliteUtil.ColumnLayout layout;
+        private final Path target;
+        private final Path partial;
+        private final MessageDigest digest = sha256();
+        private final ChannelOutputStream output;
+        private final Writer writer;
+        private long rows;
+
+        PartWriter(Options options, int number, SqliteUtil.ColumnLayout layout, MessageDigest total) throws IOException {
+            this.options = options;
+            this.layout = layout;
+            this.target = options.partPath(number);
+            if (!options.overwrite() && Files.exists(target)) {
+                throw new IllegalArgumentException("File already exists (set overwrite to replace it): " + target);
+            }
+            this.partial = target.resolveSibling(target.getFileName() + PARTIAL_SUFFIX);
+            FileChannel channel = FileChannel.open(partial,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            this.output = new ChannelOutputStream(channel, BUFFER_SIZE, digest, total);
+            this.writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+            if (options.format() == TransferFormat.CSV) {
+                String[] labels = layout.labels();
+                for (int i = 0; i < labels.length; i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    DelimitedText.writeField(writer, labels[i], ',');
+                }
+                writer.write('\n');
+            }
+        }
+
+        void writeRow(ResultSet rs) throws SQLException, IOException {
+            if (options.format() == TransferFormat.CSV) {
+                SqliteUtil.writeDelimitedRow(rs, layout, ',', writer);
+            } else {
+                JsonWriter json = new JsonWriter(writer);
+                json.setSerializeNulls(true);
+                SqliteUtil.writeRow(rs, layout, json);
+                writer.write('\n');
+            }
+            rows++;
+            if (options.maxBytesPerFile() > 0) {
+                // Push encoded bytes through so the size check sees them
+                writer.flush();
+            }
+        }
+
+        boolean isFull() {
+            return (options.maxRowsPerFile() > 0 && rows >= options.maxRowsPerFile())
+                    || (options.maxBytesPerFile() > 0 && output.bytesWritten() >= options.maxBytesPerFile());
+        }
+
+        Part finish() throws IOException {
+            writer.close();
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return new Part(target, rows, output.bytesWritten(), HexFormat.of().formatHex(digest.digest()));
+        }
+
+        void abort() {
+            try {
+                writer.close();
+            } catch (IOException ignored) {
+                // Removed below
+            }
+            try {
+                Files.deleteIfExists(partial);
+            } catch (IOException ignored) {
+                // Best effort
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.mcp.sqlite.transfer;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * File formats for bulk import and export.
+ */
+public enum TransferFormat {
+    /** One JSON object per line */
+    NDJSON,
+    /** RFC 4180 CSV with a header line */
+    CSV;
+
+    /**
+     * Resolves the format from an explicit name, or from the file extension if no name is given.
+     *
+     * @throws IllegalArgumentException if the name is unknown or the extension is not recognized
+     */
+    public static TransferFormat resolve(String name, Path file) {
+        String value = name;
+        if (value == null || value.isBlank()) {
+            String fileName = file.getFileName() == null ? "" : file.getFileName().toString().toLowerCase(Locale.ROOT);
+            int dot = fileName.lastIndexOf('.');
+            value = dot < 0 ? "" : fileName.substring(dot + 1);
+        }
+        return switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "ndjson", "jsonl" -> NDJSON;
+            case "csv" -> CSV;
+            default -> throw new IllegalArgumentException(
+                    "format must be 'ndjson' or 'csv' (or inferable from the file extension), but was: " + value);
+        };
+    }
+
+    public String externalName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
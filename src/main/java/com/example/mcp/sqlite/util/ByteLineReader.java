@@ -0,0 +1,108 @@
+package com.example.mcp.sqlite.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads UTF-8 text lines from a channel through a fixed-size buffer and tracks the byte
+ * offset after each line, so a reader can later resume exactly at a line boundary.
+ *
+ * Lines end at {@code \n}; a trailing {@code \r} is dropped. A UTF-8 byte order mark at the
+ * start of the file is skipped. Lines longer than {@code maxLineBytes} are rejected so that
+ * memory use stays bounded.
+ */
+public final class ByteLineReader {
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final int maxLineBytes;
+    private byte[] line = new byte[256];
+    private long position;
+    private boolean eof;
+
+    /**
+     * @param channel Channel positioned at {@code startPosition}
+     * @param startPosition Byte offset of the channel position within the file
+     * @param maxLineBytes Maximum length of a single line in bytes
+     */
+    public ByteLineReader(ReadableByteChannel channel, long startPosition, int maxLineBytes) {
+        this(channel, startPosition, maxLineBytes, DEFAULT_BUFFER_SIZE);
+    }
+
+    ByteLineReader(ReadableByteChannel channel, long startPosition, int maxLineBytes, int bufferSize) {
+        this.channel = channel;
+        this.position = startPosition;
+        this.maxLineBytes = maxLineBytes;
+        this.buffer = ByteBuffer.allocate(bufferSize);
+        this.buffer.flip();
+    }
+
+    /**
+     * Byte offset directly after the last line returned by {@link #readLine()}.
+     */
+    public long position() {
+        return position;
+    }
+
+    /**
+     * Reads the next line.
+     *
+     * @return The line without its terminator, or null at end of input
+     * @throws IOException if reading fails or the line exceeds the maximum length
+     */
+    public String readLine() throws IOException {
+        int length = 0;
+        long start = position;
+        while (true) {
+            if (!buffer.hasRemaining()) {
+                if (eof || !fill()) {
+                    if (length == 0) {
+                        return null;
+                    }
+                    return decode(start, length);
+                }
+            }
+            byte b = buffer.get();
+            position++;
+            if (b == '\n') {
+                return decode(start, length);
+            }
+            if (length == maxLineBytes) {
+                throw new IOException("Line at byte offset " + start + " exceeds " + maxLineBytes + " bytes");
+            }
+            if (length == line.length) {
+                line = Arrays.copyOf(line, Math.min(maxLineBytes, line.length * 2));
+            }
+            line[length++] = b;
+        }
+    }
+
+    private boolean fill() throws IOException {
+        buffer.clear();
+        int read;
+        do {
+            read = channel.read(buffer);
+        } while (read == 0);
+        buffer.flip();
+        if (read < 0) {
+            eof = true;
+            return false;
+        }
+        return true;
+    }
+
+    private String decode(long start, int length) {
+        int offset = 0;
+        if (start == 0 && length >= 3 && line[0] == (byte) 0xEF && line[1] == (byte) 0xBB && line[2] == (byte) 0xBF) {
+            offset = 3;
+        }
+        if (length > offset && line[length - 1] == '\r') {
+            length--;
+        }
+        return new String(line, offset, length - offset, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.mcp.sqlite.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal RFC 4180 CSV record parser.
+ *
+ * A record may span several physical lines when a quoted field contains line breaks;
+ * {@link #isCompleteRecord(CharSequence)} tells whether more lines are needed. Empty
+ * unquoted fields are returned as {@code null} (NULL), quoted empty fields as {@code ""}.
+ */
+public final class CsvParser {
+    private CsvParser() {}
+
+    /**
+     * Returns true if the text contains no open quoted field. Escaped quotes come in pairs,
+     * so an even number of quote characters means every quoted field is closed.
+     */
+    public static boolean isCompleteRecord(CharSequence text) {
+        int quotes = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '"') {
+                quotes++;
+            }
+        }
+        return quotes % 2 == 0;
+    }
+
+    /**
+     * Splits a complete record into fields.
+     *
+     * @param record Record text without the final line break
+     * @param delimiter Field delimiter, usually ','
+     * @return Field values
+     * @throws IllegalArgumentException if the record is malformed
+     */
+    public static List<String> parseRecord(String record, char delimiter) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        int i = 0;
+        int length = record.length();
+        while (true) {
+            field.setLength(0);
+            if (i < length && record.charAt(i) == '"') {
+                i++;
+                while (true) {
+                    if (i >= length) {
+                        throw new IllegalArgumentException("Unterminated quoted field");
+                    }
+                    char c = record.charAt(i++);
+                    if (c == '"') {
+                        if (i < length && record.charAt(i) == '"') {
+                            field.append('"');
+                            i++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        field.append(c);
+                    }
+                }
+                if (i < length && record.charAt(i) != delimiter) {
+                    throw new IllegalArgumentException("Unexpected character after quoted field at position " + i);
+                }
+                fields.add(field.toString());
+            } else {
+                while (i < length && record.charAt(i) != delimiter) {
+                    field.append(record.charAt(i++));
+                }
+                fields.add(field.isEmpty() ? null : field.toString());
+            }
+            if (i >= length) {
+                return fields;
+            }
+            i++; // delimiter
+        }
+    }
+}
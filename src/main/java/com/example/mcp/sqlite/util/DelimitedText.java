@@ -0,0 +1,134 @@
+package com.example.mcp.sqlite.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Base64;
+
+/**
+ * Formats rows as CSV (RFC 4180 quoting) or TSV (backslash escapes for tab, newline and
+ * backslash). NULL becomes an empty field and BLOBs are written as Base64.
+ */
+public final class DelimitedText {
+    private DelimitedText() {}
+
+    /**
+     * Writes one field, without delimiter.
+     *
+     * @param out Target writer
+     * @param value JDBC value
+     * @param delimiter ',' for CSV or '\t' for TSV
+     */
+    public static void writeField(Writer out, Object value, char delimiter) throws IOException {
+        if (value == null) {
+            return;
+        }
+        String text = value instanceof byte[] bytes ? Base64.getEncoder().encodeToString(bytes) : value.toString();
+        if (delimiter == '\t') {
+            writeTsvField(out, text);
+        } else {
+            writeCsvField(out, text, delimiter);
+        }
+    }
+
+    private static void writeCsvField(Writer out, String text, char delimiter) throws IOException {
+        boolean needsQuotes = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == delimiter || c == '"' || c == '\n' || c == '\r') {
+                needsQuotes = true;
+                break;
+            }
+        }
+        if (!needsQuotes) {
+            out.write(text);
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                out.write('"');
+            }
+            out.write(c);
+        }
+        out.write('"');
+    }
+
+    private static void writeTsvField(Writer out, String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\t' -> out.write("\\t");
+                case '\n' -> out.write("\\n");
+                case '\r' -> out.write("\\r");
+                case '\\' -> out.write("\\\\");
+                default -> out.write(c);
+            }
+        }
+    }
+
+    /**
+     * Writer that escapes everything written to it as the content of a JSON string literal.
+     * Used to stream CSV/TSV text into a JSON response without building the whole string.
+     * The surrounding quotes are not written.
+     */
+    public static final class JsonStringContentWriter extends Writer {
+        private static final char[] HEX = "0123456789abcdef".toCharArray();
+        private final Writer out;
+
+        public JsonStringContentWriter(Writer out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            switch (c) {
+                case '"' -> out.write("\\\"");
+                case '\\' -> out.write("\\\\");
+                case '\n' -> out.write("\\n");
+                case '\r' -> out.write("\\r");
+                case '\t' -> out.write("\\t");
+                case 0x2028, 0x2029 -> writeUnicodeEscape(c);
+                default -> {
+                    if (c < 0x20) {
+                        writeUnicodeEscape(c);
+                    } else {
+                        out.write(c);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) throws IOException {
+            for (int i = offset; i < offset + length; i++) {
+                write(buffer[i]);
+            }
+        }
+
+        @Override
+        public void write(String text) throws IOException {
+            for (int i = 0; i < text.length(); i++) {
+                write(text.charAt(i));
+            }
+        }
+
+        private void writeUnicodeEscape(int c) throws IOException {
+            out.write("\\u");
+            out.write(HEX[(c >> 12) & 0xF]);
+            out.write(HEX[(c >> 8) & 0xF]);
+            out.write(HEX[(c >> 4) & 0xF]);
+            out.write(HEX[c & 0xF]);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() {
+            // The underlying writer belongs to the caller
+        }
+    }
+}
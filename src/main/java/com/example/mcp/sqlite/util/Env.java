@@ -0,0 +1,43 @@
+package com.example.mcp.sqlite.util;
+
+/**
+ * Reads numeric settings from environment variables. An unset or blank variable yields the
+ * fallback; any other value must be a number.
+ */
+public final class Env {
+
+    private Env() {}
+
+    /**
+     * @throws IllegalArgumentException if the variable is set but not an integer
+     */
+    public static int intValue(String name, int fallback) {
+        return intValue(name, System.getenv(name), fallback);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the variable is set but not an integer
+     */
+    public static long longValue(String name, long fallback) {
+        return longValue(name, System.getenv(name), fallback);
+    }
+
+    static int intValue(String name, String value, int fallback) {
+        long parsed = longValue(name, value, fallback);
+        if (parsed != (int) parsed) {
+            throw new IllegalArgumentException(name + " must be an integer, but was: " + value);
+        }
+        return (int) parsed;
+    }
+
+    static long longValue(String name, String value, long fallback) {
+        if (value == null || value.isBlank()) {
+            return fallback;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be an integer, but was: " + value, e);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.mcp.sqlite.util;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Continuation token for keyset pagination: the key of the first row of the next page,
+ * together with the table and key columns it belongs to and a hash of the requested columns
+ * and filters, so that a token is only accepted for the query that issued it.
+ *
+ * Encoded as Base64url JSON. Key values keep their SQLite storage class (integer, real, text,
+ * blob), so the next page binds them exactly as they were read and compares them the same way.
+ * Clients should treat the token as opaque.
+ *
+ * @param table Table the token was issued for
+ * @param keyColumns Ordering key columns ({@code rowid} or the primary key columns)
+ * @param values Key values of the first row of the page, one per key column
+ * @param queryHash {@link #queryHash(List, Map)} of the columns and filters of the query
+ */
+public record PageToken(String table, List<String> keyColumns, List<Object> values, String queryHash) {
+
+    public PageToken {
+        Objects.requireNonNull(table, "table");
+        Objects.requireNonNull(queryHash, "queryHash");
+        keyColumns = List.copyOf(keyColumns);
+        values = Collections.unmodifiableList(new ArrayList<>(values));
+        if (keyColumns.isEmpty() || keyColumns.size() != values.size()) {
+            throw new IllegalArgumentException("A page token needs one value per key column");
+        }
+    }
+
+    /**
+     * Hash identifying the rows a query selects. Filters are compared independent of their
+     * order; columns in order, since they shape the result.
+     *
+     * @param columns Requested columns, or null for all
+     * @param filters Equality filters, or null for none
+     */
+    public static String queryHash(List<String> columns, Map<String, Object> filters) {
+        JsonArray query = new JsonArray();
+        if (columns == null) {
+            query.add(JsonNull.INSTANCE);
+        } else {
+            JsonArray names = new JsonArray();
+            columns.forEach(names::add);
+            query.add(names);
+        }
+        JsonArray conditions = new JsonArray();
+        if (filters != null) {
+            for (Map.Entry<String, Object> filter : new TreeMap<>(filters).entrySet()) {
+                conditions.add(filter.getKey());
+                conditions.add(encodeValue(filter.getValue()));
+            }
+        }
+        query.add(conditions);
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(query.toString().getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 12));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Checks that the token belongs to a query.
+     *
+     * @throws IllegalArgumentException if it was issued for another table, key or query
+     */
+    public void checkIssuedFor(String table, List<String> keyColumns, String queryHash) {
+        if (!this.table.equals(table) || !this.keyColumns.equals(keyColumns)) {
+            throw new IllegalArgumentException("page_token was not issued for table " + table);
+        }
+        if (!this.queryHash.equals(queryHash)) {
+            throw new IllegalArgumentException("page_token was issued for different columns or filters");
+        }
+    }
+
+    public String encode() {
+        JsonObject json = new JsonObject();
+        json.addProperty("t", table);
+        json.addProperty("q", queryHash);
+        JsonArray keys = new JsonArray();
+        keyColumns.forEach(keys::add);
+        json.add("k", keys);
+        JsonArray encodedValues = new JsonArray();
+        for (Object value : values) {
+            encodedValues.add(encodeValue(value));
+        }
+        json.add("v", encodedValues);
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode()}.
+     *
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static PageToken decode(String token) {
+        try {
+            String text = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+            JsonObject json = JsonParser.parseString(text).getAsJsonObject();
+            List<String> keyColumns = new ArrayList<>();
+            for (JsonElement key : json.getAsJsonArray("k")) {
+                keyColumns.add(key.getAsString());
+            }
+            List<Object> values = new ArrayList<>();
+            for (JsonElement value : json.getAsJsonArray("v")) {
+                values.add(decodeValue(value));
+            }
+            return new PageToken(json.get("t").getAsString(), keyColumns, values, json.get("q").getAsString());
+        } catch (IllegalArgumentException | IllegalStateException | NullPointerException
+                 | UnsupportedOperationException | JsonParseException e) {
+            throw new IllegalArgumentException("Invalid page_token", e);
+        }
+    }
+
+    private static JsonElement encodeValue(Object value) {
+        if (value == null) {
+            return JsonNull.INSTANCE;
+        }
+        JsonArray tagged = new JsonArray();
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            tagged.add("i");
+            tagged.add(value.toString());
+        } else if (value instanceof Double || value instanceof Float) {
+            tagged.add("r");
+            tagged.add(value.toString());
+        } else if (value instanceof byte[] bytes) {
+            tagged.add("b");
+            tagged.add(Base64.getEncoder().encodeToString(bytes));
+        } else {
+            tagged.add("s");
+            tagged.add(value.toString());
+        }
+        return tagged;
+    }
+
+    private static Object decodeValue(JsonElement element) {
+        if (element.isJsonNull()) {
+            return null;
+        }
+        JsonArray tagged = element.getAsJsonArray();
+        String payload = tagged.get(1).getAsString();
+        return switch (tagged.get(0).getAsString()) {
+            case "i" -> Long.parseLong(payload);
+            case "r" -> Double.parseDouble(payload);
+            case "b" -> Base64.getDecoder().decode(payload);
+            case "s" -> payload;
+            default -> throw new IllegalArgumentException("Unknown key value type");
+        };
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.mcp.sqlite.util;
+
+import java.util.Locale;
+
+/**
+ * Encoding of query results in tool responses.
+ *
+ * <ul>
+ *   <li>{@link #OBJECTS}: {@code rows} is an array of objects keyed by column name (default)</li>
+ *   <li>{@link #COMPACT}: {@code columns} header plus {@code rows} as positional arrays</li>
+ *   <li>{@link #CSV} / {@link #TSV}: a single {@code text} value with a header line and one line per row</li>
+ * </ul>
+ */
+public enum ResultFormat {
+    OBJECTS,
+    COMPACT,
+    CSV,
+    TSV;
+
+    /**
+     * Parses a format name (case-insensitive). Null selects {@link #OBJECTS}.
+     *
+     * @param value Format name
+     * @return The matching format
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    public static ResultFormat parse(String value) {
+        if (value == null) {
+            return OBJECTS;
+        }
+        return switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "objects", "" -> OBJECTS;
+            case "compact", "arrays" -> COMPACT;
+            case "csv" -> CSV;
+            case "tsv" -> TSV;
+            default -> throw new IllegalArgumentException(
+                    "format must be one of 'objects', 'compact', 'csv' or 'tsv', but was: " + value);
+        };
+    }
+
+    public boolean isDelimitedText() {
+        return this == CSV || this == TSV;
+    }
+
+    public char delimiter() {
+        return this == TSV ? '\t' : ',';
+    }
+
+    public String externalName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
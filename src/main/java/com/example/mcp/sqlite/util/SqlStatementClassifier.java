@@ -0,0 +1,284 @@
+package com.example.mcp.sqlite.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Decides whether SQL text only reads, so it can run on a read-only connection.
+ *
+ * The classification is lexical: comments, string literals and quoted identifiers are skipped,
+ * and each top-level statement is judged by its leading keyword. For {@code WITH}, the first
+ * top-level keyword after the common table expressions decides. A {@code PRAGMA} only reads if
+ * it is a known query pragma without an argument, or one of the pragmas whose argument names
+ * what to inspect, like {@code table_info(t)}; many pragmas write when given an argument in
+ * either form, {@code = value} or {@code (value)}. Anything not recognized as a read counts as a
+ * write, since a writer connection can run reads too but not the other way round.
+ *
+ * {@link #isCacheable(String)} is stricter: its result must depend on nothing but the database
+ * content, so that it can be served again until the database changes.
+ */
+public final class SqlStatementClassifier {
+    private static final Set<String> READ_KEYWORDS = Set.of("SELECT", "VALUES", "EXPLAIN");
+    // Pragmas that only report a value when called without an argument
+    private static final Set<String> QUERY_PRAGMAS = Set.of(
+            "APPLICATION_ID", "AUTO_VACUUM", "BUSY_TIMEOUT", "CACHE_SIZE", "COLLATION_LIST",
+            "COMPILE_OPTIONS", "DATA_VERSION", "DATABASE_LIST", "ENCODING", "FOREIGN_KEYS",
+            "FREELIST_COUNT", "FUNCTION_LIST", "JOURNAL_MODE", "MAX_PAGE_COUNT", "MODULE_LIST",
+            "PAGE_COUNT", "PAGE_SIZE", "PRAGMA_LIST", "SCHEMA_VERSION", "SYNCHRONOUS",
+            "TEMP_STORE", "USER_VERSION");
+    // Pragmas that only read, with or without a parenthesized argument
+    private static final Set<String> INSPECTION_PRAGMAS = Set.of(
+            "FOREIGN_KEY_CHECK", "FOREIGN_KEY_LIST", "INDEX_INFO", "INDEX_LIST", "INDEX_XINFO",
+            "INTEGRITY_CHECK", "QUICK_CHECK", "TABLE_INFO", "TABLE_LIST", "TABLE_XINFO");
+    private static final Set<String> MAIN_KEYWORDS = Set.of("SELECT", "VALUES", "INSERT", "UPDATE", "DELETE", "REPLACE");
+    // Functions whose result changes between calls or depends on the connection. The date and
+    // time functions are only non-deterministic with 'now' or without arguments; any use counts.
+    private static final Set<String> NON_DETERMINISTIC = Set.of(
+            "RANDOM", "RANDOMBLOB", "CHANGES", "TOTAL_CHANGES", "LAST_INSERT_ROWID",
+            "CURRENT_DATE", "CURRENT_TIME", "CURRENT_TIMESTAMP",
+            "DATE", "TIME", "DATETIME", "JULIANDAY", "STRFTIME", "UNIXEPOCH", "TIMEDIFF");
+
+    private SqlStatementClassifier() {}
+
+    /**
+     * @return true if every statement in the text only reads
+     */
+    public static boolean isReadOnly(String sql) {
+        if (sql == null) {
+            return false;
+        }
+        List<List<String>> statements = tokenize(sql);
+        if (statements.isEmpty()) {
+            return false;
+        }
+        for (List<String> tokens : statements) {
+            if (!isReadOnlyStatement(tokens)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the text is a single query whose result only depends on the database
+     *         content: a SELECT, VALUES or WITH ... SELECT that calls no non-deterministic or
+     *         connection-dependent function and reads no pragma table
+     */
+    public static boolean isCacheable(String sql) {
+        if (sql == null) {
+            return false;
+        }
+        List<List<String>> statements = tokenize(sql);
+        if (statements.size() != 1) {
+            return false;
+        }
+        List<String> tokens = statements.get(0);
+        if (tokens.get(0).equals("EXPLAIN") || !isReadOnlyStatement(tokens) || tokens.get(0).equals("PRAGMA")) {
+            return false;
+        }
+        for (String word : words(sql)) {
+            if (NON_DETERMINISTIC.contains(word) || word.startsWith("PRAGMA_")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Normalizes SQL text for use as a cache key: comments are removed, whitespace runs outside
+     * literals and quoted identifiers become one space, and trailing semicolons are dropped.
+     * Letter case is kept, since literals are case-sensitive.
+     */
+    public static String normalize(String sql) {
+        StringBuilder out = new StringBuilder(sql.length());
+        boolean pendingSpace = false;
+        int i = 0;
+        int length = sql.length();
+        while (i < length) {
+            char c = sql.charAt(i);
+            int end;
+            if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                int newline = sql.indexOf('\n', i);
+                i = newline < 0 ? length : newline + 1;
+                pendingSpace = true;
+                continue;
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int close = sql.indexOf("*/", i + 2);
+                i = close < 0 ? length : close + 2;
+                pendingSpace = true;
+                continue;
+            } else if (Character.isWhitespace(c)) {
+                i++;
+                pendingSpace = true;
+                continue;
+            } else if (c == '\'' || c == '"' || c == '`') {
+                end = skipQuoted(sql, i, c);
+            } else if (c == '[') {
+                int close = sql.indexOf(']', i + 1);
+                end = close < 0 ? length : close + 1;
+            } else {
+                end = i + 1;
+            }
+            if (pendingSpace && !out.isEmpty()) {
+                out.append(' ');
+            }
+            pendingSpace = false;
+            out.append(sql, i, end);
+            i = end;
+        }
+        int end = out.length();
+        while (end > 0 && (out.charAt(end - 1) == ';' || out.charAt(end - 1) == ' ')) {
+            end--;
+        }
+        out.setLength(end);
+        return out.toString();
+    }
+
+    private static boolean isReadOnlyStatement(List<String> tokens) {
+        String first = tokens.get(0);
+        if (READ_KEYWORDS.contains(first)) {
+            return true;
+        }
+        if (first.equals("PRAGMA")) {
+            return isReadOnlyPragma(tokens);
+        }
+        if (first.equals("WITH")) {
+            for (String token : tokens.subList(1, tokens.size())) {
+                if (MAIN_KEYWORDS.contains(token)) {
+                    return READ_KEYWORDS.contains(token);
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks {@code PRAGMA [schema.]name}, optionally followed by {@code (argument)}.
+     */
+    private static boolean isReadOnlyPragma(List<String> tokens) {
+        int nameIndex = tokens.size() > 2 && tokens.get(2).equals(".") ? 3 : 1;
+        if (nameIndex >= tokens.size()) {
+            return false;
+        }
+        String name = tokens.get(nameIndex);
+        List<String> rest = tokens.subList(nameIndex + 1, tokens.size());
+        if (rest.isEmpty()) {
+            return QUERY_PRAGMAS.contains(name) || INSPECTION_PRAGMAS.contains(name);
+        }
+        return rest.equals(List.of("(")) && INSPECTION_PRAGMAS.contains(name);
+    }
+
+    /**
+     * Splits SQL into statements of upper-cased top-level tokens. Words and single-character
+     * symbols are kept; literals, quoted identifiers, comments and the contents of parentheses
+     * are dropped, leaving a single {@code "("} token for each top-level parenthesized part.
+     * Empty statements are left out.
+     */
+    private static List<List<String>> tokenize(String sql) {
+        List<List<String>> statements = new ArrayList<>();
+        List<String> current = new ArrayList<>();
+        int depth = 0;
+        int i = 0;
+        int length = sql.length();
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? length : end + 1;
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else if (c == '\'' || c == '"' || c == '`') {
+                i = skipQuoted(sql, i, c);
+            } else if (c == '[') {
+                int end = sql.indexOf(']', i + 1);
+                i = end < 0 ? length : end + 1;
+            } else if (c == '(') {
+                if (depth == 0) {
+                    current.add("(");
+                }
+                depth++;
+                i++;
+            } else if (c == ')') {
+                depth = Math.max(0, depth - 1);
+                i++;
+            } else if (c == ';' && depth == 0) {
+                if (!current.isEmpty()) {
+                    statements.add(current);
+                    current = new ArrayList<>();
+                }
+                i++;
+            } else if (Character.isLetterOrDigit(c) || c == '_') {
+                int start = i;
+                while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_')) {
+                    i++;
+                }
+                if (depth == 0) {
+                    current.add(sql.substring(start, i).toUpperCase(Locale.ROOT));
+                }
+            } else {
+                if (depth == 0 && !Character.isWhitespace(c)) {
+                    current.add(String.valueOf(c));
+                }
+                i++;
+            }
+        }
+        if (!current.isEmpty()) {
+            statements.add(current);
+        }
+        return statements;
+    }
+
+    /**
+     * Upper-cased words at any nesting depth, outside literals, quoted identifiers and comments.
+     */
+    private static List<String> words(String sql) {
+        List<String> words = new ArrayList<>();
+        int i = 0;
+        int length = sql.length();
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? length : end + 1;
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else if (c == '\'' || c == '"' || c == '`') {
+                i = skipQuoted(sql, i, c);
+            } else if (c == '[') {
+                int end = sql.indexOf(']', i + 1);
+                i = end < 0 ? length : end + 1;
+            } else if (Character.isLetterOrDigit(c) || c == '_') {
+                int start = i;
+                while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_')) {
+                    i++;
+                }
+                words.add(sql.substring(start, i).toUpperCase(Locale.ROOT));
+            } else {
+                i++;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Skips a quoted literal or identifier; a doubled quote character escapes itself.
+     */
+    private static int skipQuoted(String sql, int start, char quote) {
+        int i = start + 1;
+        while (i < sql.length()) {
+            if (sql.charAt(i) == quote) {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return sql.length();
+    }
+}
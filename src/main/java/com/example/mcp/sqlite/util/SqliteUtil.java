@@ -1,9 +1,14 @@
 package com.example.mcp.sqlite.util;
 
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -18,18 +23,165 @@ public final class SqliteUtil {
         return "'" + value.replace("'", "''") + "'";
     }
 
+    /**
+     * Builds a parameterized {@code INSERT} for the given columns. Identifiers must be validated.
+     */
+    public static String insertSql(String tableName, List<String> columns) {
+        return "INSERT INTO \"" + tableName + "\" (" + quotedList(columns) + ") VALUES ("
+                + String.join(", ", columns.stream().map(c -> "?").toList()) + ")";
+    }
+
+    /**
+     * Builds a parameterized upsert: an {@code INSERT} that updates the non-key columns when a
+     * row with the same primary key exists. Identifiers must be validated.
+     */
+    public static String upsertSql(String tableName, List<String> primaryKeys, List<String> columns) {
+        List<String> assignmentTokens = columns.stream()
+                .filter(col -> !primaryKeys.contains(col))
+                .map(col -> '\"' + col + '\"' + " = excluded." + '\"' + col + '\"')
+                .toList();
+        String conflict = " ON CONFLICT(" + quotedList(primaryKeys) + ")";
+        if (assignmentTokens.isEmpty()) {
+            return insertSql(tableName, columns) + conflict + " DO NOTHING";
+        }
+        return insertSql(tableName, columns) + conflict + " DO UPDATE SET " + String.join(", ", assignmentTokens);
+    }
+
+    private static String quotedList(List<String> identifiers) {
+        return String.join(", ", identifiers.stream().map(c -> '\"' + c + '\"').toList());
+    }
+
     public static List<Map<String, Object>> toRowList(ResultSet resultSet) throws SQLException {
         List<Map<String, Object>> rows = new ArrayList<>();
-        ResultSetMetaData metaData = resultSet.getMetaData();
-        int columnCount = metaData.getColumnCount();
+        ColumnLayout layout = ColumnLayout.of(resultSet.getMetaData());
+        String[] labels = layout.labels();
+        int[] indexes = layout.indexes();
         while (resultSet.next()) {
             Map<String, Object> row = new LinkedHashMap<>();
-            for (int i = 1; i <= columnCount; i++) {
-                String columnName = metaData.getColumnLabel(i);
-                row.put(columnName, resultSet.getObject(i));
+            for (int i = 0; i < labels.length; i++) {
+                row.put(labels[i], resultSet.getObject(indexes[i]));
             }
             rows.add(row);
         }
         return rows;
     }
+
+    /**
+     * Writes the current row of a ResultSet as a JSON object.
+     *
+     * @param resultSet ResultSet positioned on a row
+     * @param layout Column layout of the ResultSet
+     * @param out Target writer
+     */
+    public static void writeRow(ResultSet resultSet, ColumnLayout layout, JsonWriter out) throws SQLException, IOException {
+        String[] labels = layout.labels();
+        int[] indexes = layout.indexes();
+        out.beginObject();
+        for (int i = 0; i < labels.length; i++) {
+            out.name(labels[i]);
+            writeValue(out, resultSet.getObject(indexes[i]));
+        }
+        out.endObject();
+    }
+
+    /**
+     * Writes the current row of a ResultSet as a positional JSON array, in layout order.
+     *
+     * @param resultSet ResultSet positioned on a row
+     * @param layout Column layout of the ResultSet
+     * @param out Target writer
+     */
+    public static void writeRowArray(ResultSet resultSet, ColumnLayout layout, JsonWriter out) throws SQLException, IOException {
+        int[] indexes = layout.indexes();
+        out.beginArray();
+        for (int index : indexes) {
+            writeValue(out, resultSet.getObject(index));
+        }
+        out.endArray();
+    }
+
+    /**
+     * Writes the current row of a ResultSet as one CSV/TSV line, including the line break.
+     *
+     * @param resultSet ResultSet positioned on a row
+     * @param layout Column layout of the ResultSet
+     * @param delimiter ',' for CSV or '\t' for TSV
+     * @param out Target writer
+     */
+    public static void writeDelimitedRow(ResultSet resultSet, ColumnLayout layout, char delimiter, Writer out)
+            throws SQLException, IOException {
+        int[] indexes = layout.indexes();
+        for (int i = 0; i < indexes.length; i++) {
+            if (i > 0) {
+                out.write(delimiter);
+            }
+            DelimitedText.writeField(out, resultSet.getObject(indexes[i]), delimiter);
+        }
+        out.write('\n');
+    }
+
+    /**
+     * Writes a JDBC value with the same representation Gson uses for the materialized rows:
+     * numbers, strings and booleans as JSON primitives, BLOBs as arrays of byte values.
+     */
+    public static void writeValue(JsonWriter out, Object value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+        } else if (value instanceof String text) {
+            out.value(text);
+        } else if (value instanceof Long number) {
+            out.value(number.longValue());
+        } else if (value instanceof Integer number) {
+            out.value(number.longValue());
+        } else if (value instanceof Double number) {
+            out.value(number.doubleValue());
+        } else if (value instanceof Number number) {
+            out.value(number);
+        } else if (value instanceof Boolean bool) {
+            out.value(bool.booleanValue());
+        } else if (value instanceof byte[] bytes) {
+            out.beginArray();
+            for (byte b : bytes) {
+                out.value(b);
+            }
+            out.endArray();
+        } else {
+            out.value(value.toString());
+        }
+    }
+
+    /**
+     * Column labels of a result, resolved once per ResultSet.
+     * Duplicate labels (e.g. {@code SELECT a.id, b.id}) are collapsed the same way a row map
+     * collapses them: the label keeps its first position and takes the value of its last
+     * occurrence.
+     *
+     * @param labels Unique column labels in output order
+     * @param indexes 1-based JDBC column index for each label
+     */
+    public record ColumnLayout(String[] labels, int[] indexes) {
+        public static ColumnLayout of(ResultSetMetaData metaData) throws SQLException {
+            return of(metaData, metaData.getColumnCount());
+        }
+
+        /**
+         * Layout of the first {@code count} columns; trailing columns are left out of the output.
+         */
+        public static ColumnLayout of(ResultSetMetaData metaData, int count) throws SQLException {
+            Map<String, Integer> positions = new LinkedHashMap<>();
+            for (int i = 1; i <= count; i++) {
+                positions.put(metaData.getColumnLabel(i), i);
+            }
+            String[] labels = positions.keySet().toArray(new String[0]);
+            int[] indexes = new int[labels.length];
+            for (int i = 0; i < labels.length; i++) {
+                indexes[i] = positions.get(labels[i]);
+            }
+            return new ColumnLayout(labels, indexes);
+        }
+
+        public List<String> labelList() {
+            return Arrays.asList(labels);
+        }
+    }
 }
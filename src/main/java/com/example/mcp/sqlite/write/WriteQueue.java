@@ -0,0 +1,336 @@
+package com.example.mcp.sqlite.write;
+
+import com.example.mcp.sqlite.config.DatabaseConfig;
+import com.example.mcp.sqlite.pool.PoolKey;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Group commit for small writes: operations on the same database are queued and committed
+ * together in one transaction.
+ *
+ * Every commit of an encrypted database re-encrypts and re-MACs the changed pages and syncs
+ * the journal, which dominates the cost of a small write. When an operation arrives on an idle
+ * database, the queue waits up to {@link WriteQueueSettings#window()} for more, or until
+ * {@link WriteQueueSettings#maxBatchSize()} are queued, and runs them in a single transaction
+ * on the writer connection. Operations arriving while a batch runs form the next batch without
+ * waiting.
+ *
+ * Each operation runs inside its own savepoint. A failing operation is rolled back to its
+ * savepoint and its caller gets the exception, while the rest of the batch still commits. If
+ * the transaction itself fails (e.g. the commit), every operation without an error of its own
+ * fails with that exception.
+ *
+ * Batches run on dedicated platform threads, at most one per database file at a time, so callers
+ * can wait on virtual threads. A batch only holds operations with the same passphrase and cipher
+ * profile, since they share one connection. Operations must not manage transactions themselves.
+ */
+public final class WriteQueue implements AutoCloseable {
+    private final WriteQueueSettings settings;
+    private final WriterAccess writerAccess;
+    private final ExecutorService executor;
+    private final ConcurrentHashMap<Path, Lane> lanes = new ConcurrentHashMap<>();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder operations = new LongAdder();
+    private volatile boolean closed;
+
+    /**
+     * Work run with a connection.
+     */
+    @FunctionalInterface
+    public interface Operation<T> {
+        T apply(Connection connection) throws SQLException;
+    }
+
+    /**
+     * Runs a batch with the writer connection of a database.
+     */
+    @FunctionalInterface
+    public interface WriterAccess {
+        void withWriter(DatabaseConfig config, Operation<Void> batch) throws SQLException;
+    }
+
+    public WriteQueue(WriteQueueSettings settings, WriterAccess writerAccess) {
+        this(settings, writerAccess, Executors.newCachedThreadPool(
+                Thread.ofPlatform().name("mcp-sqlite-writer-", 0).daemon(true).factory()));
+    }
+
+    WriteQueue(WriteQueueSettings settings, WriterAccess writerAccess, ExecutorService executor) {
+        this.settings = Objects.requireNonNull(settings, "settings");
+        this.writerAccess = Objects.requireNonNull(writerAccess, "writerAccess");
+        this.executor = Objects.requireNonNull(executor, "executor");
+    }
+
+    /**
+     * Queues an operation and waits until the batch containing it has committed.
+     *
+     * @return The result of the operation
+     * @throws SQLException if the operation or its transaction failed
+     */
+    public <T> T submit(DatabaseConfig config, Operation<T> operation) throws SQLException {
+        Objects.requireNonNull(config, "config");
+        Objects.requireNonNull(operation, "operation");
+        if (closed) {
+            throw new IllegalStateException("Write queue is closed");
+        }
+        Pending<T> pending = new Pending<>(config, PoolKey.of(config), operation);
+        Lane lane = lanes.computeIfAbsent(pending.key.databasePath(), path -> new Lane());
+        if (lane.enqueue(pending)) {
+            try {
+                executor.execute(() -> drain(lane));
+            } catch (RuntimeException e) {
+                lane.failAll(new IllegalStateException("Write queue is closed", e));
+            }
+        }
+        return pending.await();
+    }
+
+    /**
+     * @return Number of transactions committed or attempted
+     */
+    public long batches() {
+        return batches.sum();
+    }
+
+    /**
+     * @return Number of operations run in batches
+     */
+    public long operations() {
+        return operations.sum();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        executor.shutdown();
+        for (Lane lane : lanes.values()) {
+            lane.failAll(new IllegalStateException("Write queue is closed"));
+        }
+        lanes.clear();
+    }
+
+    private void drain(Lane lane) {
+        boolean first = true;
+        while (true) {
+            List<Pending<?>> batch;
+            try {
+                batch = lane.nextBatch(first);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                lane.failAll(new IllegalStateException("Interrupted while collecting writes", e));
+                return;
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            first = false;
+            runBatch(batch);
+        }
+    }
+
+    private void runBatch(List<Pending<?>> batch) {
+        batches.increment();
+        operations.add(batch.size());
+        Exception failure = null;
+        try {
+            writerAccess.withWriter(batch.get(0).config, connection -> {
+                commitBatch(connection, batch);
+                return null;
+            });
+        } catch (SQLException | RuntimeException e) {
+            failure = e;
+        } catch (Error e) {
+            failure = new IllegalStateException("Write batch failed", e);
+            throw e;
+        } finally {
+            for (Pending<?> pending : batch) {
+                pending.finish(failure);
+            }
+        }
+    }
+
+    private static void commitBatch(Connection connection, List<Pending<?>> batch) throws SQLException {
+        // A single operation needs no savepoint: rolling back the transaction isolates it
+        boolean isolate = batch.size() > 1;
+        connection.setAutoCommit(false);
+        try {
+            for (Pending<?> pending : batch) {
+                Savepoint savepoint = isolate ? connection.setSavepoint() : null;
+                try {
+                    pending.run(connection);
+                    if (isolate) {
+                        connection.releaseSavepoint(savepoint);
+                    }
+                } catch (SQLException | RuntimeException e) {
+                    if (!isolate) {
+                        throw e;
+                    }
+                    pending.error = e;
+                    try {
+                        connection.rollback(savepoint);
+                        connection.releaseSavepoint(savepoint);
+                    } catch (SQLException rollbackError) {
+                        // The transaction state is unknown; abandon the whole batch
+                        pending.error = null;
+                        rollbackError.addSuppressed(e);
+                        throw rollbackError;
+                    }
+                }
+            }
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackError) {
+                e.addSuppressed(rollbackError);
+            }
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Queue of one database. {@code scheduled} is true while a drain task owns the lane.
+     */
+    private final class Lane {
+        final ReentrantLock lock = new ReentrantLock();
+        final Condition full = lock.newCondition();
+        final ArrayDeque<Pending<?>> queue = new ArrayDeque<>();
+        boolean scheduled;
+
+        /**
+         * @return true if the caller has to schedule a drain task
+         */
+        boolean enqueue(Pending<?> pending) {
+            lock.lock();
+            try {
+                queue.add(pending);
+                if (queue.size() >= settings.maxBatchSize()) {
+                    full.signal();
+                }
+                if (scheduled) {
+                    return false;
+                }
+                scheduled = true;
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Takes the next batch, waiting for the window if the lane just became busy. The batch
+         * ends before the first operation with other credentials than the first one. Returns an
+         * empty list and releases the lane when nothing is queued.
+         */
+        List<Pending<?>> nextBatch(boolean waitForWindow) throws InterruptedException {
+            lock.lock();
+            try {
+                if (waitForWindow) {
+                    long remaining = settings.window().toNanos();
+                    while (queue.size() < settings.maxBatchSize() && remaining > 0 && !closed) {
+                        remaining = full.awaitNanos(remaining);
+                    }
+                }
+                if (queue.isEmpty()) {
+                    scheduled = false;
+                    return List.of();
+                }
+                int size = Math.min(queue.size(), settings.maxBatchSize());
+                List<Pending<?>> batch = new ArrayList<>(size);
+                PoolKey first = queue.peek().key;
+                while (batch.size() < size && queue.peek().key.sameCredentials(first)) {
+                    batch.add(queue.poll());
+                }
+                return batch;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void failAll(RuntimeException error) {
+            List<Pending<?>> failed;
+            lock.lock();
+            try {
+                failed = new ArrayList<>(queue);
+                queue.clear();
+                scheduled = false;
+            } finally {
+                lock.unlock();
+            }
+            for (Pending<?> pending : failed) {
+                pending.finish(error);
+            }
+        }
+    }
+
+    /**
+     * A queued operation. {@code result} and {@code error} are only touched by the batch thread
+     * before {@link #finish} publishes them through the future.
+     */
+    private static final class Pending<T> {
+        final DatabaseConfig config;
+        final PoolKey key;
+        final Operation<T> operation;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        T result;
+        Exception error;
+
+        Pending(DatabaseConfig config, PoolKey key, Operation<T> operation) {
+            this.config = config;
+            this.key = key;
+            this.operation = operation;
+        }
+
+        void run(Connection connection) throws SQLException {
+            result = operation.apply(connection);
+        }
+
+        void finish(Exception batchFailure) {
+            if (error != null) {
+                future.completeExceptionally(error);
+            } else if (batchFailure != null) {
+                future.completeExceptionally(batchFailure);
+            } else {
+                future.complete(result);
+            }
+        }
+
+        T await() throws SQLException {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for write", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException sqle) {
+                    throw sqle;
+                }
+                if (cause instanceof RuntimeException re) {
+                    throw re;
+                }
+                if (cause instanceof Error error) {
+                    throw error;
+                }
+                throw new IllegalStateException(cause);
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.mcp.sqlite.write;
+
+import com.example.mcp.sqlite.util.Env;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Limits for {@link WriteQueue}.
+ *
+ * @param maxBatchSize Maximum number of operations committed in one transaction; 1 disables coalescing
+ * @param window Time the queue waits for more operations after the first one arrives on an idle database
+ */
+public record WriteQueueSettings(int maxBatchSize, Duration window) {
+
+    public WriteQueueSettings {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be at least 1");
+        }
+        Objects.requireNonNull(window, "window");
+        if (window.isNegative()) {
+            throw new IllegalArgumentException("window must not be negative");
+        }
+    }
+
+    public static WriteQueueSettings defaults() {
+        return new WriteQueueSettings(64, Duration.ofMillis(1));
+    }
+
+    /**
+     * Reads write queue settings from environment variables, falling back to {@link #defaults()}.
+     * Supported variables: MCP_WRITE_BATCH_MAX_OPS and MCP_WRITE_BATCH_WINDOW_MICROS.
+     *
+     * @return WriteQueueSettings instance
+     */
+    public static WriteQueueSettings fromEnvironment() {
+        WriteQueueSettings defaults = defaults();
+        return new WriteQueueSettings(
+                Env.intValue("MCP_WRITE_BATCH_MAX_OPS", defaults.maxBatchSize()),
+                Duration.ofNanos(1000L * Env.intValue("MCP_WRITE_BATCH_WINDOW_MICROS", (int) (defaults.window().toNanos() / 1000))));
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.mcp.sqlite;
+
+import com.example.mcp.sqlite.config.CipherProfile;
+import com.example.mcp.sqlite.config.DatabaseConfig;
+import com.example.mcp.sqlite.pool.DerivedKeyCache;
+import com.example.mcp.sqlite.pool.PoolSettings;
+import com.example.mcp.sqlite.write.WriteQueueSettings;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EncryptedSqliteClientTest {
+    private final List<String> events = new ArrayList<>();
+    private final List<String> prepared = new ArrayList<>();
+    private boolean autoCommit = true;
+    private boolean failOnExecute;
+    private List<Map<String, Object>> queryRows = List.of();
+
+    @Test
+    void upsertPreparesOncePerShapeAndCommitsOnce() throws Exception {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            rows.add(row("id", i, "name", "n" + i));
+        }
+        rows.add(row("id", 99));
+
+        try (EncryptedSqliteClient client = newClient()) {
+            int affected = client.insertOrUpdate(connection(), "accounts", List.of("id"), rows, 2);
+            assertEquals(6, affected);
+        }
+
+        assertEquals(2, prepared.size());
+        assertTrue(prepared.get(0).contains("DO UPDATE SET \"name\" = excluded.\"name\""));
+        assertTrue(prepared.get(1).contains("DO NOTHING"));
+        assertEquals(List.of("autoCommit=false", "batch 2", "batch 2", "batch 1", "batch 1", "commit", "autoCommit=true"),
+                events);
+    }
+
+    @Test
+    void shapeChangeFlushesBatchToKeepRowOrder() throws Exception {
+        List<Map<String, Object>> rows = List.of(
+                row("id", 1, "name", "a"),
+                row("id", 1),
+                row("id", 1, "name", "b"));
+
+        try (EncryptedSqliteClient client = newClient()) {
+            client.insertOrUpdate(connection(), "accounts", List.of("id"), rows, 100);
+        }
+
+        assertEquals(2, prepared.size());
+        assertEquals(List.of("autoCommit=false", "batch 1", "batch 1", "batch 1", "commit", "autoCommit=true"), events);
+    }
+
+    @Test
+    void failureRollsBackWholeCall() throws Exception {
+        failOnExecute = true;
+        try (EncryptedSqliteClient client = newClient()) {
+            assertThrows(SQLException.class, () -> client.insertOrUpdate(connection(), "accounts", List.of("id"),
+                    List.of(row("id", 1)), 10));
+        }
+        assertEquals(List.of("autoCommit=false", "rollback", "autoCommit=true"), events);
+    }
+
+    @Test
+    void callerTransactionIsLeftOpen() throws Exception {
+        autoCommit = false;
+        try (EncryptedSqliteClient client = newClient()) {
+            client.insertOrUpdate(connection(), "accounts", List.of("id"), List.of(row("id", 1)), 10);
+        }
+        assertEquals(List.of("batch 1"), events);
+    }
+
+    @Test
+    void listIndexesGroupsJoinedIndexColumnsInOneQuery() throws Exception {
+        queryRows = List.of(
+                row("table_name", "orders", "index_name", "ix_customer", "unique", 0, "origin", "c", "column_name", "customer_id"),
+                row("table_name", "orders", "index_name", "ix_customer", "unique", 0, "origin", "c", "column_name", "created"),
+                row("table_name", "orders", "index_name", "ix_expr", "unique", 1, "origin", "c", "column_name", null));
+        try (EncryptedSqliteClient client = newClient()) {
+            List<EncryptedSqliteClient.IndexMetadata> indexes = client.listIndexes(connection(), "Orders");
+            assertEquals(List.of(
+                    new EncryptedSqliteClient.IndexMetadata("ix_customer", false, "c", List.of("customer_id", "created")),
+                    new EncryptedSqliteClient.IndexMetadata("ix_expr", true, "c", List.of())), indexes);
+        }
+        assertEquals(1, prepared.size());
+        assertTrue(prepared.get(0).contains("JOIN pragma_index_list(m.name)"));
+    }
+
+    @Test
+    void cursorsLeaveOneReaderFree() {
+        DatabaseConfig config = new DatabaseConfig(Path.of("cursor-cap.sqlite"), "secret", CipherProfile.sqlCipher4Defaults());
+        try (EncryptedSqliteClient client = new EncryptedSqliteClient(PoolSettings.defaults().withMaxConnectionsPerKey(1),
+                new DerivedKeyCache(Duration.ZERO, 64))) {
+            // With a single reader no cursor may pin it; the check runs before a connection is opened
+            IllegalStateException e = assertThrows(IllegalStateException.class,
+                    () -> client.openCursor(config, "SELECT 1", cursor -> null, affected -> null));
+            assertTrue(e.getMessage().contains("Too many open cursors for this database"));
+        }
+    }
+
+    @Test
+    void rejectedRawKeyFallsBackToPassphrase() throws Exception {
+        Path database = Files.createTempFile("raw-key", ".sqlite");
+        database.toFile().deleteOnExit();
+        // Any 16 bytes serve as the salt; the cached key derived from it does not open the file
+        Files.write(database, new byte[64]);
+        DatabaseConfig config = new DatabaseConfig(database, "secret",
+                CipherProfile.sqlCipher4Defaults().toBuilder().kdfIterations(1_000).build());
+        DerivedKeyCache keyCache = new DerivedKeyCache(Duration.ofMinutes(5), 64);
+        List<String> opened = new ArrayList<>();
+        EncryptedSqliteClient.ConnectionOpener opener = (c, rawKey, writer) -> {
+            opened.add(rawKey == null ? "passphrase" : "raw key");
+            return keyedConnection(rawKey == null);
+        };
+
+        try (EncryptedSqliteClient client = new EncryptedSqliteClient(PoolSettings.defaults(), keyCache,
+                WriteQueueSettings.defaults(), opener)) {
+            Connection connection = client.openUnpooled(config, false);
+            assertTrue(connection.toString().contains("passphrase"));
+            assertEquals(List.of("raw key", "passphrase"), opened);
+            assertEquals(List.of("close raw key"), events);
+
+            // The rejected key was dropped, so the next open derives it again
+            client.openUnpooled(config, false);
+            assertEquals(2, keyCache.misses());
+        }
+    }
+
+    private static EncryptedSqliteClient newClient() {
+        return new EncryptedSqliteClient(PoolSettings.defaults(), new DerivedKeyCache(Duration.ZERO, 64));
+    }
+
+    private Connection keyedConnection(boolean validKey) {
+        String name = validKey ? "passphrase" : "raw key";
+        Statement statement = (Statement) Proxy.newProxyInstance(
+                Statement.class.getClassLoader(),
+                new Class<?>[]{Statement.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "executeQuery" -> {
+                        if (!validKey) {
+                            throw new SQLException("file is not a database");
+                        }
+                        yield Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                                (rs, m, a) -> switch (m.getName()) {
+                                    case "next" -> true;
+                                    case "close" -> null;
+                                    default -> throw new UnsupportedOperationException(m.getName());
+                                });
+                    }
+                    case "close" -> null;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "createStatement" -> statement;
+                    case "close" -> {
+                        events.add("close " + name);
+                        yield null;
+                    }
+                    case "toString" -> "Connection keyed with " + name;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static Map<String, Object> row(Object... keyValues) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            row.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return row;
+    }
+
+    private Connection connection() {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getAutoCommit" -> autoCommit;
+                    case "setAutoCommit" -> {
+                        autoCommit = (Boolean) args[0];
+                        events.add("autoCommit=" + autoCommit);
+                        yield null;
+                    }
+                    case "commit", "rollback" -> {
+                        events.add(method.getName());
+                        yield null;
+                    }
+                    case "prepareStatement" -> {
+                        prepared.add((String) args[0]);
+                        yield statement();
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private PreparedStatement statement() {
+        int[] batched = {0};
+        return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "setObject", "setString", "close" -> null;
+                    case "executeQuery" -> resultSet(queryRows);
+                    case "addBatch" -> {
+                        batched[0]++;
+                        yield null;
+                    }
+                    case "executeBatch" -> {
+                        if (failOnExecute) {
+                            throw new SQLException("constraint failed");
+                        }
+                        int[] counts = new int[batched[0]];
+                        Arrays.fill(counts, 1);
+                        events.add("batch " + batched[0]);
+                        batched[0] = 0;
+                        yield counts;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static ResultSet resultSet(List<Map<String, Object>> rows) {
+        int[] position = {-1};
+        return (ResultSet) Proxy.newProxyInstance(
+                ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "next" -> ++position[0] < rows.size();
+                    case "getString" -> (String) rows.get(position[0]).get(args[0]);
+                    case "getInt" -> (Integer) rows.get(position[0]).get(args[0]);
+                    case "close" -> null;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
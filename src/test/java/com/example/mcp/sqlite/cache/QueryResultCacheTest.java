@@ -0,0 +1,155 @@
+package com.example.mcp.sqlite.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueryResultCacheTest {
+    private static final Path DATABASE = Path.of("result-cache-test.sqlite");
+    private static final long BUDGET = 64 * 1024;
+
+    private final AtomicLong schemaVersion = new AtomicLong(1);
+
+    @Test
+    void servesStoredResultWhileDatabaseIsUnchanged() throws Exception {
+        QueryResultCache cache = new QueryResultCache();
+        Connection connection = connection(new AtomicLong(1));
+
+        QueryResultCache.Lookup miss = cache.lookup(connection, DATABASE, BUDGET, "q");
+        assertNull(miss.result());
+        assertTrue(miss.store(bytes("{\"rows\":[]}")));
+
+        assertArrayEquals(bytes("{\"rows\":[]}"), cache.lookup(connection, DATABASE, BUDGET, "q").result());
+        QueryResultCacheStats stats = cache.stats();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+        assertTrue(stats.bytes() > 0);
+    }
+
+    @Test
+    void commitSeenByAnyReaderInvalidates() throws Exception {
+        QueryResultCache cache = new QueryResultCache();
+        AtomicLong firstVersion = new AtomicLong(1);
+        AtomicLong secondVersion = new AtomicLong(7);
+        Connection first = connection(firstVersion);
+        Connection second = connection(secondVersion);
+        cache.lookup(second, DATABASE, BUDGET, "warm-up");
+        cache.lookup(first, DATABASE, BUDGET, "q").store(bytes("old"));
+        assertArrayEquals(bytes("old"), cache.lookup(second, DATABASE, BUDGET, "q").result());
+
+        // Another connection committed: every reader sees its own data_version change
+        firstVersion.incrementAndGet();
+        secondVersion.incrementAndGet();
+
+        assertNull(cache.lookup(second, DATABASE, BUDGET, "q").result());
+        assertNull(cache.lookup(first, DATABASE, BUDGET, "q").result());
+        assertEquals(1, cache.stats().invalidations());
+    }
+
+    @Test
+    void schemaChangeAndNewConnectionsInvalidate() throws Exception {
+        QueryResultCache cache = new QueryResultCache();
+        Connection connection = connection(new AtomicLong(1));
+        cache.lookup(connection, DATABASE, BUDGET, "q").store(bytes("v1"));
+
+        schemaVersion.incrementAndGet();
+        assertNull(cache.lookup(connection, DATABASE, BUDGET, "q").result());
+
+        cache.lookup(connection, DATABASE, BUDGET, "q").store(bytes("v2"));
+        // A connection without an earlier data_version cannot tell what changed before it opened
+        assertNull(cache.lookup(connection(new AtomicLong(1)), DATABASE, BUDGET, "q").result());
+    }
+
+    @Test
+    void resultComputedAcrossAChangeIsNotStored() throws Exception {
+        QueryResultCache cache = new QueryResultCache();
+        AtomicLong firstVersion = new AtomicLong(1);
+        AtomicLong secondVersion = new AtomicLong(1);
+        Connection first = connection(firstVersion);
+        Connection second = connection(secondVersion);
+        cache.lookup(second, DATABASE, BUDGET, "warm-up");
+
+        QueryResultCache.Lookup slow = cache.lookup(first, DATABASE, BUDGET, "q");
+        secondVersion.incrementAndGet();
+        cache.lookup(second, DATABASE, BUDGET, "other");
+
+        assertFalse(slow.store(bytes("maybe stale")));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedWithinBudget() throws Exception {
+        QueryResultCache cache = new QueryResultCache();
+        Connection connection = connection(new AtomicLong(1));
+        long budget = 4 * (QueryResultCache.ENTRY_OVERHEAD + 2 + 200);
+        byte[] result = new byte[200];
+
+        cache.lookup(connection, DATABASE, budget, "a").store(result);
+        cache.lookup(connection, DATABASE, budget, "b").store(result);
+        cache.lookup(connection, DATABASE, budget, "c").store(result);
+        cache.lookup(connection, DATABASE, budget, "d").store(result);
+        cache.lookup(connection, DATABASE, budget, "a");
+        cache.lookup(connection, DATABASE, budget, "e").store(result);
+
+        assertEquals(1, cache.stats().evictions());
+        assertNull(cache.lookup(connection, DATABASE, budget, "b").result());
+        assertArrayEquals(result, cache.lookup(connection, DATABASE, budget, "a").result());
+        assertFalse(cache.lookup(connection, DATABASE, budget, "large").store(new byte[(int) budget / 2]));
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private Connection connection(AtomicLong dataVersion) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "prepareStatement" -> switch ((String) args[0]) {
+                        case "PRAGMA data_version" -> statement(dataVersion);
+                        case "PRAGMA schema_version" -> statement(schemaVersion);
+                        default -> throw new AssertionError(args[0]);
+                    };
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static PreparedStatement statement(AtomicLong value) {
+        boolean[] consumed = {false};
+        ResultSet rs = (ResultSet) Proxy.newProxyInstance(
+                ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "next" -> {
+                        boolean hasRow = !consumed[0];
+                        consumed[0] = true;
+                        yield hasRow;
+                    }
+                    case "getLong" -> value.get();
+                    case "close" -> null;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "executeQuery" -> rs;
+                    case "close" -> null;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
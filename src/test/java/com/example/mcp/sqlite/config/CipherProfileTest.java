@@ -3,6 +3,7 @@ package com.example.mcp.sqlite.config;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 
 class CipherProfileTest {
 
@@ -15,4 +16,13 @@ class CipherProfileTest {
         assertEquals("HMAC_SHA512", profile.hmacAlgorithm());
         assertEquals("PBKDF2_HMAC_SHA512", profile.kdfAlgorithm());
     }
+
+    @Test
+    void profilesWithSameSettingsAreEqual() {
+        CipherProfile a = CipherProfile.sqlCipher4Defaults();
+        CipherProfile b = CipherProfile.sqlCipher4Defaults();
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertNotEquals(a, a.toBuilder().kdfIterations(64_000).build());
+    }
 }
@@ -0,0 +1,82 @@
+package com.example.mcp.sqlite.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PassphraseResolverTest {
+
+    @Test
+    void resolvesKeyOnceAndCachesDecryptedPassphrase() {
+        String key = PassphraseEncryption.generateKey();
+        CountingKeySource source = new CountingKeySource(key);
+        PassphraseResolver resolver = new PassphraseResolver(new KeySourceChain(List.of(source)));
+        String encrypted = PassphraseEncryption.fromBase64Key(key).encrypt("secret");
+
+        assertEquals("secret", resolver.decrypt(encrypted));
+        assertEquals("secret", resolver.decrypt(encrypted));
+        assertEquals(1, source.loads.get());
+    }
+
+    @Test
+    void refreshesKeyWhenDecryptionFails() {
+        String oldKey = PassphraseEncryption.generateKey();
+        String newKey = PassphraseEncryption.generateKey();
+        CountingKeySource source = new CountingKeySource(oldKey);
+        PassphraseResolver resolver = new PassphraseResolver(new KeySourceChain(List.of(source)));
+        resolver.decrypt(PassphraseEncryption.fromBase64Key(oldKey).encrypt("first"));
+
+        source.key.set(newKey);
+        String rotated = PassphraseEncryption.fromBase64Key(newKey).encrypt("second");
+
+        assertEquals("second", resolver.decrypt(rotated));
+        assertEquals(2, source.loads.get());
+    }
+
+    @Test
+    void fallsThroughToNextSource() throws Exception {
+        String key = PassphraseEncryption.generateKey();
+        Path keyFile = Files.createTempFile("mcp-key", ".txt");
+        keyFile.toFile().deleteOnExit();
+        Files.writeString(keyFile, key + "\n");
+        KeySourceChain chain = new KeySourceChain(List.of(new CountingKeySource(null), new FileKeySource(keyFile)));
+
+        String encrypted = PassphraseEncryption.fromBase64Key(key).encrypt("from-file");
+
+        assertEquals("from-file", chain.encryption().decrypt(encrypted));
+        assertEquals("Key file", chain.resolvedFrom());
+    }
+
+    @Test
+    void failsWhenNoSourceProvidesKey() {
+        KeySourceChain chain = new KeySourceChain(List.of(new CountingKeySource(null)));
+        assertThrows(IllegalStateException.class, chain::encryption);
+    }
+
+    private static final class CountingKeySource implements KeySource {
+        private final AtomicReference<String> key;
+        private final AtomicInteger loads = new AtomicInteger();
+
+        private CountingKeySource(String key) {
+            this.key = new AtomicReference<>(key);
+        }
+
+        @Override
+        public String name() {
+            return "Counting";
+        }
+
+        @Override
+        public String loadKey() {
+            loads.incrementAndGet();
+            return key.get();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.mcp.sqlite.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TuningProfileTest {
+
+    @Test
+    void defaultsKeepSqliteDefaultsWithWal() {
+        TuningProfile profile = TuningProfile.defaults();
+        assertEquals(-2000, profile.cacheSize());
+        assertEquals(TuningProfile.JournalMode.WAL, profile.journalMode());
+        assertEquals(TuningProfile.Synchronous.FULL, profile.synchronous());
+        assertEquals(TuningProfile.TempStore.DEFAULT, profile.tempStore());
+        assertEquals(0, profile.mmapSize());
+        assertEquals(0, profile.pageSize());
+        assertEquals(1000, profile.walAutocheckpoint());
+        assertEquals(0, profile.resultCacheSize());
+    }
+
+    @Test
+    void connectionSettingsIgnoreNameAndResultCache() {
+        TuningProfile profile = TuningProfile.defaults();
+        TuningProfile cached = profile.toBuilder().name("reporting").resultCacheSize(1 << 20).build();
+        assertNotEquals(profile, cached);
+        assertEquals(profile.connectionSettings(), cached.connectionSettings());
+        assertNotEquals(profile.connectionSettings(), profile.toBuilder().cacheSize(-8000).build().connectionSettings());
+    }
+
+    @Test
+    void parsesModesCaseInsensitively() {
+        TuningProfile profile = TuningProfile.defaults().toBuilder()
+                .journalMode("truncate")
+                .synchronous(" normal ")
+                .tempStore("Memory")
+                .build();
+        assertEquals(TuningProfile.JournalMode.TRUNCATE, profile.journalMode());
+        assertEquals(TuningProfile.Synchronous.NORMAL, profile.synchronous());
+        assertEquals(TuningProfile.TempStore.MEMORY, profile.tempStore());
+        assertNotEquals(TuningProfile.defaults(), profile);
+        assertEquals(profile, profile.toBuilder().build());
+    }
+
+    @Test
+    void rejectsInvalidValues() {
+        TuningProfile.Builder builder = TuningProfile.defaults().toBuilder();
+        assertThrows(IllegalArgumentException.class, () -> builder.journalMode("OFF"));
+        assertThrows(IllegalArgumentException.class, () -> builder.synchronous("fast"));
+        assertThrows(IllegalArgumentException.class, () -> TuningProfile.defaults().toBuilder().mmapSize(-1).build());
+        assertThrows(IllegalArgumentException.class, () -> TuningProfile.defaults().toBuilder().pageSize(3000).build());
+        assertThrows(IllegalArgumentException.class, () -> TuningProfile.defaults().toBuilder().pageSize(131072).build());
+        assertThrows(IllegalArgumentException.class, () -> TuningProfile.defaults().toBuilder().walAutocheckpoint(-5).build());
+        assertThrows(IllegalArgumentException.class, () -> TuningProfile.defaults().toBuilder().resultCacheSize(-1).build());
+    }
+
+    @Test
+    void pageSizeMustMatchCipherProfile() {
+        CipherProfile cipher = CipherProfile.sqlCipher4Defaults();
+        TuningProfile matching = TuningProfile.defaults().toBuilder().pageSize(4096).build();
+        TuningProfile mismatching = TuningProfile.defaults().toBuilder().pageSize(8192).build();
+
+        assertEquals(matching, new DatabaseConfig(Path.of("db.sqlite"), "secret", cipher, matching).tuningProfile());
+        assertThrows(IllegalArgumentException.class,
+                () -> new DatabaseConfig(Path.of("db.sqlite"), "secret", cipher, mismatching));
+        assertEquals(TuningProfile.defaults(), new DatabaseConfig(Path.of("db.sqlite"), "secret", cipher).tuningProfile());
+    }
+}
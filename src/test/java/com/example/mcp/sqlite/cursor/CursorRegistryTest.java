@@ -0,0 +1,111 @@
+package com.example.mcp.sqlite.cursor;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CursorRegistryTest {
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger released = new AtomicInteger();
+
+    @Test
+    void acquireReturnsRegisteredCursor() throws Exception {
+        try (CursorRegistry registry = newRegistry(2)) {
+            QueryCursor cursor = cursor();
+            String id = registry.register(cursor);
+            assertSame(cursor, registry.acquire(id));
+            registry.release(cursor);
+            assertTrue(cursor.hasRow());
+        }
+    }
+
+    @Test
+    void rejectsCursorsBeyondTheCapAndClosesThem() throws Exception {
+        try (CursorRegistry registry = newRegistry(1)) {
+            registry.register(cursor());
+            QueryCursor rejected = cursor();
+            assertThrows(IllegalStateException.class, () -> registry.register(rejected));
+            assertTrue(rejected.isClosed());
+            assertEquals(1, released.get());
+        }
+    }
+
+    @Test
+    void closeReleasesConnectionAndForgetsCursor() throws Exception {
+        try (CursorRegistry registry = newRegistry(2)) {
+            String id = registry.register(cursor());
+            assertTrue(registry.close(id));
+            assertFalse(registry.close(id));
+            assertEquals(1, released.get());
+            assertThrows(IllegalArgumentException.class, () -> registry.acquire(id));
+        }
+    }
+
+    @Test
+    void reapsIdleCursorsButNotCursorsInUse() throws Exception {
+        try (CursorRegistry registry = newRegistry(4)) {
+            String idle = registry.register(cursor());
+            String busy = registry.register(cursor());
+            QueryCursor inUse = registry.acquire(busy);
+
+            now.addAndGet(TimeUnit.MINUTES.toNanos(2));
+            registry.reapIdle();
+
+            assertThrows(IllegalArgumentException.class, () -> registry.acquire(idle));
+            assertEquals(1, registry.size());
+            registry.release(inUse);
+            assertEquals(1, released.get());
+        }
+    }
+
+    @Test
+    void closingRegistryClosesAllCursors() throws Exception {
+        CursorRegistry registry = newRegistry(4);
+        registry.register(cursor());
+        registry.register(cursor());
+        registry.close();
+        assertEquals(2, released.get());
+        assertThrows(IllegalStateException.class, () -> registry.register(cursor()));
+    }
+
+    private CursorRegistry newRegistry(int maxOpen) {
+        return new CursorRegistry(new CursorSettings(maxOpen, Duration.ofMinutes(1)), now::get, false);
+    }
+
+    private QueryCursor cursor() throws Exception {
+        Statement statement = (Statement) Proxy.newProxyInstance(
+                Statement.class.getClassLoader(),
+                new Class<?>[]{Statement.class},
+                (proxy, method, args) -> null);
+        ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(
+                ResultSetMetaData.class.getClassLoader(),
+                new Class<?>[]{ResultSetMetaData.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getColumnCount" -> 1;
+                    case "getColumnLabel" -> "id";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        ResultSet resultSet = (ResultSet) Proxy.newProxyInstance(
+                ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getMetaData" -> metaData;
+                    case "next" -> true;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        return QueryCursor.open(statement, resultSet, released::incrementAndGet);
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.mcp.sqlite.log;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ServerLogTest {
+    private static final Logger LOGGER = Logger.getLogger(ServerLogTest.class.getName());
+
+    @Test
+    void disabledDebugDoesNotEvaluateSuppliers() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AtomicInteger calls = new AtomicInteger();
+        ServerLog log = new ServerLog(LOGGER, false, new PrintStream(out), 4, false);
+
+        log.debug(() -> "expensive " + calls.incrementAndGet());
+        log.debug("value {}", new Object() {
+            @Override
+            public String toString() {
+                calls.incrementAndGet();
+                return "x";
+            }
+        });
+        log.drain();
+
+        assertFalse(log.isDebugEnabled());
+        assertEquals(0, calls.get());
+        assertEquals("", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void formatsPlaceholdersWhenWritten() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ServerLog log = new ServerLog(LOGGER, true, new PrintStream(out), 16, false);
+
+        log.debug("plain");
+        log.debug("{} rows in {} ms, done={}", 42, 7L, null);
+        log.debug(() -> "from supplier");
+        log.drain();
+
+        String text = out.toString(StandardCharsets.UTF_8);
+        assertTrue(text.contains("[DEBUG] plain\n"), text);
+        assertTrue(text.contains("[DEBUG] 42 rows in 7 ms, done=null\n"), text);
+        assertTrue(text.contains("[DEBUG] from supplier\n"), text);
+    }
+
+    @Test
+    void dropsDebugButNotErrorsWhenFull() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ServerLog log = new ServerLog(LOGGER, true, new PrintStream(out), 2, false);
+
+        log.debug("one");
+        log.debug("two");
+        log.debug("three");
+        log.error("failed", new SQLException("database is locked"));
+
+        // The error did not fit either and was written immediately
+        String text = out.toString(StandardCharsets.UTF_8);
+        assertTrue(text.contains("[ERROR] failed\n"), text);
+        assertTrue(text.contains("java.sql.SQLException: database is locked"), text);
+        assertEquals(1, log.dropped());
+
+        log.drain();
+        text = out.toString(StandardCharsets.UTF_8);
+        assertTrue(text.contains("[DEBUG] one\n"), text);
+        assertTrue(text.contains("[DEBUG] two\n"), text);
+        assertFalse(text.contains("three"), text);
+        assertTrue(text.contains("1 debug messages dropped"), text);
+    }
+
+    @Test
+    void closeWritesQueuedMessages() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ServerLog log = new ServerLog(LOGGER, true, new PrintStream(out), 1024);
+        for (int i = 0; i < 500; i++) {
+            log.debug("message {}", i);
+        }
+        log.close();
+        log.debug("after close");
+
+        String text = out.toString(StandardCharsets.UTF_8);
+        assertTrue(text.contains("[DEBUG] message 0\n"), text);
+        assertTrue(text.contains("[DEBUG] message 499\n"), text);
+        assertTrue(text.contains("[DEBUG] after close\n"), text);
+    }
+
+    @Test
+    void formatIgnoresMissingPlaceholders() {
+        assertEquals("a=1 b=2", ServerLog.format("a={} b={}", 1, 2));
+        assertEquals("a=1", ServerLog.format("a={}", 1, 2));
+        assertEquals("a={}", ServerLog.format("a={}"));
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.mcp.sqlite.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HistogramTest {
+
+    @Test
+    void bucketsAreContiguousAndOrdered() {
+        long previousUpper = -1;
+        for (int i = 0; i < Histogram.BUCKETS; i++) {
+            long upper = Histogram.bucketUpperBound(i);
+            assertEquals(i, Histogram.bucketIndex(previousUpper + 1));
+            assertEquals(i, Histogram.bucketIndex(upper));
+            assertTrue(upper > previousUpper);
+            previousUpper = upper;
+        }
+        assertEquals(Long.MAX_VALUE, previousUpper);
+    }
+
+    @Test
+    void bucketBoundIsWithinQuarterOfValue() {
+        for (long value : new long[] {5, 17, 1_000, 123_456, 987_654_321, 1L << 40}) {
+            long upper = Histogram.bucketUpperBound(Histogram.bucketIndex(value));
+            assertTrue(upper >= value);
+            assertTrue(upper - value <= value / 4, "value " + value + " upper " + upper);
+        }
+    }
+
+    @Test
+    void percentilesFollowRecordedValues() {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1_000L);
+        }
+        Histogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(1000, snapshot.count());
+        assertEquals(1_000_000L, snapshot.maxNanos());
+        assertEquals(500_500.0, snapshot.meanNanos(), 0.001);
+        assertWithin(500_000, snapshot.percentile(0.5));
+        assertWithin(990_000, snapshot.percentile(0.99));
+        assertEquals(1_000_000L, snapshot.percentile(1.0));
+    }
+
+    @Test
+    void emptyAndNegativeValues() {
+        Histogram histogram = new Histogram();
+        assertEquals(0, histogram.snapshot().percentile(0.99));
+        assertEquals(0.0, histogram.snapshot().meanNanos());
+
+        histogram.record(-5);
+        assertEquals(1, histogram.snapshot().count());
+        assertEquals(0, histogram.snapshot().percentile(0.5));
+    }
+
+    @Test
+    void concurrentRecordingLosesNothing() throws InterruptedException {
+        Histogram histogram = new Histogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    histogram.record(i);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        long bucketTotal = 0;
+        for (long bucket : snapshot.buckets()) {
+            bucketTotal += bucket;
+        }
+        assertEquals(40_000, snapshot.count());
+        assertEquals(40_000, bucketTotal);
+        assertEquals(9_999, snapshot.maxNanos());
+    }
+
+    @Test
+    void serverMetricsCapsToolNames() {
+        ServerMetrics metrics = new ServerMetrics();
+        long start = System.nanoTime();
+        for (int i = 0; i < ServerMetrics.MAX_TOOLS + 10; i++) {
+            metrics.recordTool("tool" + i, start, i % 2 == 0);
+        }
+        Map<String, ServerMetrics.ToolSnapshot> tools = metrics.tools();
+
+        assertEquals(ServerMetrics.MAX_TOOLS + 1, tools.size());
+        assertEquals(10, tools.get(ServerMetrics.OTHER_TOOL).latency().count());
+        assertEquals(1, tools.get("tool0").errors());
+    }
+
+    @Test
+    void prometheusTextWritesSummaryInSeconds() {
+        Histogram histogram = new Histogram();
+        histogram.record(2_000_000);
+        String text = new PrometheusText()
+                .summary("x_seconds", "Test.", "tool", Map.of("a\"b", histogram.snapshot()))
+                .counter("y_total", "Count.", 3)
+                .toString();
+
+        assertTrue(text.contains("# TYPE x_seconds summary\n"), text);
+        assertTrue(text.contains("x_seconds{tool=\"a\\\"b\",quantile=\"0.5\"} 0.00200000000\n"), text);
+        assertTrue(text.contains("x_seconds_count{tool=\"a\\\"b\"} 1\n"), text);
+        assertTrue(text.contains("y_total 3\n"), text);
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(actual >= expected && actual <= expected + expected / 4, "expected ~" + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.mcp.sqlite.pool;
+
+import com.example.mcp.sqlite.config.CipherProfile;
+import com.example.mcp.sqlite.config.DatabaseConfig;
+import com.example.mcp.sqlite.config.TuningProfile;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConnectionPoolTest {
+    private final AtomicInteger opened = new AtomicInteger();
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void reusesReleasedConnection() throws Exception {
+        DatabaseConfig config = config(tempDatabase(), "secret");
+        try (ConnectionPool pool = newPool(settings(2))) {
+            PooledConnection first = pool.borrow(config);
+            pool.release(first);
+            PooledConnection second = pool.borrow(config);
+            assertSame(first.connection(), second.connection());
+            assertEquals(1, opened.get());
+        }
+    }
+
+    @Test
+    void separatesPartitionsByPassphrase() throws Exception {
+        Path database = tempDatabase();
+        try (ConnectionPool pool = newPool(settings(2))) {
+            PooledConnection first = pool.borrow(config(database, "secret"));
+            pool.release(first);
+            PooledConnection second = pool.borrow(config(database, "other"));
+            assertNotSame(first.connection(), second.connection());
+            assertEquals(2, opened.get());
+        }
+    }
+
+    @Test
+    void ignoresTuningThatLeavesConnectionsAlone() throws Exception {
+        DatabaseConfig config = config(tempDatabase(), "secret");
+        DatabaseConfig cached = withTuning(config, TuningProfile.defaults().toBuilder()
+                .name("reporting").resultCacheSize(1 << 20).build());
+        try (ConnectionPool pool = newPool(settings(2))) {
+            PooledConnection first = pool.borrow(config);
+            pool.release(first);
+            assertSame(first.connection(), pool.borrow(cached).connection());
+            assertEquals(1, opened.get());
+        }
+    }
+
+    @Test
+    void databasePartitioningKeepsOneConnectionPerFile() throws Exception {
+        DatabaseConfig config = config(tempDatabase(), "secret");
+        DatabaseConfig tuned = withTuning(config, TuningProfile.defaults().toBuilder().cacheSize(-65536).build());
+        PoolSettings settings = new PoolSettings(1, Duration.ofMinutes(5), Duration.ofMinutes(30), Duration.ZERO, 1);
+        try (ConnectionPool pool = new ConnectionPool(c -> fakeConnection(), settings,
+                ConnectionPool.Partitioning.DATABASE, now::get, false)) {
+            PooledConnection first = pool.borrow(config);
+            pool.release(first);
+            PooledConnection second = pool.borrow(tuned);
+            assertSame(first.connection(), second.connection());
+            assertEquals(1, opened.get());
+            pool.release(second);
+
+            assertThrows(SQLException.class, () -> pool.borrow(config(config.databasePath(), "other")));
+            assertSame(first.connection(), pool.borrow(config).connection());
+        }
+    }
+
+    @Test
+    void borrowTimesOutWhenPartitionIsExhausted() throws Exception {
+        DatabaseConfig config = config(tempDatabase(), "secret");
+        PoolSettings settings = new PoolSettings(1, Duration.ofMinutes(5), Duration.ofMinutes(30), Duration.ZERO, 1);
+        try (ConnectionPool pool = newPool(settings)) {
+            pool.borrow(config);
+            assertThrows(SQLException.class, () -> pool.borrow(config));
+        }
+    }
+
+    @Test
+    void evictsIdleConnections() throws Exception {
+        DatabaseConfig config = config(tempDatabase(), "secret");
+        try (ConnectionPool pool = newPool(settings(2))) {
+            PooledConnection pooled = pool.borrow(config);
+            pool.release(pooled);
+            assertEquals(1, pool.idleCount(PoolKey.of(config)));
+
+            now.addAndGet(Duration.ofMinutes(6).toNanos());
+            pool.evictIdle();
+            assertEquals(0, pool.idleCount(PoolKey.of(config)));
+            assertTrue(pooled.connection().isClosed());
+        }
+    }
+
+    @Test
+    void retiresConnectionsPastMaxLifetime() throws Exception {
+        DatabaseConfig config = config(tempDatabase(), "secret");
+        try (ConnectionPool pool = newPool(settings(2))) {
+            PooledConnection pooled = pool.borrow(config);
+            now.addAndGet(Duration.ofMinutes(31).toNanos());
+            pool.release(pooled);
+            assertTrue(pooled.connection().isClosed());
+            assertNotSame(pooled.connection(), pool.borrow(config).connection());
+        }
+    }
+
+    @Test
+    void invalidatesWhenDatabaseFileIsReplaced() throws Exception {
+        Path database = tempDatabase();
+        DatabaseConfig config = config(database, "secret");
+        try (ConnectionPool pool = newPool(settings(2))) {
+            PooledConnection pooled = pool.borrow(config);
+            pool.release(pooled);
+
+            Path replacement = Files.createTempFile(database.getParent(), "replacement", ".sqlite");
+            Files.move(replacement, database, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+
+            PooledConnection next = pool.borrow(config);
+            assertNotSame(pooled.connection(), next.connection());
+            assertTrue(pooled.connection().isClosed());
+        }
+    }
+
+    private ConnectionPool newPool(PoolSettings settings) {
+        return new ConnectionPool(config -> fakeConnection(), settings, now::get, false);
+    }
+
+    private static PoolSettings settings(int maxSize) {
+        return new PoolSettings(maxSize, Duration.ofMinutes(5), Duration.ofMinutes(30), Duration.ofSeconds(1), 1);
+    }
+
+    private static DatabaseConfig config(Path database, String passphrase) {
+        return new DatabaseConfig(database, passphrase, CipherProfile.sqlCipher4Defaults());
+    }
+
+    private static DatabaseConfig withTuning(DatabaseConfig config, TuningProfile tuning) {
+        return new DatabaseConfig(config.databasePath(), config.passphrase(), config.cipherProfile(), tuning);
+    }
+
+    private static Path tempDatabase() throws IOException {
+        Path database = Files.createTempFile("pool-test", ".sqlite");
+        database.toFile().deleteOnExit();
+        return database;
+    }
+
+    private Connection fakeConnection() {
+        opened.incrementAndGet();
+        AtomicBoolean closed = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "close" -> {
+                        closed.set(true);
+                        yield null;
+                    }
+                    case "isClosed" -> closed.get();
+                    case "isValid" -> !closed.get();
+                    case "getAutoCommit" -> true;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "FakeConnection";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.mcp.sqlite.pool;
+
+import com.example.mcp.sqlite.config.CipherProfile;
+import com.example.mcp.sqlite.config.DatabaseConfig;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DerivedKeyCacheTest {
+    private static final CipherProfile FAST_PROFILE = CipherProfile.sqlCipher4Defaults().toBuilder()
+            .kdfIterations(1_000)
+            .build();
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void rawKeyIsDerivedKeyFollowedBySalt() throws Exception {
+        byte[] salt = new byte[16];
+        for (int i = 0; i < salt.length; i++) {
+            salt[i] = (byte) (i * 7 + 3);
+        }
+        DatabaseConfig config = config(databaseWithSalt(salt));
+        DerivedKeyCache cache = new DerivedKeyCache(Duration.ofMinutes(5), 8, now::get);
+
+        byte[] rawKey = cache.rawKey(config);
+
+        assertEquals(48, rawKey.length);
+        assertArrayEquals(salt, Arrays.copyOfRange(rawKey, 32, 48));
+        assertArrayEquals(DerivedKeyCache.derive("secret", salt, FAST_PROFILE), rawKey);
+    }
+
+    @Test
+    void returnsCopiesOfCachedKey() throws Exception {
+        DatabaseConfig config = config(databaseWithSalt(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16}));
+        DerivedKeyCache cache = new DerivedKeyCache(Duration.ofMinutes(5), 8, now::get);
+
+        byte[] first = cache.rawKey(config);
+        byte[] expected = first.clone();
+        Arrays.fill(first, (byte) 0);
+        byte[] second = cache.rawKey(config);
+
+        assertNotSame(first, second);
+        assertArrayEquals(expected, second);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void expiresEntriesAfterTtl() throws Exception {
+        DatabaseConfig config = config(databaseWithSalt(new byte[]{9, 8, 7, 6, 5, 4, 3, 2, 1, 0, 1, 2, 3, 4, 5, 6}));
+        DerivedKeyCache cache = new DerivedKeyCache(Duration.ofMinutes(5), 8, now::get);
+        cache.rawKey(config);
+
+        now.addAndGet(Duration.ofMinutes(6).toNanos());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void returnsNullWhenSaltCannotBeRead() throws Exception {
+        Path empty = Files.createTempFile("empty", ".sqlite");
+        empty.toFile().deleteOnExit();
+        DerivedKeyCache cache = new DerivedKeyCache(Duration.ofMinutes(5), 8, now::get);
+
+        assertNull(cache.rawKey(config(empty)));
+        assertNull(cache.rawKey(config(empty.resolveSibling("does-not-exist.sqlite"))));
+    }
+
+    private static DatabaseConfig config(Path database) {
+        return new DatabaseConfig(database, "secret", FAST_PROFILE);
+    }
+
+    private static Path databaseWithSalt(byte[] salt) throws Exception {
+        Path database = Files.createTempFile("salted", ".sqlite");
+        database.toFile().deleteOnExit();
+        byte[] content = new byte[4096];
+        System.arraycopy(salt, 0, content, 0, salt.length);
+        Files.write(database, content);
+        return database;
+    }
+}
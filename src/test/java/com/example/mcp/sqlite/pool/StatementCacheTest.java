@@ -0,0 +1,117 @@
+package com.example.mcp.sqlite.pool;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StatementCacheTest {
+    private final List<String> prepared = new ArrayList<>();
+    private final List<String> closed = new ArrayList<>();
+    private final List<String> cleared = new ArrayList<>();
+    private final StatementCache.Counters counters = new StatementCache.Counters();
+
+    @Test
+    void reusesStatementAfterClose() throws Exception {
+        StatementCache cache = new StatementCache(physical(), 4, counters);
+        Connection connection = cache.connection();
+
+        PreparedStatement first = connection.prepareStatement("SELECT 1");
+        first.setObject(1, "x");
+        first.close();
+        PreparedStatement second = connection.prepareStatement("SELECT 1");
+
+        assertSame(first, second);
+        assertEquals(List.of("SELECT 1"), prepared);
+        assertEquals(List.of("SELECT 1"), cleared);
+        assertEquals(List.of(), closed);
+        assertEquals(new StatementCacheStats(1, 1, 0), counters.snapshot());
+        assertSame(connection, second.getConnection());
+    }
+
+    @Test
+    void sameSqlInUsePreparesAnUncachedCopy() throws Exception {
+        StatementCache cache = new StatementCache(physical(), 4, counters);
+        Connection connection = cache.connection();
+
+        PreparedStatement outer = connection.prepareStatement("SELECT 1");
+        PreparedStatement inner = connection.prepareStatement("SELECT 1");
+        assertNotSame(outer, inner);
+        inner.close();
+        outer.close();
+
+        assertEquals(List.of("SELECT 1"), closed);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedStatement() throws Exception {
+        StatementCache cache = new StatementCache(physical(), 2, counters);
+        Connection connection = cache.connection();
+
+        connection.prepareStatement("A").close();
+        connection.prepareStatement("B").close();
+        connection.prepareStatement("A").close();
+        connection.prepareStatement("C").close();
+
+        assertEquals(List.of("A", "C"), cache.cachedSql());
+        assertEquals(List.of("B"), closed);
+        assertEquals(1, counters.snapshot().evictions());
+    }
+
+    @Test
+    void closingConnectionClosesCachedStatements() throws Exception {
+        StatementCache cache = new StatementCache(physical(), 4, counters);
+        Connection connection = cache.connection();
+        connection.prepareStatement("A").close();
+        connection.prepareStatement("B").close();
+
+        connection.close();
+
+        assertTrue(closed.containsAll(List.of("A", "B", "connection")));
+        assertEquals(0, cache.size());
+    }
+
+    private Connection physical() {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "prepareStatement" -> {
+                        prepared.add((String) args[0]);
+                        yield statement((String) args[0]);
+                    }
+                    case "close" -> {
+                        closed.add("connection");
+                        yield null;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private PreparedStatement statement(String sql) {
+        return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "clearParameters" -> {
+                        cleared.add(sql);
+                        yield null;
+                    }
+                    case "setObject", "clearBatch" -> null;
+                    case "close" -> {
+                        closed.add(sql);
+                        yield null;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.mcp.sqlite.protocol;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonRpcRequestTest {
+
+    @Test
+    void readsEnvelopeAndDecodesParamsOnDemand() {
+        JsonRpcRequest request = parse(
+                "{\"params\":{\"protocolVersion\":\"2024-11-05\"},\"id\":7,\"method\":\"initialize\",\"jsonrpc\":\"2.0\"}");
+
+        assertEquals("2.0", request.jsonrpc());
+        assertEquals("initialize", request.method());
+        assertEquals("7", request.id());
+        assertTrue(request.hasParams());
+        assertEquals("2024-11-05", request.params().get("protocolVersion").getAsString());
+    }
+
+    @Test
+    void notificationWithoutParams() {
+        JsonRpcRequest request = parse("{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\",\"params\":null}");
+
+        assertNull(request.id());
+        assertFalse(request.hasParams());
+        assertNull(request.paramsReader());
+        assertEquals(0, request.params().size());
+    }
+
+    @Test
+    void rejectsMalformedMessages() {
+        assertThrows(JsonParseException.class, () -> parse("{\"method\":\"x\",\"params\":{"));
+        assertThrows(JsonParseException.class, () -> parse("[1,2]"));
+        assertThrows(JsonParseException.class, () -> parse("{\"method\":\"x\",\"id\":{}}"));
+        assertThrows(JsonParseException.class, () -> parse("{\"method\":\"x\"} {}"));
+    }
+
+    @Test
+    void toolCallDecodesRowsWithoutTree() throws IOException {
+        JsonRpcRequest request = parse("{\"id\":\"a\",\"method\":\"tools/call\",\"params\":{\"name\":\"insert_or_update\","
+                + "\"arguments\":{\"table\":\"t\",\"rows\":[{\"id\":1,\"price\":2.5,\"big\":12345678901234567890,"
+                + "\"ok\":true,\"note\":null,\"tags\":[\"x\"]}],\"primary_keys\":[\"id\"]}}}");
+
+        ToolCall call;
+        try (JsonReader params = request.paramsReader()) {
+            call = ToolCall.read(params);
+        }
+
+        assertEquals("insert_or_update", call.name());
+        assertEquals("t", call.arguments().get("table").getAsString());
+        assertFalse(call.arguments().has(ToolCall.ROWS));
+        assertTrue(call.arguments().has("primary_keys"));
+        assertEquals(1, call.rows().size());
+        Map<String, Object> row = call.rows().get(0);
+        assertEquals(List.of("id", "price", "big", "ok", "note", "tags"), List.copyOf(row.keySet()));
+        assertEquals(1L, row.get("id"));
+        assertEquals(2.5, row.get("price"));
+        assertEquals(1.2345678901234567E19, row.get("big"));
+        assertEquals(true, row.get("ok"));
+        assertNull(row.get("note"));
+        assertEquals(List.of("x"), row.get("tags"));
+    }
+
+    @Test
+    void toolCallKeepsNonArrayRowsAsArgument() throws IOException {
+        JsonRpcRequest request = parse("{\"id\":1,\"method\":\"tools/call\",\"params\":{\"arguments\":{\"rows\":\"none\"},\"name\":\"x\"}}");
+
+        ToolCall call;
+        try (JsonReader params = request.paramsReader()) {
+            call = ToolCall.read(params);
+        }
+
+        assertNull(call.rows());
+        assertEquals("none", call.arguments().get(ToolCall.ROWS).getAsString());
+    }
+
+    private static JsonRpcRequest parse(String json) {
+        return JsonRpcRequest.parse(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.mcp.sqlite.protocol;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MessageReaderTest {
+
+    @Test
+    void framesTrimmedMessagesAndSkipsBlankLines() throws IOException {
+        MessageReader reader = reader("{\"a\":1}\r\n\n   \n  {\"b\":\"ü\"}  \n{\"c\":3}", 8);
+
+        assertEquals(List.of("{\"a\":1}", "{\"b\":\"ü\"}", "{\"c\":3}"), readAll(reader));
+        assertNull(reader.next());
+    }
+
+    @Test
+    void growsForMessagesLargerThanTheBuffer() throws IOException {
+        String large = "{\"rows\":\"" + "x".repeat(MessageReader.MAX_RETAINED_SIZE + 10) + "\"}";
+        MessageReader reader = reader("{\"a\":1}\n" + large + "\n{\"b\":2}\n", 16);
+
+        assertEquals(List.of("{\"a\":1}", large, "{\"b\":2}"), readAll(reader));
+    }
+
+    @Test
+    void handlesShortReads() throws IOException {
+        byte[] input = "{\"a\":1}\n{\"b\":2}\n".getBytes(StandardCharsets.UTF_8);
+        InputStream trickle = new ByteArrayInputStream(input) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 3));
+            }
+        };
+
+        assertEquals(List.of("{\"a\":1}", "{\"b\":2}"), readAll(new MessageReader(trickle, 4)));
+    }
+
+    @Test
+    void blankInputHasNoMessages() throws IOException {
+        assertNull(reader("", 4).next());
+        assertNull(reader(" \r\n\n\t", 4).next());
+    }
+
+    private static MessageReader reader(String input, int bufferSize) {
+        return new MessageReader(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), bufferSize);
+    }
+
+    private static List<String> readAll(MessageReader reader) throws IOException {
+        List<String> messages = new ArrayList<>();
+        byte[] message;
+        while ((message = reader.next()) != null) {
+            messages.add(new String(message, StandardCharsets.UTF_8));
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.mcp.sqlite.protocol;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResponseWriterTest {
+    private final Gson gson = new Gson();
+
+    @Test
+    void sendWritesOneLineAndReportsUtf8Size() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AtomicLong bytes = new AtomicLong();
+        ResponseWriter writer = new ResponseWriter(out, gson, bytes::addAndGet);
+
+        JsonObject message = new JsonObject();
+        message.addProperty("text", "grüße");
+        long size = writer.send(message);
+
+        String expected = "{\"text\":\"grüße\"}\n";
+        assertEquals(expected, out.toString(StandardCharsets.UTF_8));
+        assertEquals(expected.getBytes(StandardCharsets.UTF_8).length, size);
+        assertEquals(size, bytes.get());
+    }
+
+    @Test
+    void sendResultWrapsPreSerializedResult() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ResponseWriter writer = new ResponseWriter(out, gson, n -> { });
+
+        long size = writer.sendResult("a\"b", "{\"tools\":[]}".getBytes(StandardCharsets.UTF_8));
+
+        String expected = "{\"jsonrpc\":\"2.0\",\"id\":\"a\\\"b\",\"result\":{\"tools\":[]}}\n";
+        assertEquals(expected, out.toString(StandardCharsets.UTF_8));
+        assertEquals(expected.length(), size);
+    }
+
+    @Test
+    void concurrentMessagesAreWholeAndShareWrites() throws InterruptedException {
+        SlowOutput out = new SlowOutput();
+        ResponseWriter writer = new ResponseWriter(out, gson, n -> { });
+        int threads = 8;
+        int perThread = 50;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            workers.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    JsonObject message = new JsonObject();
+                    message.addProperty("id", thread + "-" + i);
+                    assertTrue(writer.send(message) > 0);
+                }
+            }));
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        String[] lines = out.toString().split("\n");
+        Set<String> ids = new HashSet<>();
+        for (String line : lines) {
+            ids.add(gson.fromJson(line, JsonObject.class).get("id").getAsString());
+        }
+        assertEquals(threads * perThread, lines.length);
+        assertEquals(threads * perThread, ids.size());
+        assertTrue(out.writes.get() < threads * perThread, "writes: " + out.writes.get());
+    }
+
+    @Test
+    void streamedMessageIsNotInterleaved() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ResponseWriter writer = new ResponseWriter(out, gson, n -> { });
+        Thread[] sender = new Thread[1];
+
+        int written = writer.stream(w -> {
+            w.write("{\"rows\":[");
+            // Grow past the buffered size so that the message takes the output
+            for (int i = 0; i < 200_000; i++) {
+                w.write(i == 0 ? "0" : "," + i);
+            }
+            sender[0] = Thread.ofPlatform().start(() -> {
+                JsonObject message = new JsonObject();
+                message.addProperty("id", "other");
+                writer.send(message);
+            });
+            Thread.sleep(50);
+            for (int i = 200_000; i < 300_000; i++) {
+                w.write("," + i);
+            }
+            w.write("]}");
+            return 300_000;
+        });
+        sender[0].join();
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(300_000, written);
+        assertTrue(lines[0].length() > ResponseWriter.MAX_STREAM_BUFFERED_SIZE);
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"rows\":[0,1,2,") && lines[0].endsWith(",299999]}"));
+        assertEquals("{\"id\":\"other\"}", lines[1]);
+    }
+
+    @Test
+    void slowBufferedStreamDoesNotBlockOtherMessages() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ResponseWriter writer = new ResponseWriter(out, gson, n -> { });
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread streamer = Thread.ofPlatform().start(() -> {
+            try {
+                writer.stream(w -> {
+                    w.write("{\"rows\":[1,");
+                    started.countDown();
+                    release.await();
+                    w.write("2]}");
+                    return null;
+                });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        started.await();
+
+        Thread sender = Thread.ofPlatform().start(() -> writer.send(new JsonObject()));
+        sender.join(5_000);
+        boolean blocked = sender.isAlive();
+        release.countDown();
+        streamer.join();
+        sender.join();
+
+        assertFalse(blocked, "send waited for the stream");
+        assertEquals("{}\n{\"rows\":[1,2]}\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void stopsAfterOutputError() {
+        ResponseWriter writer = new ResponseWriter(new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("closed");
+            }
+        }, gson, n -> { });
+
+        assertEquals(-1, writer.send(new JsonObject()));
+        assertTrue(writer.hasFailed());
+        assertEquals(-1, writer.send(new JsonObject()));
+        assertThrows(IOException.class, () -> writer.stream(w -> {
+            w.write("{}");
+            return null;
+        }));
+    }
+
+    private static final class SlowOutput extends ByteArrayOutputStream {
+        private final AtomicInteger writes = new AtomicInteger();
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            writes.incrementAndGet();
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            super.write(b, off, len);
+        }
+    }
+}
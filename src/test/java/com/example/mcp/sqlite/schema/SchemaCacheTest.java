@@ -0,0 +1,105 @@
+package com.example.mcp.sqlite.schema;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SchemaCacheTest {
+    private static final Path DATABASE = Path.of("schema-cache-test.sqlite");
+
+    private final AtomicInteger schemaVersion = new AtomicInteger(1);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void servesCachedValueWhileSchemaVersionIsUnchanged() throws Exception {
+        SchemaCache cache = new SchemaCache();
+        Connection connection = connection();
+
+        assertEquals(List.of("v1"), cache.get(connection, DATABASE, "tables", this::load));
+        assertEquals(List.of("v1"), cache.get(connection, DATABASE, "tables", this::load));
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    void reloadsAfterSchemaChange() throws Exception {
+        SchemaCache cache = new SchemaCache();
+        Connection connection = connection();
+        cache.get(connection, DATABASE, "tables", this::load);
+        cache.get(connection, DATABASE, "indexes:t", this::load);
+
+        schemaVersion.incrementAndGet();
+
+        assertEquals(List.of("v2"), cache.get(connection, DATABASE, "tables", this::load));
+        assertEquals(3, loads.get());
+        assertEquals(List.of("v2"), cache.get(connection, DATABASE, "indexes:t", this::load));
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void separatesDatabasesAndSupportsInvalidation() throws Exception {
+        SchemaCache cache = new SchemaCache();
+        Connection connection = connection();
+        cache.get(connection, DATABASE, "tables", this::load);
+        cache.get(connection, Path.of("other.sqlite"), "tables", this::load);
+        assertEquals(2, loads.get());
+
+        cache.invalidate(DATABASE);
+        cache.get(connection, DATABASE, "tables", this::load);
+        cache.get(connection, Path.of("other.sqlite"), "tables", this::load);
+        assertEquals(3, loads.get());
+    }
+
+    private List<String> load() {
+        loads.incrementAndGet();
+        return List.of("v" + schemaVersion.get());
+    }
+
+    private Connection connection() {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "prepareStatement" -> {
+                        assertEquals("PRAGMA schema_version", args[0]);
+                        yield statement();
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private PreparedStatement statement() {
+        boolean[] consumed = {false};
+        ResultSet rs = (ResultSet) Proxy.newProxyInstance(
+                ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "next" -> {
+                        boolean hasRow = !consumed[0];
+                        consumed[0] = true;
+                        yield hasRow;
+                    }
+                    case "getInt" -> schemaVersion.get();
+                    case "close" -> null;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "executeQuery" -> rs;
+                    case "close" -> null;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
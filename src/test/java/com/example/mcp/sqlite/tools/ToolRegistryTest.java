@@ -0,0 +1,81 @@
+package com.example.mcp.sqlite.tools;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ToolRegistryTest {
+
+    @Test
+    void schemaListsDatabaseArgumentsOnlyWithoutDefaultDatabase() {
+        ToolDefinition tool = ToolDefinition.builder("get_table_schema")
+                .description("Schema")
+                .databaseArguments()
+                .requiredParameter("table", "string", "Table name")
+                .parameter("verbose", "boolean", "More detail")
+                .handler((id, call) -> new JsonPrimitive(id))
+                .build();
+
+        JsonObject withDatabase = tool.toJson(true).getAsJsonObject("inputSchema");
+        assertEquals(List.of("db_path", "passphrase", "table", "verbose"),
+                List.copyOf(withDatabase.getAsJsonObject("properties").keySet()));
+        assertEquals(array("table", "db_path", "passphrase"), withDatabase.getAsJsonArray("required"));
+
+        JsonObject withoutDatabase = tool.toJson(false).getAsJsonObject("inputSchema");
+        assertEquals(List.of("table", "verbose"), List.copyOf(withoutDatabase.getAsJsonObject("properties").keySet()));
+        assertEquals(array("table"), withoutDatabase.getAsJsonArray("required"));
+        assertEquals("boolean",
+                withoutDatabase.getAsJsonObject("properties").getAsJsonObject("verbose").get("type").getAsString());
+    }
+
+    @Test
+    void requiredIsOmittedWhenEmpty() {
+        ToolDefinition tool = ToolDefinition.builder("describe_database")
+                .description("Describe")
+                .databaseArguments()
+                .handler((id, call) -> new JsonObject())
+                .build();
+
+        assertFalse(tool.toJson(false).getAsJsonObject("inputSchema").has("required"));
+        assertEquals(2, tool.toJson(true).getAsJsonObject("inputSchema").getAsJsonArray("required").size());
+    }
+
+    @Test
+    void registryKeepsOrderAndRejectsDuplicates() {
+        ToolDefinition first = simple("b");
+        ToolDefinition second = simple("a");
+        ToolRegistry registry = new ToolRegistry().register(first).register(second);
+
+        assertSame(first, registry.get("b"));
+        assertEquals(ToolDefinition.Execution.REQUEST_THREAD, registry.get("a").execution());
+        JsonArray tools = registry.toJson(true).getAsJsonArray("tools");
+        assertEquals("b", tools.get(0).getAsJsonObject().get("name").getAsString());
+        assertEquals("a", tools.get(1).getAsJsonObject().get("name").getAsString());
+        assertThrows(IllegalStateException.class, () -> registry.register(simple("a")));
+        assertThrows(IllegalArgumentException.class, () -> registry.get("missing"));
+    }
+
+    private static ToolDefinition simple(String name) {
+        return ToolDefinition.builder(name)
+                .description("Tool " + name)
+                .onRequestThread()
+                .handler((id, call) -> new JsonObject())
+                .build();
+    }
+
+    private static JsonArray array(String... values) {
+        JsonArray array = new JsonArray();
+        for (String value : values) {
+            array.add(value);
+        }
+        return array;
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.mcp.sqlite.transfer;
+
+import com.example.mcp.sqlite.EncryptedSqliteClient.ColumnMetadata;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileImporterTest {
+    private static final List<ColumnMetadata> COLUMNS = List.of(
+            new ColumnMetadata(0, "id", "INTEGER", true, null, true),
+            new ColumnMetadata(1, "name", "TEXT", false, null, false),
+            new ColumnMetadata(2, "data", "BLOB", false, null, false));
+
+    private final List<String> prepared = new ArrayList<>();
+    private final List<List<Object>> insertedRows = new ArrayList<>();
+    private final List<String> events = new ArrayList<>();
+    private int failAtRow = -1;
+
+    @Test
+    void importsCsvInChunksAndReportsResumeOffset() throws Exception {
+        String content = "ID,name,extra\n1,alice,x\n2,\"b,ob\",y\n3,,z\n";
+        Path file = write("data.csv", content);
+
+        FileImporter.Result result = FileImporter.importFile(connection(), COLUMNS, options(file, TransferFormat.CSV, 2, 0));
+
+        assertTrue(result.complete());
+        assertEquals(3, result.rowsImported());
+        assertEquals(content.length(), result.nextOffset());
+        assertEquals(List.of("id", "name"), result.columns());
+        assertEquals(List.of("extra"), result.ignoredFields());
+        assertEquals(List.of("INSERT INTO \"accounts\" (\"id\", \"name\") VALUES (?, ?)"), prepared);
+        assertEquals(Arrays.asList("3", null), insertedRows.get(2));
+        assertEquals(List.of("autoCommit=false", "batch", "commit", "batch", "commit", "autoCommit=true"), events);
+    }
+
+    @Test
+    void failedChunkIsRolledBackAndResumeContinuesAfterLastCommit() throws Exception {
+        String content = "id,name\n1,a\n2,b\n3,c\n";
+        Path file = write("data.csv", content);
+        failAtRow = 3;
+
+        FileImporter.Result failed = FileImporter.importFile(connection(), COLUMNS, options(file, TransferFormat.CSV, 2, 0));
+        assertFalse(failed.complete());
+        assertEquals(2, failed.rowsImported());
+        assertEquals("id,name\n1,a\n2,b\n".length(), failed.nextOffset());
+        assertTrue(failed.error().contains("constraint failed"));
+
+        failAtRow = -1;
+        insertedRows.clear();
+        FileImporter.Result resumed = FileImporter.importFile(connection(), COLUMNS,
+                options(file, TransferFormat.CSV, 2, failed.nextOffset()));
+        assertTrue(resumed.complete());
+        assertEquals(1, resumed.rowsImported());
+        assertEquals(List.of(List.of("3", "c")), insertedRows);
+    }
+
+    @Test
+    void callerTransactionIsNeverCommittedOrRolledBack() throws Exception {
+        Path file = write("data.csv", "id,name\n1,a\n2,b\n3,c\n");
+
+        FileImporter.Result result = FileImporter.importFile(connection(false), COLUMNS,
+                options(file, TransferFormat.CSV, 2, 0));
+        assertTrue(result.complete());
+        assertEquals(3, result.rowsImported());
+        assertEquals(List.of("savepoint", "batch", "release", "savepoint", "batch", "release"), events);
+
+        events.clear();
+        insertedRows.clear();
+        failAtRow = 3;
+        FileImporter.Result failed = FileImporter.importFile(connection(false), COLUMNS,
+                options(file, TransferFormat.CSV, 2, 0));
+        assertFalse(failed.complete());
+        assertEquals(2, failed.rowsImported());
+        assertEquals(List.of("savepoint", "batch", "release", "savepoint", "rollback to savepoint", "release"), events);
+    }
+
+    @Test
+    void importsNdjsonWithTypedValues() throws Exception {
+        Path file = write("data.ndjson", "{\"id\": 1, \"name\": \"a\", \"data\": [1, 255]}\n\n{\"name\": \"b\", \"id\": 2.5}\n");
+
+        FileImporter.Result result = FileImporter.importFile(connection(), COLUMNS, options(file, TransferFormat.NDJSON, 100, 0));
+
+        assertTrue(result.complete());
+        assertEquals(2, result.rowsImported());
+        assertEquals(2, prepared.size());
+        assertEquals(1L, insertedRows.get(0).get(0));
+        assertArrayEquals(new byte[]{1, -1}, (byte[]) insertedRows.get(0).get(2));
+        assertEquals(List.of("b", 2.5), insertedRows.get(1));
+    }
+
+    @Test
+    void rejectsMissingFile() {
+        assertThrows(IllegalArgumentException.class, () -> FileImporter.importFile(connection(), COLUMNS,
+                options(Path.of("does-not-exist.csv"), TransferFormat.CSV, 10, 0)));
+    }
+
+    @Test
+    void resolvesFormatFromExtension() {
+        assertEquals(TransferFormat.NDJSON, TransferFormat.resolve(null, Path.of("x.jsonl")));
+        assertEquals(TransferFormat.CSV, TransferFormat.resolve("CSV", Path.of("x.txt")));
+        assertThrows(IllegalArgumentException.class, () -> TransferFormat.resolve(null, Path.of("x.txt")));
+    }
+
+    @Test
+    void jsonValuesMapToStorageClasses() {
+        assertNull(FileImporter.toJdbcValue(JsonNull.INSTANCE));
+        assertEquals(1L, FileImporter.toJdbcValue(new JsonPrimitive(true)));
+        assertEquals("[1,\"x\"]", FileImporter.toJdbcValue(JsonParser.parseString("[1,\"x\"]")));
+    }
+
+    private static FileImporter.Options options(Path file, TransferFormat format, int chunkSize, long offset) {
+        return new FileImporter.Options(file, format, "accounts", List.of(), chunkSize, offset, true);
+    }
+
+    private static Path write(String name, String content) throws Exception {
+        Path dir = Files.createTempDirectory("import-test");
+        Path file = dir.resolve(name);
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        file.toFile().deleteOnExit();
+        dir.toFile().deleteOnExit();
+        return file;
+    }
+
+    private Connection connection() {
+        return connection(true);
+    }
+
+    private Connection connection(boolean initialAutoCommit) {
+        boolean[] autoCommit = {initialAutoCommit};
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getAutoCommit" -> autoCommit[0];
+                    case "setAutoCommit" -> {
+                        autoCommit[0] = (Boolean) args[0];
+                        events.add("autoCommit=" + autoCommit[0]);
+                        yield null;
+                    }
+                    case "commit" -> {
+                        events.add("commit");
+                        yield null;
+                    }
+                    case "rollback" -> {
+                        events.add(args == null ? "rollback" : "rollback to savepoint");
+                        yield null;
+                    }
+                    case "setSavepoint" -> {
+                        events.add("savepoint");
+                        yield Proxy.newProxyInstance(Savepoint.class.getClassLoader(), new Class<?>[]{Savepoint.class},
+                                (p, m, a) -> {
+                                    throw new UnsupportedOperationException(m.getName());
+                                });
+                    }
+                    case "releaseSavepoint" -> {
+                        events.add("release");
+                        yield null;
+                    }
+                    case "prepareStatement" -> {
+                        prepared.add((String) args[0]);
+                        yield statement();
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private PreparedStatement statement() {
+        List<Object> current = new ArrayList<>();
+        List<List<Object>> batch = new ArrayList<>();
+        return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "setObject" -> {
+                        int index = (Integer) args[0];
+                        while (current.size() < index) {
+                            current.add(null);
+                        }
+                        current.set(index - 1, args[1]);
+                        yield null;
+                    }
+                    case "addBatch" -> {
+                        batch.add(new ArrayList<>(current));
+                        current.clear();
+                        yield null;
+                    }
+                    case "executeBatch" -> {
+                        int seen = insertedRows.size();
+                        for (int i = 0; i < batch.size(); i++) {
+                            if (failAtRow == ++seen) {
+                                batch.clear();
+                                throw new SQLException("constraint failed");
+                            }
+                        }
+                        insertedRows.addAll(batch);
+                        events.add("batch");
+                        int[] counts = new int[batch.size()];
+                        batch.clear();
+                        yield counts;
+                    }
+                    case "close" -> null;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
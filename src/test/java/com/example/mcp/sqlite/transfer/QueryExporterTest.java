@@ -0,0 +1,127 @@
+package com.example.mcp.sqlite.transfer;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueryExporterTest {
+
+    @Test
+    void exportsNdjsonWithChecksum() throws Exception {
+        Path file = Files.createTempDirectory("export-test").resolve("rows.ndjson");
+        ResultSet rs = resultSet(new String[]{"id", "name"}, new Object[][]{{1, "a"}, {2, null}}, -1);
+
+        QueryExporter.Result result = QueryExporter.export(rs, options(file, TransferFormat.NDJSON, 0, false));
+
+        String expected = "{\"id\":1,\"name\":\"a\"}\n{\"id\":2,\"name\":null}\n";
+        assertEquals(expected, Files.readString(file));
+        assertEquals(2, result.rows());
+        assertEquals(expected.length(), result.bytes());
+        assertEquals(sha256(expected), result.sha256());
+        assertEquals(List.of(new QueryExporter.Part(file, 2, expected.length(), sha256(expected))), result.parts());
+    }
+
+    @Test
+    void rotatesCsvPartsAndRepeatsHeader() throws Exception {
+        Path dir = Files.createTempDirectory("export-test");
+        ResultSet rs = resultSet(new String[]{"id", "note"}, new Object[][]{{1, "x,y"}, {2, "z"}, {3, null}}, -1);
+
+        QueryExporter.Result result = QueryExporter.export(rs, options(dir.resolve("out.csv"), TransferFormat.CSV, 2, false));
+
+        assertEquals(2, result.parts().size());
+        assertEquals("id,note\n1,\"x,y\"\n2,z\n", Files.readString(dir.resolve("out.part-00001.csv")));
+        assertEquals("id,note\n3,\n", Files.readString(dir.resolve("out.part-00002.csv")));
+        assertEquals(sha256("id,note\n1,\"x,y\"\n2,z\nid,note\n3,\n"), result.sha256());
+        assertEquals(3, result.rows());
+    }
+
+    @Test
+    void emptyResultStillWritesHeader() throws Exception {
+        Path file = Files.createTempDirectory("export-test").resolve("empty.csv");
+
+        QueryExporter.Result result = QueryExporter.export(resultSet(new String[]{"a"}, new Object[0][], -1),
+                options(file, TransferFormat.CSV, 0, false));
+
+        assertEquals("a\n", Files.readString(file));
+        assertEquals(0, result.rows());
+    }
+
+    @Test
+    void failureRemovesAllWrittenFiles() throws Exception {
+        Path dir = Files.createTempDirectory("export-test");
+        ResultSet rs = resultSet(new String[]{"id"}, new Object[][]{{1}, {2}, {3}}, 2);
+
+        assertThrows(SQLException.class,
+                () -> QueryExporter.export(rs, options(dir.resolve("out.ndjson"), TransferFormat.NDJSON, 1, false)));
+
+        try (var files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void refusesToOverwriteUnlessAsked() throws Exception {
+        Path file = Files.createTempDirectory("export-test").resolve("rows.ndjson");
+        Files.writeString(file, "old");
+
+        assertThrows(IllegalArgumentException.class,
+                () -> QueryExporter.checkTarget(options(file, TransferFormat.NDJSON, 0, false)));
+        QueryExporter.export(resultSet(new String[]{"id"}, new Object[][]{{5}}, -1),
+                options(file, TransferFormat.NDJSON, 0, true));
+        assertEquals("{\"id\":5}\n", Files.readString(file));
+        assertFalse(Files.exists(file.resolveSibling("rows.ndjson.partial")));
+        assertTrue(Files.exists(file));
+    }
+
+    private static QueryExporter.Options options(Path file, TransferFormat format, long maxRows, boolean overwrite) {
+        return new QueryExporter.Options(file, format, maxRows, 0, overwrite);
+    }
+
+    private static String sha256(String text) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * ResultSet over fixed rows; {@code failAfter} makes {@code next()} throw once that many rows were read.
+     */
+    private static ResultSet resultSet(String[] labels, Object[][] rows, int failAfter) {
+        ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(
+                ResultSetMetaData.class.getClassLoader(),
+                new Class<?>[]{ResultSetMetaData.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getColumnCount" -> labels.length;
+                    case "getColumnLabel" -> labels[(Integer) args[0] - 1];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        int[] position = {-1};
+        return (ResultSet) Proxy.newProxyInstance(
+                ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getMetaData" -> metaData;
+                    case "next" -> {
+                        if (position[0] + 1 == failAfter) {
+                            throw new SQLException("disk I/O error");
+                        }
+                        yield ++position[0] < rows.length;
+                    }
+                    case "getObject" -> rows[position[0]][(Integer) args[0] - 1];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.mcp.sqlite.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ByteLineReaderTest {
+
+    @Test
+    void tracksByteOffsetsAcrossBufferRefills() throws Exception {
+        byte[] data = "\uFEFFfirst\r\nsecond line äöü\nlast".getBytes(StandardCharsets.UTF_8);
+        ByteLineReader reader = reader(data, 4, 1024);
+
+        assertEquals("first", reader.readLine());
+        assertEquals(10, reader.position());
+        assertEquals("second line äöü", reader.readLine());
+        assertEquals(data.length - 4, reader.position());
+        assertEquals("last", reader.readLine());
+        assertEquals(data.length, reader.position());
+        assertNull(reader.readLine());
+    }
+
+    @Test
+    void resumesAtGivenOffset() throws Exception {
+        byte[] data = "a\nbb\nccc\n".getBytes(StandardCharsets.UTF_8);
+        ByteLineReader reader = new ByteLineReader(
+                Channels.newChannel(new ByteArrayInputStream(data, 2, data.length - 2)), 2, 100, 3);
+        assertEquals("bb", reader.readLine());
+        assertEquals(5, reader.position());
+        assertEquals("ccc", reader.readLine());
+        assertNull(reader.readLine());
+    }
+
+    @Test
+    void rejectsOverlongLines() {
+        ByteLineReader reader = reader("abcdefgh\n".getBytes(StandardCharsets.UTF_8), 4, 4);
+        assertThrows(IOException.class, reader::readLine);
+    }
+
+    private static ByteLineReader reader(byte[] data, int bufferSize, int maxLineBytes) {
+        return new ByteLineReader(Channels.newChannel(new ByteArrayInputStream(data)), 0, maxLineBytes, bufferSize);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.mcp.sqlite.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvParserTest {
+
+    @Test
+    void parsesQuotedAndEmptyFields() {
+        List<String> fields = CsvParser.parseRecord("1,\"a, \"\"b\"\"\",,\"\"", ',');
+        assertEquals(Arrays.asList("1", "a, \"b\"", null, ""), fields);
+    }
+
+    @Test
+    void detectsRecordsSpanningLines() {
+        assertFalse(CsvParser.isCompleteRecord("1,\"multi"));
+        assertTrue(CsvParser.isCompleteRecord("1,\"multi\nline\""));
+        assertEquals(List.of("1", "multi\nline"), CsvParser.parseRecord("1,\"multi\nline\"", ','));
+    }
+
+    @Test
+    void rejectsGarbageAfterClosingQuote() {
+        assertThrows(IllegalArgumentException.class, () -> CsvParser.parseRecord("\"a\"b,c", ','));
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.mcp.sqlite.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DelimitedTextTest {
+
+    @Test
+    void csvQuotesFieldsWithSpecialCharacters() throws Exception {
+        assertEquals("plain", csv("plain"));
+        assertEquals("\"a,b\"", csv("a,b"));
+        assertEquals("\"say \"\"hi\"\"\"", csv("say \"hi\""));
+        assertEquals("\"two\nlines\"", csv("two\nlines"));
+        assertEquals("", csv(null));
+        assertEquals("AQI=", csv(new byte[]{1, 2}));
+    }
+
+    @Test
+    void tsvEscapesControlCharacters() throws Exception {
+        StringWriter out = new StringWriter();
+        DelimitedText.writeField(out, "a\tb\nc\\d", '\t');
+        assertEquals("a\\tb\\nc\\\\d", out.toString());
+    }
+
+    @Test
+    void jsonStringContentWriterEscapes() throws Exception {
+        StringWriter out = new StringWriter();
+        try (DelimitedText.JsonStringContentWriter writer = new DelimitedText.JsonStringContentWriter(out)) {
+            writer.write("\"x\"\\\n\u0001");
+        }
+        assertEquals("\\\"x\\\"\\\\\\n\\u0001", out.toString());
+    }
+
+    @Test
+    void resultFormatParsesNames() {
+        assertEquals(ResultFormat.OBJECTS, ResultFormat.parse(null));
+        assertEquals(ResultFormat.COMPACT, ResultFormat.parse("Compact"));
+        assertEquals('\t', ResultFormat.parse("tsv").delimiter());
+        assertThrows(IllegalArgumentException.class, () -> ResultFormat.parse("xml"));
+    }
+
+    private static String csv(Object value) throws Exception {
+        StringWriter out = new StringWriter();
+        DelimitedText.writeField(out, value, ',');
+        return out.toString();
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.mcp.sqlite.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EnvTest {
+
+    @Test
+    void unsetOrBlankYieldsFallback() {
+        assertEquals(7, Env.intValue("MCP_TEST", null, 7));
+        assertEquals(7, Env.intValue("MCP_TEST", "  ", 7));
+        assertEquals(7L, Env.longValue("MCP_TEST", "", 7L));
+    }
+
+    @Test
+    void parsesTrimmedNumbers() {
+        assertEquals(42, Env.intValue("MCP_TEST", " 42 ", 7));
+        assertEquals(-1, Env.intValue("MCP_TEST", "-1", 7));
+        assertEquals(5_000_000_000L, Env.longValue("MCP_TEST", "5000000000", 7L));
+    }
+
+    @Test
+    void rejectsInvalidValuesWithTheVariableName() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> Env.intValue("MCP_TEST", "ten", 7));
+        assertEquals("MCP_TEST must be an integer, but was: ten", e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> Env.intValue("MCP_TEST", "5000000000", 7));
+        assertTrue(assertThrows(IllegalArgumentException.class, () -> Env.longValue("MCP_TEST", "1.5", 7L))
+                .getMessage().startsWith("MCP_TEST"));
+    }
+}
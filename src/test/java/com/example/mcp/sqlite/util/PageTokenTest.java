@@ -0,0 +1,76 @@
+package com.example.mcp.sqlite.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PageTokenTest {
+
+    @Test
+    void roundTripKeepsStorageClasses() {
+        PageToken token = new PageToken("orders", List.of("tenant", "id", "ref", "tag", "note"),
+                Arrays.asList(9_007_199_254_740_993L, 2, 1.5, new byte[]{0, -1}, null), "q1");
+
+        String encoded = token.encode();
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"), "token must be URL safe");
+        PageToken decoded = PageToken.decode(encoded);
+
+        assertEquals("orders", decoded.table());
+        assertEquals(token.keyColumns(), decoded.keyColumns());
+        assertEquals("q1", decoded.queryHash());
+        assertEquals(9_007_199_254_740_993L, decoded.values().get(0));
+        assertEquals(2L, decoded.values().get(1));
+        assertEquals(1.5, decoded.values().get(2));
+        assertArrayEquals(new byte[]{0, -1}, (byte[]) decoded.values().get(3));
+        assertNull(decoded.values().get(4));
+    }
+
+    @Test
+    void textKeysRoundTrip() {
+        PageToken decoded = PageToken.decode(new PageToken("t", List.of("code"), List.of("a\"b"), "q").encode());
+        assertEquals(List.of("a\"b"), decoded.values());
+    }
+
+    @Test
+    void malformedTokenIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> PageToken.decode("not a token"));
+        assertThrows(IllegalArgumentException.class, () -> PageToken.decode("e30"));
+    }
+
+    @Test
+    void valuesMustMatchKeyColumns() {
+        assertThrows(IllegalArgumentException.class, () -> new PageToken("t", List.of("a", "b"), List.of(1L), "q"));
+    }
+
+    @Test
+    void tokenIsOnlyAcceptedForTheQueryThatIssuedIt() {
+        Map<String, Object> filters = new LinkedHashMap<>();
+        filters.put("status", "open");
+        filters.put("tenant", 7.0);
+        Map<String, Object> reordered = new LinkedHashMap<>();
+        reordered.put("tenant", 7.0);
+        reordered.put("status", "open");
+        String hash = PageToken.queryHash(List.of("id", "name"), filters);
+        assertEquals(hash, PageToken.queryHash(List.of("id", "name"), reordered));
+
+        PageToken token = PageToken.decode(new PageToken("orders", List.of("rowid"), List.of(5L), hash).encode());
+        token.checkIssuedFor("orders", List.of("rowid"), hash);
+        String otherValue = PageToken.queryHash(List.of("id", "name"), Map.of("status", "closed", "tenant", 7.0));
+        String fewerFilters = PageToken.queryHash(List.of("id", "name"), Map.of("status", "open"));
+        String allColumns = PageToken.queryHash(null, filters);
+        assertThrows(IllegalArgumentException.class, () -> token.checkIssuedFor("orders", List.of("rowid"), otherValue));
+        assertThrows(IllegalArgumentException.class, () -> token.checkIssuedFor("orders", List.of("rowid"), fewerFilters));
+        assertThrows(IllegalArgumentException.class, () -> token.checkIssuedFor("orders", List.of("rowid"), allColumns));
+        assertThrows(IllegalArgumentException.class,
+                () -> token.checkIssuedFor("invoices", List.of("rowid"), hash));
+    }
+}
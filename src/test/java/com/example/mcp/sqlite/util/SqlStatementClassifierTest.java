@@ -0,0 +1,74 @@
+package com.example.mcp.sqlite.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SqlStatementClassifierTest {
+
+    @Test
+    void queriesAreReadOnly() {
+        assertTrue(SqlStatementClassifier.isReadOnly("select * from t"));
+        assertTrue(SqlStatementClassifier.isReadOnly("  -- latest\n/* rows */ SELECT 1;"));
+        assertTrue(SqlStatementClassifier.isReadOnly("VALUES (1), (2)"));
+        assertTrue(SqlStatementClassifier.isReadOnly("EXPLAIN QUERY PLAN SELECT * FROM t"));
+        assertTrue(SqlStatementClassifier.isReadOnly("PRAGMA table_info(t)"));
+        assertTrue(SqlStatementClassifier.isReadOnly("PRAGMA main.index_list('t')"));
+        assertTrue(SqlStatementClassifier.isReadOnly("PRAGMA data_version"));
+        assertTrue(SqlStatementClassifier.isReadOnly("pragma user_version;"));
+        assertTrue(SqlStatementClassifier.isReadOnly("WITH x AS (SELECT 1) SELECT * FROM x"));
+    }
+
+    @Test
+    void modificationsAreWrites() {
+        assertFalse(SqlStatementClassifier.isReadOnly("INSERT INTO t VALUES (1)"));
+        assertFalse(SqlStatementClassifier.isReadOnly("update t set a = 1"));
+        assertFalse(SqlStatementClassifier.isReadOnly("CREATE TABLE t (a)"));
+        assertFalse(SqlStatementClassifier.isReadOnly("PRAGMA user_version = 3"));
+        assertFalse(SqlStatementClassifier.isReadOnly("PRAGMA user_version(5)"));
+        assertFalse(SqlStatementClassifier.isReadOnly("PRAGMA main.journal_mode(WAL)"));
+        assertFalse(SqlStatementClassifier.isReadOnly("PRAGMA optimize"));
+        assertFalse(SqlStatementClassifier.isReadOnly("PRAGMA wal_checkpoint(TRUNCATE)"));
+        assertFalse(SqlStatementClassifier.isReadOnly("PRAGMA incremental_vacuum(100)"));
+        assertFalse(SqlStatementClassifier.isReadOnly("PRAGMA shrink_memory"));
+        assertFalse(SqlStatementClassifier.isReadOnly("BEGIN"));
+        assertFalse(SqlStatementClassifier.isReadOnly("WITH old AS (SELECT id FROM t) DELETE FROM t WHERE id IN old"));
+        assertFalse(SqlStatementClassifier.isReadOnly("SELECT 1; DROP TABLE t"));
+        assertFalse(SqlStatementClassifier.isReadOnly("   "));
+        assertFalse(SqlStatementClassifier.isReadOnly(null));
+    }
+
+    @Test
+    void keywordsInsideLiteralsAndSubqueriesAreIgnored() {
+        assertTrue(SqlStatementClassifier.isReadOnly("SELECT 'x; DELETE FROM t' AS \"update\" FROM [insert]"));
+        assertTrue(SqlStatementClassifier.isReadOnly("WITH d(\"delete\") AS (VALUES ('; UPDATE t')) SELECT * FROM d"));
+        assertFalse(SqlStatementClassifier.isReadOnly("WITH s AS (SELECT 1) INSERT INTO t SELECT * FROM s"));
+    }
+
+    @Test
+    void onlyDeterministicSingleQueriesAreCacheable() {
+        assertTrue(SqlStatementClassifier.isCacheable("SELECT name, count(*) FROM t WHERE \"date\" > '2024-01-01' GROUP BY name"));
+        assertTrue(SqlStatementClassifier.isCacheable("WITH x AS (SELECT 1) SELECT * FROM x"));
+        assertTrue(SqlStatementClassifier.isCacheable("SELECT 'random()' AS text"));
+        assertFalse(SqlStatementClassifier.isCacheable("SELECT abs(random()) FROM t"));
+        assertFalse(SqlStatementClassifier.isCacheable("SELECT * FROM t WHERE created > datetime('now', '-1 day')"));
+        assertFalse(SqlStatementClassifier.isCacheable("SELECT CURRENT_TIMESTAMP"));
+        assertFalse(SqlStatementClassifier.isCacheable("SELECT last_insert_rowid()"));
+        assertFalse(SqlStatementClassifier.isCacheable("SELECT * FROM pragma_data_version"));
+        assertFalse(SqlStatementClassifier.isCacheable("PRAGMA table_info(t)"));
+        assertFalse(SqlStatementClassifier.isCacheable("EXPLAIN QUERY PLAN SELECT * FROM t"));
+        assertFalse(SqlStatementClassifier.isCacheable("SELECT 1; SELECT 2"));
+        assertFalse(SqlStatementClassifier.isCacheable("INSERT INTO t VALUES (1)"));
+        assertFalse(SqlStatementClassifier.isCacheable(null));
+    }
+
+    @Test
+    void normalizeCollapsesWhitespaceAndComments() {
+        assertEquals("SELECT a FROM t WHERE b = 'x  y'",
+                SqlStatementClassifier.normalize("  SELECT a -- first\n  FROM t /* all */\tWHERE b = 'x  y' ; "));
+        assertEquals(SqlStatementClassifier.normalize("select * from t"),
+                SqlStatementClassifier.normalize("select *\n  from t;"));
+    }
+}
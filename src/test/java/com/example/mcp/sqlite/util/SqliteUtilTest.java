@@ -1,7 +1,14 @@
 package com.example.mcp.sqlite.util;
 
+import com.google.gson.stream.JsonWriter;
 import org.junit.jupiter.api.Test;
 
+import java.io.StringWriter;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 class SqliteUtilTest {
@@ -15,4 +22,66 @@ class SqliteUtilTest {
     void quoteLiteralHandlesNull() {
         assertEquals("NULL", SqliteUtil.quoteLiteral(null));
     }
+
+    @Test
+    void columnLayoutCollapsesDuplicateLabels() throws Exception {
+        SqliteUtil.ColumnLayout layout = SqliteUtil.ColumnLayout.of(metaData("id", "name", "id"));
+        assertEquals(List.of("id", "name"), layout.labelList());
+        assertEquals(3, layout.indexes()[0]);
+        assertEquals(2, layout.indexes()[1]);
+    }
+
+    @Test
+    void writeRowWritesJsonObject() throws Exception {
+        Object[] values = {42L, "O'Brien", null, new byte[]{1, -1}};
+        ResultSet rs = resultSet(values);
+        SqliteUtil.ColumnLayout layout = SqliteUtil.ColumnLayout.of(metaData("id", "name", "note", "data"));
+
+        StringWriter out = new StringWriter();
+        JsonWriter json = new JsonWriter(out);
+        json.setSerializeNulls(true);
+        SqliteUtil.writeRow(rs, layout, json);
+        json.flush();
+
+        assertEquals("{\"id\":42,\"name\":\"O'Brien\",\"note\":null,\"data\":[1,-1]}", out.toString());
+    }
+
+    @Test
+    void writeRowArrayAndDelimitedRowUseLayoutOrder() throws Exception {
+        Object[] values = {7L, "a,b", null};
+        ResultSet rs = resultSet(values);
+        SqliteUtil.ColumnLayout layout = SqliteUtil.ColumnLayout.of(metaData("id", "name", "note"));
+
+        StringWriter out = new StringWriter();
+        JsonWriter json = new JsonWriter(out);
+        json.setSerializeNulls(true);
+        SqliteUtil.writeRowArray(rs, layout, json);
+        json.flush();
+        assertEquals("[7,\"a,b\",null]", out.toString());
+
+        StringWriter csv = new StringWriter();
+        SqliteUtil.writeDelimitedRow(rs, layout, ',', csv);
+        assertEquals("7,\"a,b\",\n", csv.toString());
+    }
+
+    private static ResultSetMetaData metaData(String... labels) {
+        return (ResultSetMetaData) Proxy.newProxyInstance(
+                ResultSetMetaData.class.getClassLoader(),
+                new Class<?>[]{ResultSetMetaData.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getColumnCount" -> labels.length;
+                    case "getColumnLabel" -> labels[(Integer) args[0] - 1];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static ResultSet resultSet(Object[] values) {
+        return (ResultSet) Proxy.newProxyInstance(
+                ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getObject" -> values[(Integer) args[0] - 1];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
 }
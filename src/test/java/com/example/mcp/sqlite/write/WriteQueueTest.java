@@ -0,0 +1,159 @@
+package com.example.mcp.sqlite.write;
+
+import com.example.mcp.sqlite.config.CipherProfile;
+import com.example.mcp.sqlite.config.DatabaseConfig;
+import com.example.mcp.sqlite.config.TuningProfile;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WriteQueueTest {
+    private static final DatabaseConfig CONFIG =
+            new DatabaseConfig(Path.of("write-queue-test.sqlite"), "secret", CipherProfile.sqlCipher4Defaults());
+
+    private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+    private final ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor();
+    private volatile boolean failCommit;
+
+    @Test
+    void concurrentWritesShareOneCommit() throws Exception {
+        WriteQueue queue = queue(4);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            int value = i;
+            results.add(callers.submit(() -> queue.submit(CONFIG, connection -> value)));
+        }
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, (int) results.get(i).get());
+        }
+        assertEquals(1, events.stream().filter("commit"::equals).count());
+        assertEquals(4, events.stream().filter("release"::equals).count());
+        assertEquals(1, queue.batches());
+        assertEquals(4, queue.operations());
+        queue.close();
+    }
+
+    @Test
+    void failingWriteIsRolledBackToItsSavepoint() throws Exception {
+        WriteQueue queue = queue(3);
+        SQLException failure = new SQLException("constraint failed");
+        Future<String> first = callers.submit(() -> queue.submit(CONFIG, connection -> "a"));
+        Future<String> failing = callers.submit(() -> queue.submit(CONFIG, connection -> {
+            throw failure;
+        }));
+        Future<String> last = callers.submit(() -> queue.submit(CONFIG, connection -> "c"));
+
+        assertEquals("a", first.get());
+        assertEquals("c", last.get());
+        Exception thrown = assertThrows(Exception.class, failing::get);
+        assertSame(failure, thrown.getCause());
+        assertTrue(events.contains("rollbackTo"));
+        assertEquals(1, events.stream().filter("commit"::equals).count());
+        queue.close();
+    }
+
+    @Test
+    void failedCommitFailsEveryWrite() throws Exception {
+        failCommit = true;
+        WriteQueue queue = queue(2);
+        Future<String> first = callers.submit(() -> queue.submit(CONFIG, connection -> "a"));
+        Future<String> second = callers.submit(() -> queue.submit(CONFIG, connection -> "b"));
+
+        for (Future<String> result : List.of(first, second)) {
+            Exception thrown = assertThrows(Exception.class, result::get);
+            assertEquals("disk I/O error", thrown.getCause().getMessage());
+        }
+        assertTrue(events.contains("rollback"));
+        assertEquals("autoCommit=true", events.get(events.size() - 1));
+        queue.close();
+    }
+
+    @Test
+    void tuningOverridesShareTheLaneOfTheirDatabase() throws Exception {
+        WriteQueue queue = queue(3);
+        DatabaseConfig tuned = new DatabaseConfig(CONFIG.databasePath(), CONFIG.passphrase(), CONFIG.cipherProfile(),
+                TuningProfile.defaults().toBuilder().resultCacheSize(1 << 20).build());
+        DatabaseConfig relative = new DatabaseConfig(Path.of(".", "write-queue-test.sqlite"), "secret",
+                CipherProfile.sqlCipher4Defaults());
+        List<Future<String>> results = List.of(
+                callers.submit(() -> queue.submit(CONFIG, connection -> "a")),
+                callers.submit(() -> queue.submit(tuned, connection -> "b")),
+                callers.submit(() -> queue.submit(relative, connection -> "c")));
+
+        for (Future<String> result : results) {
+            result.get();
+        }
+        assertEquals(1, events.stream().filter("commit"::equals).count());
+        assertEquals(1, queue.batches());
+        queue.close();
+    }
+
+    @Test
+    void rejectsWritesAfterClose() {
+        WriteQueue queue = queue(1);
+        queue.close();
+        assertThrows(IllegalStateException.class, () -> queue.submit(CONFIG, connection -> 1));
+    }
+
+    private WriteQueue queue(int maxBatchSize) {
+        // A long window makes the batch size deterministic: the batch runs once it is full
+        WriteQueueSettings settings = new WriteQueueSettings(maxBatchSize, Duration.ofSeconds(10));
+        Connection connection = connection();
+        return new WriteQueue(settings, (config, batch) -> batch.apply(connection));
+    }
+
+    private Connection connection() {
+        Savepoint savepoint = (Savepoint) Proxy.newProxyInstance(
+                Savepoint.class.getClassLoader(),
+                new Class<?>[]{Savepoint.class},
+                (proxy, method, args) -> {
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "setAutoCommit" -> {
+                        events.add("autoCommit=" + args[0]);
+                        yield null;
+                    }
+                    case "setSavepoint" -> {
+                        events.add("savepoint");
+                        yield savepoint;
+                    }
+                    case "releaseSavepoint" -> {
+                        events.add("release");
+                        yield null;
+                    }
+                    case "rollback" -> {
+                        events.add(args == null ? "rollback" : "rollbackTo");
+                        yield null;
+                    }
+                    case "commit" -> {
+                        if (failCommit) {
+                            throw new SQLException("disk I/O error");
+                        }
+                        events.add("commit");
+                        yield null;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}